@@ -0,0 +1,58 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Sizes and synthetic MNIST-shaped data shared by the benchmark fixtures.
+**/
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class FixtureData {
+	static final int NUM_INPUTS = 28 * 28;
+	static final int NUM_CLASSES = 10;
+	static final int NUM_LAYERS = 3;
+	static final int NODES_IN_HL = 100;
+	static final int BATCH = 256;
+	
+	static Matrix randomMatrix(int height, int width, Precision precision, Random random)
+	{
+		Matrix m = new Matrix(height, width);
+		m.populateRandom(random);
+		return m.toPrecision(precision);
+	}
+	
+	/**
+	 * @return {inputs, one-hot targets} with one random sample per column.
+	 */
+	static Matrix[] syntheticBatch(int size, Precision precision, Random random)
+	{
+		Matrix x = new Matrix(NUM_INPUTS, size, precision);
+		Matrix y = new Matrix(NUM_CLASSES, size, precision);
+		for(int j = 0; j < size; j++)
+		{
+			for(int i = 0; i < NUM_INPUTS; i++)
+			{
+				x.setElement(i, j, random.nextDouble());
+			}
+			y.setElement(random.nextInt(NUM_CLASSES), j, 1);
+		}
+		return new Matrix[] {x, y};
+	}
+	
+	static ListDataset syntheticDataset(int size, Precision precision, Random random)
+	{
+		List<Matrix[]> samples = new ArrayList<>();
+		for(int s = 0; s < size; s++)
+		{
+			samples.add(syntheticBatch(1, precision, random));
+		}
+		return new ListDataset(samples);
+	}
+	
+	static NeuralNet newNet(Precision precision)
+	{
+		NeuralNet net = new NeuralNet(NUM_INPUTS, NUM_CLASSES, NUM_LAYERS, NODES_IN_HL, precision);
+		net.setDeterministic(true);
+		return net;
+	}
+}
@@ -0,0 +1,85 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Temporary files for the IOManager benchmarks: a CSV and a binary dataset of FILE_SAMPLES random
+ * MNIST-shaped samples, and a 784-100-100-10 network saved in the binary model format and by serialization.
+**/
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Random;
+
+public class IOFixture implements bench.IOOps {
+	private static final int FILE_SAMPLES = 1000;
+	
+	private final IOManager io = new IOManager();
+	private final File csv;
+	private final File bin;
+	private final File model;
+	private final File ser;
+	
+	public IOFixture() throws IOException
+	{
+		Random random = new Random(1);
+		csv = File.createTempFile("benchmark", ".csv");
+		bin = File.createTempFile("benchmark", ".bin");
+		model = File.createTempFile("benchmark", ".nnm");
+		ser = File.createTempFile("benchmark", ".ser");
+		
+		try (PrintWriter writer = new PrintWriter(csv)) {
+			for(int s = 0; s < FILE_SAMPLES; s++)
+			{
+				StringBuilder line = new StringBuilder().append(random.nextInt(FixtureData.NUM_CLASSES));
+				for(int i = 0; i < FixtureData.NUM_INPUTS; i++)
+				{
+					line.append(',').append(random.nextInt(256));
+				}
+				writer.println(line);
+			}
+		}
+		ArrayList<Matrix[]> parsed = new ArrayList<>();
+		io.parseCSV(csv.getPath(), parsed);
+		io.saveBinary(bin.getPath(), parsed);
+		NeuralNet net = FixtureData.newNet(Precision.DOUBLE);
+		io.save(model.getPath(), net);
+		io.save(ser.getPath(), net);
+	}
+	
+	@Override
+	public Object parseCSV() throws IOException
+	{
+		ArrayList<Matrix[]> dataset = new ArrayList<>();
+		io.parseCSV(csv.getPath(), dataset);
+		return dataset;
+	}
+	
+	@Override
+	public Object loadBinary() throws IOException
+	{
+		ArrayList<Matrix[]> dataset = new ArrayList<>();
+		io.loadBinary(bin.getPath(), dataset);
+		return dataset;
+	}
+	
+	@Override
+	public Object loadModel() throws Exception
+	{
+		return io.load(model.getPath());
+	}
+	
+	@Override
+	public Object loadSerialized() throws Exception
+	{
+		return io.load(ser.getPath());
+	}
+	
+	@Override
+	public void close()
+	{
+		csv.delete();
+		bin.delete();
+		model.delete();
+		ser.delete();
+	}
+}
@@ -0,0 +1,139 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Operands and output buffers for the MatrixUtil benchmarks, created once from a fixed seed, with every
+ * output preallocated so that only the operation itself is measured.
+**/
+
+import java.util.Random;
+
+public class MatrixFixture implements bench.MatrixOps {
+	private final Matrix w;
+	private final Matrix other;
+	private final Matrix x;
+	private final Matrix delta;
+	private final Matrix xs;
+	private final Matrix square;
+	private final Matrix z;
+	private final Matrix out;
+	private final Matrix outT;
+	private final Matrix outV;
+	private final Matrix outX;
+	private final Matrix outB;
+	private final Matrix outS;
+	private final Matrix m1;
+	private final Matrix m2;
+	private final Matrix scratch;
+	private Activation activation = Activation.SIGMOID;
+	
+	/**
+	 * @param precision Name of the Precision of every matrix.
+	 */
+	public MatrixFixture(String precision)
+	{
+		Precision p = Precision.valueOf(precision);
+		Random random = new Random(1);
+		
+		w = FixtureData.randomMatrix(FixtureData.NODES_IN_HL, FixtureData.NUM_INPUTS, p, random);
+		other = FixtureData.randomMatrix(FixtureData.NODES_IN_HL, FixtureData.NUM_INPUTS, p, random);
+		x = FixtureData.randomMatrix(FixtureData.NUM_INPUTS, 1, p, random);
+		delta = FixtureData.randomMatrix(FixtureData.NODES_IN_HL, 1, p, random);
+		xs = FixtureData.randomMatrix(FixtureData.NUM_INPUTS, FixtureData.BATCH, p, random);
+		square = FixtureData.randomMatrix(256, 256, p, random);
+		z = FixtureData.randomMatrix(FixtureData.NODES_IN_HL, FixtureData.BATCH, p, random);
+		out = new Matrix(FixtureData.NODES_IN_HL, FixtureData.NUM_INPUTS, p);
+		outT = new Matrix(FixtureData.NUM_INPUTS, FixtureData.NODES_IN_HL, p);
+		outV = new Matrix(FixtureData.NODES_IN_HL, 1, p);
+		outX = new Matrix(FixtureData.NUM_INPUTS, 1, p);
+		outB = new Matrix(FixtureData.NODES_IN_HL, FixtureData.BATCH, p);
+		outS = new Matrix(256, 256, p);
+		m1 = new Matrix(FixtureData.NODES_IN_HL, FixtureData.NUM_INPUTS, p);
+		m2 = new Matrix(FixtureData.NODES_IN_HL, FixtureData.NUM_INPUTS, p);
+		scratch = new Matrix(FixtureData.NODES_IN_HL, FixtureData.BATCH, p);
+	}
+	
+	@Override
+	public Object matMulVector()
+	{
+		return MatrixUtil.matMul(w, x, outV);
+	}
+	
+	@Override
+	public Object matMulTransAVector()
+	{
+		return MatrixUtil.matMulTransA(w, delta, outX);
+	}
+	
+	@Override
+	public Object matMulBatch()
+	{
+		return MatrixUtil.matMul(w, xs, outB);
+	}
+	
+	@Override
+	public Object matMulSquare()
+	{
+		return MatrixUtil.matMul(square, square, outS);
+	}
+	
+	@Override
+	public Object matAdd()
+	{
+		return MatrixUtil.matAdd(w, other, out);
+	}
+	
+	@Override
+	public Object pairwiseMul()
+	{
+		return MatrixUtil.pairwiseMul(w, other, out);
+	}
+	
+	@Override
+	public Object transpose()
+	{
+		return MatrixUtil.transpose(w, outT);
+	}
+	
+	@Override
+	public Object axpy()
+	{
+		return MatrixUtil.axpy(-1e-9, other, out);
+	}
+	
+	@Override
+	public Object momentumUpdate()
+	{
+		return MatrixUtil.momentumUpdate(1e-3, 0.9, 1e-6, true, other, m1, out);
+	}
+	
+	@Override
+	public Object rmspropUpdate()
+	{
+		return MatrixUtil.rmspropUpdate(1e-3, 0.9, 1e-6, 1e-8, other, m1, out);
+	}
+	
+	@Override
+	public Object adamUpdate()
+	{
+		return MatrixUtil.adamUpdate(1e-3, 0.9, 0.999, 1e-6, 1e-8, 100, other, m1, m2, out);
+	}
+	
+	@Override
+	public void useActivation(String activation)
+	{
+		this.activation = Activation.valueOf(activation);
+	}
+	
+	@Override
+	public Object applyActivation()
+	{
+		if (z.getPrecision() == Precision.FLOAT)
+		{
+			System.arraycopy(z.getFloatData(), 0, scratch.getFloatData(), 0, z.getFloatData().length);
+		}
+		else
+		{
+			System.arraycopy(z.getData(), 0, scratch.getData(), 0, z.getData().length);
+		}
+		return MatrixUtil.applyActivation(activation, scratch);
+	}
+}
@@ -0,0 +1,104 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: A 784-100-100-10 network with a synthetic batch, an epoch of synthetic samples and the engines built from it,
+ * for the NeuralNet benchmarks.
+**/
+
+import java.util.Random;
+
+public class NetworkFixture implements bench.NetworkOps {
+	private static final int EPOCH_SAMPLES = 6000;
+	
+	private final NeuralNet net;
+	// Separate networks, so that the backward pass always sees the activations of its batch, and each epoch starts from trained weights
+	private final NeuralNet backward;
+	private final NeuralNet epochNet;
+	private final Matrix sample;
+	private final Matrix[] batch;
+	private final Matrix[] activations;
+	private final ListDataset epoch;
+	private final InferenceEngine engine;
+	private final QuantizedEngine quantized;
+	private final float[] pixels;
+	
+	/**
+	 * @param precision Name of the Precision of the networks and data.
+	 */
+	public NetworkFixture(String precision)
+	{
+		Precision p = Precision.valueOf(precision);
+		Random random = new Random(1);
+		
+		net = FixtureData.newNet(p);
+		epochNet = FixtureData.newNet(p);
+		sample = FixtureData.syntheticBatch(1, p, random)[0];
+		batch = FixtureData.syntheticBatch(FixtureData.BATCH, p, random);
+		epoch = FixtureData.syntheticDataset(EPOCH_SAMPLES, p, random);
+		backward = FixtureData.newNet(p);
+		activations = backward.feedForward(batch[0]);
+		
+		engine = new InferenceEngine(net);
+		quantized = QuantizedEngine.quantize(net, FixtureData.syntheticDataset(FixtureData.BATCH, p, new Random(2)), FixtureData.BATCH, new Random(2));
+		pixels = new float[FixtureData.NUM_INPUTS];
+		for(int i = 0; i < pixels.length; i++)
+		{
+			pixels[i] = random.nextFloat();
+		}
+	}
+	
+	/**
+	 * @param precision Name of the Precision of the networks and data.
+	 * @param threads Number of threads the networks train with.
+	 */
+	public NetworkFixture(String precision, String threads)
+	{
+		this(precision);
+		net.setNumThreads(Integer.parseInt(threads));
+		epochNet.setNumThreads(Integer.parseInt(threads));
+	}
+	
+	@Override
+	public Object feedForwardSample()
+	{
+		return net.feedForward(sample);
+	}
+	
+	@Override
+	public Object feedForwardBatch()
+	{
+		return net.feedForward(batch[0]);
+	}
+	
+	@Override
+	public Object backpropegateBatch()
+	{
+		backward.backpropegate(activations, batch[1]);
+		return backward;
+	}
+	
+	@Override
+	public Object trainBatch()
+	{
+		net.trainBatch(batch[0], batch[1]);
+		return net;
+	}
+	
+	@Override
+	public Object epoch()
+	{
+		epochNet.partialFit(epoch);
+		return epochNet;
+	}
+	
+	@Override
+	public Object classify()
+	{
+		return engine.classify(pixels);
+	}
+	
+	@Override
+	public Object classifyQuantized()
+	{
+		return quantized.classify(pixels);
+	}
+}
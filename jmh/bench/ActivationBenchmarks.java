@@ -0,0 +1,48 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: JMH benchmarks of every activation function over a 100 x 256 batch, in both precisions.
+**/
+
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ActivationBenchmarks {
+	@Param({"SIGMOID", "FAST_SIGMOID", "TANH", "RELU", "LEAKY_RELU", "SOFTMAX"})
+	public String activation;
+	
+	@Param({"DOUBLE", "FLOAT"})
+	public String precision;
+	
+	private MatrixOps ops;
+	
+	@Setup
+	public void setUp() throws ReflectiveOperationException
+	{
+		ops = Fixtures.create(MatrixOps.class, "MatrixFixture", precision);
+		ops.useActivation(activation);
+	}
+	
+	@Benchmark
+	public Object applyActivation()
+	{
+		return ops.applyActivation();
+	}
+}
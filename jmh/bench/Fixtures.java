@@ -0,0 +1,28 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Creates the fixtures the benchmarks drive. JMH refuses benchmarks in the default package, and code in a
+ * named package cannot refer to the default package, so each benchmark class here calls an interface of this package
+ * (MatrixOps, NetworkOps, IOOps) implemented by a fixture class in the default package, which can refer to both.
+ * Every interface has exactly one implementation, so the JIT inlines the calls and the bridge costs nothing measurable.
+**/
+
+package bench;
+
+final class Fixtures {
+	private Fixtures()
+	{
+	}
+	
+	/**
+	 * @param type Interface the fixture implements.
+	 * @param fixture Name of the default-package class implementing it, which has a constructor taking args.length strings.
+	 * @param args
+	 * @return A new instance of the fixture.
+	 */
+	static <T> T create(Class<T> type, String fixture, String... args) throws ReflectiveOperationException
+	{
+		Class<?>[] parameters = new Class<?>[args.length];
+		java.util.Arrays.fill(parameters, String.class);
+		return type.cast(Class.forName(fixture).getConstructor(parameters).newInstance((Object[])args));
+	}
+}
@@ -0,0 +1,66 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: JMH benchmarks of reading datasets and networks from temporary files. See IOOps.
+**/
+
+package bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class IOBenchmarks {
+	private IOOps ops;
+	
+	@Setup
+	public void setUp() throws ReflectiveOperationException
+	{
+		ops = Fixtures.create(IOOps.class, "IOFixture");
+	}
+	
+	@TearDown
+	public void tearDown() throws IOException
+	{
+		ops.close();
+	}
+	
+	@Benchmark
+	public Object parseCSV() throws Exception
+	{
+		return ops.parseCSV();
+	}
+	
+	@Benchmark
+	public Object loadBinary() throws Exception
+	{
+		return ops.loadBinary();
+	}
+	
+	@Benchmark
+	public Object loadModel() throws Exception
+	{
+		return ops.loadModel();
+	}
+	
+	@Benchmark
+	public Object loadSerialized() throws Exception
+	{
+		return ops.loadSerialized();
+	}
+}
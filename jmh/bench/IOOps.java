@@ -0,0 +1,21 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: The IOManager readers benchmarked by IOBenchmarks, on temporary files of 1000 MNIST-shaped samples
+ * and a saved 784-100-100-10 network. Implemented by IOFixture; close deletes the files.
+**/
+
+package bench;
+
+import java.io.Closeable;
+
+public interface IOOps extends Closeable {
+	Object parseCSV() throws Exception;
+	
+	Object loadBinary() throws Exception;
+	
+	/** IOManager.load of a binary model. */
+	Object loadModel() throws Exception;
+	
+	/** IOManager.load of a serialized network. */
+	Object loadSerialized() throws Exception;
+}
@@ -0,0 +1,105 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: JMH benchmarks of the MatrixUtil products and element-wise operations the network spends its time in,
+ * in both precisions. See MatrixOps for the shapes.
+**/
+
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MatrixBenchmarks {
+	@Param({"DOUBLE", "FLOAT"})
+	public String precision;
+	
+	private MatrixOps ops;
+	
+	@Setup
+	public void setUp() throws ReflectiveOperationException
+	{
+		ops = Fixtures.create(MatrixOps.class, "MatrixFixture", precision);
+	}
+	
+	@Benchmark
+	public Object matMulVector()
+	{
+		return ops.matMulVector();
+	}
+	
+	@Benchmark
+	public Object matMulTransAVector()
+	{
+		return ops.matMulTransAVector();
+	}
+	
+	@Benchmark
+	public Object matMulBatch()
+	{
+		return ops.matMulBatch();
+	}
+	
+	@Benchmark
+	public Object matMulSquare()
+	{
+		return ops.matMulSquare();
+	}
+	
+	@Benchmark
+	public Object matAdd()
+	{
+		return ops.matAdd();
+	}
+	
+	@Benchmark
+	public Object pairwiseMul()
+	{
+		return ops.pairwiseMul();
+	}
+	
+	@Benchmark
+	public Object transpose()
+	{
+		return ops.transpose();
+	}
+	
+	@Benchmark
+	public Object axpy()
+	{
+		return ops.axpy();
+	}
+	
+	@Benchmark
+	public Object momentumUpdate()
+	{
+		return ops.momentumUpdate();
+	}
+	
+	@Benchmark
+	public Object rmspropUpdate()
+	{
+		return ops.rmspropUpdate();
+	}
+	
+	@Benchmark
+	public Object adamUpdate()
+	{
+		return ops.adamUpdate();
+	}
+}
@@ -0,0 +1,44 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: The MatrixUtil operations benchmarked by MatrixBenchmarks and ActivationBenchmarks, on MNIST-shaped
+ * operands: 100 x 784 weights, single 784 x 1 samples and batches of 256. Implemented by MatrixFixture.
+**/
+
+package bench;
+
+public interface MatrixOps {
+	/** 100x784 * 784x1, one layer's forward pass for a single sample. */
+	Object matMulVector();
+	
+	/** transpose(100x784) * 100x1, one layer's backward pass for a single sample. */
+	Object matMulTransAVector();
+	
+	/** 100x784 * 784x256, one layer's forward pass for a batch, the batch GEMM. */
+	Object matMulBatch();
+	
+	/** 256x256 * 256x256 */
+	Object matMulSquare();
+	
+	Object matAdd();
+	
+	Object pairwiseMul();
+	
+	Object transpose();
+	
+	/** The SGD update, w = w + alpha * g. */
+	Object axpy();
+	
+	Object momentumUpdate();
+	
+	Object rmspropUpdate();
+	
+	Object adamUpdate();
+	
+	/**
+	 * @param activation Name of the Activation used by applyActivation.
+	 */
+	void useActivation(String activation);
+	
+	/** The activation over a 100x256 batch, restored from the same input every time. */
+	Object applyActivation();
+}
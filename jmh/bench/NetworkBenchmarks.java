@@ -0,0 +1,84 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: JMH benchmarks of a network's forward and backward passes, a training step, a training epoch and
+ * float and int8 inference, in both precisions. See NetworkOps.
+**/
+
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class NetworkBenchmarks {
+	@Param({"DOUBLE", "FLOAT"})
+	public String precision;
+	
+	private NetworkOps ops;
+	
+	@Setup
+	public void setUp() throws ReflectiveOperationException
+	{
+		ops = Fixtures.create(NetworkOps.class, "NetworkFixture", precision);
+	}
+	
+	@Benchmark
+	public Object feedForwardSample()
+	{
+		return ops.feedForwardSample();
+	}
+	
+	@Benchmark
+	public Object feedForwardBatch()
+	{
+		return ops.feedForwardBatch();
+	}
+	
+	@Benchmark
+	public Object backpropegateBatch()
+	{
+		return ops.backpropegateBatch();
+	}
+	
+	@Benchmark
+	public Object trainBatch()
+	{
+		return ops.trainBatch();
+	}
+	
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 3, time = 2)
+	@Measurement(iterations = 5, time = 2)
+	public Object epoch()
+	{
+		return ops.epoch();
+	}
+	
+	@Benchmark
+	public Object classify()
+	{
+		return ops.classify();
+	}
+	
+	@Benchmark
+	public Object classifyQuantized()
+	{
+		return ops.classifyQuantized();
+	}
+}
@@ -0,0 +1,30 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: The NeuralNet paths benchmarked by NetworkBenchmarks, on a 784-100-100-10 network and synthetic
+ * MNIST-shaped data. Implemented by NetworkFixture.
+**/
+
+package bench;
+
+public interface NetworkOps {
+	/** feedForward of one sample. */
+	Object feedForwardSample();
+	
+	/** feedForward of a batch of 256. */
+	Object feedForwardBatch();
+	
+	/** backpropegate of a batch of 256, from activations computed once. */
+	Object backpropegateBatch();
+	
+	/** One step of gradient descent on a batch of 256, feedForward, backpropegate and the update. */
+	Object trainBatch();
+	
+	/** One epoch of partialFit over 6000 samples. */
+	Object epoch();
+	
+	/** InferenceEngine.classify of one sample. */
+	Object classify();
+	
+	/** QuantizedEngine.classify of one sample, with int8 weights. */
+	Object classifyQuantized();
+}
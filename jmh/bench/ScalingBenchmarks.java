@@ -0,0 +1,55 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: JMH benchmarks of how multi-threaded training scales: a training step on a batch of 256 and an epoch
+ * of partialFit, with 1 to 8 threads. Divide the single-threaded score by another to get its speedup. That repeated
+ * runs with the same thread count give the same network is checked by TrainingDeterminismTest.
+**/
+
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ScalingBenchmarks {
+	@Param({"1", "2", "4", "8"})
+	public String threads;
+	
+	private NetworkOps ops;
+	
+	@Setup
+	public void setUp() throws ReflectiveOperationException
+	{
+		ops = Fixtures.create(NetworkOps.class, "NetworkFixture", "DOUBLE", threads);
+	}
+	
+	@Benchmark
+	public Object trainBatch()
+	{
+		return ops.trainBatch();
+	}
+	
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 3, time = 2)
+	@Measurement(iterations = 5, time = 2)
+	public Object epoch()
+	{
+		return ops.epoch();
+	}
+}
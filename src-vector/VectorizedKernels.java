@@ -0,0 +1,613 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: SIMD versions of the Kernels loops, using the incubating JDK Vector API.
+ * Kept out of src because it only compiles and runs with --add-modules jdk.incubator.vector;
+ * Kernels loads it by name at startup and falls back to the scalar loops when it is missing.
+ *
+ * The sigmoid uses its own vectorized exp rather than Math.exp: 2^k times a degree 11 polynomial
+ * on the reduced argument. It agrees with Math.exp to about 1e-14 relative error, and saturates
+ * instead of underflowing below -708. The single precision exp does the same with a degree 7
+ * polynomial, to within a couple of float ulps.
+**/
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+class VectorizedKernels extends Kernels {
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+	// The Gemm micro-kernel holds one 4 wide row of C per register
+	private static final VectorSpecies<Double> TILE = DoubleVector.SPECIES_256;
+	private static final boolean VECTOR_TILE = SPECIES.length() >= Gemm.NR && Gemm.NR == TILE.length();
+	
+	private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_PREFERRED;
+	private static final VectorSpecies<Float> FLOAT_TILE = FloatVector.SPECIES_256;
+	private static final boolean VECTOR_FLOAT_TILE = FLOAT_SPECIES.length() >= Gemm.NR_FLOAT && Gemm.NR_FLOAT == FLOAT_TILE.length();
+	
+	// int8 dot products widen 8 bytes at a time into 8 int lanes
+	private static final VectorSpecies<Byte> INT8_SPECIES = ByteVector.SPECIES_64;
+	private static final VectorSpecies<Integer> INT8_ACC = IntVector.SPECIES_256;
+	private static final boolean VECTOR_INT8 = IntVector.SPECIES_PREFERRED.length() >= INT8_ACC.length();
+	
+	// exp(x) = 2^k * exp(r), k = round(x / ln 2), r = x - k * ln 2 split in two parts for accuracy
+	private static final double LOG2E = 1.4426950408889634;
+	private static final double LN2_HI = 6.93147180369123816490e-01;
+	private static final double LN2_LO = 1.90821492927058770002e-10;
+	// Adding then subtracting 1.5 * 2^52 rounds to the nearest integer, and leaves it in the low bits
+	private static final double ROUND = 6755399441055744.0;
+	private static final long ROUND_BITS = Double.doubleToRawLongBits(ROUND);
+	// Keep 2^k a normal double
+	private static final double EXP_MIN = -708.0;
+	private static final double EXP_MAX = 709.0;
+	
+	// The same constants for the single precision exp
+	private static final float LOG2E_F = 1.44269504f;
+	private static final float LN2_HI_F = 0.693359375f;
+	private static final float LN2_LO_F = -2.12194440e-4f;
+	// 1.5 * 2^23
+	private static final float ROUND_F = 12582912.0f;
+	private static final int ROUND_BITS_F = Float.floatToRawIntBits(ROUND_F);
+	private static final float EXP_MIN_F = -87.0f;
+	private static final float EXP_MAX_F = 88.0f;
+	
+	@Override
+	String name()
+	{
+		return "vector (" + SPECIES.length() + " x double)";
+	}
+	
+	@Override
+	void add(double[] a, int ai, double[] b, int bi, double[] out, int oi, int n)
+	{
+		int j = 0;
+		for(int bound = SPECIES.loopBound(n); j < bound; j += SPECIES.length())
+		{
+			DoubleVector.fromArray(SPECIES, a, ai + j).add(DoubleVector.fromArray(SPECIES, b, bi + j)).intoArray(out, oi + j);
+		}
+		for(; j < n; j++)
+		{
+			out[oi + j] = a[ai + j] + b[bi + j];
+		}
+	}
+	
+	@Override
+	void sub(double[] a, int ai, double[] b, int bi, double[] out, int oi, int n)
+	{
+		int j = 0;
+		for(int bound = SPECIES.loopBound(n); j < bound; j += SPECIES.length())
+		{
+			DoubleVector.fromArray(SPECIES, a, ai + j).sub(DoubleVector.fromArray(SPECIES, b, bi + j)).intoArray(out, oi + j);
+		}
+		for(; j < n; j++)
+		{
+			out[oi + j] = a[ai + j] - b[bi + j];
+		}
+	}
+	
+	@Override
+	void mul(double[] a, int ai, double[] b, int bi, double[] out, int oi, int n)
+	{
+		int j = 0;
+		for(int bound = SPECIES.loopBound(n); j < bound; j += SPECIES.length())
+		{
+			DoubleVector.fromArray(SPECIES, a, ai + j).mul(DoubleVector.fromArray(SPECIES, b, bi + j)).intoArray(out, oi + j);
+		}
+		for(; j < n; j++)
+		{
+			out[oi + j] = a[ai + j] * b[bi + j];
+		}
+	}
+	
+	@Override
+	void scale(double scalar, double[] a, int ai, double[] out, int oi, int n)
+	{
+		int j = 0;
+		for(int bound = SPECIES.loopBound(n); j < bound; j += SPECIES.length())
+		{
+			DoubleVector.fromArray(SPECIES, a, ai + j).mul(scalar).intoArray(out, oi + j);
+		}
+		for(; j < n; j++)
+		{
+			out[oi + j] = a[ai + j] * scalar;
+		}
+	}
+	
+	@Override
+	void axpy(double alpha, double[] x, int xi, double[] y, int yi, int n)
+	{
+		DoubleVector va = DoubleVector.broadcast(SPECIES, alpha);
+		int j = 0;
+		for(int bound = SPECIES.loopBound(n); j < bound; j += SPECIES.length())
+		{
+			DoubleVector.fromArray(SPECIES, x, xi + j).fma(va, DoubleVector.fromArray(SPECIES, y, yi + j)).intoArray(y, yi + j);
+		}
+		for(; j < n; j++)
+		{
+			y[yi + j] += alpha * x[xi + j];
+		}
+	}
+	
+	@Override
+	double dot(double[] a, int ai, double[] b, int bi, int n)
+	{
+		DoubleVector acc = DoubleVector.zero(SPECIES);
+		int j = 0;
+		for(int bound = SPECIES.loopBound(n); j < bound; j += SPECIES.length())
+		{
+			acc = DoubleVector.fromArray(SPECIES, a, ai + j).fma(DoubleVector.fromArray(SPECIES, b, bi + j), acc);
+		}
+		double sum = acc.reduceLanes(VectorOperators.ADD);
+		for(; j < n; j++)
+		{
+			sum += a[ai + j] * b[bi + j];
+		}
+		return sum;
+	}
+	
+	@Override
+	double sum(double[] a, int ai, int n)
+	{
+		DoubleVector acc = DoubleVector.zero(SPECIES);
+		int j = 0;
+		for(int bound = SPECIES.loopBound(n); j < bound; j += SPECIES.length())
+		{
+			acc = acc.add(DoubleVector.fromArray(SPECIES, a, ai + j));
+		}
+		double sum = acc.reduceLanes(VectorOperators.ADD);
+		for(; j < n; j++)
+		{
+			sum += a[ai + j];
+		}
+		return sum;
+	}
+	
+	@Override
+	void sigmoidPrimeMul(double[] a, int ai, double[] d, int di, double[] out, int oi, int n)
+	{
+		int j = 0;
+		for(int bound = SPECIES.loopBound(n); j < bound; j += SPECIES.length())
+		{
+			DoubleVector va = DoubleVector.fromArray(SPECIES, a, ai + j);
+			DoubleVector.fromArray(SPECIES, d, di + j).mul(va.mul(va.neg().add(1))).intoArray(out, oi + j);
+		}
+		for(; j < n; j++)
+		{
+			double aj = a[ai + j];
+			out[oi + j] = d[di + j] * (aj * (1 - aj));
+		}
+	}
+	
+	@Override
+	void biasSigmoid(double bias, double[] x, int xi, int n)
+	{
+		DoubleVector one = DoubleVector.broadcast(SPECIES, 1);
+		int j = 0;
+		for(int bound = SPECIES.loopBound(n); j < bound; j += SPECIES.length())
+		{
+			DoubleVector z = DoubleVector.fromArray(SPECIES, x, xi + j).add(bias);
+			one.div(exp(z.neg()).add(1)).intoArray(x, xi + j);
+		}
+		for(; j < n; j++)
+		{
+			x[xi + j] = 1 / (1 + Math.exp(-(x[xi + j] + bias)));
+		}
+	}
+	
+	@Override
+	void biasTanh(double bias, double[] x, int xi, int n)
+	{
+		DoubleVector two = DoubleVector.broadcast(SPECIES, 2);
+		int j = 0;
+		for(int bound = SPECIES.loopBound(n); j < bound; j += SPECIES.length())
+		{
+			DoubleVector z = DoubleVector.fromArray(SPECIES, x, xi + j).add(bias);
+			two.div(exp(z.mul(2)).add(1)).neg().add(1).intoArray(x, xi + j);
+		}
+		for(; j < n; j++)
+		{
+			x[xi + j] = 1 - 2 / (1 + Math.exp(2 * (x[xi + j] + bias)));
+		}
+	}
+	
+	@Override
+	void biasRelu(double bias, double slope, double[] x, int xi, int n)
+	{
+		int j = 0;
+		for(int bound = SPECIES.loopBound(n); j < bound; j += SPECIES.length())
+		{
+			DoubleVector z = DoubleVector.fromArray(SPECIES, x, xi + j).add(bias);
+			z.max(z.mul(slope)).intoArray(x, xi + j);
+		}
+		for(; j < n; j++)
+		{
+			double z = x[xi + j] + bias;
+			x[xi + j] = z > 0 ? z : slope * z;
+		}
+	}
+	
+	@Override
+	void reluPrimeMul(double slope, double[] a, int ai, double[] d, int di, double[] out, int oi, int n)
+	{
+		int j = 0;
+		for(int bound = SPECIES.loopBound(n); j < bound; j += SPECIES.length())
+		{
+			DoubleVector vd = DoubleVector.fromArray(SPECIES, d, di + j);
+			vd.mul(slope).blend(vd, DoubleVector.fromArray(SPECIES, a, ai + j).compare(VectorOperators.GT, 0)).intoArray(out, oi + j);
+		}
+		for(; j < n; j++)
+		{
+			out[oi + j] = a[ai + j] > 0 ? d[di + j] : slope * d[di + j];
+		}
+	}
+	
+	@Override
+	void tanhPrimeMul(double[] a, int ai, double[] d, int di, double[] out, int oi, int n)
+	{
+		int j = 0;
+		for(int bound = SPECIES.loopBound(n); j < bound; j += SPECIES.length())
+		{
+			DoubleVector va = DoubleVector.fromArray(SPECIES, a, ai + j);
+			DoubleVector.fromArray(SPECIES, d, di + j).mul(va.mul(va).neg().add(1)).intoArray(out, oi + j);
+		}
+		for(; j < n; j++)
+		{
+			double aj = a[ai + j];
+			out[oi + j] = d[di + j] * (1 - aj * aj);
+		}
+	}
+	
+	/**
+	 * Vectorized exp, clamped so that it stays finite and positive.
+	 */
+	private static DoubleVector exp(DoubleVector x)
+	{
+		x = x.max(EXP_MIN).min(EXP_MAX);
+		
+		DoubleVector shifted = x.mul(LOG2E).add(ROUND);
+		DoubleVector k = shifted.sub(ROUND);
+		DoubleVector r = k.neg().fma(DoubleVector.broadcast(SPECIES, LN2_HI), x);
+		r = k.neg().fma(DoubleVector.broadcast(SPECIES, LN2_LO), r);
+		
+		// Taylor series of exp(r) for |r| <= ln(2) / 2, in Horner form
+		DoubleVector p = DoubleVector.broadcast(SPECIES, 1.0 / 39916800);
+		p = p.fma(r, DoubleVector.broadcast(SPECIES, 1.0 / 3628800));
+		p = p.fma(r, DoubleVector.broadcast(SPECIES, 1.0 / 362880));
+		p = p.fma(r, DoubleVector.broadcast(SPECIES, 1.0 / 40320));
+		p = p.fma(r, DoubleVector.broadcast(SPECIES, 1.0 / 5040));
+		p = p.fma(r, DoubleVector.broadcast(SPECIES, 1.0 / 720));
+		p = p.fma(r, DoubleVector.broadcast(SPECIES, 1.0 / 120));
+		p = p.fma(r, DoubleVector.broadcast(SPECIES, 1.0 / 24));
+		p = p.fma(r, DoubleVector.broadcast(SPECIES, 1.0 / 6));
+		p = p.fma(r, DoubleVector.broadcast(SPECIES, 0.5));
+		p = p.fma(r, DoubleVector.broadcast(SPECIES, 1.0));
+		p = p.fma(r, DoubleVector.broadcast(SPECIES, 1.0));
+		
+		// 2^k, built directly in the exponent bits
+		LongVector bits = shifted.reinterpretAsLongs().sub(ROUND_BITS).add(1023).lanewise(VectorOperators.LSHL, 52);
+		return p.mul(bits.reinterpretAsDoubles());
+	}
+	
+	@Override
+	void microKernel(int kc, double[] pa, int aIdx, double[] pb, int bIdx,
+			double[] c, int cIdx, int cRs, int mr, int nr)
+	{
+		if (!VECTOR_TILE)
+		{
+			super.microKernel(kc, pa, aIdx, pb, bIdx, c, cIdx, cRs, mr, nr);
+			return;
+		}
+		
+		DoubleVector c0 = DoubleVector.zero(TILE), c1 = DoubleVector.zero(TILE);
+		DoubleVector c2 = DoubleVector.zero(TILE), c3 = DoubleVector.zero(TILE);
+		
+		for(int p = 0; p < kc; p++)
+		{
+			DoubleVector b = DoubleVector.fromArray(TILE, pb, bIdx);
+			c0 = b.fma(DoubleVector.broadcast(TILE, pa[aIdx]), c0);
+			c1 = b.fma(DoubleVector.broadcast(TILE, pa[aIdx + 1]), c1);
+			c2 = b.fma(DoubleVector.broadcast(TILE, pa[aIdx + 2]), c2);
+			c3 = b.fma(DoubleVector.broadcast(TILE, pa[aIdx + 3]), c3);
+			aIdx += Gemm.MR;
+			bIdx += Gemm.NR;
+		}
+		
+		if (mr == Gemm.MR && nr == Gemm.NR)
+		{
+			c0.add(DoubleVector.fromArray(TILE, c, cIdx)).intoArray(c, cIdx);
+			c1.add(DoubleVector.fromArray(TILE, c, cIdx + cRs)).intoArray(c, cIdx + cRs);
+			c2.add(DoubleVector.fromArray(TILE, c, cIdx + 2 * cRs)).intoArray(c, cIdx + 2 * cRs);
+			c3.add(DoubleVector.fromArray(TILE, c, cIdx + 3 * cRs)).intoArray(c, cIdx + 3 * cRs);
+			return;
+		}
+		
+		// Edge tile, write only the valid region.
+		storeRow(c, cIdx, nr, c0.lane(0), c0.lane(1), c0.lane(2), c0.lane(3));
+		if (mr > 1) storeRow(c, cIdx + cRs, nr, c1.lane(0), c1.lane(1), c1.lane(2), c1.lane(3));
+		if (mr > 2) storeRow(c, cIdx + 2 * cRs, nr, c2.lane(0), c2.lane(1), c2.lane(2), c2.lane(3));
+		if (mr > 3) storeRow(c, cIdx + 3 * cRs, nr, c3.lane(0), c3.lane(1), c3.lane(2), c3.lane(3));
+	}
+	
+	@Override
+	void add(float[] a, int ai, float[] b, int bi, float[] out, int oi, int n)
+	{
+		int j = 0;
+		for(int bound = FLOAT_SPECIES.loopBound(n); j < bound; j += FLOAT_SPECIES.length())
+		{
+			FloatVector.fromArray(FLOAT_SPECIES, a, ai + j).add(FloatVector.fromArray(FLOAT_SPECIES, b, bi + j)).intoArray(out, oi + j);
+		}
+		for(; j < n; j++)
+		{
+			out[oi + j] = a[ai + j] + b[bi + j];
+		}
+	}
+	
+	@Override
+	void sub(float[] a, int ai, float[] b, int bi, float[] out, int oi, int n)
+	{
+		int j = 0;
+		for(int bound = FLOAT_SPECIES.loopBound(n); j < bound; j += FLOAT_SPECIES.length())
+		{
+			FloatVector.fromArray(FLOAT_SPECIES, a, ai + j).sub(FloatVector.fromArray(FLOAT_SPECIES, b, bi + j)).intoArray(out, oi + j);
+		}
+		for(; j < n; j++)
+		{
+			out[oi + j] = a[ai + j] - b[bi + j];
+		}
+	}
+	
+	@Override
+	void mul(float[] a, int ai, float[] b, int bi, float[] out, int oi, int n)
+	{
+		int j = 0;
+		for(int bound = FLOAT_SPECIES.loopBound(n); j < bound; j += FLOAT_SPECIES.length())
+		{
+			FloatVector.fromArray(FLOAT_SPECIES, a, ai + j).mul(FloatVector.fromArray(FLOAT_SPECIES, b, bi + j)).intoArray(out, oi + j);
+		}
+		for(; j < n; j++)
+		{
+			out[oi + j] = a[ai + j] * b[bi + j];
+		}
+	}
+	
+	@Override
+	void scale(float scalar, float[] a, int ai, float[] out, int oi, int n)
+	{
+		int j = 0;
+		for(int bound = FLOAT_SPECIES.loopBound(n); j < bound; j += FLOAT_SPECIES.length())
+		{
+			FloatVector.fromArray(FLOAT_SPECIES, a, ai + j).mul(scalar).intoArray(out, oi + j);
+		}
+		for(; j < n; j++)
+		{
+			out[oi + j] = a[ai + j] * scalar;
+		}
+	}
+	
+	@Override
+	void axpy(float alpha, float[] x, int xi, float[] y, int yi, int n)
+	{
+		FloatVector va = FloatVector.broadcast(FLOAT_SPECIES, alpha);
+		int j = 0;
+		for(int bound = FLOAT_SPECIES.loopBound(n); j < bound; j += FLOAT_SPECIES.length())
+		{
+			FloatVector.fromArray(FLOAT_SPECIES, x, xi + j).fma(va, FloatVector.fromArray(FLOAT_SPECIES, y, yi + j)).intoArray(y, yi + j);
+		}
+		for(; j < n; j++)
+		{
+			y[yi + j] += alpha * x[xi + j];
+		}
+	}
+	
+	@Override
+	float dot(float[] a, int ai, float[] b, int bi, int n)
+	{
+		FloatVector acc = FloatVector.zero(FLOAT_SPECIES);
+		int j = 0;
+		for(int bound = FLOAT_SPECIES.loopBound(n); j < bound; j += FLOAT_SPECIES.length())
+		{
+			acc = FloatVector.fromArray(FLOAT_SPECIES, a, ai + j).fma(FloatVector.fromArray(FLOAT_SPECIES, b, bi + j), acc);
+		}
+		float sum = acc.reduceLanes(VectorOperators.ADD);
+		for(; j < n; j++)
+		{
+			sum += a[ai + j] * b[bi + j];
+		}
+		return sum;
+	}
+	
+	@Override
+	int dot(byte[] a, int ai, byte[] b, int bi, int n)
+	{
+		if (!VECTOR_INT8)
+		{
+			return super.dot(a, ai, b, bi, n);
+		}
+		
+		IntVector acc = IntVector.zero(INT8_ACC);
+		int j = 0;
+		for(int bound = INT8_SPECIES.loopBound(n); j < bound; j += INT8_SPECIES.length())
+		{
+			IntVector x = (IntVector)ByteVector.fromArray(INT8_SPECIES, a, ai + j).convertShape(VectorOperators.B2I, INT8_ACC, 0);
+			IntVector y = (IntVector)ByteVector.fromArray(INT8_SPECIES, b, bi + j).convertShape(VectorOperators.B2I, INT8_ACC, 0);
+			acc = acc.add(x.mul(y));
+		}
+		int sum = acc.reduceLanes(VectorOperators.ADD);
+		for(; j < n; j++)
+		{
+			sum += a[ai + j] * b[bi + j];
+		}
+		return sum;
+	}
+	
+	@Override
+	float sum(float[] a, int ai, int n)
+	{
+		FloatVector acc = FloatVector.zero(FLOAT_SPECIES);
+		int j = 0;
+		for(int bound = FLOAT_SPECIES.loopBound(n); j < bound; j += FLOAT_SPECIES.length())
+		{
+			acc = acc.add(FloatVector.fromArray(FLOAT_SPECIES, a, ai + j));
+		}
+		float sum = acc.reduceLanes(VectorOperators.ADD);
+		for(; j < n; j++)
+		{
+			sum += a[ai + j];
+		}
+		return sum;
+	}
+	
+	@Override
+	void sigmoidPrimeMul(float[] a, int ai, float[] d, int di, float[] out, int oi, int n)
+	{
+		int j = 0;
+		for(int bound = FLOAT_SPECIES.loopBound(n); j < bound; j += FLOAT_SPECIES.length())
+		{
+			FloatVector va = FloatVector.fromArray(FLOAT_SPECIES, a, ai + j);
+			FloatVector.fromArray(FLOAT_SPECIES, d, di + j).mul(va.mul(va.neg().add(1))).intoArray(out, oi + j);
+		}
+		for(; j < n; j++)
+		{
+			float aj = a[ai + j];
+			out[oi + j] = d[di + j] * (aj * (1 - aj));
+		}
+	}
+	
+	@Override
+	void biasSigmoid(float bias, float[] x, int xi, int n)
+	{
+		FloatVector one = FloatVector.broadcast(FLOAT_SPECIES, 1);
+		int j = 0;
+		for(int bound = FLOAT_SPECIES.loopBound(n); j < bound; j += FLOAT_SPECIES.length())
+		{
+			FloatVector z = FloatVector.fromArray(FLOAT_SPECIES, x, xi + j).add(bias);
+			one.div(exp(z.neg()).add(1)).intoArray(x, xi + j);
+		}
+		for(; j < n; j++)
+		{
+			x[xi + j] = (float)(1 / (1 + Math.exp(-(x[xi + j] + bias))));
+		}
+	}
+	
+	@Override
+	void biasTanh(float bias, float[] x, int xi, int n)
+	{
+		FloatVector two = FloatVector.broadcast(FLOAT_SPECIES, 2);
+		int j = 0;
+		for(int bound = FLOAT_SPECIES.loopBound(n); j < bound; j += FLOAT_SPECIES.length())
+		{
+			FloatVector z = FloatVector.fromArray(FLOAT_SPECIES, x, xi + j).add(bias);
+			two.div(exp(z.mul(2)).add(1)).neg().add(1).intoArray(x, xi + j);
+		}
+		for(; j < n; j++)
+		{
+			x[xi + j] = (float)(1 - 2 / (1 + Math.exp(2 * (x[xi + j] + bias))));
+		}
+	}
+	
+	@Override
+	void biasRelu(float bias, float slope, float[] x, int xi, int n)
+	{
+		int j = 0;
+		for(int bound = FLOAT_SPECIES.loopBound(n); j < bound; j += FLOAT_SPECIES.length())
+		{
+			FloatVector z = FloatVector.fromArray(FLOAT_SPECIES, x, xi + j).add(bias);
+			z.max(z.mul(slope)).intoArray(x, xi + j);
+		}
+		for(; j < n; j++)
+		{
+			float z = x[xi + j] + bias;
+			x[xi + j] = z > 0 ? z : slope * z;
+		}
+	}
+	
+	@Override
+	void reluPrimeMul(float slope, float[] a, int ai, float[] d, int di, float[] out, int oi, int n)
+	{
+		int j = 0;
+		for(int bound = FLOAT_SPECIES.loopBound(n); j < bound; j += FLOAT_SPECIES.length())
+		{
+			FloatVector vd = FloatVector.fromArray(FLOAT_SPECIES, d, di + j);
+			vd.mul(slope).blend(vd, FloatVector.fromArray(FLOAT_SPECIES, a, ai + j).compare(VectorOperators.GT, 0)).intoArray(out, oi + j);
+		}
+		for(; j < n; j++)
+		{
+			out[oi + j] = a[ai + j] > 0 ? d[di + j] : slope * d[di + j];
+		}
+	}
+	
+	@Override
+	void tanhPrimeMul(float[] a, int ai, float[] d, int di, float[] out, int oi, int n)
+	{
+		int j = 0;
+		for(int bound = FLOAT_SPECIES.loopBound(n); j < bound; j += FLOAT_SPECIES.length())
+		{
+			FloatVector va = FloatVector.fromArray(FLOAT_SPECIES, a, ai + j);
+			FloatVector.fromArray(FLOAT_SPECIES, d, di + j).mul(va.mul(va).neg().add(1)).intoArray(out, oi + j);
+		}
+		for(; j < n; j++)
+		{
+			float aj = a[ai + j];
+			out[oi + j] = d[di + j] * (1 - aj * aj);
+		}
+	}
+	
+	/**
+	 * Single precision vectorized exp, clamped so that it stays finite and positive.
+	 */
+	private static FloatVector exp(FloatVector x)
+	{
+		x = x.max(EXP_MIN_F).min(EXP_MAX_F);
+		
+		FloatVector shifted = x.mul(LOG2E_F).add(ROUND_F);
+		FloatVector k = shifted.sub(ROUND_F);
+		FloatVector r = k.neg().fma(FloatVector.broadcast(FLOAT_SPECIES, LN2_HI_F), x);
+		r = k.neg().fma(FloatVector.broadcast(FLOAT_SPECIES, LN2_LO_F), r);
+		
+		FloatVector p = FloatVector.broadcast(FLOAT_SPECIES, 1.0f / 5040);
+		p = p.fma(r, FloatVector.broadcast(FLOAT_SPECIES, 1.0f / 720));
+		p = p.fma(r, FloatVector.broadcast(FLOAT_SPECIES, 1.0f / 120));
+		p = p.fma(r, FloatVector.broadcast(FLOAT_SPECIES, 1.0f / 24));
+		p = p.fma(r, FloatVector.broadcast(FLOAT_SPECIES, 1.0f / 6));
+		p = p.fma(r, FloatVector.broadcast(FLOAT_SPECIES, 0.5f));
+		p = p.fma(r, FloatVector.broadcast(FLOAT_SPECIES, 1.0f));
+		p = p.fma(r, FloatVector.broadcast(FLOAT_SPECIES, 1.0f));
+		
+		IntVector bits = shifted.reinterpretAsInts().sub(ROUND_BITS_F).add(127).lanewise(VectorOperators.LSHL, 23);
+		return p.mul(bits.reinterpretAsFloats());
+	}
+	
+	@Override
+	void microKernel(int kc, float[] pa, int aIdx, float[] pb, int bIdx,
+			float[] c, int cIdx, int cRs, int mr, int nr)
+	{
+		if (!VECTOR_FLOAT_TILE || mr < Gemm.MR || nr < Gemm.NR_FLOAT)
+		{
+			// Edge tiles are rare enough to leave to the scalar loops
+			super.microKernel(kc, pa, aIdx, pb, bIdx, c, cIdx, cRs, mr, nr);
+			return;
+		}
+		
+		FloatVector c0 = FloatVector.zero(FLOAT_TILE), c1 = FloatVector.zero(FLOAT_TILE);
+		FloatVector c2 = FloatVector.zero(FLOAT_TILE), c3 = FloatVector.zero(FLOAT_TILE);
+		
+		for(int p = 0; p < kc; p++)
+		{
+			FloatVector b = FloatVector.fromArray(FLOAT_TILE, pb, bIdx);
+			c0 = b.fma(FloatVector.broadcast(FLOAT_TILE, pa[aIdx]), c0);
+			c1 = b.fma(FloatVector.broadcast(FLOAT_TILE, pa[aIdx + 1]), c1);
+			c2 = b.fma(FloatVector.broadcast(FLOAT_TILE, pa[aIdx + 2]), c2);
+			c3 = b.fma(FloatVector.broadcast(FLOAT_TILE, pa[aIdx + 3]), c3);
+			aIdx += Gemm.MR;
+			bIdx += Gemm.NR_FLOAT;
+		}
+		
+		c0.add(FloatVector.fromArray(FLOAT_TILE, c, cIdx)).intoArray(c, cIdx);
+		c1.add(FloatVector.fromArray(FLOAT_TILE, c, cIdx + cRs)).intoArray(c, cIdx + cRs);
+		c2.add(FloatVector.fromArray(FLOAT_TILE, c, cIdx + 2 * cRs)).intoArray(c, cIdx + 2 * cRs);
+		c3.add(FloatVector.fromArray(FLOAT_TILE, c, cIdx + 3 * cRs)).intoArray(c, cIdx + 3 * cRs);
+	}
+}
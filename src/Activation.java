@@ -0,0 +1,59 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: The activation function of one layer of a NeuralNet, see NeuralNet.setActivation. Each has a kernel
+ * applied after the layer's affine step (MatrixUtil.affine) and a derivative kernel used by backpropegation
+ * (MatrixUtil.activationPrimeMul), written in terms of the layer's output.
+ * The codes identify the activations in the binary model format and must never change.
+**/
+
+public enum Activation {
+	// 1 / (1 + e^-x), the original activation
+	SIGMOID(0),
+	// The sigmoid read from a table with linear interpolation, within FAST_SIGMOID_ERROR of the exact value and much cheaper than Math.exp
+	FAST_SIGMOID(1),
+	// tanh(x), zero-centered with outputs in (-1, 1)
+	TANH(2),
+	// max(0, x)
+	RELU(3),
+	// x for positive x, LEAKY_SLOPE * x otherwise, so that units never stop learning entirely
+	LEAKY_RELU(4),
+	// e^x_i / sum_j e^x_j over the layer's outputs for each sample. Output layer only, where it is trained with the cross-entropy cost
+	SOFTMAX(5);
+	
+	// Slope of LEAKY_RELU for negative inputs
+	public static final double LEAKY_SLOPE = 0.01;
+	// Largest difference between FAST_SIGMOID and SIGMOID
+	public static final double FAST_SIGMOID_ERROR = 2e-5;
+	
+	private final int code;
+	
+	Activation(int code)
+	{
+		this.code = code;
+	}
+	
+	/**
+	 * @return The number that stands for this activation in saved models.
+	 */
+	public int getCode()
+	{
+		return code;
+	}
+	
+	/**
+	 * @param code
+	 * @return The activation with the given code.
+	 * @throws IllegalArgumentException If no activation has that code.
+	 */
+	public static Activation fromCode(int code)
+	{
+		for(Activation activation : values())
+		{
+			if (activation.code == code)
+			{
+				return activation;
+			}
+		}
+		throw new IllegalArgumentException("Unknown activation code " + code);
+	}
+}
@@ -0,0 +1,380 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Loads the mini-batches of passes over a Dataset on background threads, ahead of the thread training on them.
+ * Each batch is decoded straight into a reusable pair of batch matrices (inputs and targets, one sample per column),
+ * optionally transformed, for example to augment it, and handed to the trainer in order.
+ *
+ * There are depth buffers, used as a ring: batch k is packed into buffer k % depth once batch k - depth has been released,
+ * so at most depth batches are ever loaded ahead. The buffers, the views of them handed out by next, and the loader threads
+ * are created once and reused by every pass started with start, so a whole training run shares one prefetcher. The only
+ * allocation after construction is the view of a short last batch, once for each new width. Loader threads take
+ * batches in turn, so several can decode at once, but the trainer always receives them in order.
+ *
+ * The prefetcher records how long the trainer waited for batches (stall time), how long the loaders waited for a free
+ * buffer, and how many batches were ready each time the trainer asked for one. A large stall time means training
+ * is I/O bound; loaders that mostly wait and a queue that is usually full mean it is compute bound.
+**/
+
+import java.io.Closeable;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+public class BatchPrefetcher implements Closeable {
+	private final Dataset data;
+	private final int batchSize;
+	private final BiConsumer<Matrix, Matrix> transform;
+	
+	// The ring of buffers, as {inputs, targets} pairs, with the number of the batch each one holds once it is ready, or -1
+	private final Matrix[][] buffers;
+	// View of each buffer's first columns for a short last batch, or null
+	private final Matrix[][] shortBatches;
+	private final int[] readyBatch;
+	
+	private final Thread[] loaders;
+	
+	// The current pass, guarded by this
+	private int[] order;
+	private int length;
+	private int numBatches;
+	private int nextToLoad;
+	private int loading;
+	private int taken;
+	private int released;
+	private boolean closed;
+	private Throwable failure;
+	private long stallNanos;
+	private long loaderWaitNanos;
+	private long readySum;
+	
+	/**
+	 * Allocates the buffers and starts the loader threads, which wait for a pass to be started.
+	 * @param data Dataset to load from.
+	 * @param batchSize Size of every batch but possibly the last of each pass.
+	 * @param depth Number of batches that may be loaded ahead.
+	 * @param threads Number of loader threads.
+	 * @param precision Precision of the batch matrices.
+	 * @param transform Applied to each batch's inputs and targets after loading, on a loader thread, or null.
+	 */
+	public BatchPrefetcher(Dataset data, int batchSize, int depth, int threads, Precision precision, BiConsumer<Matrix, Matrix> transform)
+	{
+		this(data, batchSize, depth, threads, precision, transform, loaderThreads());
+	}
+	
+	/**
+	 * Allocates the buffers and starts the loader threads, which wait for a pass to be started.
+	 * @param data Dataset to load from.
+	 * @param batchSize Size of every batch but possibly the last of each pass.
+	 * @param depth Number of batches that may be loaded ahead.
+	 * @param threads Number of loader threads.
+	 * @param precision Precision of the batch matrices.
+	 * @param transform Applied to each batch's inputs and targets after loading, on a loader thread, or null.
+	 * @param threadFactory Creates the loader threads, which should be daemons.
+	 */
+	public BatchPrefetcher(Dataset data, int batchSize, int depth, int threads, Precision precision, BiConsumer<Matrix, Matrix> transform,
+			ThreadFactory threadFactory)
+	{
+		if (batchSize < 1 || depth < 1 || threads < 1)
+		{
+			throw new IllegalArgumentException("Batch size, depth and threads must be positive");
+		}
+		
+		this.data = data;
+		this.batchSize = batchSize;
+		this.transform = transform;
+		
+		buffers = new Matrix[depth][];
+		shortBatches = new Matrix[depth][];
+		readyBatch = new int[depth];
+		for(int i = 0; i < depth; i++)
+		{
+			buffers[i] = new Matrix[] {new Matrix(data.getNumFeatures(), batchSize, precision), new Matrix(data.getNumClasses(), batchSize, precision)};
+			readyBatch[i] = -1;
+		}
+		
+		loaders = new Thread[threads];
+		for(int i = 0; i < loaders.length; i++)
+		{
+			loaders[i] = threadFactory.newThread(this::load);
+			loaders[i].start();
+		}
+	}
+	
+	/**
+	 * Starts a pass over the samples order[0] to order[length - 1], batchSize at a time, and resets the statistics.
+	 * Any batches left over from the previous pass are dropped, and batches it returned are no longer valid.
+	 * @param order Sample indices. Must not change until the pass is finished.
+	 * @param length Number of entries of order to use.
+	 * @throws IllegalStateException If the prefetcher is closed.
+	 */
+	public synchronized void start(int[] order, int length)
+	{
+		// Stop handing out the previous pass and wait for loaders still packing one of its batches
+		numBatches = 0;
+		while(loading > 0)
+		{
+			checkFailure();
+			awaitChange();
+		}
+		checkFailure();
+		
+		this.order = order;
+		this.length = length;
+		numBatches = (length + batchSize - 1) / batchSize;
+		nextToLoad = 0;
+		taken = 0;
+		released = 0;
+		for(int i = 0; i < readyBatch.length; i++)
+		{
+			readyBatch[i] = -1;
+		}
+		stallNanos = 0;
+		loaderWaitNanos = 0;
+		readySum = 0;
+		notifyAll();
+	}
+	
+	/**
+	 * @return Number of batches in the current pass.
+	 */
+	public synchronized int getNumBatches()
+	{
+		return numBatches;
+	}
+	
+	/**
+	 * @return Whether the current pass has batches that have not been taken.
+	 */
+	public synchronized boolean hasNext()
+	{
+		return taken < numBatches;
+	}
+	
+	/**
+	 * Waits for the next batch and returns it as {inputs, targets}, views of one of the ring buffers.
+	 * The array and the views are owned by the prefetcher and reused. The batch stays valid until the following
+	 * call to next or start, which releases its buffer for reuse.
+	 * @return The batch.
+	 * @throws IllegalStateException If the pass is over or the prefetcher is closed.
+	 * @throws RuntimeException If a loader failed; its exception is the cause.
+	 */
+	public synchronized Matrix[] next()
+	{
+		if (taken >= numBatches || closed)
+		{
+			throw new IllegalStateException("No more batches");
+		}
+		
+		if (taken > 0)
+		{
+			// Release the previous batch's buffer
+			readyBatch[(taken - 1) % readyBatch.length] = -1;
+			released = taken;
+			notifyAll();
+		}
+		
+		int slot = taken % readyBatch.length;
+		readySum += countReady();
+		long start = System.nanoTime();
+		while(readyBatch[slot] != taken)
+		{
+			checkFailure();
+			awaitChange();
+		}
+		stallNanos += System.nanoTime() - start;
+		
+		return batch(taken++);
+	}
+	
+	/**
+	 * @return Total time the trainer has waited in next for a batch that was not loaded yet this pass, in nanoseconds.
+	 */
+	public synchronized long getStallNanos()
+	{
+		return stallNanos;
+	}
+	
+	/**
+	 * @return Total time loader threads have waited for a free buffer this pass, in nanoseconds.
+	 */
+	public synchronized long getLoaderWaitNanos()
+	{
+		return loaderWaitNanos;
+	}
+	
+	/**
+	 * @return Average number of batches already loaded when the trainer asked for the next one this pass.
+	 */
+	public synchronized double getAverageQueueDepth()
+	{
+		return taken == 0 ? 0 : (double)readySum / taken;
+	}
+	
+	/**
+	 * Stops the loader threads. Batches already returned by next stay readable.
+	 */
+	@Override
+	public void close()
+	{
+		synchronized(this) {
+			closed = true;
+			notifyAll();
+		}
+		for(Thread loader : loaders)
+		{
+			loader.interrupt();
+		}
+	}
+	
+	@Override
+	public synchronized String toString()
+	{
+		return String.format("%d / %d batches, stalled %.1f ms, loaders waited %.1f ms, average queue depth %.2f of %d",
+				taken, numBatches, stallNanos / 1e6, loaderWaitNanos / 1e6, getAverageQueueDepth(), readyBatch.length);
+	}
+	
+	/**
+	 * Body of each loader thread: wait for a batch number whose buffer is free, take it, pack and publish it.
+	 */
+	private void load()
+	{
+		try {
+			while(true)
+			{
+				int batch, from, to;
+				int[] passOrder;
+				Matrix[] views;
+				synchronized(this) {
+					// The buffer of the next batch is free once the trainer has released batch - depth
+					while(!closed && (nextToLoad >= numBatches || nextToLoad >= released + readyBatch.length))
+					{
+						if (nextToLoad < numBatches)
+						{
+							long start = System.nanoTime();
+							wait();
+							loaderWaitNanos += System.nanoTime() - start;
+						}
+						else
+						{
+							// Between passes
+							wait();
+						}
+					}
+					if (closed)
+					{
+						return;
+					}
+					
+					batch = nextToLoad++;
+					from = batch * batchSize;
+					to = Math.min(from + batchSize, length);
+					passOrder = order;
+					views = batch(batch);
+					loading++;
+				}
+				
+				boolean packed = false;
+				try {
+					for(int i = from; i < to; i++)
+					{
+						data.copyTo(passOrder[i], views[0], views[1], i - from);
+					}
+					if (transform != null)
+					{
+						transform.accept(views[0], views[1]);
+					}
+					packed = true;
+				} finally {
+					// start waits for loading to reach 0, so a batch is never published into a newer pass
+					synchronized(this) {
+						loading--;
+						if (packed)
+						{
+							readyBatch[batch % readyBatch.length] = batch;
+						}
+						notifyAll();
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			// Closed
+		} catch (Throwable e) {
+			synchronized(this) {
+				if (failure == null)
+				{
+					failure = e;
+				}
+				notifyAll();
+			}
+		}
+	}
+	
+	/**
+	 * @return The reused {inputs, targets} views of the buffer of batch number batch of the current pass. Caller holds the lock.
+	 */
+	private Matrix[] batch(int batch)
+	{
+		int slot = batch % buffers.length;
+		int width = Math.min(length - batch * batchSize, batchSize);
+		if (width == batchSize)
+		{
+			return buffers[slot];
+		}
+		if (shortBatches[slot] == null || shortBatches[slot][0].getWidth() != width)
+		{
+			shortBatches[slot] = new Matrix[] {buffers[slot][0].columns(0, width), buffers[slot][1].columns(0, width)};
+		}
+		return shortBatches[slot];
+	}
+	
+	/**
+	 * @return A factory of daemon threads named batch-prefetcher-0, batch-prefetcher-1 and so on.
+	 */
+	private static ThreadFactory loaderThreads()
+	{
+		AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, "batch-prefetcher-" + count.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+	
+	/**
+	 * @return Number of batches loaded and not yet taken. Caller holds the lock.
+	 */
+	private int countReady()
+	{
+		int ready = 0;
+		for(int batch : readyBatch)
+		{
+			ready += batch >= taken ? 1 : 0;
+		}
+		return ready;
+	}
+	
+	private void checkFailure()
+	{
+		if (failure != null)
+		{
+			throw new RuntimeException("Loading a batch failed", failure);
+		}
+		if (closed)
+		{
+			throw new IllegalStateException("Prefetcher closed");
+		}
+	}
+	
+	/**
+	 * Waits for another thread to notify. Caller holds the lock.
+	 */
+	private void awaitChange()
+	{
+		try {
+			wait();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for a batch", e);
+		}
+	}
+}
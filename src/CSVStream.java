@@ -0,0 +1,76 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Reads an MNIST CSV one digit at a time, for training on a file without loading it onto the heap
+ * (see NeuralNet.partialFit). Only the current line is held in memory. The file is closed when the last digit
+ * has been read, or by close() when the stream is abandoned early.
+**/
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class CSVStream implements Iterator<Matrix[]>, Closeable {
+	private final BufferedReader reader;
+	private final Precision precision;
+	// The line next() will parse, or null at the end of the file
+	private String line;
+	
+	/**
+	 * @param csvFile Filename of dataset.
+	 * @param precision Precision of the returned matrices.
+	 * @throws IOException
+	 */
+	public CSVStream(String csvFile, Precision precision) throws IOException
+	{
+		this.reader = new BufferedReader(new FileReader(csvFile));
+		this.precision = precision;
+		advance();
+	}
+	
+	@Override
+	public boolean hasNext()
+	{
+		return line != null;
+	}
+	
+	/**
+	 * @return The next digit as {X, Y}.
+	 * @throws UncheckedIOException If reading the file fails.
+	 */
+	@Override
+	public Matrix[] next()
+	{
+		if (line == null)
+		{
+			throw new NoSuchElementException();
+		}
+		
+		Matrix[] digit = IOManager.parseDigit(line, precision);
+		try {
+			advance();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return digit;
+	}
+	
+	@Override
+	public void close() throws IOException
+	{
+		line = null;
+		reader.close();
+	}
+	
+	private void advance() throws IOException
+	{
+		line = reader.readLine();
+		if (line == null)
+		{
+			reader.close();
+		}
+	}
+}
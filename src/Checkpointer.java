@@ -0,0 +1,392 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Saves checkpoints of a NeuralNet while it trains, see NeuralNet.setCheckpointer, so a crash loses at most
+ * a few epochs. At the end of an epoch the training thread only copies the weights, biases and optimizer state, which
+ * takes about as long as one mini-batch. A background thread writes the copy in the binary model format to a temporary
+ * file, forces it to disk and renames it over the checkpoint, so a checkpoint file is always either complete or absent.
+ *
+ * Checkpoints are named checkpoint-NNNNNN.nnm by epoch. Only the last few are kept, and best.nnm also holds the
+ * epoch whose monitored metric (see NeuralNet.setEarlyStopping) was the best, with the metric's value in best.metric.
+ * Epochs are numbered on from the checkpoints already in the directory, and the best value is read back from it, so a
+ * resumed run (see resume) carries on the numbering and only replaces best.nnm with a better epoch. The last epoch of a
+ * run, early stopped or not, is always checkpointed and marks the run finished, so resume does not carry it on.
+ * At most MAX_PENDING copies wait to be written. If the disk falls that far behind, training waits for it.
+**/
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class Checkpointer implements Closeable {
+	// Largest number of snapshots waiting to be written
+	private static final int MAX_PENDING = 2;
+	private static final Pattern CHECKPOINT_NAME = Pattern.compile("checkpoint-(\\d+)\\.nnm");
+	static final String BEST_NAME = "best.nnm";
+	// The metric and value of best.nnm, as "LOSS 0.0123"
+	static final String BEST_METRIC_NAME = "best.metric";
+	
+	private final Path directory;
+	private final int every;
+	private final int keepLast;
+	private final boolean keepBest;
+	
+	// Last epoch in the directory when this checkpointer was made, which its epochs are numbered on from
+	private final int firstEpoch;
+	// Epochs reported so far, on the training thread
+	private int epoch;
+	// Monitored metric of best.nnm and its value, NaN if there is none
+	private EvaluationResult.Metric bestMetric;
+	private double best = Double.NaN;
+	
+	private final Semaphore pending = new Semaphore(MAX_PENDING);
+	private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "checkpoint-writer");
+		thread.setDaemon(true);
+		return thread;
+	});
+	// First failure of the writer, thrown by flush
+	private volatile IOException failure;
+	
+	private volatile int written;
+	private volatile long snapshotNanos;
+	private volatile long writeNanos;
+	private volatile String latest;
+	
+	/**
+	 * Checkpoints every epoch, keeping the last 3 and the best.
+	 * @param directory Created if it does not exist.
+	 * @throws IOException If the directory cannot be created.
+	 */
+	public Checkpointer(String directory) throws IOException
+	{
+		this(directory, 1, 3, true);
+	}
+	
+	/**
+	 * @param directory Created if it does not exist.
+	 * @param every Number of epochs between checkpoints.
+	 * @param keepLast Number of periodic checkpoints to keep, the older ones are deleted.
+	 * @param keepBest Whether to keep best.nnm up to date, which needs the evaluation train does after each epoch.
+	 * @throws IOException If the directory cannot be created.
+	 */
+	public Checkpointer(String directory, int every, int keepLast, boolean keepBest) throws IOException
+	{
+		if (every < 1 || keepLast < 1)
+		{
+			throw new IllegalArgumentException("Checkpoint interval and number kept must be at least 1: " + every + ", " + keepLast);
+		}
+		
+		this.directory = Paths.get(directory);
+		this.every = every;
+		this.keepLast = keepLast;
+		this.keepBest = keepBest;
+		Files.createDirectories(this.directory);
+		
+		List<Integer> epochs = checkpointEpochs(this.directory);
+		firstEpoch = epochs.isEmpty() ? 0 : epochs.get(epochs.size() - 1);
+		epoch = firstEpoch;
+		readBest();
+	}
+	
+	/**
+	 * Reads the metric and value of the best.nnm already in the directory, if there is one.
+	 */
+	private void readBest() throws IOException
+	{
+		Path file = directory.resolve(BEST_METRIC_NAME);
+		if (!Files.exists(file) || !Files.exists(directory.resolve(BEST_NAME)))
+		{
+			return;
+		}
+		
+		String[] fields = Files.readString(file, StandardCharsets.UTF_8).trim().split(" ");
+		try {
+			bestMetric = EvaluationResult.Metric.valueOf(fields[0]);
+			best = Double.parseDouble(fields[1]);
+		} catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+			throw new IOException("Malformed " + file + ": " + e.getMessage(), e);
+		}
+	}
+	
+	/**
+	 * Called on the training thread at the end of every epoch. Copies the network if a checkpoint is due, and
+	 * queues the copy for writing.
+	 * @param net
+	 * @param learningRate The base learning rate to save, see NeuralNet.snapshot.
+	 * @param result The epoch's evaluation, or null if there was none.
+	 * @param last Whether the run ends with this epoch, because it was the last or training stopped early.
+	 * Its checkpoint is written whatever the interval, and resume treats the run as finished.
+	 */
+	void epochEnded(NeuralNet net, double learningRate, EvaluationResult result, boolean last)
+	{
+		epoch++;
+		boolean periodic = last || epoch % every == 0;
+		boolean improved = false;
+		EvaluationResult.Metric metric = net.getMonitor();
+		if (keepBest && result != null)
+		{
+			if (metric != bestMetric)
+			{
+				// best.nnm was chosen by another metric, so it cannot be compared
+				bestMetric = metric;
+				best = Double.NaN;
+			}
+			double value = metric.of(result);
+			improved = metric.improves(value, best, 0);
+			if (improved)
+			{
+				best = value;
+			}
+		}
+		if (!periodic && !improved)
+		{
+			return;
+		}
+		
+		pending.acquireUninterruptibly();
+		long start = System.nanoTime();
+		NeuralNet copy = net.snapshot(learningRate);
+		// Counted from the start of the whole run, so resume can tell how many epochs are left, none once it has ended
+		copy.setNumEpochs(last ? epoch : firstEpoch + net.getNumEpochs());
+		snapshotNanos += System.nanoTime() - start;
+		
+		int number = epoch;
+		String bestLine = improved ? metric + " " + best : null;
+		try {
+			writer.execute(() -> {
+				try {
+					write(copy, number, periodic, bestLine);
+				} finally {
+					pending.release();
+				}
+			});
+		} catch (RuntimeException e) {
+			pending.release();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Runs on the writer thread.
+	 * @param bestLine Contents of best.metric if the copy is the new best, otherwise null.
+	 */
+	private void write(NeuralNet copy, int number, boolean periodic, String bestLine)
+	{
+		try {
+			long start = System.nanoTime();
+			if (periodic)
+			{
+				Path target = directory.resolve(checkpointName(number));
+				writeAtomically(copy, target);
+				latest = target.toString();
+				deleteOld();
+			}
+			if (bestLine != null)
+			{
+				writeAtomically(copy, directory.resolve(BEST_NAME));
+				Path temp = directory.resolve(BEST_METRIC_NAME + ".tmp");
+				Files.writeString(temp, bestLine + "\n", StandardCharsets.UTF_8);
+				commit(temp, directory.resolve(BEST_METRIC_NAME));
+			}
+			writeNanos += System.nanoTime() - start;
+			written++;
+		} catch (IOException e) {
+			if (failure == null)
+			{
+				failure = e;
+			}
+			System.err.println("Checkpoint of epoch " + number + " failed: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Writes the network to a temporary file beside target, forces it to disk and renames it to target,
+	 * then forces the directory so the rename itself survives a crash.
+	 */
+	private void writeAtomically(NeuralNet net, Path target) throws IOException
+	{
+		Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+		new IOManager().saveModel(temp.toString(), net);
+		commit(temp, target);
+	}
+	
+	/**
+	 * Forces a written temporary file to disk and renames it to target, then forces the directory.
+	 */
+	private void commit(Path temp, Path target) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+			channel.force(true);
+		}
+		Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			// Directories cannot be opened on every platform; the rename is still atomic there
+		}
+	}
+	
+	/**
+	 * Deletes all but the last keepLast periodic checkpoints.
+	 */
+	private void deleteOld() throws IOException
+	{
+		List<Integer> epochs = checkpointEpochs(directory);
+		for(int i = 0; i + keepLast < epochs.size(); i++)
+		{
+			Files.deleteIfExists(directory.resolve(checkpointName(epochs.get(i))));
+		}
+	}
+	
+	/**
+	 * Waits until every queued checkpoint is written.
+	 * @throws IOException The first failure to write a checkpoint, if any.
+	 */
+	public void flush() throws IOException
+	{
+		pending.acquireUninterruptibly(MAX_PENDING);
+		pending.release(MAX_PENDING);
+		if (failure != null)
+		{
+			throw failure;
+		}
+	}
+	
+	/**
+	 * Writes the queued checkpoints and stops the writer thread.
+	 * @throws IOException The first failure to write a checkpoint, if any.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		writer.shutdown();
+		try {
+			writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (failure != null)
+		{
+			throw failure;
+		}
+	}
+	
+	/**
+	 * @return Number of checkpoints written so far.
+	 */
+	public int getWritten()
+	{
+		return written;
+	}
+	
+	/**
+	 * @return The last periodic checkpoint written, or null if none has been yet.
+	 */
+	public String getLatest()
+	{
+		return latest;
+	}
+	
+	/**
+	 * @return Time the training thread spent copying the network, in nanoseconds.
+	 */
+	public long getSnapshotNanos()
+	{
+		return snapshotNanos;
+	}
+	
+	/**
+	 * @return Time the writer thread spent writing checkpoints, in nanoseconds.
+	 */
+	public long getWriteNanos()
+	{
+		return writeNanos;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return written + " checkpoints in " + directory + ", " + String.format("%.1f", snapshotNanos / 1e6) + " ms copying on the training thread, "
+				+ String.format("%.1f", writeNanos / 1e6) + " ms writing in the background";
+	}
+	
+	/**
+	 * @param directory
+	 * @return The latest periodic checkpoint in the directory, or null if there is none.
+	 */
+	public static String latest(String directory)
+	{
+		List<Integer> epochs = checkpointEpochs(Paths.get(directory));
+		return epochs.isEmpty() ? null : Paths.get(directory, checkpointName(epochs.get(epochs.size() - 1))).toString();
+	}
+	
+	/**
+	 * Loads the latest checkpoint in the directory to carry on the run it came from. The network has its
+	 * optimizer state, and its number of epochs is set to those the run had left, so train finishes the run.
+	 * A run that ran all its epochs or stopped early is finished, and is not carried on.
+	 * The shuffle and any learning rate schedule start afresh. Checkpoint the resumed run into the same
+	 * directory to carry on its epoch numbering and retention.
+	 * @param directory
+	 * @return The network, or null if there is no checkpoint or its run had already finished.
+	 * @throws IOException If the checkpoint cannot be read.
+	 */
+	public static NeuralNet resume(String directory) throws IOException
+	{
+		String filename = latest(directory);
+		if (filename == null)
+		{
+			return null;
+		}
+		
+		Matcher matcher = CHECKPOINT_NAME.matcher(new File(filename).getName());
+		matcher.matches();
+		NeuralNet net = new IOManager().loadModel(filename);
+		int remaining = net.getNumEpochs() - Integer.parseInt(matcher.group(1));
+		if (remaining < 1)
+		{
+			return null;
+		}
+		net.setNumEpochs(remaining);
+		return net;
+	}
+	
+	private static String checkpointName(int epoch)
+	{
+		return String.format("checkpoint-%06d.nnm", epoch);
+	}
+	
+	/**
+	 * @return The epochs of the periodic checkpoints in the directory, in increasing order.
+	 */
+	private static List<Integer> checkpointEpochs(Path directory)
+	{
+		List<Integer> epochs = new ArrayList<>();
+		String[] names = directory.toFile().list();
+		for(String name : names == null ? new String[0] : names)
+		{
+			Matcher matcher = CHECKPOINT_NAME.matcher(name);
+			if (matcher.matches())
+			{
+				epochs.add(Integer.parseInt(matcher.group(1)));
+			}
+		}
+		epochs.sort(null);
+		return epochs;
+	}
+}
@@ -0,0 +1,59 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: One-time conversion of an MNIST dataset, from the CSV or the original IDX files, to the compact
+ * binary format that IOManager.loadBinary reads. The binary file is well under half the size of the CSV.
+ * Usage: java ConvertDataset <data.csv> <out.bin>
+ *        java ConvertDataset <images-idx3-ubyte> <labels-idx1-ubyte> <out.bin>
+**/
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+public class ConvertDataset {
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length != 2 && args.length != 3)
+		{
+			System.out.println("Usage: java ConvertDataset <data.csv> <out.bin>");
+			System.out.println("       java ConvertDataset <images-idx3-ubyte> <labels-idx1-ubyte> <out.bin>");
+			System.exit(2);
+		}
+		
+		IOManager io = new IOManager();
+		ArrayList<Matrix[]> dataset = new ArrayList<>();
+		
+		long start = System.nanoTime();
+		if (args.length == 2)
+		{
+			io.parseCSV(args[0], dataset);
+		}
+		else
+		{
+			io.parseIDX(args[0], args[1], dataset, Precision.DOUBLE);
+		}
+		double parseSeconds = (System.nanoTime() - start) / 1e9;
+		
+		String out = args[args.length - 1];
+		io.saveBinary(out, dataset);
+		
+		start = System.nanoTime();
+		ArrayList<Matrix[]> check = new ArrayList<>();
+		io.loadBinary(out, check);
+		double loadSeconds = (System.nanoTime() - start) / 1e9;
+		
+		// The conversion is lossless for byte pixels, so make sure of it before anyone deletes the original
+		for(int s = 0; s < dataset.size(); s++)
+		{
+			for(int i = 0; i < dataset.get(s)[0].getHeight(); i++)
+			{
+				if (dataset.get(s)[0].getElement(i, 0) != check.get(s)[0].getElement(i, 0))
+				{
+					throw new IOException("Sample " + s + " did not survive the conversion, its features are not bytes / 255");
+				}
+			}
+		}
+		
+		System.out.printf("Converted %d samples to %s. Reading the original took %.2fs, reading the binary file %.2fs%n",
+				dataset.size(), out, parseSeconds, loadSeconds);
+	}
+}
@@ -0,0 +1,73 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Imports a network saved with object serialization into the binary model format that IOManager.saveModel
+ * writes, and checks that every weight and bias survived the conversion exactly.
+ * Usage: java ConvertModel <network.ser> <out.nnm>
+**/
+
+import java.io.File;
+import java.io.IOException;
+
+public class ConvertModel {
+	public static void main(String[] args) throws IOException, ClassNotFoundException
+	{
+		if (args.length != 2)
+		{
+			System.out.println("Usage: java ConvertModel <network.ser> <out.nnm>");
+			System.exit(2);
+		}
+		
+		IOManager io = new IOManager();
+		
+		long start = System.nanoTime();
+		NeuralNet net = io.load(args[0]);
+		double oldSeconds = (System.nanoTime() - start) / 1e9;
+		
+		io.saveModel(args[1], net);
+		
+		start = System.nanoTime();
+		NeuralNet check = io.loadModel(args[1]);
+		double newSeconds = (System.nanoTime() - start) / 1e9;
+		
+		verify(net, check);
+		
+		System.out.printf("Converted %s (%d bytes, %.3fs to load) to %s (%d bytes, %.3fs to load)%n",
+				args[0], new File(args[0]).length(), oldSeconds, args[1], new File(args[1]).length(), newSeconds);
+	}
+	
+	/**
+	 * Checks every weight and bias of a converted network against the original, bit for bit.
+	 * @param net The original.
+	 * @param check The network read back from the binary model.
+	 * @throws IOException If a layer did not survive the conversion.
+	 */
+	static void verify(NeuralNet net, NeuralNet check) throws IOException
+	{
+		for(int layer = 0; layer < net.getLayerSizes().length - 1; layer++)
+		{
+			if (!sameElements(net.getWeights(layer), check.getWeights(layer)) || !sameElements(net.getBiases(layer), check.getBiases(layer)))
+			{
+				throw new IOException("Layer " + layer + " did not survive the conversion");
+			}
+		}
+	}
+	
+	private static boolean sameElements(Matrix a, Matrix b)
+	{
+		if (a.getHeight() != b.getHeight() || a.getWidth() != b.getWidth() || a.getPrecision() != b.getPrecision())
+		{
+			return false;
+		}
+		for(int i = 0; i < a.getHeight(); i++)
+		{
+			for(int j = 0; j < a.getWidth(); j++)
+			{
+				if (Double.doubleToLongBits(a.getElement(i, j)) != Double.doubleToLongBits(b.getElement(i, j)))
+				{
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,51 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: A read-only, indexed collection of labelled samples that NeuralNet can train on and evaluate.
+ * Samples are copied straight into the columns of a caller's batch matrices, so an implementation
+ * does not need to keep any per-sample objects on the heap.
+**/
+
+public interface Dataset {
+	/**
+	 * @return Number of samples.
+	 */
+	int size();
+	
+	/**
+	 * @return Length of every input vector.
+	 */
+	int getNumFeatures();
+	
+	/**
+	 * @return Length of every one-hot target vector.
+	 */
+	int getNumClasses();
+	
+	/**
+	 * @param index
+	 * @return The class of sample index, the position of the largest element of its target.
+	 */
+	int getLabel(int index);
+	
+	/**
+	 * Writes sample index into one column of a batch: its input into inputs and its target into targets.
+	 * Must be safe to call from several threads at once, as long as they write different columns.
+	 * @param index Sample to copy.
+	 * @param inputs Matrix getNumFeatures() high, of either precision.
+	 * @param targets Matrix getNumClasses() high, of either precision.
+	 * @param column Column of inputs and targets to write.
+	 */
+	void copyTo(int index, Matrix inputs, Matrix targets, int column);
+	
+	/**
+	 * @param index
+	 * @return Sample index as a newly allocated {X, Y} pair of columns.
+	 */
+	default Matrix[] get(int index)
+	{
+		Matrix x = new Matrix(getNumFeatures(), 1);
+		Matrix y = new Matrix(getNumClasses(), 1);
+		copyTo(index, x, y, 0);
+		return new Matrix[] {x, y};
+	}
+}
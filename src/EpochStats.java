@@ -0,0 +1,147 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Telemetry of one training epoch, passed to TrainingListeners and printed by NeuralNet.train.
+ * Phase times are measured on the threads that did the work. With several training threads, forward, backward and
+ * accumulate are summed over the workers, so they can add up to more than the elapsed time.
+**/
+
+public final class EpochStats {
+	private final int epoch;
+	private final long samples;
+	private final long batches;
+	private final long elapsedNanos;
+	private final long loadNanos;
+	private final long forwardNanos;
+	private final long backwardNanos;
+	private final long accumulateNanos;
+	private final long updateNanos;
+	private final double loss;
+	private final long allocatedBytes;
+	private final long gcCount;
+	private final long gcMillis;
+	
+	EpochStats(int epoch, long samples, long batches, long elapsedNanos, long loadNanos, long forwardNanos,
+			long backwardNanos, long accumulateNanos, long updateNanos, double loss, long allocatedBytes, long gcCount, long gcMillis)
+	{
+		this.epoch = epoch;
+		this.samples = samples;
+		this.batches = batches;
+		this.elapsedNanos = elapsedNanos;
+		this.loadNanos = loadNanos;
+		this.forwardNanos = forwardNanos;
+		this.backwardNanos = backwardNanos;
+		this.accumulateNanos = accumulateNanos;
+		this.updateNanos = updateNanos;
+		this.loss = loss;
+		this.allocatedBytes = allocatedBytes;
+		this.gcCount = gcCount;
+		this.gcMillis = gcMillis;
+	}
+	
+	/**
+	 * @return Number of epochs the network has trained in this process, counting up from 1.
+	 */
+	public int getEpoch()
+	{
+		return epoch;
+	}
+	
+	public long getSamples()
+	{
+		return samples;
+	}
+	
+	public long getBatches()
+	{
+		return batches;
+	}
+	
+	/**
+	 * @return Wall clock time of the epoch.
+	 */
+	public long getElapsedNanos()
+	{
+		return elapsedNanos;
+	}
+	
+	public double getSamplesPerSecond()
+	{
+		return elapsedNanos == 0 ? 0 : samples * 1e9 / elapsedNanos;
+	}
+	
+	/**
+	 * @return Time spent copying samples into batch matrices, or with prefetching, waiting for the next batch.
+	 */
+	public long getLoadNanos()
+	{
+		return loadNanos;
+	}
+	
+	/**
+	 * @return Time spent in feedForward while training.
+	 */
+	public long getForwardNanos()
+	{
+		return forwardNanos;
+	}
+	
+	/**
+	 * @return Time spent propagating the error back through the layers.
+	 */
+	public long getBackwardNanos()
+	{
+		return backwardNanos;
+	}
+	
+	/**
+	 * @return Time spent summing the gradients over the samples of each batch, including the reduction across threads.
+	 */
+	public long getAccumulateNanos()
+	{
+		return accumulateNanos;
+	}
+	
+	/**
+	 * @return Time spent updating the weights and biases.
+	 */
+	public long getUpdateNanos()
+	{
+		return updateNanos;
+	}
+	
+	/**
+	 * @return Mean cost of the samples, each measured before the step that trained on it: the quadratic cost 1/2 |a - y|^2,
+	 * or the cross-entropy for a softmax output layer.
+	 */
+	public double getLoss()
+	{
+		return loss;
+	}
+	
+	/**
+	 * @return Bytes allocated during the epoch by the training thread, the worker threads and the batch loader threads.
+	 */
+	public long getAllocatedBytes()
+	{
+		return allocatedBytes;
+	}
+	
+	public long getGcCount()
+	{
+		return gcCount;
+	}
+	
+	public long getGcMillis()
+	{
+		return gcMillis;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format("epoch %d: %d samples in %.2f s (%.0f samples/s), loss %.5f; load %d ms, forward %d ms, backward %d ms, "
+				+ "accumulate %d ms, update %d ms; allocated %d KB, %d GCs (%d ms)",
+				epoch, samples, elapsedNanos / 1e9, getSamplesPerSecond(), loss, loadNanos / 1000000, forwardNanos / 1000000,
+				backwardNanos / 1000000, accumulateNanos / 1000000, updateNanos / 1000000, allocatedBytes / 1024, gcCount, gcMillis);
+	}
+}
@@ -0,0 +1,185 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: The outcome of classifying a set of labelled samples, see Evaluator. Holds the confusion matrix, from which
+ * the overall accuracy and the precision and recall of each class are derived, and the samples' total cost.
+**/
+
+public final class EvaluationResult {
+	/**
+	 * A figure of merit watched during training, see NeuralNet.setEarlyStopping.
+	 */
+	public enum Metric {
+		// Mean cost, lower is better
+		LOSS,
+		// Fraction classified correctly, higher is better
+		ACCURACY;
+		
+		/**
+		 * @param result
+		 * @return The result's value of this metric.
+		 */
+		public double of(EvaluationResult result)
+		{
+			return this == LOSS ? result.getLoss() : result.getAccuracy();
+		}
+		
+		/**
+		 * @param value A value of this metric.
+		 * @param best The best value so far, NaN if there is none.
+		 * @param minDelta How much better value must be to count.
+		 * @return Whether value improves on best by more than minDelta.
+		 */
+		public boolean improves(double value, double best, double minDelta)
+		{
+			if (Double.isNaN(best))
+			{
+				return !Double.isNaN(value);
+			}
+			return this == LOSS ? value < best - minDelta : value > best + minDelta;
+		}
+	}
+	
+	// In form actual class, predicted class
+	private final int[][] confusion;
+	private final int total;
+	private final int correct;
+	private final double loss;
+	
+	/**
+	 * @param confusion Counts of samples by actual and predicted class. Kept, not copied.
+	 * @param loss Summed cost of the samples.
+	 */
+	EvaluationResult(int[][] confusion, double loss)
+	{
+		this.confusion = confusion;
+		this.loss = loss;
+		int total = 0, correct = 0;
+		for(int i = 0; i < confusion.length; i++)
+		{
+			for(int j = 0; j < confusion.length; j++)
+			{
+				total += confusion[i][j];
+			}
+			correct += confusion[i][i];
+		}
+		this.total = total;
+		this.correct = correct;
+	}
+	
+	public int getNumClasses()
+	{
+		return confusion.length;
+	}
+	
+	/**
+	 * @return Number of samples evaluated.
+	 */
+	public int getTotal()
+	{
+		return total;
+	}
+	
+	/**
+	 * @return Number of samples classified correctly.
+	 */
+	public int getCorrect()
+	{
+		return correct;
+	}
+	
+	public double getAccuracy()
+	{
+		return (double)correct / (double)total;
+	}
+	
+	/**
+	 * @return Mean cost of the samples, the one the network trains on: the quadratic cost 1/2 |a - y|^2,
+	 * or the cross-entropy for a softmax output layer.
+	 */
+	public double getLoss()
+	{
+		return loss / total;
+	}
+	
+	/**
+	 * @param actual
+	 * @param predicted
+	 * @return Number of samples of class actual that were classified as predicted.
+	 */
+	public int getCount(int actual, int predicted)
+	{
+		return confusion[actual][predicted];
+	}
+	
+	/**
+	 * @return A copy of the confusion matrix, in form actual class, predicted class.
+	 */
+	public int[][] getConfusionMatrix()
+	{
+		int[][] copy = new int[confusion.length][];
+		for(int i = 0; i < confusion.length; i++)
+		{
+			copy[i] = confusion[i].clone();
+		}
+		return copy;
+	}
+	
+	/**
+	 * @param c
+	 * @return Number of samples whose actual class is c.
+	 */
+	public int getClassTotal(int c)
+	{
+		int sum = 0;
+		for(int count : confusion[c])
+		{
+			sum += count;
+		}
+		return sum;
+	}
+	
+	/**
+	 * @param c
+	 * @return The fraction of samples predicted as class c that really are, NaN if none were.
+	 */
+	public double getPrecision(int c)
+	{
+		int predicted = 0;
+		for(int i = 0; i < confusion.length; i++)
+		{
+			predicted += confusion[i][c];
+		}
+		return (double)confusion[c][c] / (double)predicted;
+	}
+	
+	/**
+	 * @param c
+	 * @return The fraction of samples of class c that were predicted as c, NaN if there were none.
+	 */
+	public double getRecall(int c)
+	{
+		return (double)confusion[c][c] / (double)getClassTotal(c);
+	}
+	
+	/**
+	 * The report printed by NeuralNet.printAccuracy: the accuracy of each class (its recall), then overall.
+	 * @param title The name of the dataset
+	 * @return The report, one line per class and a line for the total, each ending in a line separator.
+	 */
+	public String format(String title)
+	{
+		StringBuilder report = new StringBuilder("Class Accuracy:").append(System.lineSeparator());
+		for(int i = 0; i < confusion.length; i++)
+		{
+			report.append(i + ": " + confusion[i][i] + " / " + getClassTotal(i) + " = " + getRecall(i)).append(System.lineSeparator());
+		}
+		report.append(title + " Accuracy: " + correct + " / " + total + " = " + getAccuracy()).append(System.lineSeparator());
+		return report.toString();
+	}
+	
+	@Override
+	public String toString()
+	{
+		return "accuracy " + correct + " / " + total + " = " + getAccuracy() + ", loss " + getLoss();
+	}
+}
@@ -0,0 +1,215 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Measures how well an InferenceEngine classifies a Dataset, or a subset of its samples, into an EvaluationResult.
+ * The samples are copied into batches of BATCH columns and predicted a batch at a time, which gives both their classes
+ * and their cost. With more than one thread the
+ * samples are split into contiguous ranges, each evaluated on the pool into its own confusion matrix, and the matrices
+ * are summed, so the accuracy is the same for any number of threads.
+**/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+public class Evaluator {
+	// Number of samples classified together
+	private static final int BATCH = 256;
+	
+	private final InferenceEngine engine;
+	private final ExecutorService pool;
+	private final int threads;
+	
+	/**
+	 * Evaluates on the calling thread.
+	 * @param engine
+	 */
+	public Evaluator(InferenceEngine engine)
+	{
+		this(engine, null, 1);
+	}
+	
+	/**
+	 * @param engine
+	 * @param pool Runs the ranges, or null to evaluate on the calling thread.
+	 * @param threads Number of ranges to split the samples into.
+	 */
+	public Evaluator(InferenceEngine engine, ExecutorService pool, int threads)
+	{
+		if (threads < 1)
+		{
+			throw new IllegalArgumentException("Number of threads must be at least 1: " + threads);
+		}
+		
+		this.engine = engine;
+		this.pool = pool;
+		this.threads = pool == null ? 1 : threads;
+	}
+	
+	/**
+	 * @param data
+	 * @return The result of classifying every sample of data.
+	 */
+	public EvaluationResult evaluate(Dataset data)
+	{
+		return evaluate(data, null);
+	}
+	
+	/**
+	 * @param data
+	 * @param indices The samples to classify, or null for all of them.
+	 * @return The result of classifying those samples.
+	 */
+	public EvaluationResult evaluate(Dataset data, int[] indices)
+	{
+		if (data.getNumFeatures() != engine.getNumInputs() || data.getNumClasses() != engine.getNumClasses())
+		{
+			throw new ArithmeticException("Dataset has " + data.getNumFeatures() + " features and " + data.getNumClasses()
+					+ " classes, expected " + engine.getNumInputs() + " and " + engine.getNumClasses());
+		}
+		
+		int size = indices == null ? data.size() : indices.length;
+		int numClasses = engine.getNumClasses();
+		int ranges = Math.max(1, Math.min(threads, (size + BATCH - 1) / BATCH));
+		int[][][] confusions = new int[ranges][numClasses][numClasses];
+		double[] losses = new double[ranges];
+		
+		if (ranges == 1)
+		{
+			losses[0] = evaluateRange(data, indices, 0, size, confusions[0]);
+		}
+		else
+		{
+			List<Callable<Void>> tasks = new ArrayList<>(ranges);
+			for(int r = 0; r < ranges; r++)
+			{
+				final int from = (int)((long)size * r / ranges);
+				final int to = (int)((long)size * (r + 1) / ranges);
+				final int range = r;
+				tasks.add(() -> {
+					losses[range] = evaluateRange(data, indices, from, to, confusions[range]);
+					return null;
+				});
+			}
+			invokeAll(tasks);
+			
+			for(int r = 1; r < ranges; r++)
+			{
+				losses[0] += losses[r];
+				for(int i = 0; i < numClasses; i++)
+				{
+					for(int j = 0; j < numClasses; j++)
+					{
+						confusions[0][i][j] += confusions[r][i][j];
+					}
+				}
+			}
+		}
+		
+		return new EvaluationResult(confusions[0], losses[0]);
+	}
+	
+	/**
+	 * Classifies the samples at positions from to to - 1 of indices, counting them into confusion.
+	 * @return The summed cost of the samples.
+	 */
+	private double evaluateRange(Dataset data, int[] indices, int from, int to, int[][] confusion)
+	{
+		int width = Math.min(BATCH, to - from);
+		Matrix inputs = new Matrix(data.getNumFeatures(), width, engine.getPrecision());
+		Matrix targets = new Matrix(data.getNumClasses(), width, engine.getPrecision());
+		Matrix outputs = new Matrix(data.getNumClasses(), width, engine.getPrecision());
+		boolean softmax = engine.getOutputActivation() == Activation.SOFTMAX;
+		double loss = 0;
+		
+		for(int start = from; start < to; start += width)
+		{
+			int n = Math.min(width, to - start);
+			Matrix x = n == width ? inputs : inputs.columns(0, n);
+			Matrix y = n == width ? targets : targets.columns(0, n);
+			for(int j = 0; j < n; j++)
+			{
+				data.copyTo(indices == null ? start + j : indices[start + j], x, y, j);
+			}
+			
+			Matrix a = n == width ? outputs : outputs.columns(0, n);
+			engine.predictBatch(x, a);
+			for(int j = 0; j < n; j++)
+			{
+				confusion[data.getLabel(indices == null ? start + j : indices[start + j])][MatrixUtil.maxRow(a, j)]++;
+			}
+			
+			// The same cost as training; the targets are no longer needed, so they hold a - y
+			if (softmax)
+			{
+				loss += MatrixUtil.crossEntropy(a, y);
+			}
+			else
+			{
+				loss += 0.5 * MatrixUtil.sumOfSquares(MatrixUtil.matSub(a, y, y));
+			}
+		}
+		return loss;
+	}
+	
+	/**
+	 * Run tasks on the pool and wait for all of them, rethrowing the first failure.
+	 * @param tasks
+	 */
+	private void invokeAll(List<Callable<Void>> tasks)
+	{
+		try {
+			for(Future<Void> result : pool.invokeAll(tasks))
+			{
+				result.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while evaluating", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+			{
+				throw (RuntimeException)e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+	}
+	
+	/**
+	 * Picks a random subset of the samples of a dataset, for evaluating on part of a large one.
+	 * @param size Number of samples in the dataset
+	 * @param count Number of samples to pick
+	 * @param random
+	 * @return count distinct sample indices in increasing order, or null, meaning all of them, if count >= size.
+	 */
+	public static int[] subsample(int size, int count, Random random)
+	{
+		if (count >= size)
+		{
+			return null;
+		}
+		
+		// Partial Fisher-Yates shuffle, keeping the first count entries
+		int[] order = new int[size];
+		for(int i = 0; i < size; i++)
+		{
+			order[i] = i;
+		}
+		for(int i = 0; i < count; i++)
+		{
+			int j = i + random.nextInt(size - i);
+			int swap = order[i];
+			order[i] = order[j];
+			order[j] = swap;
+		}
+		
+		int[] sample = Arrays.copyOf(order, count);
+		// In file order, so a MappedDataset is read front to back
+		Arrays.sort(sample);
+		return sample;
+	}
+}
@@ -0,0 +1,13 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: How MatrixUtil operations decide whether to split their output rows across threads.
+**/
+
+public enum ExecutionPolicy {
+	// Always run on the calling thread
+	SERIAL,
+	// Always split across the pool, whatever the size
+	PARALLEL,
+	// Split across the pool only when the operation is larger than MatrixUtil's parallel threshold
+	AUTO
+}
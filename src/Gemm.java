@@ -0,0 +1,539 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Cache-blocked general matrix multiply used by MatrixUtil.
+ * Computes C = alpha * op(A) * op(B) + beta * C, where op(X) is X or its transpose.
+ *
+ * The loop structure is the usual one for blocked GEMM: B is packed one KC x NC panel at a time,
+ * A one MC x KC block at a time, and an unrolled MR x NR micro-kernel multiplies the packed panels
+ * while its accumulators stay in registers. KC and MC are derived from the L1 and L2 cache sizes,
+ * which can be overridden with the system properties nn.cache.l1 and nn.cache.l2 (in bytes).
+ *
+ * Single precision matrices take a parallel set of float[] routines. Their micro-kernel tile is
+ * NR_FLOAT columns wide, so one row of it fills the same 256 bits as a row of the double tile.
+**/
+
+import java.util.Arrays;
+
+class Gemm {
+	// Micro-kernel tile, rows of C by columns of C.
+	static final int MR = 4;
+	static final int NR = 4;
+	static final int NR_FLOAT = 8;
+	
+	// Depth of a packed panel, rows of a packed A block and columns of a packed B panel.
+	static final int KC;
+	static final int MC;
+	static final int NC = 2048;
+	static final int KC_FLOAT;
+	static final int MC_FLOAT;
+	
+	// Below this many multiply-adds packing costs more than it saves.
+	private static final long SMALL_PRODUCT = 32 * 32 * 32;
+	
+	static {
+		long l1 = Long.getLong("nn.cache.l1", 32 * 1024);
+		long l2 = Long.getLong("nn.cache.l2", 256 * 1024);
+		
+		// Half of L1 holds one MR x KC sliver of A and one KC x NR sliver of B.
+		KC = roundDown((int)Math.min(1024, l1 / 2 / (Double.BYTES * (MR + NR))), NR);
+		// Half of L2 holds the packed MC x KC block of A.
+		MC = roundDown((int)Math.min(1024, l2 / 2 / (Double.BYTES * KC)), MR);
+		KC_FLOAT = roundDown((int)Math.min(1024, l1 / 2 / (Float.BYTES * (MR + NR_FLOAT))), NR);
+		MC_FLOAT = roundDown((int)Math.min(1024, l2 / 2 / (Float.BYTES * KC_FLOAT)), MR);
+	}
+	
+	private static final Kernels KERNELS = Kernels.get();
+	
+	// Packing buffers are reused per thread so a multiply allocates nothing once warmed up.
+	private static final ThreadLocal<double[][]> PACK_BUFFERS = ThreadLocal.withInitial(() -> new double[2][0]);
+	private static final ThreadLocal<float[][]> FLOAT_PACK_BUFFERS = ThreadLocal.withInitial(() -> new float[2][0]);
+	
+	private Gemm()
+	{
+	}
+	
+	/**
+	 * Computes rows [rowFrom, rowTo) of c = alpha * op(a) * op(b) + beta * c, so that disjoint row ranges
+	 * can be computed on different threads. Dimensions must already have been checked.
+	 * @param alpha Scale of the product.
+	 * @param a
+	 * @param transA Use the transpose of a.
+	 * @param b
+	 * @param transB Use the transpose of b.
+	 * @param beta Scale of the existing contents of c. When 0, c is overwritten and may hold garbage.
+	 * @param c Output, must not share storage with a or b. All three must have the same precision.
+	 * @param rowFrom First row of c to compute.
+	 * @param rowTo One past the last row of c to compute.
+	 */
+	static void multiply(double alpha, Matrix a, boolean transA, Matrix b, boolean transB, double beta, Matrix c, int rowFrom, int rowTo)
+	{
+		int aRs = transA ? 1 : a.getStride();
+		int aCs = transA ? a.getStride() : 1;
+		int k = transA ? a.getHeight() : a.getWidth();
+		
+		if (c.getPrecision() == Precision.FLOAT)
+		{
+			multiply((float)alpha,
+					a.getFloatData(), a.getOffset() + rowFrom * aRs, aRs, aCs,
+					b.getFloatData(), b.getOffset(), transB ? 1 : b.getStride(), transB ? b.getStride() : 1,
+					(float)beta, c.getFloatData(), c.getOffset() + rowFrom * c.getStride(), c.getStride(), rowTo - rowFrom, c.getWidth(), k);
+			return;
+		}
+		
+		multiply(alpha,
+				a.getData(), a.getOffset() + rowFrom * aRs, aRs, aCs,
+				b.getData(), b.getOffset(), transB ? 1 : b.getStride(), transB ? b.getStride() : 1,
+				beta, c.getData(), c.getOffset() + rowFrom * c.getStride(), c.getStride(), rowTo - rowFrom, c.getWidth(), k);
+	}
+	
+	/**
+	 * Strided form of multiply. Element (i, p) of op(A) is a[aOff + i * aRs + p * aCs], and likewise for B.
+	 * C is row-major with row stride cRs.
+	 */
+	static void multiply(double alpha,
+			double[] a, int aOff, int aRs, int aCs,
+			double[] b, int bOff, int bRs, int bCs,
+			double beta, double[] c, int cOff, int cRs,
+			int m, int n, int k)
+	{
+		scale(beta, c, cOff, cRs, m, n);
+		
+		if (m == 0 || n == 0 || k == 0 || alpha == 0)
+		{
+			return;
+		}
+		
+		if (n == 1)
+		{
+			gemv(alpha, a, aOff, aRs, aCs, b, bOff, bRs, c, cOff, cRs, m, k);
+		}
+		else if ((long)m * n * k <= SMALL_PRODUCT)
+		{
+			small(alpha, a, aOff, aRs, aCs, b, bOff, bRs, bCs, c, cOff, cRs, m, n, k);
+		}
+		else
+		{
+			blocked(alpha, a, aOff, aRs, aCs, b, bOff, bRs, bCs, c, cOff, cRs, m, n, k);
+		}
+	}
+	
+	/**
+	 * c = beta * c over an m x n region.
+	 */
+	private static void scale(double beta, double[] c, int cOff, int cRs, int m, int n)
+	{
+		if (beta == 1)
+		{
+			return;
+		}
+		
+		for(int i = 0; i < m; i++)
+		{
+			int row = cOff + i * cRs;
+			if (beta == 0)
+			{
+				Arrays.fill(c, row, row + n, 0);
+			}
+			else
+			{
+				for(int j = 0; j < n; j++)
+				{
+					c[row + j] *= beta;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Matrix-vector product, c += alpha * op(A) * x where x is a column.
+	 */
+	private static void gemv(double alpha, double[] a, int aOff, int aRs, int aCs,
+			double[] x, int xOff, int xRs, double[] c, int cOff, int cRs, int m, int k)
+	{
+		if (aCs == 1)
+		{
+			// Rows of A are contiguous, so each output is a dot product.
+			for(int i = 0; i < m; i++)
+			{
+				int row = aOff + i * aRs;
+				double sum;
+				if (xRs == 1)
+				{
+					sum = KERNELS.dot(a, row, x, xOff, k);
+				}
+				else
+				{
+					sum = 0;
+					for(int p = 0; p < k; p++)
+					{
+						sum += a[row + p] * x[xOff + p * xRs];
+					}
+				}
+				c[cOff + i * cRs] += alpha * sum;
+			}
+		}
+		else
+		{
+			// Columns of A are contiguous (A is transposed), so accumulate one column at a time.
+			for(int p = 0; p < k; p++)
+			{
+				double xp = alpha * x[xOff + p * xRs];
+				if (xp == 0)
+				{
+					continue;
+				}
+				int col = aOff + p * aCs;
+				if (aRs == 1 && cRs == 1)
+				{
+					KERNELS.axpy(xp, a, col, c, cOff, m);
+					continue;
+				}
+				for(int i = 0; i < m; i++)
+				{
+					c[cOff + i * cRs] += xp * a[col + i * aRs];
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Unblocked i-p-j product for small operands, walking rows of B and C contiguously.
+	 */
+	private static void small(double alpha, double[] a, int aOff, int aRs, int aCs,
+			double[] b, int bOff, int bRs, int bCs, double[] c, int cOff, int cRs, int m, int n, int k)
+	{
+		for(int i = 0; i < m; i++)
+		{
+			int cRow = cOff + i * cRs;
+			for(int p = 0; p < k; p++)
+			{
+				double aip = alpha * a[aOff + i * aRs + p * aCs];
+				int bRow = bOff + p * bRs;
+				for(int j = 0; j < n; j++)
+				{
+					c[cRow + j] += aip * b[bRow + j * bCs];
+				}
+			}
+		}
+	}
+	
+	private static void blocked(double alpha, double[] a, int aOff, int aRs, int aCs,
+			double[] b, int bOff, int bRs, int bCs, double[] c, int cOff, int cRs, int m, int n, int k)
+	{
+		double[][] buffers = PACK_BUFFERS.get();
+		int kcMax = Math.min(KC, k);
+		double[] packedA = ensure(buffers, 0, roundUp(Math.min(MC, m), MR) * kcMax);
+		double[] packedB = ensure(buffers, 1, roundUp(Math.min(NC, n), NR) * kcMax);
+		
+		for(int jc = 0; jc < n; jc += NC)
+		{
+			int nc = Math.min(NC, n - jc);
+			
+			for(int pc = 0; pc < k; pc += KC)
+			{
+				int kc = Math.min(KC, k - pc);
+				packB(b, bOff + pc * bRs + jc * bCs, bRs, bCs, kc, nc, packedB);
+				
+				for(int ic = 0; ic < m; ic += MC)
+				{
+					int mc = Math.min(MC, m - ic);
+					packA(alpha, a, aOff + ic * aRs + pc * aCs, aRs, aCs, mc, kc, packedA);
+					
+					for(int jr = 0; jr < nc; jr += NR)
+					{
+						int nr = Math.min(NR, nc - jr);
+						for(int ir = 0; ir < mc; ir += MR)
+						{
+							int mr = Math.min(MR, mc - ir);
+							KERNELS.microKernel(kc, packedA, ir * kc, packedB, jr * kc,
+									c, cOff + (ic + ir) * cRs + jc + jr, cRs, mr, nr);
+						}
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Packs an mc x kc block of A (scaled by alpha) into slivers of MR rows. Each sliver stores
+	 * its MR values for depth p contiguously; rows past mc are zero padded.
+	 */
+	private static void packA(double alpha, double[] a, int aOff, int aRs, int aCs, int mc, int kc, double[] packed)
+	{
+		int dst = 0;
+		for(int ir = 0; ir < mc; ir += MR)
+		{
+			int mr = Math.min(MR, mc - ir);
+			for(int p = 0; p < kc; p++)
+			{
+				int src = aOff + ir * aRs + p * aCs;
+				int r = 0;
+				for(; r < mr; r++)
+				{
+					packed[dst++] = alpha * a[src + r * aRs];
+				}
+				for(; r < MR; r++)
+				{
+					packed[dst++] = 0;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Packs a kc x nc panel of B into slivers of NR columns. Each sliver stores its NR values
+	 * for depth p contiguously; columns past nc are zero padded.
+	 */
+	private static void packB(double[] b, int bOff, int bRs, int bCs, int kc, int nc, double[] packed)
+	{
+		int dst = 0;
+		for(int jr = 0; jr < nc; jr += NR)
+		{
+			int nr = Math.min(NR, nc - jr);
+			for(int p = 0; p < kc; p++)
+			{
+				int src = bOff + p * bRs + jr * bCs;
+				int s = 0;
+				for(; s < nr; s++)
+				{
+					packed[dst++] = b[src + s * bCs];
+				}
+				for(; s < NR; s++)
+				{
+					packed[dst++] = 0;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Single precision form of the strided multiply.
+	 */
+	static void multiply(float alpha,
+			float[] a, int aOff, int aRs, int aCs,
+			float[] b, int bOff, int bRs, int bCs,
+			float beta, float[] c, int cOff, int cRs,
+			int m, int n, int k)
+	{
+		scale(beta, c, cOff, cRs, m, n);
+		
+		if (m == 0 || n == 0 || k == 0 || alpha == 0)
+		{
+			return;
+		}
+		
+		if (n == 1)
+		{
+			gemv(alpha, a, aOff, aRs, aCs, b, bOff, bRs, c, cOff, cRs, m, k);
+		}
+		else if ((long)m * n * k <= SMALL_PRODUCT)
+		{
+			small(alpha, a, aOff, aRs, aCs, b, bOff, bRs, bCs, c, cOff, cRs, m, n, k);
+		}
+		else
+		{
+			blocked(alpha, a, aOff, aRs, aCs, b, bOff, bRs, bCs, c, cOff, cRs, m, n, k);
+		}
+	}
+	
+	private static void scale(float beta, float[] c, int cOff, int cRs, int m, int n)
+	{
+		if (beta == 1)
+		{
+			return;
+		}
+		
+		for(int i = 0; i < m; i++)
+		{
+			int row = cOff + i * cRs;
+			if (beta == 0)
+			{
+				Arrays.fill(c, row, row + n, 0);
+			}
+			else
+			{
+				for(int j = 0; j < n; j++)
+				{
+					c[row + j] *= beta;
+				}
+			}
+		}
+	}
+	
+	private static void gemv(float alpha, float[] a, int aOff, int aRs, int aCs,
+			float[] x, int xOff, int xRs, float[] c, int cOff, int cRs, int m, int k)
+	{
+		if (aCs == 1)
+		{
+			for(int i = 0; i < m; i++)
+			{
+				int row = aOff + i * aRs;
+				float sum;
+				if (xRs == 1)
+				{
+					sum = KERNELS.dot(a, row, x, xOff, k);
+				}
+				else
+				{
+					sum = 0;
+					for(int p = 0; p < k; p++)
+					{
+						sum += a[row + p] * x[xOff + p * xRs];
+					}
+				}
+				c[cOff + i * cRs] += alpha * sum;
+			}
+		}
+		else
+		{
+			for(int p = 0; p < k; p++)
+			{
+				float xp = alpha * x[xOff + p * xRs];
+				if (xp == 0)
+				{
+					continue;
+				}
+				int col = aOff + p * aCs;
+				if (aRs == 1 && cRs == 1)
+				{
+					KERNELS.axpy(xp, a, col, c, cOff, m);
+					continue;
+				}
+				for(int i = 0; i < m; i++)
+				{
+					c[cOff + i * cRs] += xp * a[col + i * aRs];
+				}
+			}
+		}
+	}
+	
+	private static void small(float alpha, float[] a, int aOff, int aRs, int aCs,
+			float[] b, int bOff, int bRs, int bCs, float[] c, int cOff, int cRs, int m, int n, int k)
+	{
+		for(int i = 0; i < m; i++)
+		{
+			int cRow = cOff + i * cRs;
+			for(int p = 0; p < k; p++)
+			{
+				float aip = alpha * a[aOff + i * aRs + p * aCs];
+				int bRow = bOff + p * bRs;
+				for(int j = 0; j < n; j++)
+				{
+					c[cRow + j] += aip * b[bRow + j * bCs];
+				}
+			}
+		}
+	}
+	
+	private static void blocked(float alpha, float[] a, int aOff, int aRs, int aCs,
+			float[] b, int bOff, int bRs, int bCs, float[] c, int cOff, int cRs, int m, int n, int k)
+	{
+		float[][] buffers = FLOAT_PACK_BUFFERS.get();
+		int kcMax = Math.min(KC_FLOAT, k);
+		float[] packedA = ensure(buffers, 0, roundUp(Math.min(MC_FLOAT, m), MR) * kcMax);
+		float[] packedB = ensure(buffers, 1, roundUp(Math.min(NC, n), NR_FLOAT) * kcMax);
+		
+		for(int jc = 0; jc < n; jc += NC)
+		{
+			int nc = Math.min(NC, n - jc);
+			
+			for(int pc = 0; pc < k; pc += KC_FLOAT)
+			{
+				int kc = Math.min(KC_FLOAT, k - pc);
+				packB(b, bOff + pc * bRs + jc * bCs, bRs, bCs, kc, nc, packedB);
+				
+				for(int ic = 0; ic < m; ic += MC_FLOAT)
+				{
+					int mc = Math.min(MC_FLOAT, m - ic);
+					packA(alpha, a, aOff + ic * aRs + pc * aCs, aRs, aCs, mc, kc, packedA);
+					
+					for(int jr = 0; jr < nc; jr += NR_FLOAT)
+					{
+						int nr = Math.min(NR_FLOAT, nc - jr);
+						for(int ir = 0; ir < mc; ir += MR)
+						{
+							int mr = Math.min(MR, mc - ir);
+							KERNELS.microKernel(kc, packedA, ir * kc, packedB, jr * kc,
+									c, cOff + (ic + ir) * cRs + jc + jr, cRs, mr, nr);
+						}
+					}
+				}
+			}
+		}
+	}
+	
+	private static void packA(float alpha, float[] a, int aOff, int aRs, int aCs, int mc, int kc, float[] packed)
+	{
+		int dst = 0;
+		for(int ir = 0; ir < mc; ir += MR)
+		{
+			int mr = Math.min(MR, mc - ir);
+			for(int p = 0; p < kc; p++)
+			{
+				int src = aOff + ir * aRs + p * aCs;
+				int r = 0;
+				for(; r < mr; r++)
+				{
+					packed[dst++] = alpha * a[src + r * aRs];
+				}
+				for(; r < MR; r++)
+				{
+					packed[dst++] = 0;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Packs a kc x nc panel of B into slivers of NR_FLOAT columns.
+	 */
+	private static void packB(float[] b, int bOff, int bRs, int bCs, int kc, int nc, float[] packed)
+	{
+		int dst = 0;
+		for(int jr = 0; jr < nc; jr += NR_FLOAT)
+		{
+			int nr = Math.min(NR_FLOAT, nc - jr);
+			for(int p = 0; p < kc; p++)
+			{
+				int src = bOff + p * bRs + jr * bCs;
+				int s = 0;
+				for(; s < nr; s++)
+				{
+					packed[dst++] = b[src + s * bCs];
+				}
+				for(; s < NR_FLOAT; s++)
+				{
+					packed[dst++] = 0;
+				}
+			}
+		}
+	}
+	
+	private static double[] ensure(double[][] buffers, int which, int size)
+	{
+		if (buffers[which].length < size)
+		{
+			buffers[which] = new double[size];
+		}
+		return buffers[which];
+	}
+	
+	private static float[] ensure(float[][] buffers, int which, int size)
+	{
+		if (buffers[which].length < size)
+		{
+			buffers[which] = new float[size];
+		}
+		return buffers[which];
+	}
+	
+	private static int roundUp(int x, int multiple)
+	{
+		return (x + multiple - 1) / multiple * multiple;
+	}
+	
+	private static int roundDown(int x, int multiple)
+	{
+		return Math.max(multiple, x / multiple * multiple);
+	}
+}
@@ -3,19 +3,63 @@
  * Date Written: 10/7/2018
  * Description: Handles all IO for MNIST assignment, including gathering user-input, displaying information,
  * and saving to files. Currently, uses a command line system.
+ *
+ * Datasets can be read from the MNIST CSVs, the original IDX (ubyte) files, or a compact binary format
+ * written by saveBinary. The binary format is a 32 byte little-endian header (magic, version, number of
+ * samples, number of features, number of classes), then one label byte per sample, then every sample's
+ * pixels as one unsigned byte each. It is read with a few bulk FileChannel reads and no text parsing.
+ *
+ * Networks are saved in a binary model format (see saveModel): a little-endian header with the format version,
+ * precision, training settings, layer sizes and activation of every layer, then each layer's weights and biases
+ * as raw row-major blocks, then the optimizer and its state. Networks saved with object serialization (.ser files)
+ * can still be loaded.
 **/
 
 import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 
 public class IOManager {
+	// "NNDS" followed by the format version, at the start of every binary dataset
+	static final int BINARY_MAGIC = 0x53444E4E;
+	static final int BINARY_VERSION = 1;
+	static final int BINARY_HEADER_BYTES = 32;
+	
+	// "NNMD" followed by the format version, at the start of every binary model
+	static final int MODEL_MAGIC = 0x444D4E4E;
+	// Version 2 added the optimizer section. Version 1 files are still read, with a fresh SGD optimizer.
+	static final int MODEL_VERSION = 2;
+	// Fixed part of the model header, before the layer sizes
+	private static final int MODEL_HEADER_BYTES = 32;
+	// Fixed part of the optimizer section, before its state blocks
+	private static final int MODEL_OPTIMIZER_BYTES = 40;
+	
+	private static final int IDX_IMAGES_MAGIC = 0x00000803;
+	private static final int IDX_LABELS_MAGIC = 0x00000801;
+	
+	// Pixel byte b decodes to PIXEL_VALUES[b] = b / 255, the same value parseCSV produces for the text "b"
+	static final double[] PIXEL_VALUES = new double[256];
+	
+	static {
+		for(int b = 0; b < 256; b++)
+		{
+			PIXEL_VALUES[b] = b / 255.0;
+		}
+	}
+	
 	Scanner sc = new Scanner(System.in);
 	
 	/**
@@ -27,6 +71,19 @@ public class IOManager {
 	 * @throws IOException You probably messed up the file extension, lol
 	 */
 	public void parseCSV(String csvFile, ArrayList<Matrix[]> dataset) throws IOException
+	{
+		parseCSV(csvFile, dataset, Precision.DOUBLE);
+	}
+	
+	/**
+	 * Parses the MNIST CSVs into matrices of the given precision.
+	 * Single precision samples take half the memory, and feed a FLOAT network without conversion.
+	 * @param csvFile Filename of dataset.
+	 * @param dataset Dataset to have digits stored in.
+	 * @param precision Precision of the stored matrices.
+	 * @throws IOException
+	 */
+	public void parseCSV(String csvFile, ArrayList<Matrix[]> dataset, Precision precision) throws IOException
 	{
         BufferedReader br = new BufferedReader(new FileReader(csvFile));
         String line = "";
@@ -35,36 +92,315 @@ public class IOManager {
         // being the intensity values of the pixel, ranging from 0-255.
 		while ((line = br.readLine()) != null)
 		{
-		    String[] digit = line.split(",");
-		    
-		    Matrix X = new Matrix(28 * 28, 1);
-		    Matrix Y = new Matrix(10, 1);
-			    
-		    // One-hot encoding of the classification vector
-		    for(int i = 0; i < 10; i++)
-		    {
-		    	if(i == Integer.parseInt(digit[0]))
-		    	{
-		    		Y.setElement(i, 0, 1);
-		    	}
-		    	else
-		    	{
-		    		Y.setElement(i, 0, 0);
-		    	}
-		    }
-		    
-		    for(int i = 0; i < 28 * 28; i++)
-		    {
-		    	// Value is divided by 255 to put into the range 0-1
-		    	X.setElement(i, 0, Double.parseDouble(digit[i + 1]) / 255);
-		    }
-		    
-		    dataset.add(new Matrix[] {X, Y});
-
+		    dataset.add(parseDigit(line, precision));
 		}
 		br.close();
 	}
 
+	/**
+	 * Parses one line of an MNIST CSV, the classification followed by the 28 * 28 pixel intensities.
+	 * @param line
+	 * @param precision Precision of the returned matrices.
+	 * @return The digit as {X, Y}.
+	 */
+	static Matrix[] parseDigit(String line, Precision precision)
+	{
+		String[] digit = line.split(",");
+		
+		Matrix X = new Matrix(28 * 28, 1, precision);
+		Matrix Y = new Matrix(10, 1, precision);
+		
+		// One-hot encoding of the classification vector
+		for(int i = 0; i < 10; i++)
+		{
+			if(i == Integer.parseInt(digit[0]))
+			{
+				Y.setElement(i, 0, 1);
+			}
+			else
+			{
+				Y.setElement(i, 0, 0);
+			}
+		}
+		
+		for(int i = 0; i < 28 * 28; i++)
+		{
+			// Value is divided by 255 to put into the range 0-1
+			X.setElement(i, 0, Double.parseDouble(digit[i + 1]) / 255);
+		}
+		
+		return new Matrix[] {X, Y};
+	}
+
+	/**
+	 * Reads a dataset in whichever format filename is, by its extension: ".csv" for the MNIST CSVs,
+	 * anything else for the binary format written by saveBinary.
+	 * @param filename
+	 * @param dataset Dataset to have digits stored in.
+	 * @throws IOException
+	 */
+	public void loadDataset(String filename, ArrayList<Matrix[]> dataset) throws IOException
+	{
+		if (filename.endsWith(".csv"))
+		{
+			parseCSV(filename, dataset);
+		}
+		else
+		{
+			loadBinary(filename, dataset);
+		}
+	}
+	
+	/**
+	 * Opens a dataset without loading it onto the heap where the format allows: binary datasets are
+	 * memory-mapped, and CSVs, which have to be parsed, are read into a ListDataset.
+	 * @param filename
+	 * @return The dataset.
+	 * @throws IOException
+	 */
+	public Dataset openDataset(String filename) throws IOException
+	{
+		if (filename.endsWith(".csv"))
+		{
+			ArrayList<Matrix[]> samples = new ArrayList<>();
+			parseCSV(filename, samples);
+			return new ListDataset(samples);
+		}
+		
+		return new MappedDataset(filename);
+	}
+	
+	/**
+	 * Reads the original MNIST IDX files, for example train-images-idx3-ubyte and train-labels-idx1-ubyte.
+	 * @param imagesFile IDX3 file of unsigned byte images.
+	 * @param labelsFile IDX1 file of unsigned byte labels.
+	 * @param dataset Dataset to have digits stored in, each {X, Y}.
+	 * @param precision Precision of the stored matrices.
+	 * @throws IOException If either file is not an unsigned byte IDX file, or they hold different numbers of samples.
+	 */
+	public void parseIDX(String imagesFile, String labelsFile, ArrayList<Matrix[]> dataset, Precision precision) throws IOException
+	{
+		byte[] pixels;
+		byte[] labels;
+		int features;
+		
+		try (FileChannel channel = FileChannel.open(Paths.get(imagesFile), StandardOpenOption.READ)) {
+			// IDX headers are big-endian
+			ByteBuffer header = readFully(channel, 16);
+			if (header.getInt() != IDX_IMAGES_MAGIC)
+			{
+				throw new IOException(imagesFile + " is not an IDX file of unsigned byte images");
+			}
+			int count = header.getInt();
+			features = header.getInt() * header.getInt();
+			pixels = readBytes(channel, (long)count * features);
+		}
+		
+		try (FileChannel channel = FileChannel.open(Paths.get(labelsFile), StandardOpenOption.READ)) {
+			ByteBuffer header = readFully(channel, 8);
+			if (header.getInt() != IDX_LABELS_MAGIC)
+			{
+				throw new IOException(labelsFile + " is not an IDX file of unsigned byte labels");
+			}
+			labels = readBytes(channel, header.getInt());
+		}
+		
+		if ((long)labels.length * features != pixels.length)
+		{
+			throw new IOException(imagesFile + " and " + labelsFile + " hold different numbers of samples");
+		}
+		
+		decode(pixels, labels, features, 10, dataset, precision);
+	}
+	
+	/**
+	 * Reads a dataset written by saveBinary.
+	 * @param filename
+	 * @param dataset Dataset to have digits stored in, each {X, Y}.
+	 * @throws IOException
+	 */
+	public void loadBinary(String filename, ArrayList<Matrix[]> dataset) throws IOException
+	{
+		loadBinary(filename, dataset, Precision.DOUBLE);
+	}
+	
+	/**
+	 * Reads a dataset written by saveBinary into matrices of the given precision.
+	 * @param filename
+	 * @param dataset Dataset to have digits stored in, each {X, Y}.
+	 * @param precision Precision of the stored matrices.
+	 * @throws IOException If the file is not a binary dataset or is truncated.
+	 */
+	public void loadBinary(String filename, ArrayList<Matrix[]> dataset, Precision precision) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			int[] header = readBinaryHeader(readFully(channel, BINARY_HEADER_BYTES), filename);
+			int count = header[0], features = header[1], classes = header[2];
+			
+			byte[] labels = readBytes(channel, count);
+			byte[] pixels = readBytes(channel, (long)count * features);
+			decode(pixels, labels, features, classes, dataset, precision);
+		}
+	}
+	
+	/**
+	 * Writes a dataset in the compact binary format. Every feature is stored as round(x * 255), so the
+	 * values must lie in [0, 1], and MNIST pixels survive the round trip exactly. Each label is the index
+	 * of the largest element of Y.
+	 * @param filename
+	 * @param dataset Samples, each {X, Y}, all of the same size.
+	 * @throws IOException
+	 */
+	public void saveBinary(String filename, List<Matrix[]> dataset) throws IOException
+	{
+		int features = dataset.isEmpty() ? 0 : dataset.get(0)[0].getHeight();
+		int classes = dataset.isEmpty() ? 0 : dataset.get(0)[1].getHeight();
+		
+		ByteBuffer header = ByteBuffer.allocate(BINARY_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(BINARY_MAGIC).putInt(BINARY_VERSION).putInt(dataset.size()).putInt(features).putInt(classes);
+		header.clear();
+		
+		ByteBuffer labels = ByteBuffer.allocate(dataset.size());
+		ByteBuffer pixels = ByteBuffer.allocate(features * 1024);
+		
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			for(Matrix[] datum : dataset)
+			{
+				labels.put((byte)MatrixUtil.maxElement(datum[1]));
+			}
+			labels.flip();
+			writeFully(channel, header);
+			writeFully(channel, labels);
+			
+			// Pixels go out a block of samples at a time
+			for(Matrix[] datum : dataset)
+			{
+				if (datum[0].getHeight() != features)
+				{
+					throw new IOException("Sample has " + datum[0].getHeight() + " features, expected " + features);
+				}
+				if (pixels.remaining() < features)
+				{
+					pixels.flip();
+					writeFully(channel, pixels);
+					pixels.clear();
+				}
+				for(int i = 0; i < features; i++)
+				{
+					pixels.put((byte)Math.round(datum[0].getElement(i, 0) * 255));
+				}
+			}
+			pixels.flip();
+			writeFully(channel, pixels);
+		}
+	}
+	
+	/**
+	 * Checks a binary dataset header.
+	 * @param header The first BINARY_HEADER_BYTES of the file.
+	 * @param filename For error messages.
+	 * @return {number of samples, number of features, number of classes}
+	 * @throws IOException If it is not a binary dataset of a supported version.
+	 */
+	static int[] readBinaryHeader(ByteBuffer header, String filename) throws IOException
+	{
+		header.order(ByteOrder.LITTLE_ENDIAN);
+		if (header.getInt(0) != BINARY_MAGIC)
+		{
+			throw new IOException(filename + " is not a binary dataset");
+		}
+		if (header.getInt(4) != BINARY_VERSION)
+		{
+			throw new IOException(filename + " has unsupported version " + header.getInt(4));
+		}
+		
+		return new int[] {header.getInt(8), header.getInt(12), header.getInt(16)};
+	}
+	
+	/**
+	 * Turns label and pixel bytes into {X, Y} samples with pixels scaled to [0, 1] and one-hot labels.
+	 */
+	private static void decode(byte[] pixels, byte[] labels, int features, int classes, ArrayList<Matrix[]> dataset, Precision precision) throws IOException
+	{
+		dataset.ensureCapacity(dataset.size() + labels.length);
+		
+		for(int s = 0; s < labels.length; s++)
+		{
+			int label = labels[s] & 0xFF;
+			if (label >= classes)
+			{
+				throw new IOException("Label " + label + " of sample " + s + " is not one of " + classes + " classes");
+			}
+			
+			Matrix X = new Matrix(features, 1, precision);
+			Matrix Y = new Matrix(classes, 1, precision);
+			Y.setElement(label, 0, 1);
+			
+			int offset = s * features;
+			if (precision == Precision.FLOAT)
+			{
+				float[] x = X.getFloatData();
+				for(int i = 0; i < features; i++)
+				{
+					x[i] = (float)PIXEL_VALUES[pixels[offset + i] & 0xFF];
+				}
+			}
+			else
+			{
+				double[] x = X.getData();
+				for(int i = 0; i < features; i++)
+				{
+					x[i] = PIXEL_VALUES[pixels[offset + i] & 0xFF];
+				}
+			}
+			
+			dataset.add(new Matrix[] {X, Y});
+		}
+	}
+	
+	/**
+	 * Reads exactly size bytes from the channel's current position into a new array.
+	 */
+	private static byte[] readBytes(FileChannel channel, long size) throws IOException
+	{
+		if (size > Integer.MAX_VALUE)
+		{
+			throw new IOException("Dataset of " + size + " bytes is too large to load into memory");
+		}
+		
+		byte[] bytes = new byte[(int)size];
+		readFully(channel, ByteBuffer.wrap(bytes));
+		return bytes;
+	}
+	
+	private static ByteBuffer readFully(FileChannel channel, int size) throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(size);
+		readFully(channel, buffer);
+		buffer.flip();
+		return buffer;
+	}
+	
+	private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			if (channel.read(buffer) < 0)
+			{
+				throw new EOFException("File is truncated");
+			}
+		}
+	}
+	
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+	}
+	
 	/**
 	 * Get input from the user
 	 * @return The requested input.
@@ -74,13 +410,20 @@ public class IOManager {
 	}
 
 	/**
-	 * Store the network passed to a file using object serialization.
+	 * Store the network passed to a file, in the binary model format, or using object serialization
+	 * if the filename ends in ".ser".
 	 * @param filename File to save to.
 	 * @param net Network to be saved.
 	 * @throws IOException You probably messed up the filename, lol
 	 */
 	public void save(String filename, NeuralNet net) throws IOException
 	{
+		if (!filename.endsWith(".ser"))
+		{
+			saveModel(filename, net);
+			return;
+		}
+		
         // Saving of object in a file 
         FileOutputStream file = new FileOutputStream(filename); 
         ObjectOutputStream out = new ObjectOutputStream(file); 
@@ -93,13 +436,19 @@ public class IOManager {
 	}
 	
 	/**
-	 * Reads a stored network from a file using object serialization.
+	 * Reads a stored network from a file, in the binary model format or written by object serialization.
+	 * The format is recognized from the start of the file, whatever its name.
 	 * @param filename File to save to.
 	 * @return The loaded neural net.
 	 * @throws IOException You probably messed up the filename, lol
 	 */
 	public NeuralNet load(String filename) throws IOException, ClassNotFoundException
 	{
+		if (isModel(filename))
+		{
+			return loadModel(filename);
+		}
+		
         FileInputStream file = new FileInputStream(filename); 
         ObjectInputStream in = new ObjectInputStream(file); 
         
@@ -110,6 +459,260 @@ public class IOManager {
         
         return net;
 	}
+	
+	/**
+	 * Writes a network in the binary model format. All numbers are little-endian:
+	 * magic, version, precision (0 double, 1 float), number of layers L, learning rate (a double), batch size,
+	 * number of epochs, the L + 1 layer sizes including the input layer, the activation code of each
+	 * of the L layers (see Activation.getCode), padding to a multiple of 8 bytes, then for every layer its weights (rows are the layer's nodes)
+	 * followed by its biases, as doubles or floats in the network's precision.
+	 * The optimizer section follows: method code (see Optimizer.Method), number of state slots S (0 before the first step),
+	 * number of steps taken (a long), its two decays and epsilon (doubles), then S copies of the weight and bias blocks
+	 * holding the state, in the same layout.
+	 * @param filename File to save to.
+	 * @param net Network to be saved.
+	 * @throws IOException
+	 */
+	public void saveModel(String filename, NeuralNet net) throws IOException
+	{
+		int[] sizes = net.getLayerSizes();
+		int layers = sizes.length - 1;
+		
+		ByteBuffer header = ByteBuffer.allocate(modelHeaderBytes(layers)).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(MODEL_MAGIC).putInt(MODEL_VERSION).putInt(net.getPrecision() == Precision.FLOAT ? 1 : 0).putInt(layers);
+		header.putDouble(net.getLearningRate()).putInt(net.getBatchSize()).putInt(net.getNumEpochs());
+		for(int size : sizes)
+		{
+			header.putInt(size);
+		}
+		for(int layer = 0; layer < layers; layer++)
+		{
+			header.putInt(net.getActivation(layer).getCode());
+		}
+		header.clear();
+		
+		ByteBuffer block = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			writeFully(channel, header);
+			for(int layer = 0; layer < layers; layer++)
+			{
+				writeBlock(channel, net.getWeights(layer), block);
+				writeBlock(channel, net.getBiases(layer), block);
+			}
+			
+			Optimizer optimizer = net.getOptimizer();
+			Matrix[][] state = optimizer.getState();
+			ByteBuffer section = ByteBuffer.allocate(MODEL_OPTIMIZER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			section.putInt(optimizer.getMethod().getCode()).putInt(state == null ? 0 : state.length).putLong(optimizer.getSteps());
+			section.putDouble(optimizer.getBeta1()).putDouble(optimizer.getBeta2()).putDouble(optimizer.getEpsilon());
+			section.clear();
+			writeFully(channel, section);
+			for(int slot = 0; state != null && slot < state.length; slot++)
+			{
+				for(Matrix m : state[slot])
+				{
+					writeBlock(channel, m.toPrecision(net.getPrecision()), block);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Reads a network in the binary model format. Each weight and bias block is memory-mapped and copied
+	 * in bulk straight into the new matrices, with no per-element parsing or intermediate buffer.
+	 * @param filename
+	 * @return The loaded neural net, in the precision it was saved in.
+	 * @throws IOException If the file is not a binary model of a supported version, or is truncated.
+	 */
+	public NeuralNet loadModel(String filename) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			ByteBuffer fixed = readFully(channel, MODEL_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			if (fixed.getInt(0) != MODEL_MAGIC)
+			{
+				throw new IOException(filename + " is not a binary model");
+			}
+			int version = fixed.getInt(4);
+			if (version < 1 || version > MODEL_VERSION)
+			{
+				throw new IOException(filename + " has unsupported model version " + fixed.getInt(4));
+			}
+			int precisionCode = fixed.getInt(8);
+			int layers = fixed.getInt(12);
+			if (precisionCode < 0 || precisionCode > 1 || layers < 1 || layers > 1 << 16)
+			{
+				throw new IOException(filename + " has a corrupt model header");
+			}
+			Precision precision = precisionCode == 1 ? Precision.FLOAT : Precision.DOUBLE;
+			
+			ByteBuffer header = readFully(channel, modelHeaderBytes(layers) - MODEL_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			int[] sizes = new int[layers + 1];
+			for(int i = 0; i <= layers; i++)
+			{
+				sizes[i] = header.getInt();
+				if (sizes[i] < 1)
+				{
+					throw new IOException(filename + " has a layer of size " + sizes[i]);
+				}
+			}
+			Activation[] activations = new Activation[layers];
+			for(int layer = 0; layer < layers; layer++)
+			{
+				int activation = header.getInt();
+				try {
+					activations[layer] = Activation.fromCode(activation);
+				} catch (IllegalArgumentException e) {
+					throw new IOException(filename + " has unknown activation " + activation);
+				}
+			}
+			
+			Matrix[] weights = new Matrix[layers];
+			Matrix[] biases = new Matrix[layers];
+			long position = modelHeaderBytes(layers);
+			for(int layer = 0; layer < layers; layer++)
+			{
+				weights[layer] = readBlock(channel, position, sizes[layer + 1], sizes[layer], precision, filename);
+				position += elementBytes(precision) * (long)sizes[layer + 1] * sizes[layer];
+				biases[layer] = readBlock(channel, position, sizes[layer + 1], 1, precision, filename);
+				position += elementBytes(precision) * (long)sizes[layer + 1];
+			}
+			
+			NeuralNet net = new NeuralNet(weights, biases, fixed.getDouble(16), fixed.getInt(24), fixed.getInt(28));
+			if (version >= 2)
+			{
+				net.setOptimizer(readOptimizer(channel, position, sizes, precision, filename));
+			}
+			for(int layer = 0; layer < layers; layer++)
+			{
+				try {
+					net.setActivation(layer, activations[layer]);
+				} catch (IllegalArgumentException e) {
+					throw new IOException(filename + " has " + activations[layer] + " on hidden layer " + layer);
+				}
+			}
+			return net;
+		}
+	}
+	
+	/**
+	 * Reads the optimizer section of a binary model, which starts at position.
+	 */
+	private static Optimizer readOptimizer(FileChannel channel, long position, int[] sizes, Precision precision, String filename) throws IOException
+	{
+		channel.position(position);
+		ByteBuffer section = readFully(channel, MODEL_OPTIMIZER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		Optimizer.Method method;
+		try {
+			method = Optimizer.Method.fromCode(section.getInt(0));
+		} catch (IllegalArgumentException e) {
+			throw new IOException(filename + " has unknown optimizer " + section.getInt(0));
+		}
+		int slots = section.getInt(4);
+		if (slots != 0 && slots != method.getSlots())
+		{
+			throw new IOException(filename + " has a corrupt optimizer section");
+		}
+		
+		Optimizer optimizer = new Optimizer(method, section.getDouble(16), section.getDouble(24), section.getDouble(32));
+		Matrix[][] state = slots == 0 ? null : new Matrix[slots][2 * (sizes.length - 1)];
+		position += MODEL_OPTIMIZER_BYTES;
+		for(int slot = 0; slot < slots; slot++)
+		{
+			for(int layer = 0; layer + 1 < sizes.length; layer++)
+			{
+				state[slot][2 * layer] = readBlock(channel, position, sizes[layer + 1], sizes[layer], precision, filename);
+				position += elementBytes(precision) * (long)sizes[layer + 1] * sizes[layer];
+				state[slot][2 * layer + 1] = readBlock(channel, position, sizes[layer + 1], 1, precision, filename);
+				position += elementBytes(precision) * (long)sizes[layer + 1];
+			}
+		}
+		optimizer.setState(section.getLong(8), state);
+		return optimizer;
+	}
+	
+	/**
+	 * @param filename
+	 * @return Whether the file starts like a binary model.
+	 * @throws IOException
+	 */
+	public boolean isModel(String filename) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			return channel.size() >= 4 && readFully(channel, 4).order(ByteOrder.LITTLE_ENDIAN).getInt(0) == MODEL_MAGIC;
+		}
+	}
+	
+	/**
+	 * @return Size of the model header for a network of the given number of layers, a multiple of 8.
+	 */
+	private static int modelHeaderBytes(int layers)
+	{
+		int bytes = MODEL_HEADER_BYTES + 4 * (layers + 1) + 4 * layers;
+		return (bytes + 7) & ~7;
+	}
+	
+	private static int elementBytes(Precision precision)
+	{
+		return precision == Precision.FLOAT ? Float.BYTES : Double.BYTES;
+	}
+	
+	/**
+	 * Writes the elements of a matrix, row-major, through a scratch buffer.
+	 */
+	private static void writeBlock(FileChannel channel, Matrix m, ByteBuffer scratch) throws IOException
+	{
+		Matrix compact = m.getOffset() == 0 && m.getStride() == m.getWidth() ? m : m.copy();
+		int count = m.getHeight() * m.getWidth();
+		
+		for(int done = 0; done < count; )
+		{
+			scratch.clear();
+			int n;
+			if (compact.getPrecision() == Precision.FLOAT)
+			{
+				n = Math.min(count - done, scratch.capacity() / Float.BYTES);
+				scratch.asFloatBuffer().put(compact.getFloatData(), done, n);
+				scratch.limit(n * Float.BYTES);
+			}
+			else
+			{
+				n = Math.min(count - done, scratch.capacity() / Double.BYTES);
+				scratch.asDoubleBuffer().put(compact.getData(), done, n);
+				scratch.limit(n * Double.BYTES);
+			}
+			writeFully(channel, scratch);
+			done += n;
+		}
+	}
+	
+	/**
+	 * Maps one block of a model file and copies it into a new matrix.
+	 */
+	private static Matrix readBlock(FileChannel channel, long position, int height, int width, Precision precision, String filename) throws IOException
+	{
+		long bytes = elementBytes(precision) * (long)height * width;
+		if (bytes > Integer.MAX_VALUE)
+		{
+			throw new IOException("Layer of " + bytes + " bytes in " + filename + " is too large to load into memory");
+		}
+		if (channel.size() < position + bytes)
+		{
+			throw new EOFException(filename + " is truncated");
+		}
+		
+		ByteBuffer block = channel.map(FileChannel.MapMode.READ_ONLY, position, bytes).order(ByteOrder.LITTLE_ENDIAN);
+		Matrix m = new Matrix(height, width, precision);
+		if (precision == Precision.FLOAT)
+		{
+			block.asFloatBuffer().get(m.getFloatData());
+		}
+		else
+		{
+			block.asDoubleBuffer().get(m.getData());
+		}
+		return m;
+	}
 
 	/**
 	 * Print out the digit using "Ascii art"
@@ -0,0 +1,365 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Runs a trained network's forward pass for prediction only, as fast as possible and from any number of threads.
+ * The engine takes its own copy of the network's weights and biases when it is built, so the network can go on
+ * training, or be replaced, without affecting it, and nothing the engine holds is ever modified after construction.
+ *
+ * Each thread gets two ping-pong activation buffers, large enough for the widest layer and MAX_BATCH samples: the
+ * input is copied into one, the first layer writes the other, the second layer writes the first again, and so on.
+ * Wider batches are run MAX_BATCH samples at a time. Unlike NeuralNet.getPrediction, nothing is allocated per call
+ * once a thread has seen a batch width, other than the result arrays of the methods that return new ones.
+**/
+
+public class InferenceEngine {
+	// Largest number of samples fed forward at once
+	private static final int MAX_BATCH = 256;
+	
+	private final Precision precision;
+	private final int[] layerSizes;
+	private final int maxLayerSize;
+	// In form Layer, to, from, like NeuralNet's
+	private final Matrix[] weights;
+	private final Matrix[] biases;
+	private final Activation[] activations;
+	
+	private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+	
+	/**
+	 * Builds an engine that predicts in the network's precision.
+	 * @param net A trained network. It must not be training while the engine copies its parameters.
+	 */
+	public InferenceEngine(NeuralNet net)
+	{
+		this(net, net.getPrecision());
+	}
+	
+	/**
+	 * Builds an engine that predicts in the given precision, for example FLOAT to serve a double precision network faster.
+	 * @param net A trained network. It must not be training while the engine copies its parameters.
+	 * @param precision
+	 */
+	public InferenceEngine(NeuralNet net, Precision precision)
+	{
+		this.precision = precision;
+		this.layerSizes = net.getLayerSizes();
+		
+		int numLayers = layerSizes.length - 1;
+		int max = 0;
+		weights = new Matrix[numLayers];
+		biases = new Matrix[numLayers];
+		activations = new Activation[numLayers];
+		for(int layer = 0; layer < numLayers; layer++)
+		{
+			weights[layer] = snapshot(net.getWeights(layer));
+			biases[layer] = snapshot(net.getBiases(layer));
+			activations[layer] = net.getActivation(layer);
+		}
+		for(int size : layerSizes)
+		{
+			max = Math.max(max, size);
+		}
+		maxLayerSize = max;
+	}
+	
+	public Precision getPrecision()
+	{
+		return precision;
+	}
+	
+	/**
+	 * @return Length of every input vector.
+	 */
+	public int getNumInputs()
+	{
+		return layerSizes[0];
+	}
+	
+	/**
+	 * @return Length of every output vector, the number of classes.
+	 */
+	public int getNumClasses()
+	{
+		return layerSizes[layerSizes.length - 1];
+	}
+	
+	/**
+	 * @return Activation of the output layer, which decides the cost the network was trained on.
+	 */
+	public Activation getOutputActivation()
+	{
+		return activations[activations.length - 1];
+	}
+	
+	/**
+	 * @param input One input vector.
+	 * @return The predicted class, the index of the largest output.
+	 */
+	public int classify(float[] input)
+	{
+		Buffers b = buffers.get();
+		b.setWidth(1);
+		b.load(input, 0);
+		return MatrixUtil.maxRow(forward(b), 0);
+	}
+	
+	/**
+	 * @param x One input vector, as a column.
+	 * @return The predicted class, the index of the largest output.
+	 */
+	public int classify(Matrix x)
+	{
+		checkInputs(x);
+		Buffers b = buffers.get();
+		b.setWidth(1);
+		MatrixUtil.copyColumn(x, 0, b.input, 0);
+		return MatrixUtil.maxRow(forward(b), 0);
+	}
+	
+	/**
+	 * @param x Input vectors, one per column.
+	 * @return The predicted class of every column.
+	 */
+	public int[] classifyBatch(Matrix x)
+	{
+		int[] classes = new int[x.getWidth()];
+		classifyBatch(x, classes);
+		return classes;
+	}
+	
+	/**
+	 * @param x Input vectors, one per column.
+	 * @param classes Receives the predicted class of every column.
+	 */
+	public void classifyBatch(Matrix x, int[] classes)
+	{
+		checkInputs(x);
+		Buffers b = buffers.get();
+		for(int from = 0; from < x.getWidth(); from += MAX_BATCH)
+		{
+			int width = Math.min(MAX_BATCH, x.getWidth() - from);
+			Matrix output = forward(b, x, from, width);
+			for(int j = 0; j < width; j++)
+			{
+				classes[from + j] = MatrixUtil.maxRow(output, j);
+			}
+		}
+	}
+	
+	/**
+	 * @param input One input vector.
+	 * @param output Receives the network's output, getNumClasses() long.
+	 */
+	public void predict(float[] input, float[] output)
+	{
+		Buffers b = buffers.get();
+		b.setWidth(1);
+		b.load(input, 0);
+		forward(b);
+		b.store(0, output);
+	}
+	
+	/**
+	 * @param inputs Input vectors, one per row.
+	 * @return The network's output for every input, one per row.
+	 */
+	public float[][] predictBatch(float[][] inputs)
+	{
+		float[][] outputs = new float[inputs.length][getNumClasses()];
+		Buffers b = buffers.get();
+		for(int from = 0; from < inputs.length; from += MAX_BATCH)
+		{
+			int width = Math.min(MAX_BATCH, inputs.length - from);
+			b.setWidth(width);
+			for(int j = 0; j < width; j++)
+			{
+				b.load(inputs[from + j], j);
+			}
+			forward(b);
+			for(int j = 0; j < width; j++)
+			{
+				b.store(j, outputs[from + j]);
+			}
+		}
+		return outputs;
+	}
+	
+	/**
+	 * @param x Input vectors, one per column.
+	 * @return The network's output for every column, in the engine's precision.
+	 */
+	public Matrix predictBatch(Matrix x)
+	{
+		Matrix out = new Matrix(getNumClasses(), x.getWidth(), precision);
+		predictBatch(x, out);
+		return out;
+	}
+	
+	/**
+	 * @param x Input vectors, one per column.
+	 * @param out Receives the network's output for every column, getNumClasses() high and as wide as x, of either precision.
+	 */
+	public void predictBatch(Matrix x, Matrix out)
+	{
+		checkInputs(x);
+		if (out.getHeight() != getNumClasses() || out.getWidth() != x.getWidth())
+		{
+			throw new ArithmeticException("Invalid matrix sizes: [" + out.getHeight() + ", " + out.getWidth() + "], expected ["
+					+ getNumClasses() + ", " + x.getWidth() + "]");
+		}
+		
+		Buffers b = buffers.get();
+		for(int from = 0; from < x.getWidth(); from += MAX_BATCH)
+		{
+			int width = Math.min(MAX_BATCH, x.getWidth() - from);
+			Matrix output = forward(b, x, from, width);
+			for(int j = 0; j < width; j++)
+			{
+				MatrixUtil.copyColumn(output, j, out, from + j);
+			}
+		}
+	}
+	
+	/**
+	 * Copies columns from to from + width - 1 of x into the input buffer and feeds them forward.
+	 * @return The output layer's activations, one column per input.
+	 */
+	private Matrix forward(Buffers b, Matrix x, int from, int width)
+	{
+		b.setWidth(width);
+		for(int j = 0; j < width; j++)
+		{
+			MatrixUtil.copyColumn(x, from + j, b.input, j);
+		}
+		return forward(b);
+	}
+	
+	/**
+	 * Feeds the input buffer forward through every layer, alternating between the two buffers.
+	 * @return The output layer's activations, one column per input.
+	 */
+	private Matrix forward(Buffers b)
+	{
+		Matrix a = b.input;
+		for(int layer = 0; layer < weights.length; layer++)
+		{
+			// a_(i+1) = activation_i(w_i * a_i + b_i)
+			a = MatrixUtil.affine(weights[layer], a, biases[layer], activations[layer], b.activations[layer]);
+		}
+		return a;
+	}
+	
+	private void checkInputs(Matrix x)
+	{
+		if (x.getHeight() != getNumInputs())
+		{
+			throw new ArithmeticException("Input has " + x.getHeight() + " rows, expected " + getNumInputs());
+		}
+	}
+	
+	/**
+	 * A private copy of a parameter matrix in the engine's precision.
+	 */
+	private Matrix snapshot(Matrix m)
+	{
+		return m.getPrecision() == precision ? m.copy() : m.toPrecision(precision);
+	}
+	
+	/**
+	 * One thread's ping-pong buffers, and compact views over them for the current batch width.
+	 */
+	private final class Buffers {
+		private final double[] ping;
+		private final double[] pong;
+		private final float[] floatPing;
+		private final float[] floatPong;
+		private int width = -1;
+		
+		Matrix input;
+		// Output of every layer, alternately in pong and ping
+		final Matrix[] activations = new Matrix[weights.length];
+		
+		Buffers()
+		{
+			int size = maxLayerSize * MAX_BATCH;
+			boolean single = precision == Precision.FLOAT;
+			ping = single ? null : new double[size];
+			pong = single ? null : new double[size];
+			floatPing = single ? new float[size] : null;
+			floatPong = single ? new float[size] : null;
+		}
+		
+		/**
+		 * Point the views at width columns, laid out so that each is a compact matrix.
+		 */
+		void setWidth(int width)
+		{
+			if (width == this.width)
+			{
+				return;
+			}
+			
+			this.width = width;
+			input = view(true, layerSizes[0], width);
+			for(int layer = 0; layer < activations.length; layer++)
+			{
+				activations[layer] = view(layer % 2 == 1, layerSizes[layer + 1], width);
+			}
+		}
+		
+		private Matrix view(boolean first, int height, int width)
+		{
+			if (precision == Precision.FLOAT)
+			{
+				return new Matrix(first ? floatPing : floatPong, 0, width, height, width);
+			}
+			return new Matrix(first ? ping : pong, 0, width, height, width);
+		}
+		
+		/**
+		 * Copies one input vector into column col of the input view.
+		 */
+		void load(float[] sample, int col)
+		{
+			if (sample.length != getNumInputs())
+			{
+				throw new ArithmeticException("Input has " + sample.length + " elements, expected " + getNumInputs());
+			}
+			
+			if (precision == Precision.FLOAT)
+			{
+				if (width == 1)
+				{
+					System.arraycopy(sample, 0, floatPing, 0, sample.length);
+					return;
+				}
+				for(int i = 0, k = col; i < sample.length; i++, k += width)
+				{
+					floatPing[k] = sample[i];
+				}
+			}
+			else
+			{
+				for(int i = 0, k = col; i < sample.length; i++, k += width)
+				{
+					ping[k] = sample[i];
+				}
+			}
+		}
+		
+		/**
+		 * Copies column col of the last layer's output into out.
+		 */
+		void store(int col, float[] out)
+		{
+			Matrix output = activations[activations.length - 1];
+			if (out.length != output.getHeight())
+			{
+				throw new ArithmeticException("Output has " + out.length + " elements, expected " + output.getHeight());
+			}
+			for(int i = 0; i < out.length; i++)
+			{
+				out[i] = (float)output.getElement(i, col);
+			}
+		}
+	}
+}
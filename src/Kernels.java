@@ -0,0 +1,559 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: The innermost loops of MatrixUtil and Gemm, over contiguous runs of a double[] or float[].
+ * This class is the plain scalar implementation. At startup, get() looks for VectorizedKernels
+ * (built from src-vector against jdk.incubator.vector) and uses it instead when the class and the
+ * module are both available. Setting the system property nn.scalar=true forces the scalar kernels.
+**/
+
+class Kernels {
+	private static final Kernels INSTANCE = load();
+	
+	// The sigmoid sampled every 1 / FAST_SIGMOID_SCALE over [-FAST_SIGMOID_RANGE, FAST_SIGMOID_RANGE], for biasFastSigmoid.
+	// Linear interpolation between samples is within (1 / 32)^2 / 8 * max |sigmoid''| < 1.2e-5 of the sigmoid, and
+	// clamping outside the range within sigmoid(-16) < 1.2e-7, inside Activation.FAST_SIGMOID_ERROR.
+	private static final int FAST_SIGMOID_SCALE = 32;
+	private static final int FAST_SIGMOID_RANGE = 16;
+	private static final int FAST_SIGMOID_LAST = 2 * FAST_SIGMOID_RANGE * FAST_SIGMOID_SCALE;
+	private static final double[] SIGMOID_TABLE = new double[FAST_SIGMOID_LAST + 1];
+	private static final float[] SIGMOID_TABLE_FLOAT = new float[FAST_SIGMOID_LAST + 1];
+	
+	static {
+		for(int k = 0; k <= FAST_SIGMOID_LAST; k++)
+		{
+			SIGMOID_TABLE[k] = 1 / (1 + Math.exp(-((double)k / FAST_SIGMOID_SCALE - FAST_SIGMOID_RANGE)));
+			SIGMOID_TABLE_FLOAT[k] = (float)SIGMOID_TABLE[k];
+		}
+	}
+	
+	/**
+	 * @return The kernels selected at startup.
+	 */
+	static Kernels get()
+	{
+		return INSTANCE;
+	}
+	
+	private static Kernels load()
+	{
+		if (!Boolean.getBoolean("nn.scalar"))
+		{
+			try {
+				return (Kernels)Class.forName("VectorizedKernels").getDeclaredConstructor().newInstance();
+			} catch (ReflectiveOperationException | LinkageError e) {
+				// Not built, or jdk.incubator.vector not added at runtime, so fall back to scalar
+			}
+		}
+		
+		return new Kernels();
+	}
+	
+	/**
+	 * @return A short name for the implementation, for logging.
+	 */
+	String name()
+	{
+		return "scalar";
+	}
+	
+	/**
+	 * out[oi..oi+n) = a[ai..ai+n) + b[bi..bi+n)
+	 */
+	void add(double[] a, int ai, double[] b, int bi, double[] out, int oi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			out[oi + j] = a[ai + j] + b[bi + j];
+		}
+	}
+	
+	/**
+	 * out[oi..oi+n) = a[ai..ai+n) - b[bi..bi+n)
+	 */
+	void sub(double[] a, int ai, double[] b, int bi, double[] out, int oi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			out[oi + j] = a[ai + j] - b[bi + j];
+		}
+	}
+	
+	/**
+	 * out[oi..oi+n) = a[ai..ai+n) .* b[bi..bi+n)
+	 */
+	void mul(double[] a, int ai, double[] b, int bi, double[] out, int oi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			out[oi + j] = a[ai + j] * b[bi + j];
+		}
+	}
+	
+	/**
+	 * out[oi..oi+n) = a[ai..ai+n) * scalar
+	 */
+	void scale(double scalar, double[] a, int ai, double[] out, int oi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			out[oi + j] = a[ai + j] * scalar;
+		}
+	}
+	
+	/**
+	 * y[yi..yi+n) += alpha * x[xi..xi+n)
+	 */
+	void axpy(double alpha, double[] x, int xi, double[] y, int yi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			y[yi + j] += alpha * x[xi + j];
+		}
+	}
+	
+	/**
+	 * @return The dot product of a[ai..ai+n) and b[bi..bi+n)
+	 */
+	double dot(double[] a, int ai, double[] b, int bi, int n)
+	{
+		double sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+		int j = 0;
+		for(; j <= n - 4; j += 4)
+		{
+			sum0 += a[ai + j] * b[bi + j];
+			sum1 += a[ai + j + 1] * b[bi + j + 1];
+			sum2 += a[ai + j + 2] * b[bi + j + 2];
+			sum3 += a[ai + j + 3] * b[bi + j + 3];
+		}
+		for(; j < n; j++)
+		{
+			sum0 += a[ai + j] * b[bi + j];
+		}
+		return (sum0 + sum1) + (sum2 + sum3);
+	}
+	
+	/**
+	 * @return The sum of a[ai..ai+n)
+	 */
+	double sum(double[] a, int ai, int n)
+	{
+		double sum = 0;
+		for(int j = 0; j < n; j++)
+		{
+			sum += a[ai + j];
+		}
+		return sum;
+	}
+	
+	/**
+	 * out[oi..oi+n) = d .* a .* (1 - a), the error term of a sigmoid layer with output a.
+	 */
+	void sigmoidPrimeMul(double[] a, int ai, double[] d, int di, double[] out, int oi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			double aj = a[ai + j];
+			out[oi + j] = d[di + j] * (aj * (1 - aj));
+		}
+	}
+	
+	/**
+	 * x[xi..xi+n) = sigmoid(x[xi..xi+n) + bias)
+	 */
+	void biasSigmoid(double bias, double[] x, int xi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			x[xi + j] = 1 / (1 + Math.exp(-(x[xi + j] + bias)));
+		}
+	}
+	
+	/**
+	 * x[xi..xi+n) = sigmoid(x[xi..xi+n) + bias), interpolated from SIGMOID_TABLE.
+	 */
+	void biasFastSigmoid(double bias, double[] x, int xi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			double t = Math.min(Math.max((x[xi + j] + bias + FAST_SIGMOID_RANGE) * FAST_SIGMOID_SCALE, 0), FAST_SIGMOID_LAST);
+			int k = Math.min((int)t, FAST_SIGMOID_LAST - 1);
+			x[xi + j] = SIGMOID_TABLE[k] + (t - k) * (SIGMOID_TABLE[k + 1] - SIGMOID_TABLE[k]);
+		}
+	}
+	
+	/**
+	 * x[xi..xi+n) = tanh(x[xi..xi+n) + bias), as 1 - 2 / (1 + e^2z), which is several times faster than Math.tanh
+	 * and agrees with it to about 1e-15.
+	 */
+	void biasTanh(double bias, double[] x, int xi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			x[xi + j] = 1 - 2 / (1 + Math.exp(2 * (x[xi + j] + bias)));
+		}
+	}
+	
+	/**
+	 * x[xi..xi+n) = z > 0 ? z : slope * z, where z = x[xi..xi+n) + bias. A slope of 0 is ReLU.
+	 */
+	void biasRelu(double bias, double slope, double[] x, int xi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			double z = x[xi + j] + bias;
+			x[xi + j] = z > 0 ? z : slope * z;
+		}
+	}
+	
+	/**
+	 * out[oi..oi+n) = d .* (1 - a .* a), the error term of a tanh layer with output a.
+	 */
+	void tanhPrimeMul(double[] a, int ai, double[] d, int di, double[] out, int oi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			double aj = a[ai + j];
+			out[oi + j] = d[di + j] * (1 - aj * aj);
+		}
+	}
+	
+	/**
+	 * out[oi..oi+n) = a > 0 ? d : slope * d, the error term of a (leaky) ReLU layer with output a.
+	 */
+	void reluPrimeMul(double slope, double[] a, int ai, double[] d, int di, double[] out, int oi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			out[oi + j] = a[ai + j] > 0 ? d[di + j] : slope * d[di + j];
+		}
+	}
+	
+	/**
+	 * Fused momentum step over n elements, with g = scale * g[gi..gi+n): v = mu * v + g, then w -= lr * v,
+	 * or for Nesterov momentum w -= lr * (g + mu * v).
+	 */
+	void momentumUpdate(double scale, double mu, double lr, boolean nesterov, double[] g, int gi, double[] v, int vi, double[] w, int wi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			double gj = scale * g[gi + j];
+			double vj = mu * v[vi + j] + gj;
+			v[vi + j] = vj;
+			w[wi + j] -= lr * (nesterov ? gj + mu * vj : vj);
+		}
+	}
+	
+	/**
+	 * Fused RMSProp step over n elements, with g = scale * g[gi..gi+n): r = rho * r + (1 - rho) * g^2, then w -= lr * g / (sqrt(r) + eps).
+	 */
+	void rmspropUpdate(double scale, double rho, double lr, double eps, double[] g, int gi, double[] r, int ri, double[] w, int wi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			double gj = scale * g[gi + j];
+			double rj = rho * r[ri + j] + (1 - rho) * gj * gj;
+			r[ri + j] = rj;
+			w[wi + j] -= lr * gj / (Math.sqrt(rj) + eps);
+		}
+	}
+	
+	/**
+	 * Fused Adam step over n elements, with g = scale * g[gi..gi+n): m = beta1 * m + (1 - beta1) * g, v = beta2 * v + (1 - beta2) * g^2,
+	 * then w -= lr * c1 * m / (sqrt(c2 * v) + eps), where c1 and c2 are the bias corrections 1 / (1 - beta^t).
+	 */
+	void adamUpdate(double scale, double beta1, double beta2, double lr, double c1, double c2, double eps,
+			double[] g, int gi, double[] m, int mi, double[] v, int vi, double[] w, int wi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			double gj = scale * g[gi + j];
+			double mj = beta1 * m[mi + j] + (1 - beta1) * gj;
+			double vj = beta2 * v[vi + j] + (1 - beta2) * gj * gj;
+			m[mi + j] = mj;
+			v[vi + j] = vj;
+			w[wi + j] -= lr * c1 * mj / (Math.sqrt(c2 * vj) + eps);
+		}
+	}
+	
+	/**
+	 * Multiplies one packed MR sliver of A by one packed NR sliver of B, for Gemm, and adds the
+	 * mr x nr valid part of the result into C.
+	 */
+	void microKernel(int kc, double[] pa, int aIdx, double[] pb, int bIdx,
+			double[] c, int cIdx, int cRs, int mr, int nr)
+	{
+		double c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+		double c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+		double c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+		double c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+		
+		for(int p = 0; p < kc; p++)
+		{
+			double a0 = pa[aIdx], a1 = pa[aIdx + 1], a2 = pa[aIdx + 2], a3 = pa[aIdx + 3];
+			double b0 = pb[bIdx], b1 = pb[bIdx + 1], b2 = pb[bIdx + 2], b3 = pb[bIdx + 3];
+			aIdx += Gemm.MR;
+			bIdx += Gemm.NR;
+			
+			c00 += a0 * b0; c01 += a0 * b1; c02 += a0 * b2; c03 += a0 * b3;
+			c10 += a1 * b0; c11 += a1 * b1; c12 += a1 * b2; c13 += a1 * b3;
+			c20 += a2 * b0; c21 += a2 * b1; c22 += a2 * b2; c23 += a2 * b3;
+			c30 += a3 * b0; c31 += a3 * b1; c32 += a3 * b2; c33 += a3 * b3;
+		}
+		
+		if (mr == Gemm.MR && nr == Gemm.NR)
+		{
+			c[cIdx] += c00; c[cIdx + 1] += c01; c[cIdx + 2] += c02; c[cIdx + 3] += c03;
+			cIdx += cRs;
+			c[cIdx] += c10; c[cIdx + 1] += c11; c[cIdx + 2] += c12; c[cIdx + 3] += c13;
+			cIdx += cRs;
+			c[cIdx] += c20; c[cIdx + 1] += c21; c[cIdx + 2] += c22; c[cIdx + 3] += c23;
+			cIdx += cRs;
+			c[cIdx] += c30; c[cIdx + 1] += c31; c[cIdx + 2] += c32; c[cIdx + 3] += c33;
+			return;
+		}
+		
+		// Edge tile, write only the valid region.
+		storeRow(c, cIdx, nr, c00, c01, c02, c03);
+		if (mr > 1) storeRow(c, cIdx + cRs, nr, c10, c11, c12, c13);
+		if (mr > 2) storeRow(c, cIdx + 2 * cRs, nr, c20, c21, c22, c23);
+		if (mr > 3) storeRow(c, cIdx + 3 * cRs, nr, c30, c31, c32, c33);
+	}
+	
+	static void storeRow(double[] c, int cIdx, int nr, double v0, double v1, double v2, double v3)
+	{
+		c[cIdx] += v0;
+		if (nr > 1) c[cIdx + 1] += v1;
+		if (nr > 2) c[cIdx + 2] += v2;
+		if (nr > 3) c[cIdx + 3] += v3;
+	}
+	
+	// Single precision versions of the loops above, for FLOAT matrices
+	
+	void add(float[] a, int ai, float[] b, int bi, float[] out, int oi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			out[oi + j] = a[ai + j] + b[bi + j];
+		}
+	}
+	
+	void sub(float[] a, int ai, float[] b, int bi, float[] out, int oi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			out[oi + j] = a[ai + j] - b[bi + j];
+		}
+	}
+	
+	void mul(float[] a, int ai, float[] b, int bi, float[] out, int oi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			out[oi + j] = a[ai + j] * b[bi + j];
+		}
+	}
+	
+	void scale(float scalar, float[] a, int ai, float[] out, int oi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			out[oi + j] = a[ai + j] * scalar;
+		}
+	}
+	
+	void axpy(float alpha, float[] x, int xi, float[] y, int yi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			y[yi + j] += alpha * x[xi + j];
+		}
+	}
+	
+	float dot(float[] a, int ai, float[] b, int bi, int n)
+	{
+		float sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+		int j = 0;
+		for(; j <= n - 4; j += 4)
+		{
+			sum0 += a[ai + j] * b[bi + j];
+			sum1 += a[ai + j + 1] * b[bi + j + 1];
+			sum2 += a[ai + j + 2] * b[bi + j + 2];
+			sum3 += a[ai + j + 3] * b[bi + j + 3];
+		}
+		for(; j < n; j++)
+		{
+			sum0 += a[ai + j] * b[bi + j];
+		}
+		return (sum0 + sum1) + (sum2 + sum3);
+	}
+	
+	float sum(float[] a, int ai, int n)
+	{
+		float sum = 0;
+		for(int j = 0; j < n; j++)
+		{
+			sum += a[ai + j];
+		}
+		return sum;
+	}
+	
+	void sigmoidPrimeMul(float[] a, int ai, float[] d, int di, float[] out, int oi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			float aj = a[ai + j];
+			out[oi + j] = d[di + j] * (aj * (1 - aj));
+		}
+	}
+	
+	void biasSigmoid(float bias, float[] x, int xi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			x[xi + j] = (float)(1 / (1 + Math.exp(-(x[xi + j] + bias))));
+		}
+	}
+	
+	void biasFastSigmoid(float bias, float[] x, int xi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			float t = Math.min(Math.max((x[xi + j] + bias + FAST_SIGMOID_RANGE) * FAST_SIGMOID_SCALE, 0f), FAST_SIGMOID_LAST);
+			int k = Math.min((int)t, FAST_SIGMOID_LAST - 1);
+			x[xi + j] = SIGMOID_TABLE_FLOAT[k] + (t - k) * (SIGMOID_TABLE_FLOAT[k + 1] - SIGMOID_TABLE_FLOAT[k]);
+		}
+	}
+	
+	void biasTanh(float bias, float[] x, int xi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			x[xi + j] = (float)(1 - 2 / (1 + Math.exp(2 * (x[xi + j] + bias))));
+		}
+	}
+	
+	void biasRelu(float bias, float slope, float[] x, int xi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			float z = x[xi + j] + bias;
+			x[xi + j] = z > 0 ? z : slope * z;
+		}
+	}
+	
+	void tanhPrimeMul(float[] a, int ai, float[] d, int di, float[] out, int oi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			float aj = a[ai + j];
+			out[oi + j] = d[di + j] * (1 - aj * aj);
+		}
+	}
+	
+	void reluPrimeMul(float slope, float[] a, int ai, float[] d, int di, float[] out, int oi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			out[oi + j] = a[ai + j] > 0 ? d[di + j] : slope * d[di + j];
+		}
+	}
+	
+	void momentumUpdate(float scale, float mu, float lr, boolean nesterov, float[] g, int gi, float[] v, int vi, float[] w, int wi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			float gj = scale * g[gi + j];
+			float vj = mu * v[vi + j] + gj;
+			v[vi + j] = vj;
+			w[wi + j] -= lr * (nesterov ? gj + mu * vj : vj);
+		}
+	}
+	
+	void rmspropUpdate(float scale, float rho, float lr, float eps, float[] g, int gi, float[] r, int ri, float[] w, int wi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			float gj = scale * g[gi + j];
+			float rj = rho * r[ri + j] + (1 - rho) * gj * gj;
+			r[ri + j] = rj;
+			w[wi + j] -= lr * gj / ((float)Math.sqrt(rj) + eps);
+		}
+	}
+	
+	void adamUpdate(float scale, float beta1, float beta2, float lr, float c1, float c2, float eps,
+			float[] g, int gi, float[] m, int mi, float[] v, int vi, float[] w, int wi, int n)
+	{
+		for(int j = 0; j < n; j++)
+		{
+			float gj = scale * g[gi + j];
+			float mj = beta1 * m[mi + j] + (1 - beta1) * gj;
+			float vj = beta2 * v[vi + j] + (1 - beta2) * gj * gj;
+			m[mi + j] = mj;
+			v[vi + j] = vj;
+			w[wi + j] -= lr * c1 * mj / ((float)Math.sqrt(c2 * vj) + eps);
+		}
+	}
+	
+	/**
+	 * Dot product of two runs of int8 values, accumulated exactly in an int. Each product is at most 2^14 in
+	 * magnitude, so runs shorter than 2^17 cannot overflow. Integer sums are exact in any order, so unlike the
+	 * floating point dot products this needs no split accumulators, and the plain loop is the fastest.
+	 */
+	int dot(byte[] a, int ai, byte[] b, int bi, int n)
+	{
+		int sum = 0;
+		for(int j = 0; j < n; j++)
+		{
+			sum += a[ai + j] * b[bi + j];
+		}
+		return sum;
+	}
+	
+	/**
+	 * Single precision micro-kernel. The B slivers are Gemm.NR_FLOAT wide, which the scalar
+	 * version multiplies as two 4 column halves.
+	 */
+	void microKernel(int kc, float[] pa, int aIdx, float[] pb, int bIdx,
+			float[] c, int cIdx, int cRs, int mr, int nr)
+	{
+		for(int half = 0; half < Gemm.NR_FLOAT && half < nr; half += 4)
+		{
+			microKernelHalf(kc, pa, aIdx, pb, bIdx + half, c, cIdx + half, cRs, mr, Math.min(4, nr - half));
+		}
+	}
+	
+	private static void microKernelHalf(int kc, float[] pa, int aIdx, float[] pb, int bIdx,
+			float[] c, int cIdx, int cRs, int mr, int nr)
+	{
+		float c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+		float c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+		float c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+		float c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+		
+		for(int p = 0; p < kc; p++)
+		{
+			float a0 = pa[aIdx], a1 = pa[aIdx + 1], a2 = pa[aIdx + 2], a3 = pa[aIdx + 3];
+			float b0 = pb[bIdx], b1 = pb[bIdx + 1], b2 = pb[bIdx + 2], b3 = pb[bIdx + 3];
+			aIdx += Gemm.MR;
+			bIdx += Gemm.NR_FLOAT;
+			
+			c00 += a0 * b0; c01 += a0 * b1; c02 += a0 * b2; c03 += a0 * b3;
+			c10 += a1 * b0; c11 += a1 * b1; c12 += a1 * b2; c13 += a1 * b3;
+			c20 += a2 * b0; c21 += a2 * b1; c22 += a2 * b2; c23 += a2 * b3;
+			c30 += a3 * b0; c31 += a3 * b1; c32 += a3 * b2; c33 += a3 * b3;
+		}
+		
+		storeRow(c, cIdx, nr, c00, c01, c02, c03);
+		if (mr > 1) storeRow(c, cIdx + cRs, nr, c10, c11, c12, c13);
+		if (mr > 2) storeRow(c, cIdx + 2 * cRs, nr, c20, c21, c22, c23);
+		if (mr > 3) storeRow(c, cIdx + 3 * cRs, nr, c30, c31, c32, c33);
+	}
+	
+	static void storeRow(float[] c, int cIdx, int nr, float v0, float v1, float v2, float v3)
+	{
+		c[cIdx] += v0;
+		if (nr > 1) c[cIdx + 1] += v1;
+		if (nr > 2) c[cIdx + 2] += v2;
+		if (nr > 3) c[cIdx + 3] += v3;
+	}
+}
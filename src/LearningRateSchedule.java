@@ -0,0 +1,215 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: How NeuralNet.train varies the learning rate from epoch to epoch, see NeuralNet.setLearningRateSchedule.
+ * The network's learning rate is the base rate: each epoch trains at a rate derived from it, and the base rate
+ * is set back when train returns. Any schedule can start with a linear warm-up, see withWarmup.
+ *
+ * Reduce-on-plateau keeps state, the number of epochs since the monitored metric last improved, which train
+ * clears at the start of every run.
+**/
+
+import java.io.Serializable;
+
+public final class LearningRateSchedule implements Serializable {
+	private static final long serialVersionUID = 1L;
+	
+	private enum Type {
+		CONSTANT,
+		STEP,
+		COSINE,
+		PLATEAU
+	}
+	
+	private final Type type;
+	// Epochs between drops for STEP, epochs without improvement before a drop for PLATEAU
+	private final int period;
+	// What a drop multiplies the rate by
+	private final double factor;
+	// Lowest rate, as a fraction of the base rate
+	private final double minFraction;
+	// Epochs at the start that ramp up to the base rate
+	private final int warmupEpochs;
+	
+	// Epochs since the metric improved, and drops made so far, for PLATEAU
+	private int waiting;
+	private int drops;
+	
+	private LearningRateSchedule(Type type, int period, double factor, double minFraction, int warmupEpochs)
+	{
+		this.type = type;
+		this.period = period;
+		this.factor = factor;
+		this.minFraction = minFraction;
+		this.warmupEpochs = warmupEpochs;
+	}
+	
+	/**
+	 * @return The base rate every epoch, the original behaviour.
+	 */
+	public static LearningRateSchedule constant()
+	{
+		return new LearningRateSchedule(Type.CONSTANT, 0, 1, 0, 0);
+	}
+	
+	/**
+	 * @param period Number of epochs between drops.
+	 * @param factor What each drop multiplies the rate by, for example 0.5.
+	 */
+	public static LearningRateSchedule step(int period, double factor)
+	{
+		return new LearningRateSchedule(Type.STEP, checkPeriod(period), checkFactor(factor), 0, 0);
+	}
+	
+	/**
+	 * Cosine annealing: the rate falls along half a cosine from the base rate in the first epoch towards
+	 * minFraction of it, reached at the end of the network's last epoch.
+	 * @param minFraction Final rate as a fraction of the base rate, 0 to anneal to nothing.
+	 */
+	public static LearningRateSchedule cosine(double minFraction)
+	{
+		return new LearningRateSchedule(Type.COSINE, 0, 1, checkFraction(minFraction), 0);
+	}
+	
+	/**
+	 * Drops the rate whenever the metric train monitors (see NeuralNet.setEarlyStopping) has not improved for patience epochs.
+	 * @param patience Number of epochs without improvement before each drop.
+	 * @param factor What each drop multiplies the rate by, for example 0.1.
+	 * @param minFraction Lowest rate, as a fraction of the base rate.
+	 */
+	public static LearningRateSchedule reduceOnPlateau(int patience, double factor, double minFraction)
+	{
+		return new LearningRateSchedule(Type.PLATEAU, checkPeriod(patience), checkFactor(factor), checkFraction(minFraction), 0);
+	}
+	
+	/**
+	 * @param epochs Number of epochs at the start whose rate rises linearly to the base rate, which the schedule then follows
+	 * over the remaining epochs.
+	 * @return A copy of this schedule that starts with the warm-up.
+	 */
+	public LearningRateSchedule withWarmup(int epochs)
+	{
+		if (epochs < 0)
+		{
+			throw new IllegalArgumentException("Warm-up epochs must be at least 0: " + epochs);
+		}
+		return new LearningRateSchedule(type, period, factor, minFraction, epochs);
+	}
+	
+	private static int checkPeriod(int period)
+	{
+		if (period < 1)
+		{
+			throw new IllegalArgumentException("Number of epochs must be at least 1: " + period);
+		}
+		return period;
+	}
+	
+	private static double checkFactor(double factor)
+	{
+		if (!(factor > 0 && factor < 1))
+		{
+			throw new IllegalArgumentException("Factor must be greater than 0 and less than 1: " + factor);
+		}
+		return factor;
+	}
+	
+	private static double checkFraction(double fraction)
+	{
+		if (!(fraction >= 0 && fraction <= 1))
+		{
+			throw new IllegalArgumentException("Fraction must be at least 0 and at most 1: " + fraction);
+		}
+		return fraction;
+	}
+	
+	/**
+	 * @return Whether every epoch trains at the base rate.
+	 */
+	public boolean isConstant()
+	{
+		return type == Type.CONSTANT && warmupEpochs == 0;
+	}
+	
+	/**
+	 * @param epoch The epoch about to be trained, counting from 0.
+	 * @param epochs Number of epochs the run trains for at most.
+	 * @param baseRate The network's learning rate.
+	 * @return The learning rate for that epoch.
+	 */
+	public double getRate(int epoch, int epochs, double baseRate)
+	{
+		if (epoch < warmupEpochs)
+		{
+			return baseRate * (epoch + 1) / (warmupEpochs + 1);
+		}
+		
+		epoch -= warmupEpochs;
+		epochs -= warmupEpochs;
+		switch (type)
+		{
+			case STEP:
+				return baseRate * Math.pow(factor, epoch / period);
+			case COSINE:
+				double progress = epochs > 0 ? Math.min(1, (double)epoch / epochs) : 0;
+				double min = baseRate * minFraction;
+				return min + (baseRate - min) * 0.5 * (1 + Math.cos(Math.PI * progress));
+			case PLATEAU:
+				return Math.max(baseRate * minFraction, baseRate * Math.pow(factor, drops));
+			default:
+				return baseRate;
+		}
+	}
+	
+	/**
+	 * Called by train after every epoch is evaluated.
+	 * @param improved Whether the monitored metric improved.
+	 */
+	void evaluated(boolean improved)
+	{
+		if (type != Type.PLATEAU)
+		{
+			return;
+		}
+		
+		if (improved)
+		{
+			waiting = 0;
+		}
+		else if (++waiting >= period)
+		{
+			drops++;
+			waiting = 0;
+		}
+	}
+	
+	/**
+	 * Clear the plateau state, for a new run of train.
+	 */
+	void reset()
+	{
+		waiting = 0;
+		drops = 0;
+	}
+	
+	@Override
+	public String toString()
+	{
+		String name;
+		switch (type)
+		{
+			case STEP:
+				name = "step(" + period + ", " + factor + ")";
+				break;
+			case COSINE:
+				name = "cosine(" + minFraction + ")";
+				break;
+			case PLATEAU:
+				name = "reduceOnPlateau(" + period + ", " + factor + ", " + minFraction + ")";
+				break;
+			default:
+				name = "constant";
+				break;
+		}
+		return warmupEpochs > 0 ? name + " with " + warmupEpochs + " warm-up epochs" : name;
+	}
+}
@@ -0,0 +1,60 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: A Dataset over an in-memory list of {X, Y} samples, such as the ones IOManager.parseCSV builds.
+ * The list is not copied, so later changes to it are visible through the dataset.
+**/
+
+import java.util.List;
+
+public class ListDataset implements Dataset {
+	private final List<Matrix[]> samples;
+	
+	/**
+	 * @param samples Samples, where each matrix is {X, Y}, all of the same size.
+	 */
+	public ListDataset(List<Matrix[]> samples)
+	{
+		this.samples = samples;
+	}
+	
+	@Override
+	public int size()
+	{
+		return samples.size();
+	}
+	
+	@Override
+	public int getNumFeatures()
+	{
+		return samples.isEmpty() ? 0 : samples.get(0)[0].getHeight();
+	}
+	
+	@Override
+	public int getNumClasses()
+	{
+		return samples.isEmpty() ? 0 : samples.get(0)[1].getHeight();
+	}
+	
+	@Override
+	public int getLabel(int index)
+	{
+		return MatrixUtil.maxElement(samples.get(index)[1]);
+	}
+	
+	@Override
+	public void copyTo(int index, Matrix inputs, Matrix targets, int column)
+	{
+		Matrix[] sample = samples.get(index);
+		MatrixUtil.copyColumn(sample[0], 0, inputs, column);
+		MatrixUtil.copyColumn(sample[1], 0, targets, column);
+	}
+	
+	/**
+	 * @return The sample itself, not a copy.
+	 */
+	@Override
+	public Matrix[] get(int index)
+	{
+		return samples.get(index);
+	}
+}
@@ -5,18 +5,21 @@
 **/
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.Random;
 
 public class MNISTnn {
 	// Handles all IO, you never know, someday maybe we want this to be a GUI
 	private static IOManager io;
 	
-	// Each member in train and test is {X, Y}
-	private static ArrayList<Matrix[]> train;		
-	private static ArrayList<Matrix[]> test;
+	// Binary datasets are memory-mapped rather than loaded, see IOManager.openDataset
+	private static Dataset train;
+	private static Dataset test;
 	
 	private static NeuralNet net;
 	
+	// Number of samples shuffled together when continuing training from a CSV
+	private static final int SHUFFLE_BUFFER = 10000;
+	
 	// Has the network been trained yet/is this a pre-trained network
 	private static boolean trained;
 	
@@ -26,13 +29,10 @@ public class MNISTnn {
 	public static void main(String[] args) {
 		io = new IOManager();
 		
-		train = new ArrayList<>();
-		test = new ArrayList<>();
-		
-		// Grab the training and test sets
+		// Grab the training and test sets, CSV or binary (see ConvertDataset), from the command line if given
 		try {
-			io.parseCSV("/Users/Moosicguy/Desktop/mnist_train.csv", train);
-			io.parseCSV("/Users/Moosicguy/Desktop/mnist_test.csv", test);
+			train = io.openDataset(args.length > 0 ? args[0] : "/Users/Moosicguy/Desktop/mnist_train.csv");
+			test = io.openDataset(args.length > 1 ? args[1] : "/Users/Moosicguy/Desktop/mnist_test.csv");
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -63,6 +63,8 @@ public class MNISTnn {
 				io.display("To save the current network state, press 5.");
 				io.display("To learn about this network, press 6.");
 				io.display("To walk through samples, press 7.");
+				io.display("To switch the network between double and single precision, press 8.");
+				io.display("To continue training on new data, press 9.");
 			}
 			io.display("To quit, press 0\n");
 			
@@ -89,6 +91,12 @@ public class MNISTnn {
 				case "7":
 					walkThroughSamples();
 					break;
+				case "8":
+					switchPrecision();
+					break;
+				case "9":
+					continueTraining();
+					break;
 				case "0":
 					close();
 					break;
@@ -111,7 +119,7 @@ public class MNISTnn {
 		
 		boolean trainOrTest = io.getInput().equals("1");
 		
-		ArrayList<Matrix[]> dataset;
+		Dataset dataset;
 		if(trainOrTest)
 		{
 			dataset = train;
@@ -121,11 +129,14 @@ public class MNISTnn {
 			dataset = test;
 		}
 		
-		for(Matrix[] digit : dataset)
+		InferenceEngine engine = new InferenceEngine(net);
+		for(int i = 0; i < dataset.size(); i++)
 		{
-			if(MatrixUtil.maxElement(net.getPrediction(digit[0])) != MatrixUtil.maxElement(digit[1]) || all)
+			Matrix[] digit = dataset.get(i);
+			int prediction = engine.classify(digit[0]);
+			if(prediction != MatrixUtil.maxElement(digit[1]) || all)
 			{
-				io.display("Correct Class: " + MatrixUtil.maxElement(digit[1]) + "\tNet Prediction: " + MatrixUtil.maxElement(net.getPrediction(digit[0])));
+				io.display("Correct Class: " + MatrixUtil.maxElement(digit[1]) + "\tNet Prediction: " + prediction);
 				io.displayDigit(digit, .5);
 				io.display("Press 1 to continue, 2 to return to main menu");
 				if(io.getInput().equals("2"))
@@ -136,6 +147,44 @@ public class MNISTnn {
 		}
 	}
 	
+	/**
+	 * Convert the current network to the other precision, for example a loaded double precision network to single.
+	 */
+	private static void switchPrecision() {
+		net.setPrecision(net.getPrecision() == Precision.DOUBLE ? Precision.FLOAT : Precision.DOUBLE);
+		io.display("Network is now " + net.getPrecision() + " precision.");
+	}
+	
+	/**
+	 * Train the current network for one more pass over a file of new data, then show its test accuracy.
+	 * CSVs are streamed through a ShuffleBuffer and binary datasets are memory-mapped, so the new data
+	 * is never loaded onto the heap all at once.
+	 */
+	private static void continueTraining() {
+		io.display("Filename of new data: ");
+		String filename = io.getInput();
+		
+		io.display("Training...");
+		
+		try {
+			if(filename.endsWith(".csv"))
+			{
+				try (CSVStream samples = new CSVStream(filename, net.getPrecision())) {
+					net.partialFit(new ShuffleBuffer<>(samples, SHUFFLE_BUFFER, new Random()));
+				}
+			}
+			else
+			{
+				net.partialFit(io.openDataset(filename));
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+		
+		net.printAccuracy(test, "Testing");
+	}
+	
 	/**
 	 * Display information about the network, for now just number of layers and size of hidden layers.
 	 */
@@ -202,8 +251,10 @@ public class MNISTnn {
 		int numLayers = Integer.parseInt(io.getInput());
 		io.display("Input the size of the hidden layers: ");
 		int sizeOfHL = Integer.parseInt(io.getInput());
+		io.display("Use single precision (y/n)?: ");
+		Precision precision = io.getInput().equals("y") ? Precision.FLOAT : Precision.DOUBLE;
 		
-		net = new NeuralNet(28 * 28, 10, numLayers, sizeOfHL);
+		net = new NeuralNet(28 * 28, 10, numLayers, sizeOfHL, precision);
 		
 		io.display("Training...");
 		
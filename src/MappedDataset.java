@@ -0,0 +1,134 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: A Dataset backed by a memory-mapped binary dataset file (see IOManager.saveBinary and ConvertDataset).
+ * Nothing is read up front: the operating system pages the file in as samples are used, and each pixel byte
+ * is decoded to its [0, 1] value only when it is copied into a batch matrix. The heap cost is a few objects
+ * however large the file, so datasets much larger than the heap can be trained on.
+ *
+ * A single MappedByteBuffer is limited to 2GB, so the pixels are mapped in chunks of whole samples.
+**/
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class MappedDataset implements Dataset {
+	private final int size;
+	private final int numFeatures;
+	private final int numClasses;
+	
+	private final MappedByteBuffer labels;
+	private final MappedByteBuffer[] pixelChunks;
+	private final int samplesPerChunk;
+	
+	/**
+	 * Maps a binary dataset file. The file must not be modified while the dataset is in use.
+	 * @param filename
+	 * @throws IOException If the file is not a binary dataset or is truncated.
+	 */
+	public MappedDataset(String filename) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			if (channel.size() < IOManager.BINARY_HEADER_BYTES)
+			{
+				throw new IOException(filename + " is not a binary dataset");
+			}
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, IOManager.BINARY_HEADER_BYTES);
+			int[] fields = IOManager.readBinaryHeader(header, filename);
+			size = fields[0];
+			numFeatures = fields[1];
+			numClasses = fields[2];
+			
+			long pixelStart = IOManager.BINARY_HEADER_BYTES + (long)size;
+			if (channel.size() < pixelStart + (long)size * numFeatures)
+			{
+				throw new IOException(filename + " is truncated");
+			}
+			
+			labels = channel.map(FileChannel.MapMode.READ_ONLY, IOManager.BINARY_HEADER_BYTES, size);
+			
+			samplesPerChunk = numFeatures == 0 ? Math.max(1, size) : Integer.MAX_VALUE / numFeatures;
+			int chunks = size == 0 ? 0 : (size - 1) / samplesPerChunk + 1;
+			pixelChunks = new MappedByteBuffer[chunks];
+			for(int c = 0; c < chunks; c++)
+			{
+				int samples = Math.min(samplesPerChunk, size - c * samplesPerChunk);
+				pixelChunks[c] = channel.map(FileChannel.MapMode.READ_ONLY,
+						pixelStart + (long)c * samplesPerChunk * numFeatures, (long)samples * numFeatures);
+			}
+		}
+		// The mappings stay valid after the channel is closed
+	}
+	
+	@Override
+	public int size()
+	{
+		return size;
+	}
+	
+	@Override
+	public int getNumFeatures()
+	{
+		return numFeatures;
+	}
+	
+	@Override
+	public int getNumClasses()
+	{
+		return numClasses;
+	}
+	
+	@Override
+	public int getLabel(int index)
+	{
+		return labels.get(checkIndex(index)) & 0xFF;
+	}
+	
+	/**
+	 * Decodes sample index directly into the given column. Uses only absolute reads of the mapped
+	 * buffers, so any number of threads may copy samples at once.
+	 */
+	@Override
+	public void copyTo(int index, Matrix inputs, Matrix targets, int column)
+	{
+		MappedByteBuffer pixels = pixelChunks[checkIndex(index) / samplesPerChunk];
+		int start = index % samplesPerChunk * numFeatures;
+		int label = labels.get(index) & 0xFF;
+		
+		int xi = inputs.getOffset() + column, xs = inputs.getStride();
+		if (inputs.getPrecision() == Precision.FLOAT)
+		{
+			float[] x = inputs.getFloatData();
+			for(int i = 0; i < numFeatures; i++, xi += xs)
+			{
+				x[xi] = (float)IOManager.PIXEL_VALUES[pixels.get(start + i) & 0xFF];
+			}
+		}
+		else
+		{
+			double[] x = inputs.getData();
+			for(int i = 0; i < numFeatures; i++, xi += xs)
+			{
+				x[xi] = IOManager.PIXEL_VALUES[pixels.get(start + i) & 0xFF];
+			}
+		}
+		
+		// One-hot encoding of the label
+		for(int i = 0; i < numClasses; i++)
+		{
+			targets.setElement(i, column, i == label ? 1 : 0);
+		}
+	}
+	
+	private int checkIndex(int index)
+	{
+		if (index < 0 || index >= size)
+		{
+			throw new IndexOutOfBoundsException("Sample " + index + " of " + size);
+		}
+		return index;
+	}
+}
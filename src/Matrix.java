@@ -2,18 +2,40 @@
  * Author: Andrew Bradberry
  * Date Written: 10/7/2018
  * Description: A basic container for two-dimensional matrices of doubles.
+ * Elements are stored row-major in a single flat double[], with an offset and row stride
+ * so that views and slices of a matrix can share the same backing buffer without copying.
+ * A matrix can instead be single precision, see Precision, in which case the buffer is a float[].
 **/
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Random;
 
 public class Matrix implements Serializable{
 	private static final long serialVersionUID = 1L;
 	
+	// "matrix" is the original double[][] storage, still read so that older saved networks load.
+	// "data" is the flat row-major storage written by this version, and "floatData" its single precision form.
+	private static final ObjectStreamField[] serialPersistentFields = {
+		new ObjectStreamField("height", int.class),
+		new ObjectStreamField("width", int.class),
+		new ObjectStreamField("matrix", double[][].class),
+		new ObjectStreamField("data", double[].class),
+		new ObjectStreamField("floatData", float[].class)
+	};
+	
 	private int height;
 	private int width;
 	
-	private double[][] matrix;
+	// Element (i, j) lives at data[offset + i * stride + j]. Exactly one of data and floatData is non-null.
+	private transient double[] data;
+	private transient float[] floatData;
+	private transient int offset;
+	private transient int stride;
 	
 	/**
 	 * Create empty matrix of given height and width.
@@ -22,22 +44,113 @@ public class Matrix implements Serializable{
 	 */
 	public Matrix(int height, int width)
 	{
+		this(new double[height * width], 0, width, height, width);
+	}
+	
+	/**
+	 * Create empty matrix of given height, width and precision.
+	 * @param height
+	 * @param width
+	 * @param precision
+	 */
+	public Matrix(int height, int width, Precision precision)
+	{
+		if (precision == Precision.FLOAT)
+		{
+			floatData = new float[height * width];
+		}
+		else
+		{
+			data = new double[height * width];
+		}
+		
+		this.stride = width;
 		this.height = height;
 		this.width = width;
-		
-		matrix = new double[height][width];
 	}
 	
 	/**
-	 * Create matrix that contains the double[][].
+	 * Create matrix that contains the values of the double[][].
+	 * The values are copied into a flat buffer, so later changes to matrix are not reflected.
 	 * @param matrix
 	 */
 	public Matrix(double[][] matrix)
 	{
-		this.height = matrix.length;
-		this.width = matrix[0].length;
+		this(matrix.length, matrix[0].length);
+		
+		for(int i = 0; i < height; i++)
+		{
+			System.arraycopy(matrix[i], 0, data, i * width, width);
+		}
+	}
+	
+	/**
+	 * Create a matrix that wraps (does not copy) a flat row-major buffer.
+	 * @param data Buffer of at least height * width elements.
+	 * @param height
+	 * @param width
+	 */
+	public Matrix(double[] data, int height, int width)
+	{
+		this(data, 0, width, height, width);
+	}
+	
+	/**
+	 * Create a matrix over an arbitrary region of a flat row-major buffer.
+	 * @param data The backing buffer.
+	 * @param offset Index of element (0, 0) in data.
+	 * @param stride Distance in data between the start of consecutive rows.
+	 * @param height
+	 * @param width
+	 */
+	public Matrix(double[] data, int offset, int stride, int height, int width)
+	{
+		checkRegion(data.length, offset, stride, height, width);
+		
+		this.data = data;
+		this.offset = offset;
+		this.stride = stride;
+		this.height = height;
+		this.width = width;
+	}
+	
+	/**
+	 * Create a single precision matrix that wraps (does not copy) a flat row-major buffer.
+	 * @param data Buffer of at least height * width elements.
+	 * @param height
+	 * @param width
+	 */
+	public Matrix(float[] data, int height, int width)
+	{
+		this(data, 0, width, height, width);
+	}
+	
+	/**
+	 * Create a single precision matrix over an arbitrary region of a flat row-major buffer.
+	 * @param data The backing buffer.
+	 * @param offset Index of element (0, 0) in data.
+	 * @param stride Distance in data between the start of consecutive rows.
+	 * @param height
+	 * @param width
+	 */
+	public Matrix(float[] data, int offset, int stride, int height, int width)
+	{
+		checkRegion(data.length, offset, stride, height, width);
 		
-		this.matrix = matrix;
+		this.floatData = data;
+		this.offset = offset;
+		this.stride = stride;
+		this.height = height;
+		this.width = width;
+	}
+	
+	private static void checkRegion(int length, int offset, int stride, int height, int width)
+	{
+		if (height < 0 || width < 0 || stride < width || offset < 0
+				|| (height > 0 && width > 0 && offset + (long)(height - 1) * stride + width > length))
+		{
+			throw new IllegalArgumentException("Invalid matrix region: [" + height + ", " + width + "] at offset " + offset + ", stride " + stride + " in buffer of length " + length);
+		}
 	}
 	
 	/**
@@ -58,17 +171,19 @@ public class Matrix implements Serializable{
 	
 	/**
 	 * Get matrix element at height, width.
+	 * Only the backing buffer is bounds checked, so an out of range column reads into the next row.
 	 * @param height
 	 * @param width
 	 * @return
 	 */
 	public double getElement(int height, int width)
 	{
-		return matrix[height][width];
+		return data != null ? data[offset + height * stride + width] : floatData[offset + height * stride + width];
 	}
 	
 	/**
 	 * Set matrix element at height, width.
+	 * Only the backing buffer is bounds checked, so an out of range column writes into the next row.
 	 * @param height
 	 * @param width
 	 * @param value
@@ -76,7 +191,14 @@ public class Matrix implements Serializable{
 	 */
 	public void setElement(int height, int width, double value)
 	{
-		matrix[height][width] = value;
+		if (data != null)
+		{
+			data[offset + height * stride + width] = value;
+		}
+		else
+		{
+			floatData[offset + height * stride + width] = (float)value;
+		}
 	}
 	
 	public int getHeight()
@@ -89,27 +211,316 @@ public class Matrix implements Serializable{
 		return width;
 	}
 	
+	public Precision getPrecision()
+	{
+		return data != null ? Precision.DOUBLE : Precision.FLOAT;
+	}
+	
+	/**
+	 * The raw backing buffer. Element (i, j) is at getOffset() + i * getStride() + j.
+	 * Writes to this buffer are visible through the matrix and every view sharing it.
+	 * @return The buffer, or null if this is a single precision matrix.
+	 */
+	public double[] getData()
+	{
+		return data;
+	}
+	
+	/**
+	 * The raw backing buffer of a single precision matrix, laid out like getData().
+	 * @return The buffer, or null if this is a double precision matrix.
+	 */
+	public float[] getFloatData()
+	{
+		return floatData;
+	}
+	
+	/**
+	 * @param other
+	 * @return True if this matrix and other are backed by the same buffer, whether or not their regions overlap.
+	 */
+	public boolean sharesStorage(Matrix other)
+	{
+		return data != null ? data == other.data : floatData == other.floatData;
+	}
+	
+	public int getOffset()
+	{
+		return offset;
+	}
+	
+	public int getStride()
+	{
+		return stride;
+	}
+	
+	/**
+	 * @return True if the rows of this matrix are packed back to back in the backing buffer,
+	 * so its elements are data[getOffset()] to data[getOffset() + height * width - 1].
+	 */
+	public boolean isContiguous()
+	{
+		return stride == width || height <= 1;
+	}
+	
+	/**
+	 * Returns a view of a rectangular region of this matrix. No data is copied, so
+	 * changes to the view are visible in this matrix and vice versa.
+	 * @param row First row of the region.
+	 * @param col First column of the region.
+	 * @param height Number of rows in the region.
+	 * @param width Number of columns in the region.
+	 * @return A height x width matrix sharing this matrix's buffer.
+	 */
+	public Matrix view(int row, int col, int height, int width)
+	{
+		if (row < 0 || col < 0 || height < 0 || width < 0 || row + height > this.height || col + width > this.width)
+		{
+			throw new IndexOutOfBoundsException("Invalid view: [" + height + ", " + width + "] at (" + row + ", " + col + ") of [" + this.height + ", " + this.width + "]");
+		}
+		
+		int start = offset + row * stride + col;
+		return data != null ? new Matrix(data, start, stride, height, width) : new Matrix(floatData, start, stride, height, width);
+	}
+	
+	/**
+	 * Returns a view of a range of columns of this matrix.
+	 * @param col First column.
+	 * @param width Number of columns.
+	 * @return A getHeight() x width matrix sharing this matrix's buffer.
+	 */
+	public Matrix columns(int col, int width)
+	{
+		return view(0, col, height, width);
+	}
+	
+	/**
+	 * Copies the elements of this matrix, row-major, into dst starting at dstOffset.
+	 * @param dst
+	 * @param dstOffset
+	 */
+	public void copyTo(double[] dst, int dstOffset)
+	{
+		if (data == null)
+		{
+			for(int i = 0; i < height; i++)
+			{
+				int row = offset + i * stride;
+				for(int j = 0; j < width; j++)
+				{
+					dst[dstOffset + i * width + j] = floatData[row + j];
+				}
+			}
+			return;
+		}
+		
+		if (isContiguous())
+		{
+			System.arraycopy(data, offset, dst, dstOffset, height * width);
+			return;
+		}
+		
+		for(int i = 0; i < height; i++)
+		{
+			System.arraycopy(data, offset + i * stride, dst, dstOffset + i * width, width);
+		}
+	}
+	
+	/**
+	 * Overwrites the elements of this matrix with height * width row-major values from src.
+	 * @param src
+	 * @param srcOffset
+	 */
+	public void copyFrom(double[] src, int srcOffset)
+	{
+		if (data == null)
+		{
+			for(int i = 0; i < height; i++)
+			{
+				int row = offset + i * stride;
+				for(int j = 0; j < width; j++)
+				{
+					floatData[row + j] = (float)src[srcOffset + i * width + j];
+				}
+			}
+			return;
+		}
+		
+		if (isContiguous())
+		{
+			System.arraycopy(src, srcOffset, data, offset, height * width);
+			return;
+		}
+		
+		for(int i = 0; i < height; i++)
+		{
+			System.arraycopy(src, srcOffset + i * width, data, offset + i * stride, width);
+		}
+	}
+	
+	/**
+	 * @return A new flat row-major array holding the elements of this matrix.
+	 */
+	public double[] toArray()
+	{
+		double[] values = new double[height * width];
+		copyTo(values, 0);
+		return values;
+	}
+	
+	/**
+	 * @return A compact copy of this matrix, of the same precision, that does not share its buffer.
+	 */
+	public Matrix copy()
+	{
+		if (data != null)
+		{
+			return new Matrix(toArray(), height, width);
+		}
+		
+		float[] values = new float[height * width];
+		for(int i = 0; i < height; i++)
+		{
+			System.arraycopy(floatData, offset + i * stride, values, i * width, width);
+		}
+		return new Matrix(values, height, width);
+	}
+	
+	/**
+	 * Converts the matrix to the given precision. Narrowing to FLOAT rounds every element to the nearest float.
+	 * @param precision
+	 * @return This matrix if it already has that precision, otherwise a compact converted copy.
+	 */
+	public Matrix toPrecision(Precision precision)
+	{
+		if (precision == getPrecision())
+		{
+			return this;
+		}
+		
+		Matrix converted = new Matrix(height, width, precision);
+		if (precision == Precision.FLOAT)
+		{
+			converted.copyFrom(toArray(), 0);
+		}
+		else
+		{
+			copyTo(converted.data, 0);
+		}
+		return converted;
+	}
+	
+	/**
+	 * Set every element of the matrix to value.
+	 * @param value
+	 */
+	public void fill(double value)
+	{
+		if (data == null)
+		{
+			for(int i = 0; i < height; i++)
+			{
+				Arrays.fill(floatData, offset + i * stride, offset + i * stride + width, (float)value);
+			}
+			return;
+		}
+		
+		if (isContiguous())
+		{
+			Arrays.fill(data, offset, offset + height * width, value);
+			return;
+		}
+		
+		for(int i = 0; i < height; i++)
+		{
+			Arrays.fill(data, offset + i * stride, offset + i * stride + width, value);
+		}
+	}
+	
 	/**
 	 * Returns a string representation of the matrix
 	 */
 	public String toString()
 	{
-		String pString = "[";
+		StringBuilder pString = new StringBuilder("[");
 		
 		for(int i = 0; i < height; i++)
 		{
-			pString += "[";
+			pString.append("[");
 			for(int j = 0; j < width; j++)
 			{
 				if(j < width - 1)
-					pString += matrix[i][j] + ", ";
+					pString.append(getElement(i, j)).append(", ");
 				else if(i < height - 1)
-					pString += matrix[i][j] + "]\n";
+					pString.append(getElement(i, j)).append("]\n");
 				else
-					pString += matrix[i][j] + "]]";
+					pString.append(getElement(i, j)).append("]]");
 			}
 		}
 		
-		return pString;
+		return pString.toString();
+	}
+	
+	/**
+	 * Writes the matrix as its dimensions and a compact row-major copy of its elements,
+	 * so that views only serialize the region they cover.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException
+	{
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("height", height);
+		fields.put("width", width);
+		if (data != null)
+		{
+			fields.put("data", toArray());
+		}
+		else
+		{
+			fields.put("floatData", copy().floatData);
+		}
+		out.writeFields();
+	}
+	
+	/**
+	 * Reads the flat format, in either precision, or the original double[][] format.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		ObjectInputStream.GetField fields = in.readFields();
+		height = fields.get("height", 0);
+		width = fields.get("width", 0);
+		offset = 0;
+		stride = width;
+		
+		data = (double[])fields.get("data", null);
+		floatData = (float[])fields.get("floatData", null);
+		if (floatData != null)
+		{
+			if (floatData.length < height * width)
+			{
+				throw new IOException("Serialized matrix has " + floatData.length + " elements, expected " + height * width);
+			}
+			return;
+		}
+		if (data == null)
+		{
+			double[][] matrix = (double[][])fields.get("matrix", null);
+			
+			if (matrix == null)
+			{
+				throw new IOException("Serialized matrix has no element data");
+			}
+			
+			data = new double[height * width];
+			for(int i = 0; i < height; i++)
+			{
+				System.arraycopy(matrix[i], 0, data, i * width, width);
+			}
+		}
+
+		if (data.length < height * width)
+		{
+			throw new IOException("Serialized matrix has " + data.length + " elements, expected " + height * width);
+		}
 	}
 }
@@ -1,10 +1,49 @@
 /**
  * Author: Andrew Bradberry
  * Date Written: 10/7/2018
- * Description: Static class which handles all mathematical Matrix operations. 
+ * Description: Static class which handles all mathematical Matrix operations.
+ * Every operation has a form that allocates its result and a form that writes into a caller supplied
+ * output matrix, so that hot loops can reuse buffers instead of allocating.
+ * Operands may be double or single precision (see Precision), but all the operands of one operation
+ * must have the same precision, and allocated results take that precision too.
 **/
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.DoubleUnaryOperator;
+
 public class MatrixUtil {
+	// How operations decide whether to split their rows across threads, see ExecutionPolicy
+	private static volatile ExecutionPolicy executionPolicy = ExecutionPolicy.AUTO;
+	// Under AUTO, operations with fewer scalar operations than this run serially
+	private static volatile long parallelThreshold = 1 << 17;
+	private static volatile ForkJoinPool pool = ForkJoinPool.commonPool();
+	
+	private static final int TRANSPOSE_TILE = 32;
+	
+	// Scalar or SIMD inner loops, chosen once at startup
+	private static final Kernels KERNELS = Kernels.get();
+	
+	/**
+	 * The sigmoid function, 1 / (1 + e^-x). Passing this exact instance to affine or applySigmoid
+	 * lets them use the vectorized kernel when one is available.
+	 */
+	public static final DoubleUnaryOperator SIGMOID = x -> 1 / (1 + Math.exp(-x));
+	
+	/**
+	 * A kernel over the rows [from, to) of its output.
+	 */
+	private interface RowKernel {
+		void run(int from, int to);
+	}
+	
+	/**
+	 * A kernel over n elements of each operand, starting at row of each.
+	 */
+	private interface RunKernel {
+		void run(int row, int n);
+	}
+	
 	/**
 	 * Pairwise adds the two matrices together, if they are of the same dimension in the following form:
 	 * [[a, b]  + [[e, f]  = [[a + e, b + f]
@@ -15,24 +54,54 @@ public class MatrixUtil {
 	 * @throws ArithmeticException
 	 */
 	public static Matrix matAdd(Matrix a, Matrix b) throws ArithmeticException
+	{
+		return matAdd(a, b, new Matrix(a.getHeight(), a.getWidth(), a.getPrecision()));
+	}
+		
+	/**
+	 * Pairwise adds a and b into out. out may be a or b.
+	 * @param a
+	 * @param b
+	 * @param out Matrix with the same dimensions as a and b.
+	 * @return out
+	 * @throws ArithmeticException
+	 */
+	public static Matrix matAdd(Matrix a, Matrix b, Matrix out) throws ArithmeticException
 	{
 		// Check to ensure matrix sizes match.
-		if (a.getWidth() != b.getWidth() || a.getHeight() != b.getHeight())
+		checkSameSize(a, b);
+		checkSameSize(a, out);
+		
+		int parts = partitions(a.getHeight(), (long)a.getHeight() * a.getWidth());
+		if (parts <= 1)
 		{
-			throw new ArithmeticException("Invalid matrix sizes: [" + a.getHeight() + ", " + a.getWidth() + "], [" + b.getHeight() + ", " + b.getWidth() + "]");
+			addRows(a, b, out, 0, a.getHeight());
 		}
-		
-		Matrix c = new Matrix(a.getHeight(), a.getWidth());
-		
-		for(int i = 0; i < a.getHeight(); i++)
+		else
 		{
-			for(int j = 0; j < a.getWidth(); j++)
-			{
-				c.setElement(i, j, a.getElement(i, j) + b.getElement(i, j));
-			}
+			parallel(a.getHeight(), parts, (from, to) -> addRows(a, b, out, from, to));
 		}
 		
-		return c;
+		return out;
+	}
+	
+	private static void addRows(Matrix a, Matrix b, Matrix out, int from, int to)
+	{
+		forEachRun(contiguous(a, b, out), a.getWidth(), from, to, isFloat(out)
+				? (i, n) -> KERNELS.add(a.getFloatData(), start(a, i), b.getFloatData(), start(b, i), out.getFloatData(), start(out, i), n)
+				: (i, n) -> KERNELS.add(a.getData(), start(a, i), b.getData(), start(b, i), out.getData(), start(out, i), n));
+	}
+		
+	/**
+	 * Adds b to a, storing the result in a.
+	 * @param a
+	 * @param b
+	 * @return a
+	 * @throws ArithmeticException
+	 */
+	public static Matrix addInPlace(Matrix a, Matrix b) throws ArithmeticException
+	{
+		return matAdd(a, b, a);
 	}
 	
 	/**
@@ -46,176 +115,1456 @@ public class MatrixUtil {
 	 */
 	public static Matrix matSub(Matrix a, Matrix b) throws ArithmeticException
 	{
-		// Multiply b by negative one, and add together. 
-		return matAdd(a, matMul(-1, b));
+		return matSub(a, b, new Matrix(a.getHeight(), a.getWidth(), a.getPrecision()));
+	}
+	
+	/**
+	 * Pairwise subtracts b from a into out. out may be a or b.
+	 * @param a
+	 * @param b
+	 * @param out Matrix with the same dimensions as a and b.
+	 * @return out
+	 * @throws ArithmeticException
+	 */
+	public static Matrix matSub(Matrix a, Matrix b, Matrix out) throws ArithmeticException
+	{
+		checkSameSize(a, b);
+		checkSameSize(a, out);
+		
+		int parts = partitions(a.getHeight(), (long)a.getHeight() * a.getWidth());
+		if (parts <= 1)
+		{
+			subRows(a, b, out, 0, a.getHeight());
+		}
+		else
+		{
+			parallel(a.getHeight(), parts, (from, to) -> subRows(a, b, out, from, to));
+		}
+		
+		return out;
+	}
+	
+	private static void subRows(Matrix a, Matrix b, Matrix out, int from, int to)
+	{
+		forEachRun(contiguous(a, b, out), a.getWidth(), from, to, isFloat(out)
+				? (i, n) -> KERNELS.sub(a.getFloatData(), start(a, i), b.getFloatData(), start(b, i), out.getFloatData(), start(out, i), n)
+				: (i, n) -> KERNELS.sub(a.getData(), start(a, i), b.getData(), start(b, i), out.getData(), start(out, i), n));
 	}
 	
 	/**
 	 * Returns the regular matrix product, assuming legal, of the two matrices provided in the following form:
 	 * [[a, b]  * [[e, f]  = [[a * e + b * g, a * f + b * h]
 	 *  [c, d]]    [g, h]]    [c * e + d * g, c * f + d * h]]
+	 * Uses the cache-blocked kernel in Gemm.
 	 * @param a An m x n matrix
 	 * @param b A n x l matrix
 	 * @return The product of a * b, an m x l matrix.
 	 * @throws ArithmeticException
 	 */
 	public static Matrix matMul(Matrix a, Matrix b) throws ArithmeticException
+	{
+		return matMul(a, b, new Matrix(a.getHeight(), b.getWidth(), a.getPrecision()));
+	}
+	
+	/**
+	 * Stores the matrix product a * b in out.
+	 * @param a An m x n matrix
+	 * @param b A n x l matrix
+	 * @param out An m x l matrix, which must not share storage with a or b.
+	 * @return out
+	 * @throws ArithmeticException
+	 */
+	public static Matrix matMul(Matrix a, Matrix b, Matrix out) throws ArithmeticException
 	{
 		// Check that the multiplication is legal
 		if (a.getWidth() != b.getHeight())
 		{
 			throw new ArithmeticException("Invalid matrix sizes: [" + a.getHeight() + ", " + a.getWidth() + "], [" + b.getHeight() + ", " + b.getWidth() + "]");
 		}
+		checkSize(out, a.getHeight(), b.getWidth());
+		checkNoOverlap(out, a);
+		checkNoOverlap(out, b);
 		
-		Matrix c = new Matrix(a.getHeight(), b.getWidth());
+		multiply(1, a, false, b, false, 0, out);
 		
-		// Vertical position in output matrix
-		for(int i = 0; i < a.getHeight(); i++)
+		return out;
+	}
+	
+	/**
+	 * Stores the product transpose(a) * b in out, reading a transposed in place instead of materializing it.
+	 * @param a An n x m matrix
+	 * @param b A n x l matrix
+	 * @param out An m x l matrix, which must not share storage with a or b.
+	 * @return out
+	 * @throws ArithmeticException
+	 */
+	public static Matrix matMulTransA(Matrix a, Matrix b, Matrix out) throws ArithmeticException
+	{
+		return gemm(1, a, true, b, false, 0, out);
+	}
+	
+	/**
+	 * Stores the product a * transpose(b) in out, reading b transposed in place instead of materializing it.
+	 * @param a An m x n matrix
+	 * @param b A l x n matrix
+	 * @param out An m x l matrix, which must not share storage with a or b.
+	 * @return out
+	 * @throws ArithmeticException
+	 */
+	public static Matrix matMulTransB(Matrix a, Matrix b, Matrix out) throws ArithmeticException
+	{
+		return gemm(1, a, false, b, true, 0, out);
+	}
+	
+	/**
+	 * General matrix multiply, out = alpha * op(a) * op(b) + beta * out, where op(x) is x or its transpose.
+	 * Transposed operands are read in place.
+	 * @param alpha Scale of the product.
+	 * @param a
+	 * @param transA Use the transpose of a.
+	 * @param b
+	 * @param transB Use the transpose of b.
+	 * @param beta Scale of the existing contents of out. When 0, out is simply overwritten.
+	 * @param out Output matrix, which must not share storage with a or b.
+	 * @return out
+	 * @throws ArithmeticException
+	 */
+	public static Matrix gemm(double alpha, Matrix a, boolean transA, Matrix b, boolean transB, double beta, Matrix out) throws ArithmeticException
+	{
+		int m = transA ? a.getWidth() : a.getHeight();
+		int k = transA ? a.getHeight() : a.getWidth();
+		int kb = transB ? b.getWidth() : b.getHeight();
+		int n = transB ? b.getHeight() : b.getWidth();
+		
+		// Check that the multiplication is legal
+		if (k != kb)
 		{
-			// Horizontal position in output matrix
-			for(int j = 0; j < b.getWidth(); j++)
-			{
-				double sum = 0;
-				for(int k = 0; k < a.getWidth(); k++)
-				{
-					sum += a.getElement(i, k) * b.getElement(k, j);
-				}
-				
-				c.setElement(i, j, sum);
-			}
+			throw new ArithmeticException("Invalid matrix sizes: [" + m + ", " + k + "], [" + kb + ", " + n + "]");
 		}
+		checkSize(out, m, n);
+		checkNoOverlap(out, a);
+		checkNoOverlap(out, b);
 		
-		return c;
+		multiply(alpha, a, transA, b, transB, beta, out);
+		
+		return out;
 	}
 	
 	/**
-	 * Multiplies an input matrix by a scalar in the following form:
-	 * a * [[m, n]   =  [[a * m, a * n]
-	 * 		[o, p]]		 [a * o, a * p]]
-	 * @param a The scalar.
-	 * @param b The matrix.
-	 * @return A matrix with the same dimensions as b.
+	 * Runs the blocked kernel, splitting the rows of out across the pool when the policy allows.
+	 * Every element is computed in the same order either way, so the result does not depend on the split.
 	 */
-	public static Matrix matMul(double a, Matrix b)
+	private static void multiply(double alpha, Matrix a, boolean transA, Matrix b, boolean transB, double beta, Matrix out)
+	{
+		int m = out.getHeight();
+		int k = transA ? a.getHeight() : a.getWidth();
+		int parts = partitions(m, (long)m * out.getWidth() * k);
+		if (parts <= 1)
+		{
+			Gemm.multiply(alpha, a, transA, b, transB, beta, out, 0, m);
+		}
+		else
+		{
+			parallel(m, parts, (from, to) -> Gemm.multiply(alpha, a, transA, b, transB, beta, out, from, to));
+		}
+	}
+	
+	/**
+	 * Computes out = activation(w * x + bias) in a single pass over the output, where the bias
+	 * column is added to every column of w * x.
+	 * @param w An m x n matrix
+	 * @param x A n x l matrix
+	 * @param bias An m x 1 column
+	 * @param activation Function applied to every element, or null for none.
+	 * @param out An m x l matrix, which must not share storage with w or x.
+	 * @return out
+	 * @throws ArithmeticException
+	 */
+	public static Matrix affine(Matrix w, Matrix x, Matrix bias, DoubleUnaryOperator activation, Matrix out) throws ArithmeticException
+	{
+		checkSize(bias, w.getHeight(), 1);
+		checkSamePrecision(bias, out);
+		matMul(w, x, out);
+		
+		int parts = partitions(out.getHeight(), (long)out.getHeight() * out.getWidth());
+		if (parts <= 1)
+		{
+			biasActivationRows(bias, activation, out, 0, out.getHeight());
+		}
+		else
+		{
+			parallel(out.getHeight(), parts, (from, to) -> biasActivationRows(bias, activation, out, from, to));
+		}
+		
+		return out;
+	}
+	
+	private static void biasActivationRows(Matrix bias, DoubleUnaryOperator activation, Matrix out, int from, int to)
 	{
+		if (isFloat(out))
+		{
+			biasActivationRowsFloat(bias, activation, out, from, to);
+			return;
+		}
 		
-		Matrix c = new Matrix(b.getHeight(), b.getWidth());
+		double[] bd = bias.getData(), od = out.getData();
 		
-		for(int i = 0; i < b.getHeight(); i++)
+		// A contiguous column is one run, as in forEachRun
+		if (activation == SIGMOID && out.getWidth() == 1 && contiguous(bias, out, out))
 		{
-			for(int j = 0; j < b.getWidth(); j++)
+			KERNELS.add(od, start(out, from), bd, start(bias, from), od, start(out, from), to - from);
+			KERNELS.biasSigmoid(0, od, start(out, from), to - from);
+			return;
+		}
+		
+		for(int i = from; i < to; i++)
+		{
+			double b = bd[bias.getOffset() + i * bias.getStride()];
+			int oi = out.getOffset() + i * out.getStride();
+			
+			if (activation == SIGMOID)
+			{
+				KERNELS.biasSigmoid(b, od, oi, out.getWidth());
+			}
+			else if (activation == null)
+			{
+				for(int j = 0; j < out.getWidth(); j++)
+				{
+					od[oi + j] += b;
+				}
+			}
+			else
 			{
-				c.setElement(i, j, b.getElement(i, j) * a);
+				for(int j = 0; j < out.getWidth(); j++)
+				{
+					od[oi + j] = activation.applyAsDouble(od[oi + j] + b);
+				}
 			}
 		}
+	}
+	
+	private static void biasActivationRowsFloat(Matrix bias, DoubleUnaryOperator activation, Matrix out, int from, int to)
+	{
+		float[] bd = bias.getFloatData(), od = out.getFloatData();
 		
-		return c;
+		if (activation == SIGMOID && out.getWidth() == 1 && contiguous(bias, out, out))
+		{
+			KERNELS.add(od, start(out, from), bd, start(bias, from), od, start(out, from), to - from);
+			KERNELS.biasSigmoid(0f, od, start(out, from), to - from);
+			return;
+		}
+		
+		for(int i = from; i < to; i++)
+		{
+			float b = bd[start(bias, i)];
+			int oi = start(out, i);
+			
+			if (activation == SIGMOID)
+			{
+				KERNELS.biasSigmoid(b, od, oi, out.getWidth());
+			}
+			else if (activation == null)
+			{
+				for(int j = 0; j < out.getWidth(); j++)
+				{
+					od[oi + j] += b;
+				}
+			}
+			else
+			{
+				for(int j = 0; j < out.getWidth(); j++)
+				{
+					od[oi + j] = (float)activation.applyAsDouble(od[oi + j] + b);
+				}
+			}
+		}
 	}
 	
 	/**
-	 * Pairwise multiplies the two matrices together, if they are of the same dimension in the following form:
-	 * [[a, b]  .* [[e, f]  = [[a * e, b * f]
-	 *  [c, d]]     [g, h]]    [c * g, d * h]]
-	 * @param a
-	 * @param b
-	 * @return A matrix with the same dimensions as the input matrices, a .* b.
+	 * Computes out = activation(w * x + bias) in a single pass over the output, like affine with a function,
+	 * using the activation's kernel. SOFTMAX is applied down each column of out, one sample per column.
+	 * @param w An m x n matrix
+	 * @param x A n x l matrix
+	 * @param bias An m x 1 column
+	 * @param activation
+	 * @param out An m x l matrix, which must not share storage with w or x.
+	 * @return out
 	 * @throws ArithmeticException
 	 */
-	public static Matrix pairwiseMul(Matrix a, Matrix b) throws ArithmeticException
+	public static Matrix affine(Matrix w, Matrix x, Matrix bias, Activation activation, Matrix out) throws ArithmeticException
 	{
-		// Check to ensure legal opoeration
-		if (a.getWidth() != b.getWidth() || a.getHeight() != b.getHeight())
+		if (activation == Activation.SIGMOID)
 		{
-			throw new ArithmeticException("Invalid matrix sizes: [" + a.getHeight() + ", " + a.getWidth() + "], [" + b.getHeight() + ", " + b.getWidth() + "]");
+			return affine(w, x, bias, SIGMOID, out);
 		}
 		
-		Matrix c = new Matrix(a.getHeight(), a.getWidth());
+		checkSize(bias, w.getHeight(), 1);
+		checkSamePrecision(bias, out);
+		matMul(w, x, out);
 		
-		for(int i = 0; i < a.getHeight(); i++)
+		int parts = partitions(out.getHeight(), (long)out.getHeight() * out.getWidth());
+		if (parts <= 1)
 		{
-			for(int j = 0; j < a.getWidth(); j++)
-			{
-				c.setElement(i, j, a.getElement(i, j) * b.getElement(i,j));
-			}
+			activationRows(bias, activation, out, 0, out.getHeight());
+		}
+		else
+		{
+			parallel(out.getHeight(), parts, (from, to) -> activationRows(bias, activation, out, from, to));
+		}
+		if (activation == Activation.SOFTMAX)
+		{
+			softmaxColumns(out);
 		}
 		
-		return c;
+		return out;
 	}
 	
 	/**
-	 * Create a matrix of dimensions height x width such that every element is 1.
-	 * @param height
-	 * @param width
-	 * @return
+	 * Applies an activation to every element of x, or for SOFTMAX to every column, in place.
+	 * @param activation
+	 * @param x
+	 * @return x
 	 */
-	public static Matrix ones(int height, int width)
+	public static Matrix applyActivation(Activation activation, Matrix x)
 	{
-		Matrix m = new Matrix(height, width);
-		
-		for(int i = 0; i < m.getHeight(); i++)
+		for(int i = 0; i < x.getHeight(); i++)
 		{
-			for(int j = 0; j < m.getWidth(); j++)
+			if (isFloat(x))
 			{
-				m.setElement(i, j, 1);
+				activate(activation, 0f, x.getFloatData(), start(x, i), x.getWidth());
 			}
+			else
+			{
+				activate(activation, 0, x.getData(), start(x, i), x.getWidth());
+			}
+		}
+		if (activation == Activation.SOFTMAX)
+		{
+			softmaxColumns(x);
 		}
 		
-		return m;
+		return x;
 	}
 	
 	/**
-	 * Returns the matrix transpose (Rows become columns) of the provided matrix in the following form:
-	 * [[a, b, c] T   =  [[a, d]
-	 *  [d, e, f]]		  [b, e]
-	 *  				  [c, f]]
-	 * @param a A n x m matrix
-	 * @return The transpose of a, m x n matrix
+	 * Adds the bias to rows [from, to) of out and applies an element-wise activation, or for SOFTMAX only adds the bias.
 	 */
-	public static Matrix transpose(Matrix a)
+	private static void activationRows(Matrix bias, Activation activation, Matrix out, int from, int to)
 	{
-		Matrix t = new Matrix(a.getWidth(), a.getHeight());
+		// A contiguous column is one run, as in forEachRun
+		boolean oneRun = out.getWidth() == 1 && contiguous(bias, out, out);
 		
-		for(int i = 0; i < a.getHeight(); i++)
+		if (isFloat(out))
 		{
-			for(int j = 0; j < a.getWidth(); j++)
+			float[] bd = bias.getFloatData(), od = out.getFloatData();
+			if (oneRun)
+			{
+				KERNELS.add(od, start(out, from), bd, start(bias, from), od, start(out, from), to - from);
+				activate(activation, 0f, od, start(out, from), to - from);
+				return;
+			}
+			for(int i = from; i < to; i++)
 			{
-				t.setElement(j, i, a.getElement(i, j));
+				activate(activation, bd[start(bias, i)], od, start(out, i), out.getWidth());
+			}
+		}
+		else
+		{
+			double[] bd = bias.getData(), od = out.getData();
+			if (oneRun)
+			{
+				KERNELS.add(od, start(out, from), bd, start(bias, from), od, start(out, from), to - from);
+				activate(activation, 0, od, start(out, from), to - from);
+				return;
+			}
+			for(int i = from; i < to; i++)
+			{
+				activate(activation, bd[start(bias, i)], od, start(out, i), out.getWidth());
 			}
 		}
-		
-		return t;
 	}
 	
 	/**
-	 * Returns the index of the maximum element of a as if it were a flattened matrix. 
-	 * Ex:
-	 * a = [[1, 2]		
-	 * 		[4, 3]]
-	 * flatten(a) = [[1, 2, 4, 3]]
-	 * maxElement(a) = 2
-	 * 
-	 * a = [[1, 2]
-	 * 		[5, 3]
-	 * 		[1, 4]]
-	 * flatten(a) = [[1, 2, 4, 3, 5, 4]]
-	 * maxElement(a) = 4
-	 * 
-	 * @param a
-	 * @return The index of the maximum element of a.
+	 * x[xi..xi+n) = activation(x[xi..xi+n) + bias), where SOFTMAX, which is not element-wise, only adds the bias.
 	 */
-	public static int maxElement(Matrix a)
+	private static void activate(Activation activation, double bias, double[] x, int xi, int n)
 	{
-		int max = 0;
-		
-		for(int i = 0; i < a.getHeight() * a.getWidth(); i++)
+		switch (activation)
 		{
-			if(a.getElement(max / a.getWidth(), max % a.getWidth()) < a.getElement(i / a.getWidth(), i % a.getWidth()))
-			{
-				max = i;
-			}
+			case SIGMOID:
+				KERNELS.biasSigmoid(bias, x, xi, n);
+				break;
+			case FAST_SIGMOID:
+				KERNELS.biasFastSigmoid(bias, x, xi, n);
+				break;
+			case TANH:
+				KERNELS.biasTanh(bias, x, xi, n);
+				break;
+			case RELU:
+				KERNELS.biasRelu(bias, 0, x, xi, n);
+				break;
+			case LEAKY_RELU:
+				KERNELS.biasRelu(bias, Activation.LEAKY_SLOPE, x, xi, n);
+				break;
+			default:
+				for(int j = 0; j < n; j++)
+				{
+					x[xi + j] += bias;
+				}
+		}
+	}
+	
+	private static void activate(Activation activation, float bias, float[] x, int xi, int n)
+	{
+		switch (activation)
+		{
+			case SIGMOID:
+				KERNELS.biasSigmoid(bias, x, xi, n);
+				break;
+			case FAST_SIGMOID:
+				KERNELS.biasFastSigmoid(bias, x, xi, n);
+				break;
+			case TANH:
+				KERNELS.biasTanh(bias, x, xi, n);
+				break;
+			case RELU:
+				KERNELS.biasRelu(bias, 0f, x, xi, n);
+				break;
+			case LEAKY_RELU:
+				KERNELS.biasRelu(bias, (float)Activation.LEAKY_SLOPE, x, xi, n);
+				break;
+			default:
+				for(int j = 0; j < n; j++)
+				{
+					x[xi + j] += bias;
+				}
 		}
-		
-		return max;
 	}
 	
+	/**
+	 * Replaces every column of x with its softmax, e^x_i / sum_k e^x_k. The largest element of each column
+	 * is subtracted first so that e^x cannot overflow. Sums are taken in double precision.
+	 */
+	private static void softmaxColumns(Matrix x)
+	{
+		int stride = x.getStride();
+		for(int j = 0; j < x.getWidth(); j++)
+		{
+			int first = x.getOffset() + j, last = first + (x.getHeight() - 1) * stride;
+			if (isFloat(x))
+			{
+				float[] xd = x.getFloatData();
+				float max = Float.NEGATIVE_INFINITY;
+				for(int i = first; i <= last; i += stride)
+				{
+					max = Math.max(max, xd[i]);
+				}
+				double sum = 0;
+				for(int i = first; i <= last; i += stride)
+				{
+					xd[i] = (float)Math.exp(xd[i] - max);
+					sum += xd[i];
+				}
+				for(int i = first; i <= last; i += stride)
+				{
+					xd[i] = (float)(xd[i] / sum);
+				}
+			}
+			else
+			{
+				double[] xd = x.getData();
+				double max = Double.NEGATIVE_INFINITY;
+				for(int i = first; i <= last; i += stride)
+				{
+					max = Math.max(max, xd[i]);
+				}
+				double sum = 0;
+				for(int i = first; i <= last; i += stride)
+				{
+					xd[i] = Math.exp(xd[i] - max);
+					sum += xd[i];
+				}
+				for(int i = first; i <= last; i += stride)
+				{
+					xd[i] /= sum;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Rank-1 update, out = out + alpha * x * transpose(y).
+	 * @param alpha
+	 * @param x An m x 1 column
+	 * @param y An n x 1 column
+	 * @param out An m x n matrix
+	 * @return out
+	 * @throws ArithmeticException
+	 */
+	public static Matrix outerProductAdd(double alpha, Matrix x, Matrix y, Matrix out) throws ArithmeticException
+	{
+		checkSize(x, out.getHeight(), 1);
+		checkSize(y, out.getWidth(), 1);
+		checkSamePrecision(x, out);
+		checkSamePrecision(y, out);
+		
+		int parts = partitions(out.getHeight(), (long)out.getHeight() * out.getWidth());
+		if (parts <= 1)
+		{
+			outerProductRows(alpha, x, y, out, 0, out.getHeight());
+		}
+		else
+		{
+			parallel(out.getHeight(), parts, (from, to) -> outerProductRows(alpha, x, y, out, from, to));
+		}
+		
+		return out;
+	}
+	
+	private static void outerProductRows(double alpha, Matrix x, Matrix y, Matrix out, int from, int to)
+	{
+		if (isFloat(out))
+		{
+			outerProductRowsFloat((float)alpha, x, y, out, from, to);
+			return;
+		}
+		
+		double[] xd = x.getData(), yd = y.getData(), od = out.getData();
+		int ys = y.getStride();
+		
+		for(int i = from; i < to; i++)
+		{
+			double xi = alpha * xd[x.getOffset() + i * x.getStride()];
+			int oi = out.getOffset() + i * out.getStride();
+			
+			if (ys == 1)
+			{
+				KERNELS.axpy(xi, yd, y.getOffset(), od, oi, out.getWidth());
+				continue;
+			}
+			
+			int yj = y.getOffset();
+			for(int j = 0; j < out.getWidth(); j++, yj += ys)
+			{
+				od[oi + j] += xi * yd[yj];
+			}
+		}
+	}
+	
+	private static void outerProductRowsFloat(float alpha, Matrix x, Matrix y, Matrix out, int from, int to)
+	{
+		float[] xd = x.getFloatData(), yd = y.getFloatData(), od = out.getFloatData();
+		int ys = y.getStride();
+		
+		for(int i = from; i < to; i++)
+		{
+			float xi = alpha * xd[start(x, i)];
+			int oi = start(out, i);
+			
+			if (ys == 1)
+			{
+				KERNELS.axpy(xi, yd, y.getOffset(), od, oi, out.getWidth());
+				continue;
+			}
+			int yj = y.getOffset();
+			for(int j = 0; j < out.getWidth(); j++, yj += ys)
+			{
+				od[oi + j] += xi * yd[yj];
+			}
+		}
+	}
+	
+	/**
+	 * Reference implementation of matMul(a, b) using the textbook i-j-k loop.
+	 * It is much slower than matMul on anything but tiny matrices, and is kept to check the blocked kernel against.
+	 * @param a An m x n matrix
+	 * @param b A n x l matrix
+	 * @return The product of a * b, an m x l matrix.
+	 * @throws ArithmeticException
+	 */
+	public static Matrix matMulNaive(Matrix a, Matrix b) throws ArithmeticException
+	{
+		// Check that the multiplication is legal
+		if (a.getWidth() != b.getHeight())
+		{
+			throw new ArithmeticException("Invalid matrix sizes: [" + a.getHeight() + ", " + a.getWidth() + "], [" + b.getHeight() + ", " + b.getWidth() + "]");
+		}
+		
+		Matrix c = new Matrix(a.getHeight(), b.getWidth(), a.getPrecision());
+		
+		// Vertical position in output matrix
+		for(int i = 0; i < a.getHeight(); i++)
+		{
+			// Horizontal position in output matrix
+			for(int j = 0; j < b.getWidth(); j++)
+			{
+				double sum = 0;
+				for(int k = 0; k < a.getWidth(); k++)
+				{
+					sum += a.getElement(i, k) * b.getElement(k, j);
+				}
+				
+				c.setElement(i, j, sum);
+			}
+		}
+		
+		return c;
+	}
+	
+	/**
+	 * Multiplies an input matrix by a scalar in the following form:
+	 * a * [[m, n]   =  [[a * m, a * n]
+	 * 		[o, p]]		 [a * o, a * p]]
+	 * @param a The scalar.
+	 * @param b The matrix.
+	 * @return A matrix with the same dimensions as b.
+	 */
+	public static Matrix matMul(double a, Matrix b)
+	{
+		return matMul(a, b, new Matrix(b.getHeight(), b.getWidth(), b.getPrecision()));
+	}
+		
+	/**
+	 * Stores the scalar product a * b in out. out may be b.
+	 * @param a The scalar.
+	 * @param b The matrix.
+	 * @param out Matrix with the same dimensions as b.
+	 * @return out
+	 * @throws ArithmeticException
+	 */
+	public static Matrix matMul(double a, Matrix b, Matrix out) throws ArithmeticException
+	{
+		checkSameSize(b, out);
+		
+		int parts = partitions(b.getHeight(), (long)b.getHeight() * b.getWidth());
+		if (parts <= 1)
+		{
+			scaleRows(a, b, out, 0, b.getHeight());
+		}
+		else
+		{
+			parallel(b.getHeight(), parts, (from, to) -> scaleRows(a, b, out, from, to));
+		}
+		
+		return out;
+	}
+	
+	private static void scaleRows(double a, Matrix b, Matrix out, int from, int to)
+	{
+		forEachRun(contiguous(b, out, out), b.getWidth(), from, to, isFloat(out)
+				? (i, n) -> KERNELS.scale((float)a, b.getFloatData(), start(b, i), out.getFloatData(), start(out, i), n)
+				: (i, n) -> KERNELS.scale(a, b.getData(), start(b, i), out.getData(), start(out, i), n));
+	}
+		
+	/**
+	 * Multiplies every element of a by scalar, storing the result in a.
+	 * @param a
+	 * @param scalar
+	 * @return a
+	 */
+	public static Matrix scaleInPlace(Matrix a, double scalar)
+	{
+		return matMul(scalar, a, a);
+	}
+	
+	/**
+	 * Scaled addition, y = y + alpha * x, in one pass.
+	 * @param alpha
+	 * @param x
+	 * @param y Matrix with the same dimensions as x, updated in place.
+	 * @return y
+	 * @throws ArithmeticException
+	 */
+	public static Matrix axpy(double alpha, Matrix x, Matrix y) throws ArithmeticException
+	{
+		checkSameSize(x, y);
+		
+		int parts = partitions(x.getHeight(), (long)x.getHeight() * x.getWidth());
+		if (parts <= 1)
+		{
+			axpyRows(alpha, x, y, 0, x.getHeight());
+		}
+		else
+		{
+			parallel(x.getHeight(), parts, (from, to) -> axpyRows(alpha, x, y, from, to));
+		}
+		
+		return y;
+	}
+	
+	private static void axpyRows(double alpha, Matrix x, Matrix y, int from, int to)
+	{
+		forEachRun(contiguous(x, y, y), x.getWidth(), from, to, isFloat(y)
+				? (i, n) -> KERNELS.axpy((float)alpha, x.getFloatData(), start(x, i), y.getFloatData(), start(y, i), n)
+				: (i, n) -> KERNELS.axpy(alpha, x.getData(), start(x, i), y.getData(), start(y, i), n));
+	}
+	
+	/**
+	 * Momentum step in one fused pass, updating the velocity and the parameters in place:
+	 * v = mu * v + scale * g, then w = w - lr * v, or for Nesterov momentum w = w - lr * (scale * g + mu * v).
+	 * @param scale Applied to the gradient first, for example 1 / batch size for summed gradients.
+	 * @param mu Momentum coefficient
+	 * @param lr Learning rate
+	 * @param nesterov
+	 * @param g Gradient
+	 * @param v Velocity, the same size as g
+	 * @param w Parameters, the same size as g
+	 * @return w
+	 * @throws ArithmeticException
+	 */
+	public static Matrix momentumUpdate(double scale, double mu, double lr, boolean nesterov, Matrix g, Matrix v, Matrix w) throws ArithmeticException
+	{
+		checkSameSize(g, v);
+		checkSameSize(g, w);
+		
+		int parts = partitions(g.getHeight(), (long)g.getHeight() * g.getWidth());
+		if (parts <= 1)
+		{
+			momentumRows(scale, mu, lr, nesterov, g, v, w, 0, g.getHeight());
+		}
+		else
+		{
+			parallel(g.getHeight(), parts, (from, to) -> momentumRows(scale, mu, lr, nesterov, g, v, w, from, to));
+		}
+		
+		return w;
+	}
+	
+	private static void momentumRows(double scale, double mu, double lr, boolean nesterov, Matrix g, Matrix v, Matrix w, int from, int to)
+	{
+		forEachRun(contiguous(g, v, w), g.getWidth(), from, to, isFloat(w)
+				? (i, n) -> KERNELS.momentumUpdate((float)scale, (float)mu, (float)lr, nesterov, g.getFloatData(), start(g, i),
+						v.getFloatData(), start(v, i), w.getFloatData(), start(w, i), n)
+				: (i, n) -> KERNELS.momentumUpdate(scale, mu, lr, nesterov, g.getData(), start(g, i), v.getData(), start(v, i), w.getData(), start(w, i), n));
+	}
+	
+	/**
+	 * RMSProp step in one fused pass, updating the mean square and the parameters in place:
+	 * r = rho * r + (1 - rho) * (scale * g)^2, then w = w - lr * scale * g / (sqrt(r) + eps).
+	 * @param scale Applied to the gradient first, for example 1 / batch size for summed gradients.
+	 * @param rho Decay of the mean square
+	 * @param lr Learning rate
+	 * @param eps Added to the root mean square to avoid dividing by zero
+	 * @param g Gradient
+	 * @param r Mean square of the gradient, the same size as g
+	 * @param w Parameters, the same size as g
+	 * @return w
+	 * @throws ArithmeticException
+	 */
+	public static Matrix rmspropUpdate(double scale, double rho, double lr, double eps, Matrix g, Matrix r, Matrix w) throws ArithmeticException
+	{
+		checkSameSize(g, r);
+		checkSameSize(g, w);
+		
+		int parts = partitions(g.getHeight(), (long)g.getHeight() * g.getWidth());
+		if (parts <= 1)
+		{
+			rmspropRows(scale, rho, lr, eps, g, r, w, 0, g.getHeight());
+		}
+		else
+		{
+			parallel(g.getHeight(), parts, (from, to) -> rmspropRows(scale, rho, lr, eps, g, r, w, from, to));
+		}
+		
+		return w;
+	}
+	
+	private static void rmspropRows(double scale, double rho, double lr, double eps, Matrix g, Matrix r, Matrix w, int from, int to)
+	{
+		forEachRun(contiguous(g, r, w), g.getWidth(), from, to, isFloat(w)
+				? (i, n) -> KERNELS.rmspropUpdate((float)scale, (float)rho, (float)lr, (float)eps, g.getFloatData(), start(g, i),
+						r.getFloatData(), start(r, i), w.getFloatData(), start(w, i), n)
+				: (i, n) -> KERNELS.rmspropUpdate(scale, rho, lr, eps, g.getData(), start(g, i), r.getData(), start(r, i), w.getData(), start(w, i), n));
+	}
+	
+	/**
+	 * Adam step in one fused pass, updating both moments and the parameters in place: with g' = scale * g,
+	 * m = beta1 * m + (1 - beta1) * g', v = beta2 * v + (1 - beta2) * g'^2, then
+	 * w = w - lr * m / (1 - beta1^t) / (sqrt(v / (1 - beta2^t)) + eps).
+	 * @param scale Applied to the gradient first, for example 1 / batch size for summed gradients.
+	 * @param beta1 Decay of the first moment
+	 * @param beta2 Decay of the second moment
+	 * @param lr Learning rate
+	 * @param eps Added to the root of the second moment to avoid dividing by zero
+	 * @param t Number of this step, counting from 1, for the bias corrections
+	 * @param g Gradient
+	 * @param m First moment, the same size as g
+	 * @param v Second moment, the same size as g
+	 * @param w Parameters, the same size as g
+	 * @return w
+	 * @throws ArithmeticException
+	 */
+	public static Matrix adamUpdate(double scale, double beta1, double beta2, double lr, double eps, long t,
+			Matrix g, Matrix m, Matrix v, Matrix w) throws ArithmeticException
+	{
+		checkSameSize(g, m);
+		checkSameSize(g, v);
+		checkSameSize(g, w);
+		double c1 = 1 / (1 - Math.pow(beta1, t));
+		double c2 = 1 / (1 - Math.pow(beta2, t));
+		
+		int parts = partitions(g.getHeight(), (long)g.getHeight() * g.getWidth());
+		if (parts <= 1)
+		{
+			adamRows(scale, beta1, beta2, lr, c1, c2, eps, g, m, v, w, 0, g.getHeight());
+		}
+		else
+		{
+			parallel(g.getHeight(), parts, (from, to) -> adamRows(scale, beta1, beta2, lr, c1, c2, eps, g, m, v, w, from, to));
+		}
+		
+		return w;
+	}
+	
+	private static void adamRows(double scale, double beta1, double beta2, double lr, double c1, double c2, double eps,
+			Matrix g, Matrix m, Matrix v, Matrix w, int from, int to)
+	{
+		forEachRun(contiguous(g, m, v) && w.isContiguous(), g.getWidth(), from, to, isFloat(w)
+				? (i, n) -> KERNELS.adamUpdate((float)scale, (float)beta1, (float)beta2, (float)lr, (float)c1, (float)c2, (float)eps,
+						g.getFloatData(), start(g, i), m.getFloatData(), start(m, i), v.getFloatData(), start(v, i), w.getFloatData(), start(w, i), n)
+				: (i, n) -> KERNELS.adamUpdate(scale, beta1, beta2, lr, c1, c2, eps,
+						g.getData(), start(g, i), m.getData(), start(m, i), v.getData(), start(v, i), w.getData(), start(w, i), n));
+	}
+	
+	/**
+	 * Pairwise multiplies the two matrices together, if they are of the same dimension in the following form:
+	 * [[a, b]  .* [[e, f]  = [[a * e, b * f]
+	 *  [c, d]]     [g, h]]    [c * g, d * h]]
+	 * @param a
+	 * @param b
+	 * @return A matrix with the same dimensions as the input matrices, a .* b.
+	 * @throws ArithmeticException
+	 */
+	public static Matrix pairwiseMul(Matrix a, Matrix b) throws ArithmeticException
+	{
+		return pairwiseMul(a, b, new Matrix(a.getHeight(), a.getWidth(), a.getPrecision()));
+	}
+		
+	/**
+	 * Stores the pairwise product a .* b in out. out may be a or b.
+	 * @param a
+	 * @param b
+	 * @param out Matrix with the same dimensions as a and b.
+	 * @return out
+	 * @throws ArithmeticException
+	 */
+	public static Matrix pairwiseMul(Matrix a, Matrix b, Matrix out) throws ArithmeticException
+	{
+		// Check to ensure legal opoeration
+		checkSameSize(a, b);
+		checkSameSize(a, out);
+		
+		int parts = partitions(a.getHeight(), (long)a.getHeight() * a.getWidth());
+		if (parts <= 1)
+		{
+			pairwiseMulRows(a, b, out, 0, a.getHeight());
+		}
+		else
+		{
+			parallel(a.getHeight(), parts, (from, to) -> pairwiseMulRows(a, b, out, from, to));
+		}
+		
+		return out;
+	}
+	
+	private static void pairwiseMulRows(Matrix a, Matrix b, Matrix out, int from, int to)
+	{
+		forEachRun(contiguous(a, b, out), a.getWidth(), from, to, isFloat(out)
+				? (i, n) -> KERNELS.mul(a.getFloatData(), start(a, i), b.getFloatData(), start(b, i), out.getFloatData(), start(out, i), n)
+				: (i, n) -> KERNELS.mul(a.getData(), start(a, i), b.getData(), start(b, i), out.getData(), start(out, i), n));
+	}
+		
+	/**
+	 * Stores d .* a .* (1 - a) in out, the error term of a sigmoid layer given its output a,
+	 * without building the (1 - a) or ones matrices. out may be a or d.
+	 * @param a Output of the sigmoid.
+	 * @param d Error flowing back into the layer.
+	 * @param out Matrix with the same dimensions as a and d.
+	 * @return out
+	 * @throws ArithmeticException
+	 */
+	public static Matrix sigmoidPrimeMul(Matrix a, Matrix d, Matrix out) throws ArithmeticException
+	{
+		checkSameSize(a, d);
+		checkSameSize(a, out);
+		
+		int parts = partitions(a.getHeight(), (long)a.getHeight() * a.getWidth());
+		if (parts <= 1)
+		{
+			sigmoidPrimeMulRows(a, d, out, 0, a.getHeight());
+		}
+		else
+		{
+			parallel(a.getHeight(), parts, (from, to) -> sigmoidPrimeMulRows(a, d, out, from, to));
+		}
+		
+		return out;
+	}
+	
+	private static void sigmoidPrimeMulRows(Matrix a, Matrix d, Matrix out, int from, int to)
+	{
+		forEachRun(contiguous(a, d, out), a.getWidth(), from, to, isFloat(out)
+				? (i, n) -> KERNELS.sigmoidPrimeMul(a.getFloatData(), start(a, i), d.getFloatData(), start(d, i), out.getFloatData(), start(out, i), n)
+				: (i, n) -> KERNELS.sigmoidPrimeMul(a.getData(), start(a, i), d.getData(), start(d, i), out.getData(), start(out, i), n));
+	}
+	
+	/**
+	 * Stores d .* activation'(a) in out, the error term of a layer given its output a, with the derivative written
+	 * in terms of the output. FAST_SIGMOID uses the exact sigmoid's derivative. out may be a or d.
+	 * @param activation Any element-wise activation. SOFTMAX has no element-wise derivative; it is only used
+	 * on the output layer with the cross-entropy cost, whose error term is simply a - y.
+	 * @param a Output of the layer.
+	 * @param d Error flowing back into the layer.
+	 * @param out Matrix with the same dimensions as a and d.
+	 * @return out
+	 * @throws ArithmeticException
+	 */
+	public static Matrix activationPrimeMul(Activation activation, Matrix a, Matrix d, Matrix out) throws ArithmeticException
+	{
+		if (activation == Activation.SIGMOID || activation == Activation.FAST_SIGMOID)
+		{
+			return sigmoidPrimeMul(a, d, out);
+		}
+		if (activation == Activation.SOFTMAX)
+		{
+			throw new IllegalArgumentException("Softmax has no element-wise derivative");
+		}
+		checkSameSize(a, d);
+		checkSameSize(a, out);
+		
+		int parts = partitions(a.getHeight(), (long)a.getHeight() * a.getWidth());
+		if (parts <= 1)
+		{
+			activationPrimeMulRows(activation, a, d, out, 0, a.getHeight());
+		}
+		else
+		{
+			parallel(a.getHeight(), parts, (from, to) -> activationPrimeMulRows(activation, a, d, out, from, to));
+		}
+		
+		return out;
+	}
+	
+	private static void activationPrimeMulRows(Activation activation, Matrix a, Matrix d, Matrix out, int from, int to)
+	{
+		RunKernel kernel;
+		if (activation == Activation.TANH)
+		{
+			kernel = isFloat(out)
+					? (i, n) -> KERNELS.tanhPrimeMul(a.getFloatData(), start(a, i), d.getFloatData(), start(d, i), out.getFloatData(), start(out, i), n)
+					: (i, n) -> KERNELS.tanhPrimeMul(a.getData(), start(a, i), d.getData(), start(d, i), out.getData(), start(out, i), n);
+		}
+		else
+		{
+			double slope = activation == Activation.LEAKY_RELU ? Activation.LEAKY_SLOPE : 0;
+			kernel = isFloat(out)
+					? (i, n) -> KERNELS.reluPrimeMul((float)slope, a.getFloatData(), start(a, i), d.getFloatData(), start(d, i), out.getFloatData(), start(out, i), n)
+					: (i, n) -> KERNELS.reluPrimeMul(slope, a.getData(), start(a, i), d.getData(), start(d, i), out.getData(), start(out, i), n);
+		}
+		
+		forEachRun(contiguous(a, d, out), a.getWidth(), from, to, kernel);
+	}
+	
+	/**
+	 * @param a Softmax outputs, one sample per column
+	 * @param y One-hot targets of the same size
+	 * @return The summed cross-entropy cost, -sum y .* ln(a), with a kept above 1e-300 so that a zero cannot give infinity.
+	 * @throws ArithmeticException
+	 */
+	public static double crossEntropy(Matrix a, Matrix y) throws ArithmeticException
+	{
+		checkSameSize(a, y);
+		
+		double sum = 0;
+		for(int i = 0; i < a.getHeight(); i++)
+		{
+			for(int j = 0; j < a.getWidth(); j++)
+			{
+				double yij = y.getElement(i, j);
+				if (yij != 0)
+				{
+					sum -= yij * Math.log(Math.max(a.getElement(i, j), 1e-300));
+				}
+			}
+		}
+		
+		return sum;
+	}
+	
+	/**
+	 * Create a matrix of dimensions height x width such that every element is 1.
+	 * @param height
+	 * @param width
+	 * @return
+	 */
+	public static Matrix ones(int height, int width)
+	{
+		return ones(new Matrix(height, width));
+	}
+		
+	/**
+	 * Set every element of out to 1.
+	 * @param out
+	 * @return out
+	 */
+	public static Matrix ones(Matrix out)
+	{
+		out.fill(1);
+		
+		return out;
+	}
+	
+	/**
+	 * Returns the matrix transpose (Rows become columns) of the provided matrix in the following form:
+	 * [[a, b, c] T   =  [[a, d]
+	 *  [d, e, f]]		  [b, e]
+	 *  				  [c, f]]
+	 * @param a A n x m matrix
+	 * @return The transpose of a, m x n matrix
+	 */
+	public static Matrix transpose(Matrix a)
+	{
+		return transpose(a, new Matrix(a.getWidth(), a.getHeight(), a.getPrecision()));
+	}
+		
+	/**
+	 * Stores the transpose of a in out.
+	 * @param a A n x m matrix
+	 * @param out A m x n matrix, which must not share storage with a.
+	 * @return out
+	 * @throws ArithmeticException
+	 */
+	public static Matrix transpose(Matrix a, Matrix out) throws ArithmeticException
+	{
+		checkSize(out, a.getWidth(), a.getHeight());
+		checkNoOverlap(out, a);
+		
+		// Split on tile boundaries of a's rows, which are columns of out, so parts never write the same tile.
+		int tiles = (a.getHeight() + TRANSPOSE_TILE - 1) / TRANSPOSE_TILE;
+		int parts = partitions(tiles, (long)a.getHeight() * a.getWidth());
+		if (parts <= 1)
+		{
+			transposeRows(a, out, 0, a.getHeight());
+		}
+		else
+		{
+			parallel(tiles, parts, (from, to) -> transposeRows(a, out, from * TRANSPOSE_TILE, Math.min(to * TRANSPOSE_TILE, a.getHeight())));
+		}
+		
+		return out;
+	}
+	
+	private static void transposeRows(Matrix a, Matrix out, int from, int to)
+	{
+		double[] ad = a.getData(), od = out.getData();
+		float[] af = a.getFloatData(), of = out.getFloatData();
+		int as = a.getStride(), os = out.getStride();
+		
+		// Walk in small square tiles so that neither the reads nor the writes stride through memory for long.
+		for(int i0 = from; i0 < to; i0 += TRANSPOSE_TILE)
+		{
+			int iEnd = Math.min(i0 + TRANSPOSE_TILE, to);
+			for(int j0 = 0; j0 < a.getWidth(); j0 += TRANSPOSE_TILE)
+			{
+				int jEnd = Math.min(j0 + TRANSPOSE_TILE, a.getWidth());
+				for(int i = i0; i < iEnd; i++)
+				{
+					int ai = a.getOffset() + i * as;
+					if (of != null)
+					{
+						for(int j = j0; j < jEnd; j++)
+						{
+							of[out.getOffset() + j * os + i] = af[ai + j];
+						}
+						continue;
+					}
+					for(int j = j0; j < jEnd; j++)
+					{
+						od[out.getOffset() + j * os + i] = ad[ai + j];
+					}
+				}
+			}
+		}
+	}
+		
+	/**
+	 * Stores the sum of each row of a in out, reducing a batch of column vectors to one column.
+	 * @param a An m x n matrix
+	 * @param out An m x 1 column
+	 * @return out
+	 * @throws ArithmeticException
+	 */
+	public static Matrix rowSums(Matrix a, Matrix out) throws ArithmeticException
+	{
+		checkSize(out, a.getHeight(), 1);
+		checkSamePrecision(a, out);
+		
+		int parts = partitions(a.getHeight(), (long)a.getHeight() * a.getWidth());
+		if (parts <= 1)
+		{
+			rowSumsRows(a, out, 0, a.getHeight());
+		}
+		else
+		{
+			parallel(a.getHeight(), parts, (from, to) -> rowSumsRows(a, out, from, to));
+		}
+		
+		return out;
+	}
+	
+	private static void rowSumsRows(Matrix a, Matrix out, int from, int to)
+	{
+		for(int i = from; i < to; i++)
+		{
+			if (isFloat(out))
+			{
+				out.getFloatData()[start(out, i)] = KERNELS.sum(a.getFloatData(), start(a, i), a.getWidth());
+			}
+			else
+			{
+				out.getData()[start(out, i)] = KERNELS.sum(a.getData(), start(a, i), a.getWidth());
+			}
+		}
+	}
+	
+	/**
+	 * @param a
+	 * @return The sum of the squares of the elements of a.
+	 */
+	public static double sumOfSquares(Matrix a)
+	{
+		double sum = 0;
+		for(int i = 0; i < a.getHeight(); i++)
+		{
+			if (isFloat(a))
+			{
+				sum += KERNELS.dot(a.getFloatData(), start(a, i), a.getFloatData(), start(a, i), a.getWidth());
+			}
+			else
+			{
+				sum += KERNELS.dot(a.getData(), start(a, i), a.getData(), start(a, i), a.getWidth());
+			}
+		}
+		
+		return sum;
+	}
+	
+	/**
+	 * Copies column srcCol of src into column dstCol of dst, for example to pack
+	 * single input vectors into the columns of a batch matrix. Unlike the other operations,
+	 * src and dst may differ in precision, and the values are converted.
+	 * @param src
+	 * @param srcCol
+	 * @param dst Matrix with the same height as src.
+	 * @param dstCol
+	 * @throws ArithmeticException
+	 */
+	public static void copyColumn(Matrix src, int srcCol, Matrix dst, int dstCol) throws ArithmeticException
+	{
+		if (src.getHeight() != dst.getHeight())
+		{
+			throw new ArithmeticException("Invalid matrix sizes: [" + src.getHeight() + ", " + src.getWidth() + "], [" + dst.getHeight() + ", " + dst.getWidth() + "]");
+		}
+		if (srcCol < 0 || srcCol >= src.getWidth() || dstCol < 0 || dstCol >= dst.getWidth())
+		{
+			throw new IndexOutOfBoundsException("Invalid columns: " + srcCol + " of " + src.getWidth() + ", " + dstCol + " of " + dst.getWidth());
+		}
+		
+		double[] sd = src.getData(), dd = dst.getData();
+		int si = src.getOffset() + srcCol, ss = src.getStride();
+		int di = dst.getOffset() + dstCol, ds = dst.getStride();
+		
+		if (isFloat(src) && isFloat(dst))
+		{
+			float[] sf = src.getFloatData(), df = dst.getFloatData();
+			for(int i = 0; i < src.getHeight(); i++, si += ss, di += ds)
+			{
+				df[di] = sf[si];
+			}
+			return;
+		}
+		if (sd == null || dd == null)
+		{
+			for(int i = 0; i < src.getHeight(); i++)
+			{
+				dst.setElement(i, dstCol, src.getElement(i, srcCol));
+			}
+			return;
+		}
+		
+		for(int i = 0; i < src.getHeight(); i++, si += ss, di += ds)
+		{
+			dd[di] = sd[si];
+		}
+	}
+	
+	/**
+	 * Returns the index of the maximum element of a as if it were a flattened matrix.
+	 * Ex:
+	 * a = [[1, 2]
+	 * 		[4, 3]]
+	 * flatten(a) = [[1, 2, 4, 3]]
+	 * maxElement(a) = 2
+	 *
+	 * a = [[1, 2]
+	 * 		[5, 3]
+	 * 		[1, 4]]
+	 * flatten(a) = [[1, 2, 4, 3, 5, 4]]
+	 * maxElement(a) = 4
+	 *
+	 * @param a
+	 * @return The index of the maximum element of a.
+	 */
+	public static int maxElement(Matrix a)
+	{
+		int max = 0;
+		
+		for(int i = 0; i < a.getHeight() * a.getWidth(); i++)
+		{
+			if(a.getElement(max / a.getWidth(), max % a.getWidth()) < a.getElement(i / a.getWidth(), i % a.getWidth()))
+			{
+				max = i;
+			}
+		}
+		
+		return max;
+	}
+	
+	/**
+	 * Finds the row of the largest element in one column, which for a batch of network outputs is
+	 * the predicted class of that sample.
+	 * @param a
+	 * @param col
+	 * @return The row of the largest element in column col of a, the first one if there are several.
+	 */
+	public static int maxRow(Matrix a, int col)
+	{
+		int max = 0;
+		for(int i = 1; i < a.getHeight(); i++)
+		{
+			if(a.getElement(max, col) < a.getElement(i, col))
+			{
+				max = i;
+			}
+		}
+		return max;
+	}
+	
+	/**
+	 * Applies the sigmoid function to every element of x, in place.
+	 * @param x
+	 * @return x
+	 */
+	public static Matrix applySigmoid(Matrix x)
+	{
+		for(int i = 0; i < x.getHeight(); i++)
+		{
+			if (isFloat(x))
+			{
+				KERNELS.biasSigmoid(0f, x.getFloatData(), start(x, i), x.getWidth());
+			}
+			else
+			{
+				KERNELS.biasSigmoid(0, x.getData(), start(x, i), x.getWidth());
+			}
+		}
+
+		return x;
+	}
+	
+	/**
+	 * @return The name of the inner loop implementation in use, "scalar" or a vector description.
+	 */
+	public static String getKernelName()
+	{
+		return KERNELS.name();
+	}
+	
+	/**
+	 * Set how operations choose between serial and multi-threaded execution.
+	 * @param policy
+	 */
+	public static void setExecutionPolicy(ExecutionPolicy policy)
+	{
+		executionPolicy = policy;
+	}
+	
+	public static ExecutionPolicy getExecutionPolicy()
+	{
+		return executionPolicy;
+	}
+	
+	/**
+	 * Set the size under which operations run serially with ExecutionPolicy.AUTO.
+	 * @param threshold Number of scalar operations: height * width for element-wise operations,
+	 * and m * n * k for matrix products.
+	 */
+	public static void setParallelThreshold(long threshold)
+	{
+		parallelThreshold = threshold;
+	}
+	
+	public static long getParallelThreshold()
+	{
+		return parallelThreshold;
+	}
+	
+	/**
+	 * Set the fork-join pool that parallel operations run on. Defaults to the common pool.
+	 * @param forkJoinPool
+	 */
+	public static void setPool(ForkJoinPool forkJoinPool)
+	{
+		pool = forkJoinPool;
+	}
+	
+	/**
+	 * Decide how many parts to split an operation into.
+	 * @param rows Number of independent rows the operation can be split on
+	 * @param work Number of scalar operations it performs
+	 * @return 1 to run serially, otherwise the number of parts
+	 */
+	private static int partitions(int rows, long work)
+	{
+		ExecutionPolicy policy = executionPolicy;
+		
+		if (policy == ExecutionPolicy.SERIAL || (policy == ExecutionPolicy.AUTO && work < parallelThreshold))
+		{
+			return 1;
+		}
+		
+		return Math.min(rows, pool.getParallelism());
+	}
+	
+	/**
+	 * Run kernel over [0, rows) split into about parts contiguous ranges on the pool, and wait for all of them.
+	 */
+	private static void parallel(int rows, int parts, RowKernel kernel)
+	{
+		pool.invoke(new RowTask(kernel, 0, rows, (rows + parts - 1) / parts));
+	}
+	
+	/**
+	 * Splits a range of rows in half until it is no bigger than grain.
+	 */
+	private static class RowTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		
+		private final transient RowKernel kernel;
+		private final int from;
+		private final int to;
+		private final int grain;
+		
+		RowTask(RowKernel kernel, int from, int to, int grain)
+		{
+			this.kernel = kernel;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+		}
+		
+		@Override
+		protected void compute()
+		{
+			if (to - from <= grain)
+			{
+				kernel.run(from, to);
+				return;
+			}
+			
+			int mid = (from + to) >>> 1;
+			invokeAll(new RowTask(kernel, from, mid, grain), new RowTask(kernel, mid, to, grain));
+		}
+	}
+	
+	/**
+	 * Runs kernel over rows [from, to) of operands that are width elements wide. When every operand is contiguous,
+	 * the rows are walked as a single run of (to - from) * width elements starting at row from, otherwise one run per row.
+	 * A single run matters for column vectors, whose rows hold a single element each. Callers pick the float or double
+	 * kernel once, before the walk.
+	 * @param contiguous True if every operand is contiguous, see contiguous(a, b, c).
+	 */
+	private static void forEachRun(boolean contiguous, int width, int from, int to, RunKernel kernel)
+	{
+		if (contiguous)
+		{
+			kernel.run(from, (to - from) * width);
+			return;
+		}
+		
+		for(int i = from; i < to; i++)
+		{
+			kernel.run(i, width);
+		}
+	}
+	
+	/**
+	 * @return True if all three matrices are contiguous, so the same rows of each can be walked as one run.
+	 */
+	private static boolean contiguous(Matrix a, Matrix b, Matrix c)
+	{
+		return a.isContiguous() && b.isContiguous() && c.isContiguous();
+	}
+	
+	private static boolean isFloat(Matrix m)
+	{
+		return m.getPrecision() == Precision.FLOAT;
+	}
+	
+	/**
+	 * @return Index in m's backing buffer of the start of row.
+	 */
+	private static int start(Matrix m, int row)
+	{
+		return m.getOffset() + row * m.getStride();
+	}
+	
+	/**
+	 * Throws if a and b are not the same dimensions.
+	 * @throws ArithmeticException
+	 */
+	private static void checkSameSize(Matrix a, Matrix b) throws ArithmeticException
+	{
+		if (a.getWidth() != b.getWidth() || a.getHeight() != b.getHeight())
+		{
+			throw new ArithmeticException("Invalid matrix sizes: [" + a.getHeight() + ", " + a.getWidth() + "], [" + b.getHeight() + ", " + b.getWidth() + "]");
+		}
+		checkSamePrecision(a, b);
+	}
+	
+	/**
+	 * Throws if a and b do not have the same precision.
+	 */
+	private static void checkSamePrecision(Matrix a, Matrix b)
+	{
+		if (a.getPrecision() != b.getPrecision())
+		{
+			throw new IllegalArgumentException("Mixed precision operands: " + a.getPrecision() + ", " + b.getPrecision());
+		}
+	}
+	
+	/**
+	 * Throws if out is not height x width.
+	 * @throws ArithmeticException
+	 */
+	private static void checkSize(Matrix out, int height, int width) throws ArithmeticException
+	{
+		if (out.getHeight() != height || out.getWidth() != width)
+		{
+			throw new ArithmeticException("Invalid output size: [" + out.getHeight() + ", " + out.getWidth() + "], expected [" + height + ", " + width + "]");
+		}
+	}
+	
+	/**
+	 * Throws if out shares its backing buffer with in, for operations that read in after writing out.
+	 */
+	private static void checkNoOverlap(Matrix out, Matrix in)
+	{
+		checkSamePrecision(out, in);
+		if (out.sharesStorage(in))
+		{
+			throw new IllegalArgumentException("Output matrix must not share storage with an input");
+		}
+	}
+
 }
@@ -0,0 +1,294 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Coalesces concurrent prediction requests into batched forward passes of an InferenceEngine.
+ * Callers submit single inputs from any thread; one batching thread collects them and runs them as the columns
+ * of one batch, which costs little more than a single input since the weights are read once for the whole batch.
+ *
+ * A batch is started as soon as it is full (maxBatch) or its oldest request has waited the latency budget. The
+ * batcher is adaptive: when requests arrive one at a time, waiting for company only adds latency, so a request
+ * that finds the queue empty right after a batch of one is run immediately. Batching only starts to wait once
+ * requests overlap.
+ *
+ * The engine can come from a supplier, such as a ModelRegistry, which is asked for it at the start of every batch:
+ * a newly published model takes over from the next batch, and no request is dropped or sees a mix of two models.
+ *
+ * Throughput, the time requests spend queued and percentiles of their total latency are recorded; see getStats.
+**/
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+public class MicroBatcher implements Closeable {
+	// Number of most recent latencies kept for the percentiles
+	private static final int LATENCY_WINDOW = 1 << 16;
+	
+	private final Supplier<InferenceEngine> engines;
+	private final int numInputs;
+	private final int maxBatch;
+	private final long budgetNanos;
+	
+	private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+	private final Thread worker;
+	private volatile boolean closed;
+	
+	// Reused by the batching thread only
+	private final Matrix inputs;
+	private final Matrix outputs;
+	private final List<Request> batch = new ArrayList<>();
+	
+	// Guarded by this
+	private final long startNanos = System.nanoTime();
+	private long requests;
+	private long batches;
+	private long queueNanos;
+	private final long[] latencies = new long[LATENCY_WINDOW];
+	
+	/**
+	 * Starts the batching thread.
+	 * @param engine Engine to predict with.
+	 * @param maxBatch Largest number of requests run together.
+	 * @param budgetMicros Longest a request waits for others to join its batch, in microseconds.
+	 */
+	public MicroBatcher(InferenceEngine engine, int maxBatch, long budgetMicros)
+	{
+		this(() -> engine, maxBatch, budgetMicros);
+	}
+	
+	/**
+	 * Starts the batching thread.
+	 * @param engines Gives the engine to predict each batch with. Every engine must have the same numbers of inputs and classes.
+	 * @param maxBatch Largest number of requests run together.
+	 * @param budgetMicros Longest a request waits for others to join its batch, in microseconds.
+	 */
+	public MicroBatcher(Supplier<InferenceEngine> engines, int maxBatch, long budgetMicros)
+	{
+		if (maxBatch < 1 || budgetMicros < 0)
+		{
+			throw new IllegalArgumentException("Batch size must be positive and the latency budget not negative");
+		}
+		
+		InferenceEngine engine = engines.get();
+		this.engines = engines;
+		this.numInputs = engine.getNumInputs();
+		this.maxBatch = maxBatch;
+		this.budgetNanos = TimeUnit.MICROSECONDS.toNanos(budgetMicros);
+		// Inputs arrive as floats; outputs are kept in double so the class is taken before any rounding
+		this.inputs = new Matrix(numInputs, maxBatch, Precision.FLOAT);
+		this.outputs = new Matrix(engine.getNumClasses(), maxBatch, Precision.DOUBLE);
+		
+		worker = new Thread(this::run, "micro-batcher");
+		worker.setDaemon(true);
+		worker.start();
+	}
+	
+	/**
+	 * Queues one input for prediction.
+	 * @param input Input vector, getNumInputs() of the engine long.
+	 * @return Completes with the prediction, or exceptionally if the input is invalid or the batcher is closed.
+	 */
+	public CompletableFuture<Prediction> submit(float[] input)
+	{
+		Request request = new Request(input);
+		if (input.length != numInputs)
+		{
+			request.result.completeExceptionally(new IllegalArgumentException("Input has " + input.length
+					+ " elements, expected " + numInputs));
+		}
+		else if (closed)
+		{
+			request.result.completeExceptionally(new IllegalStateException("Batcher is closed"));
+		}
+		else
+		{
+			queue.add(request);
+			// If close drained the queue after the check above, nothing else will complete the request
+			if (closed && queue.remove(request))
+			{
+				request.result.completeExceptionally(new IllegalStateException("Batcher is closed"));
+			}
+		}
+		return request.result;
+	}
+	
+	/**
+	 * @return Throughput, average batch size, average queue time and latency percentiles, in one line.
+	 */
+	public synchronized String getStats()
+	{
+		int window = (int)Math.min(requests, LATENCY_WINDOW);
+		long[] sorted = Arrays.copyOf(latencies, window);
+		Arrays.sort(sorted);
+		
+		double seconds = (System.nanoTime() - startNanos) / 1e9;
+		return String.format("requests %d, %.0f/s, batches %d, average batch %.2f, average queue %.1fus, p50 %.1fus, p99 %.1fus, max %.1fus",
+				requests, requests / seconds, batches, batches == 0 ? 0 : (double)requests / batches,
+				requests == 0 ? 0 : queueNanos / 1e3 / requests,
+				percentile(sorted, 0.5) / 1e3, percentile(sorted, 0.99) / 1e3, percentile(sorted, 1) / 1e3);
+	}
+	
+	/**
+	 * Stops the batching thread. Requests still queued fail.
+	 */
+	@Override
+	public void close()
+	{
+		closed = true;
+		worker.interrupt();
+		for(Request request; (request = queue.poll()) != null; )
+		{
+			request.result.completeExceptionally(new IllegalStateException("Batcher is closed"));
+		}
+	}
+	
+	/**
+	 * Body of the batching thread.
+	 */
+	private void run()
+	{
+		int lastBatch = 0;
+		try {
+			while(!closed)
+			{
+				Request first = queue.take();
+				batch.add(first);
+				queue.drainTo(batch, maxBatch - 1);
+				
+				// Wait for more only if requests are overlapping
+				if (batch.size() > 1 || lastBatch > 1)
+				{
+					long deadline = first.enqueued + budgetNanos;
+					for(long wait = deadline - System.nanoTime(); batch.size() < maxBatch && wait > 0; wait = deadline - System.nanoTime())
+					{
+						Request next = queue.poll(wait, TimeUnit.NANOSECONDS);
+						if (next == null)
+						{
+							break;
+						}
+						batch.add(next);
+						queue.drainTo(batch, maxBatch - batch.size());
+					}
+				}
+				
+				lastBatch = batch.size();
+				runBatch();
+				batch.clear();
+			}
+		} catch (InterruptedException e) {
+			// Closed
+		}
+		
+		for(Request request : batch)
+		{
+			request.result.completeExceptionally(new IllegalStateException("Batcher is closed"));
+		}
+	}
+	
+	/**
+	 * Packs the current batch into the input buffer, predicts, and completes every request with its output column.
+	 */
+	private void runBatch()
+	{
+		long started = System.nanoTime();
+		int width = batch.size();
+		Matrix x = inputs.columns(0, width);
+		Matrix y = outputs.columns(0, width);
+		
+		try {
+			float[] xd = x.getFloatData();
+			for(int j = 0; j < width; j++)
+			{
+				float[] input = batch.get(j).input;
+				for(int i = 0, k = x.getOffset() + j; i < input.length; i++, k += x.getStride())
+				{
+					xd[k] = input[i];
+				}
+			}
+			engines.get().predictBatch(x, y);
+		} catch (RuntimeException e) {
+			for(Request request : batch)
+			{
+				request.result.completeExceptionally(e);
+			}
+			return;
+		}
+		
+		long finished = System.nanoTime();
+		synchronized(this) {
+			batches++;
+			for(Request request : batch)
+			{
+				queueNanos += started - request.enqueued;
+				latencies[(int)(requests++ % LATENCY_WINDOW)] = finished - request.enqueued;
+			}
+		}
+		
+		for(int j = 0; j < width; j++)
+		{
+			float[] scores = new float[y.getHeight()];
+			for(int i = 0; i < scores.length; i++)
+			{
+				scores[i] = (float)y.getElement(i, j);
+			}
+			// The class comes from the unrounded outputs, which may differ by less than a float can show
+			batch.get(j).result.complete(new Prediction(MatrixUtil.maxRow(y, j), scores));
+		}
+	}
+	
+	private static long percentile(long[] sorted, double p)
+	{
+		if (sorted.length == 0)
+		{
+			return 0;
+		}
+		int index = (int)Math.ceil(p * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+	}
+	
+	/**
+	 * The result of one request.
+	 */
+	public static final class Prediction {
+		private final int label;
+		private final float[] scores;
+		
+		Prediction(int label, float[] scores)
+		{
+			this.label = label;
+			this.scores = scores;
+		}
+		
+		/**
+		 * @return The predicted class, the index of the largest output.
+		 */
+		public int getLabel()
+		{
+			return label;
+		}
+		
+		/**
+		 * @return The network's output, rounded to floats.
+		 */
+		public float[] getScores()
+		{
+			return scores;
+		}
+	}
+	
+	private static final class Request {
+		final float[] input;
+		final long enqueued = System.nanoTime();
+		final CompletableFuture<Prediction> result = new CompletableFuture<>();
+		
+		Request(float[] input)
+		{
+			this.input = input;
+		}
+	}
+}
@@ -0,0 +1,255 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Holds the served versions of any number of named models and swaps them without stopping anyone using them.
+ * Every version is an immutable ModelVersion, and the current one of each name sits in an AtomicReference: readers
+ * simply get() it, with no locking, and keep using the version they got for as long as they need, while a new one
+ * is published with a single set(). A reader therefore sees either the old model or the new one, never a mix.
+ *
+ * New versions are loaded and warmed up on a background thread, so that the JIT has compiled the forward pass
+ * before the first real request reaches it, and only then published. The last HISTORY versions of each name are
+ * kept so that a bad model can be rolled back at once.
+**/
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ModelRegistry implements Closeable {
+	// Number of previous versions of each model kept for rollback
+	private static final int HISTORY = 3;
+	// Single inputs and full batches run through a new engine before it is published, stopping early for
+	// large networks once WARM_UP_MILLIS have gone by, by when their long inner loops are compiled anyway
+	private static final int WARM_UP_SINGLES = 2000;
+	private static final int WARM_UP_BATCHES = 20;
+	private static final int WARM_UP_BATCH_SIZE = 64;
+	private static final long WARM_UP_MILLIS = 1000;
+	
+	private final ConcurrentHashMap<String, Slot> models = new ConcurrentHashMap<>();
+	private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "model-loader");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	/**
+	 * The versions of one model name.
+	 */
+	private static final class Slot {
+		final AtomicReference<ModelVersion> current = new AtomicReference<>();
+		// Guarded by this slot
+		final Deque<ModelVersion> previous = new ArrayDeque<>();
+		long lastVersion;
+	}
+	
+	/**
+	 * @param name
+	 * @return The current version of the model, or null if there is none.
+	 */
+	public ModelVersion get(String name)
+	{
+		Slot slot = models.get(name);
+		return slot == null ? null : slot.current.get();
+	}
+	
+	/**
+	 * @param name
+	 * @return The current engine of the model.
+	 * @throws IllegalArgumentException If there is no such model.
+	 */
+	public InferenceEngine getEngine(String name)
+	{
+		ModelVersion version = get(name);
+		if (version == null)
+		{
+			throw new IllegalArgumentException("No model named " + name);
+		}
+		return version.getEngine();
+	}
+	
+	/**
+	 * @return The names of every model with a current version.
+	 */
+	public List<String> getNames()
+	{
+		List<String> names = new ArrayList<>();
+		models.forEach((name, slot) -> {
+			if (slot.current.get() != null)
+			{
+				names.add(name);
+			}
+		});
+		names.sort(null);
+		return names;
+	}
+	
+	/**
+	 * Loads a saved network in the background, warms it up and publishes it as the new version of name.
+	 * Only the binary model format is read (see IOManager.loadModel), never Java serialization, so a file
+	 * of any other kind is rejected rather than deserialized.
+	 * @param name
+	 * @param filename A network in the binary model format.
+	 * @return Completes with the published version, or exceptionally if loading or publishing failed,
+	 * in which case the current version is untouched.
+	 */
+	public CompletableFuture<ModelVersion> loadAsync(String name, String filename)
+	{
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return publish(name, new IOManager().loadModel(filename), filename);
+			} catch (Exception e) {
+				throw new IllegalStateException("Could not load " + filename + ": " + e.getMessage(), e);
+			}
+		}, loader);
+	}
+	
+	/**
+	 * Builds an engine from a network, warms it up, and publishes it as the new version of name, on the calling thread.
+	 * The network can be trained further afterwards without affecting the published version.
+	 * @param name
+	 * @param net
+	 * @param source Where the network came from, for display.
+	 * @return The published version.
+	 * @throws IllegalArgumentException If the model already exists with a different number of inputs or classes,
+	 * which would break its callers.
+	 */
+	public ModelVersion publish(String name, NeuralNet net, String source)
+	{
+		return publish(name, new InferenceEngine(net), source);
+	}
+	
+	/**
+	 * Warms up an engine and publishes it as the new version of name, on the calling thread.
+	 * @param name
+	 * @param engine
+	 * @param source Where the network came from, for display.
+	 * @return The published version.
+	 * @throws IllegalArgumentException If the model already exists with a different number of inputs or classes.
+	 */
+	public ModelVersion publish(String name, InferenceEngine engine, String source)
+	{
+		long warmUpNanos = warmUp(engine);
+		Slot slot = models.computeIfAbsent(name, key -> new Slot());
+		
+		synchronized(slot) {
+			ModelVersion old = slot.current.get();
+			if (old != null && (old.getEngine().getNumInputs() != engine.getNumInputs()
+					|| old.getEngine().getNumClasses() != engine.getNumClasses()))
+			{
+				throw new IllegalArgumentException("Model " + name + " takes " + old.getEngine().getNumInputs() + " inputs to "
+						+ old.getEngine().getNumClasses() + " classes, the new network " + engine.getNumInputs() + " to " + engine.getNumClasses());
+			}
+			
+			ModelVersion version = new ModelVersion(name, ++slot.lastVersion, source, engine, warmUpNanos);
+			if (old != null)
+			{
+				slot.previous.push(old);
+				while(slot.previous.size() > HISTORY)
+				{
+					slot.previous.removeLast();
+				}
+			}
+			slot.current.set(version);
+			return version;
+		}
+	}
+	
+	/**
+	 * Goes back to the version that was current before the current one.
+	 * @param name
+	 * @return The version now current.
+	 * @throws IllegalStateException If there is no earlier version left.
+	 */
+	public ModelVersion rollback(String name)
+	{
+		Slot slot = models.get(name);
+		if (slot == null)
+		{
+			throw new IllegalArgumentException("No model named " + name);
+		}
+		
+		synchronized(slot) {
+			ModelVersion previous = slot.previous.poll();
+			if (previous == null)
+			{
+				throw new IllegalStateException("Model " + name + " has no earlier version to roll back to");
+			}
+			slot.current.set(previous);
+			return previous;
+		}
+	}
+	
+	/**
+	 * @param name
+	 * @return The versions of name kept for rollback, most recent first.
+	 */
+	public List<ModelVersion> getHistory(String name)
+	{
+		Slot slot = models.get(name);
+		if (slot == null)
+		{
+			return new ArrayList<>();
+		}
+		synchronized(slot) {
+			return new ArrayList<>(slot.previous);
+		}
+	}
+	
+	/**
+	 * Stops serving a model. Callers already holding one of its versions can finish with it.
+	 * @param name
+	 */
+	public void remove(String name)
+	{
+		models.remove(name);
+	}
+	
+	/**
+	 * Stops the background loader.
+	 */
+	@Override
+	public void close()
+	{
+		loader.shutdownNow();
+	}
+	
+	/**
+	 * Runs random inputs through every entry point a server uses, so that they are compiled before real traffic.
+	 * @return How long it took, in nanoseconds.
+	 */
+	private static long warmUp(InferenceEngine engine)
+	{
+		long start = System.nanoTime();
+		long deadline = start + WARM_UP_MILLIS * 1000000;
+		Random random = new Random(0);
+		float[] input = new float[engine.getNumInputs()];
+		float[] output = new float[engine.getNumClasses()];
+		for(int i = 0; i < input.length; i++)
+		{
+			input[i] = random.nextFloat();
+		}
+		
+		for(int i = 0; i < WARM_UP_SINGLES && System.nanoTime() < deadline; i++)
+		{
+			engine.classify(input);
+			engine.predict(input, output);
+		}
+		
+		Matrix batch = new Matrix(engine.getNumInputs(), WARM_UP_BATCH_SIZE, engine.getPrecision());
+		batch.populateRandom(random);
+		Matrix out = new Matrix(engine.getNumClasses(), WARM_UP_BATCH_SIZE, engine.getPrecision());
+		// At least one batch, so the batched path is never published cold
+		for(int i = 0; i < WARM_UP_BATCHES && (i == 0 || System.nanoTime() < deadline); i++)
+		{
+			engine.predictBatch(batch, out);
+		}
+		return System.nanoTime() - start;
+	}
+}
@@ -0,0 +1,73 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: One immutable, published version of a named model in a ModelRegistry: the InferenceEngine that serves it,
+ * which holds its own copy of the weights, and where and when it came from.
+**/
+
+public final class ModelVersion {
+	private final String name;
+	private final long version;
+	private final String source;
+	private final InferenceEngine engine;
+	private final long publishedMillis;
+	private final long warmUpNanos;
+	
+	ModelVersion(String name, long version, String source, InferenceEngine engine, long warmUpNanos)
+	{
+		this.name = name;
+		this.version = version;
+		this.source = source;
+		this.engine = engine;
+		this.publishedMillis = System.currentTimeMillis();
+		this.warmUpNanos = warmUpNanos;
+	}
+	
+	public String getName()
+	{
+		return name;
+	}
+	
+	/**
+	 * @return Version number, counting up from 1 for each model name.
+	 */
+	public long getVersion()
+	{
+		return version;
+	}
+	
+	/**
+	 * @return The file the network was loaded from, or a description of where it came from.
+	 */
+	public String getSource()
+	{
+		return source;
+	}
+	
+	public InferenceEngine getEngine()
+	{
+		return engine;
+	}
+	
+	/**
+	 * @return When the version was built, in milliseconds since the epoch.
+	 */
+	public long getPublishedMillis()
+	{
+		return publishedMillis;
+	}
+	
+	/**
+	 * @return How long warming it up took, in nanoseconds.
+	 */
+	public long getWarmUpNanos()
+	{
+		return warmUpNanos;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format("%s v%d from %s (%d inputs, %d classes, %s, warmed up in %.1f ms)", name, version, source,
+				engine.getNumInputs(), engine.getNumClasses(), engine.getPrecision(), warmUpNanos / 1e6);
+	}
+}
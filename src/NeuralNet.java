@@ -2,14 +2,21 @@
  * Author: Andrew Bradberry
  * Date Written: 10/7/2018
  * Description: A basic multi-layer neural network using the sigmoid activation function,
- * that has variable size.
+ * or another chosen per layer (see Activation), that has variable size. It trains and predicts in double or single precision, see Precision.
 **/
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import jdk.jfr.EventType;
 
 public class NeuralNet implements Serializable{
 	private static final long serialVersionUID = 1L;
@@ -24,15 +31,62 @@ public class NeuralNet implements Serializable{
 	private int batchSize = 10;
 	private int numEpochs = 30;
 	
+	// Number of threads a mini-batch is split across. Networks saved before this existed read it as 0, meaning 1.
+	private int numThreads = 1;
+	// Shuffle with the seeded Random so that training runs can be reproduced
+	private boolean deterministic = false;
+	// Number of batches loaded ahead by background threads during training, and how many threads load them. 0 loads inline.
+	private int prefetchDepth = 0;
+	private int prefetchThreads = 1;
+	// Precision of the weights, biases and every buffer. Networks saved before this existed read it as null, meaning DOUBLE.
+	private Precision precision = Precision.DOUBLE;
+	// Number of training samples evaluated after each epoch of train. Networks saved before this existed read it as 0, meaning EVAL_SAMPLES.
+	private int evaluationSamples = EVAL_SAMPLES;
+	// Fraction of the training data held out by train for validation instead of being trained on
+	private double validationSplit = 0;
+	// Stop criteria of train. Networks saved before these existed read them as 0, false and null: no early stopping, time budget
+	// or target accuracy, monitoring the loss, keeping the last weights.
+	private int patience = 0;
+	private double minDelta = 0;
+	private EvaluationResult.Metric monitor;
+	private long timeBudgetMillis = 0;
+	private double targetAccuracy = 0;
+	private boolean restoreBestWeights = false;
+	// How train varies the learning rate. Networks saved before this existed read it as null, meaning constant.
+	private LearningRateSchedule schedule;
+	
 	private Random random;
 	// For control over randomness
 	private static final long RANDOM_SEED = 1111;
+	// Default number of training samples evaluated after each epoch
+	private static final int EVAL_SAMPLES = 10000;
+	// Number of consecutive samples shuffled together by partialFit(Dataset)
+	private static final int SHUFFLE_CHUNK = 65536;
+	// Whether a flight recording has the per-step event on, checked every step since recordings come and go
+	private static final EventType BATCH_EVENT = EventType.getEventType(TrainingBatchEvent.class);
+	
+	// Activation of each layer. Networks saved before this existed read it as null, meaning SIGMOID throughout.
+	private Activation[] activations;
+	// Turns gradients into weight updates, with its state. Networks saved before this existed read it as null, meaning SGD.
+	private Optimizer optimizer;
 	
 	// In form Layer, to, from
 	private Matrix[] weights;
 	// Vector in form Layer, node
 	private Matrix[] biases;
 	
+	// Reusable buffers for training, created on first use
+	private transient Workspace workspace;
+	// One workspace per chunk, and the threads that run them, for multi-threaded training
+	private transient Workspace[] workerSpaces;
+	private transient ExecutorService pool;
+	// Phase timers, counters and listeners, created on first use
+	private transient TrainingTelemetry telemetry;
+	// Reused by every step, see Batch
+	private transient Batch batch;
+	// Saves checkpoints during training, or null for none
+	private transient Checkpointer checkpointer;
+	
 	/**
 	 * Constructs a random, untrained neural network.
 	 * @param numInputs Number of input neurons. This is the number of traits of the data.
@@ -41,11 +95,26 @@ public class NeuralNet implements Serializable{
 	 * @param nodesInHL The size of each layer in the hidden layers.
 	 */
 	public NeuralNet(int numInputs, int numClasses, int numLayers, int nodesInHL)
+	{
+		this(numInputs, numClasses, numLayers, nodesInHL, Precision.DOUBLE);
+	}
+	
+	/**
+	 * Constructs a random, untrained neural network of the given precision. The initial weights are the
+	 * same as those of a double precision network built with the same sizes, rounded to the precision.
+	 * @param numInputs Number of input neurons. This is the number of traits of the data.
+	 * @param numClasses Number of output neurons. The number of classifications in the data.
+	 * @param numLayers The number of layers of the network. DOES NOT INCLUDE INPUT LAYER.
+	 * @param nodesInHL The size of each layer in the hidden layers.
+	 * @param precision Precision to store the weights and train in.
+	 */
+	public NeuralNet(int numInputs, int numClasses, int numLayers, int nodesInHL, Precision precision)
 	{
 		this.numInputs = numInputs;
 		this.numClasses = numClasses;
 		this.numLayers = numLayers;
 		this.nodesInHL = nodesInHL;
+		this.precision = precision;
 		
 		random = new Random();
 		random.setSeed(RANDOM_SEED);
@@ -53,281 +122,1308 @@ public class NeuralNet implements Serializable{
 		constructRandomNet();
 	}
 	
+	/**
+	 * Rebuilds a trained network from its parameters, as read by IOManager.loadModel.
+	 * @param weights Weights of each layer, in form to, from. They all have the same precision, which the network takes.
+	 * @param biases Bias vector of each layer.
+	 * @param learningRate
+	 * @param batchSize
+	 * @param numEpochs
+	 */
+	NeuralNet(Matrix[] weights, Matrix[] biases, double learningRate, int batchSize, int numEpochs)
+	{
+		this.numLayers = weights.length;
+		this.numInputs = weights[0].getWidth();
+		this.numClasses = weights[numLayers - 1].getHeight();
+		this.nodesInHL = numLayers > 1 ? weights[0].getHeight() : 0;
+		this.weights = weights.clone();
+		this.biases = biases.clone();
+		this.precision = weights[0].getPrecision();
+		this.learningRate = learningRate;
+		this.numEpochs = numEpochs;
+		setBatchSize(batchSize);
+		
+		random = new Random();
+		random.setSeed(RANDOM_SEED);
+	}
+	
 	/**
 	 * Train the neural network for numEpochs epochs with mini-batch size of batchSize.
 	 * Uses basic stochastic gradient descent and backpropegation.
+	 * The lists are wrapped, not copied or shuffled in place, see train(Dataset, Dataset).
 	 * @param trainingData The training data, where each matrix is {X, Y}
 	 * @param testingData The testing data, where each matrix is {X, Y}
 	 */
 	public void train(ArrayList<Matrix[]> trainingData, ArrayList<Matrix[]> testingData)
 	{
-		Collections.shuffle(trainingData);
-		
-		ArrayList<ArrayList<Matrix[]>> batches = new ArrayList<>();
-		
-		// Split data into mini-batches of batchSize, with the last one being potentially smaller if 
-		// the size of the training data is not a multiple of batchSize.
-		for(int batch = 0; trainingData.size() - batch * batchSize > 0; batch++)
+		train(new ListDataset(trainingData), new ListDataset(testingData));
+	}
+	
+	/**
+	 * Train the neural network for up to numEpochs epochs with mini-batch size of batchSize.
+	 * The data is shuffled once through an array of sample indices rather than moved. Each batch is copied from the dataset straight into the training buffers, so a MappedDataset
+	 * never has to be loaded onto the heap.
+	 * After each epoch the network is evaluated on the validation split if there is one (see setValidationSplit), otherwise on
+	 * a fixed random subsample of the training data (see setEvaluationSamples), and at the end on all of the testing data.
+	 * That evaluation decides when to stop early (see setEarlyStopping, setTargetAccuracy and setTimeBudget), drives
+	 * reduce-on-plateau schedules (see setLearningRateSchedule), and picks the weights to keep (see setRestoreBestWeights)
+	 * and to checkpoint (see setCheckpointer).
+	 * @param trainingData The training data
+	 * @param testingData The testing data
+	 */
+	public void train(Dataset trainingData, Dataset testingData)
+	{
+		int[] order = new int[trainingData.size()];
+		for(int i = 0; i < order.length; i++)
 		{
-			ArrayList<Matrix[]> currentBatch = new ArrayList<>();
-			
-			for(int i = batch * batchSize; i < (batch + 1) * batchSize && i < trainingData.size(); i++)
-			{
-				currentBatch.add(trainingData.get(i));
-			}
-
-			batches.add(currentBatch);
+			order[i] = i;
 		}
+		shuffle(order, order.length, deterministic ? random : new Random());
 		
-		// Actual training time
-		for(int epoch = 0; epoch < numEpochs; epoch++)
+		// The held out samples are the end of the shuffled order
+		int trainLength = order.length - (int)(order.length * validationSplit);
+		int[] evalIndices;
+		String evalTitle;
+		if (trainLength < order.length)
+		{
+			evalIndices = Arrays.copyOfRange(order, trainLength, order.length);
+			evalTitle = "Validation";
+		}
+		else
 		{
-			for(int batch = 0; batch < batches.size(); batch++)
+			// A separate Random, so the same samples are evaluated every epoch and the training shuffle is unaffected
+			evalIndices = Evaluator.subsample(order.length, getEvaluationSamples(), new Random(RANDOM_SEED));
+			evalTitle = "Training";
+		}
+		
+		LearningRateSchedule schedule = getLearningRateSchedule();
+		schedule.reset();
+		EvaluationResult.Metric metric = getMonitor();
+		long deadline = timeBudgetMillis > 0 ? System.nanoTime() + timeBudgetMillis * 1000000 : Long.MAX_VALUE;
+		double baseRate = learningRate;
+		double best = Double.NaN;
+		int bestEpoch = -1, lastEpoch = -1, waiting = 0;
+		Matrix[] bestWeights = null, bestBiases = null;
+		try (BatchPrefetcher prefetcher = openPrefetcher(trainingData)) {
+			for(int epoch = 0; epoch < numEpochs; epoch++)
 			{
-				// Grab the first input and output
-				Matrix input = batches.get(batch).get(0)[0];
-				Matrix y = batches.get(batch).get(0)[1];
+				learningRate = schedule.getRate(epoch, numEpochs, baseRate);
+				long epochStart = System.nanoTime();
+				telemetry().begin();
+				String pipeline = trainPass(trainingData, order, trainLength, prefetcher);
+				EpochStats stats = telemetry().end();
+				lastEpoch = epoch;
 				
-				// gradsToAdd is a placeholder that holds this input's weightGradient and biasGradient.
-				Matrix[][] gradsToAdd = backpropegate(feedForward(input), y);
+				// Display current training status
+				System.out.println("\nEpoch over\n");
+				System.out.println("Training " + stats);
+				if (pipeline != null)
+				{
+					System.out.println("Input pipeline: " + pipeline);
+				}
+				if (!schedule.isConstant())
+				{
+					System.out.println("Learning rate: " + learningRate);
+				}
 				
-				// weightGradient and biasGradient will hold the sums of the weight and bias gradients for
-				// every input in the batch.
-				Matrix[] weightGradient = gradsToAdd[0];
-				Matrix[] biasGradient = gradsToAdd[1];
+				EvaluationResult result = evaluate(trainingData, evalIndices);
+				telemetry().evaluated(stats.getEpoch(), result);
+				System.out.print(result.format(evalTitle));
 				
-				// Add the gradients from the rest of the inputs in the batch.
-				for(int x = 1; x < batches.get(batch).size(); x++)
+				double value = metric.of(result);
+				boolean improved = metric.improves(value, best, minDelta);
+				if (improved)
 				{
-					input = batches.get(batch).get(x)[0];
-					y = batches.get(batch).get(x)[1];
-					
-					gradsToAdd = backpropegate(feedForward(input), y);
-					
-					for(int i = 0; i < gradsToAdd[0].length; i++)
-					{
-						weightGradient[i] = MatrixUtil.matAdd(weightGradient[i], gradsToAdd[0][i]);
-					}
-					for(int i = 0; i < gradsToAdd[1].length; i++)
+					best = value;
+					bestEpoch = epoch;
+					waiting = 0;
+					if (restoreBestWeights)
 					{
-						biasGradient[i] = MatrixUtil.matAdd(biasGradient[i], gradsToAdd[1][i]);
+						bestWeights = copyOf(weights);
+						bestBiases = copyOf(biases);
 					}
 				}
+				else
+				{
+					waiting++;
+				}
+				schedule.evaluated(improved);
 				
-				// Modify the weights and biases using matrix formulas, where i represents the iteration:
-				// w_i = w_(i-1) + (-learningRate / batchSize) * weightGradient
-				// b_i = b_(i-1) + (-learningRate / batchSize) * biasGradient
-				for(int i = 0; i < weightGradient.length; i++)
+				String stop = null;
+				if (targetAccuracy > 0 && result.getAccuracy() >= targetAccuracy)
+				{
+					stop = "reached the target accuracy of " + targetAccuracy;
+				}
+				else if (patience > 0 && waiting >= patience)
+				{
+					stop = "no improvement in " + evalTitle.toLowerCase() + " " + metric.toString().toLowerCase() + " for " + patience + " epochs";
+				}
+				else if (epoch + 1 < numEpochs && System.nanoTime() + (System.nanoTime() - epochStart) > deadline)
+				{
+					// Another epoch as long as this one would overrun the budget
+					stop = "another epoch would exceed the time budget of " + timeBudgetMillis + " ms";
+				}
+				if (checkpointer != null)
 				{
-					weights[i] = MatrixUtil.matAdd(weights[i], MatrixUtil.matMul(-learningRate / batches.get(batch).size(),  weightGradient[i]));
+					checkpointer.epochEnded(this, baseRate, result, stop != null || epoch + 1 == numEpochs);
 				}
-				for(int i = 0; i < biasGradient.length; i++)
+				if (stop != null)
 				{
-					biases[i] = MatrixUtil.matAdd(biases[i], MatrixUtil.matMul(-learningRate / batches.get(batch).size(),  biasGradient[i]));
+					System.out.println("Stopping after epoch " + (epoch + 1) + ": " + stop);
+					break;
 				}
 			}
-			
-			// Display current training status
-			System.out.println("\nEpoch over\n");
-			
-			printAccuracy(trainingData, "Training");
+		} finally {
+			learningRate = baseRate;
+		}
+		
+		if (bestWeights != null && bestEpoch != lastEpoch)
+		{
+			weights = bestWeights;
+			biases = bestBiases;
+			System.out.println("Restored the weights of epoch " + (bestEpoch + 1) + ", " + evalTitle.toLowerCase() + " "
+					+ metric.toString().toLowerCase() + " " + best);
 		}
 		
 		printAccuracy(testingData, "Testing");
 	}
 	
+	private static Matrix[] copyOf(Matrix[] matrices)
+	{
+		Matrix[] copy = new Matrix[matrices.length];
+		for(int i = 0; i < matrices.length; i++)
+		{
+			copy[i] = matrices[i].copy();
+		}
+		return copy;
+	}
+	
 	/**
-	 * Feeds an input through the network and obtains the activations of each neuron.
-	 * @param x The input vector
-	 * @return The activations of each layer of the network (including the input layer)
+	 * Continue training on a stream of new samples, for example a network loaded from disk on data
+	 * gathered since it was trained. The samples are grouped into mini-batches of batchSize in the
+	 * order they arrive and each batch is trained on once, so only one batch is held at a time; wrap
+	 * the stream in a ShuffleBuffer if its order is not already random. Nothing is printed, but the
+	 * pass is reported to the TrainingListeners, and to the checkpointer, as one epoch. That epoch ends its run, so the
+	 * checkpointer writes it whatever the interval, and Checkpointer.resume does not carry it on.
+	 * @param samples Samples, where each matrix is {X, Y}; consumed until exhausted.
+	 * @return Number of samples trained on.
 	 */
-	private Matrix[] feedForward(Matrix x)
+	public long partialFit(Iterator<Matrix[]> samples)
 	{
-		Matrix[] a = new Matrix[numLayers + 1];
-		
-		// The first activation is simply the input vector
-		a[0] = x;
-
-		// Between hidden layers and to output
-		for(int layer = 1; layer <= numLayers; layer++)
+		List<Matrix[]> batch = new ArrayList<>(batchSize);
+		long count = 0;
+		telemetry().begin();
+		while(samples.hasNext())
 		{
-			// Uses matrix formula where i represents the layer:
-			// a_(i+1) = sigmoid(w_i * a_i + b_i)
-			a[layer] = applyActivationFunction(MatrixUtil.matAdd(biases[layer - 1], MatrixUtil.matMul(weights[layer - 1], a[layer - 1])));
+			long start = System.nanoTime();
+			batch.add(samples.next());
+			telemetry().addLoad(System.nanoTime() - start);
+			if (batch.size() == batchSize || !samples.hasNext())
+			{
+				trainBatch(batch);
+				count += batch.size();
+				batch.clear();
+			}
 		}
-
-		return a;
+		telemetry().end();
+		if (checkpointer != null)
+		{
+			checkpointer.epochEnded(this, learningRate, null, true);
+		}
+		return count;
 	}
 	
 	/**
-	 * Obtains the weight and bias gradients of a certain input based upon the activations from 
-	 * a feedForward pass and the intended output.
-	 * @param a The activations of each neuron based upon a feedForward pass
-	 * @param y The one-hot encoded correct classification based upon the input.
-	 * @return A matrix tuple that represents {weightGradient, biasGradient} of the input
+	 * Continue training for one epoch over data, without resetting the weights or printing anything.
+	 * Uses a chunked shuffle: the dataset is split into chunks of SHUFFLE_CHUNK consecutive samples, the
+	 * chunks are visited in random order and the samples within each chunk are shuffled. Memory is bounded
+	 * by the chunk size however large the dataset, and a MappedDataset is read one region at a time.
+	 * The pass is reported to the TrainingListeners, and to the checkpointer, as one epoch that ends its run, as in
+	 * partialFit(Iterator).
+	 * @param data The new data.
 	 */
-	private Matrix[][] backpropegate(Matrix[] a, Matrix y)
+	public void partialFit(Dataset data)
 	{
-		Matrix[] weightGradients = new Matrix[numLayers];
-		Matrix[] biasGradients = new Matrix[numLayers];
-		
-		// Final layer
-		Matrix aL = a[numLayers];
-		Matrix difference = MatrixUtil.matSub(aL, y);
-		Matrix sigPrime = MatrixUtil.pairwiseMul(aL, MatrixUtil.matSub(MatrixUtil.ones(aL.getHeight(), aL.getWidth()), aL));
+		Random rnd = deterministic ? random : new Random();
+		int size = data.size();
+		int chunkSize = Math.max(batchSize, SHUFFLE_CHUNK);
 		
-		// Uses equation for error in the output layer
-		biasGradients[numLayers - 1] = MatrixUtil.pairwiseMul(difference, sigPrime);
-		// Uses equation for rate of change of cost with respect to any weight
-		weightGradients[numLayers - 1] = MatrixUtil.matMul(biasGradients[numLayers - 1], MatrixUtil.transpose(a[numLayers - 1]));
+		int[] chunks = new int[(size + chunkSize - 1) / chunkSize];
+		for(int c = 0; c < chunks.length; c++)
+		{
+			chunks[c] = c;
+		}
+		shuffle(chunks, chunks.length, rnd);
 		
-		// Every other layer
-		for(int layer = numLayers - 2; layer >= 0; layer--)
+		int[] order = new int[Math.min(size, chunkSize)];
+		telemetry().begin();
+		try (BatchPrefetcher prefetcher = openPrefetcher(data)) {
+			for(int c : chunks)
+			{
+				int start = c * chunkSize;
+				int length = Math.min(chunkSize, size - start);
+				for(int i = 0; i < length; i++)
+				{
+					order[i] = start + i;
+				}
+				shuffle(order, length, rnd);
+				trainPass(data, order, length, prefetcher);
+			}
+		}
+		telemetry().end();
+		if (checkpointer != null)
 		{
-			aL = a[layer + 1];
-			Matrix product = MatrixUtil.matMul(MatrixUtil.transpose(weights[layer + 1]), biasGradients[layer + 1]);
-			sigPrime = MatrixUtil.pairwiseMul(aL, MatrixUtil.matSub(MatrixUtil.ones(aL.getHeight(), aL.getWidth()), aL));
-			
-			// Uses equation for error in non-output layer
-			biasGradients[layer] = MatrixUtil.pairwiseMul(sigPrime, product);
-			// Uses equation for rate of change of cost with respect to any weight
-			weightGradients[layer] = MatrixUtil.matMul(biasGradients[layer], MatrixUtil.transpose(a[layer]));
+			checkpointer.epochEnded(this, learningRate, null, true);
 		}
-
-		return new Matrix[][]{weightGradients, biasGradients};
 	}
 	
 	/**
-	 * Return the activations of just the output layer from input x.
-	 * @param x The input vector
-	 * @return The activation vector.
+	 * @return A BatchPrefetcher over data for the passes of one training run, or null if prefetching is off (see setPrefetch).
 	 */
-	public Matrix getPrediction(Matrix x)
+	private BatchPrefetcher openPrefetcher(Dataset data)
 	{
-		Matrix[] result = feedForward(x);
-		return result[result.length - 1];
+		if (prefetchDepth <= 0)
+		{
+			return null;
+		}
+		return new BatchPrefetcher(data, batchSize, prefetchDepth, Math.max(1, prefetchThreads), getPrecision(), null,
+				telemetry().threadFactory("batch-prefetcher"));
 	}
 	
 	/**
-	 * Apply the activation function to every member of matrix x.
-	 * Here, the activation function is the sigmoid function.
-	 * @param x 
-	 * @return x with every element set to sigmoid(x(element))
+	 * Trains on the samples order[0] to order[length - 1] of data in mini-batches of batchSize. With a prefetcher,
+	 * the batches are loaded on its background threads while earlier ones train; the batches, and so the result,
+	 * are the same either way.
+	 * @param data
+	 * @param order Sample indices
+	 * @param length Number of entries of order to use
+	 * @param prefetcher Prefetcher over data from openPrefetcher, or null to load inline.
+	 * @return The prefetcher's statistics for the pass, or null if there is none.
 	 */
-	public Matrix applyActivationFunction(Matrix x)
+	private String trainPass(Dataset data, int[] order, int length, BatchPrefetcher prefetcher)
 	{
-		for(int i = 0; i < x.getHeight(); i++)
+		if (prefetcher == null)
 		{
-			for(int j = 0; j < x.getWidth(); j++)
+			for(int from = 0; from < length; from += batchSize)
 			{
-				x.setElement(i, j, activationFunction(x.getElement(i, j)));
+				trainBatch(data, order, from, Math.min(from + batchSize, length));
 			}
+			return null;
 		}
 		
-		return x;
+		prefetcher.start(order, length);
+		while(prefetcher.hasNext())
+		{
+			long start = System.nanoTime();
+			Matrix[] batch = prefetcher.next();
+			telemetry().addLoad(System.nanoTime() - start);
+			trainBatch(batch[0], batch[1]);
+		}
+		return prefetcher.toString();
 	}
 	
 	/**
-	 * The sigmoid activation function
-	 * @param x input
-	 * @return sigmoid(x)
+	 * Fisher-Yates shuffle of the first length entries of an index array.
 	 */
-	private double activationFunction(double x)
+	private static void shuffle(int[] order, int length, Random random)
 	{
-		return 1 / (1 + Math.exp(-x));
+		for(int i = length - 1; i > 0; i--)
+		{
+			int j = random.nextInt(i + 1);
+			int swap = order[i];
+			order[i] = order[j];
+			order[j] = swap;
+		}
 	}
 	
 	/**
-	 * Prints the accuracy of the classification from the neural network,
-	 * both in terms of each class index, and overall.
-	 * @param dataset The dataset you want to classify
-	 * @param title The name of the dataset
+	 * Performs one step of stochastic gradient descent on a single mini-batch.
+	 * With more than one thread, the batch is split into contiguous chunks of samples, each chunk's
+	 * gradient is computed on its own worker, and the chunk gradients are summed by a fixed-order tree
+	 * reduction. The result therefore depends only on the batch and the number of threads, never on scheduling.
+	 * @param samples The mini-batch, where each matrix is {X, Y}
 	 */
-	public void printAccuracy(ArrayList<Matrix[]> dataset, String title)
+	public void trainBatch(List<Matrix[]> samples)
+	{
+		trainBatch(new ListDataset(samples), null, 0, samples.size());
+	}
+	
+	/**
+	 * Performs one step of stochastic gradient descent on a batch that is already packed into matrices,
+	 * one sample per column, for example by a BatchPrefetcher. Splits across threads like trainBatch(List).
+	 * @param inputs The input vectors, one per column
+	 * @param targets The one-hot encoded correct classifications, one per column
+	 */
+	public void trainBatch(Matrix inputs, Matrix targets)
+	{
+		Batch batch = batch();
+		batch.x = inputs.toPrecision(getPrecision());
+		batch.y = targets.toPrecision(getPrecision());
+		try {
+			step(batch.x.getWidth(), batch);
+		} finally {
+			batch.clear();
+		}
+	}
+	
+	/**
+	 * Performs one step of stochastic gradient descent on the samples order[from] to order[to - 1] of data.
+	 * @param data
+	 * @param order Sample indices, or null for the samples from to to - 1 themselves
+	 * @param from
+	 * @param to
+	 */
+	private void trainBatch(Dataset data, int[] order, int from, int to)
+	{
+		Batch batch = batch();
+		batch.data = data;
+		batch.order = order;
+		batch.from = from;
+		try {
+			step(to - from, batch);
+		} finally {
+			batch.clear();
+		}
+	}
+	
+	/**
+	 * Computes the summed gradients of samples from to to - 1 of a batch into a workspace set up for to - from columns.
+	 */
+	private interface BatchGradients
+	{
+		void compute(int from, int to, Workspace ws);
+	}
+	
+	/**
+	 * The batch being trained on, either packed into matrices or a range of a dataset. One instance is reused
+	 * for every step, so that a step allocates nothing once the workspaces are set up.
+	 */
+	private final class Batch implements BatchGradients
 	{
-		System.out.println("Class Accuracy:");
+		// The packed batch, one sample per column
+		private Matrix x, y;
+		// Or samples order[from] onwards of data
+		private Dataset data;
+		private int[] order;
+		private int from;
 		
-		HashMap<Integer, Integer> correct = new HashMap<>();
-		HashMap<Integer, Integer> total = new HashMap<>();
+		@Override
+		public void compute(int chunkFrom, int chunkTo, Workspace ws)
+		{
+			if (data != null)
+			{
+				computeGradients(data, order, from + chunkFrom, from + chunkTo, ws);
+			}
+			else if (chunkFrom == 0 && chunkTo == x.getWidth())
+			{
+				computeGradients(x, y, ws);
+			}
+			else
+			{
+				computeGradients(x.columns(chunkFrom, chunkTo - chunkFrom), y.columns(chunkFrom, chunkTo - chunkFrom), ws);
+			}
+		}
 		
-		for(int i = 0; i < numClasses; i++)
+		/**
+		 * Drop the batch's references, so the network does not keep its data alive.
+		 */
+		private void clear()
+		{
+			x = y = null;
+			data = null;
+			order = null;
+		}
+	}
+	
+	/**
+	 * @return The reused batch, creating it if needed.
+	 */
+	private Batch batch()
+	{
+		if (batch == null)
 		{
-			correct.put(i, 0);
-			total.put(i, 0);
+			batch = new Batch();
 		}
+		return batch;
+	}
+	
+	/**
+	 * Performs one step of stochastic gradient descent on a batch of size samples.
+	 * @param size
+	 * @param gradients Computes the gradients of any range of the batch's samples
+	 */
+	private void step(int size, BatchGradients gradients)
+	{
+		// Only create the event when a recording has it on, so a step allocates nothing otherwise
+		TrainingBatchEvent event = BATCH_EVENT.isEnabled() ? new TrainingBatchEvent() : null;
+		if (event != null)
+		{
+			event.begin();
+		}
+		TrainingTelemetry telemetry = telemetry();
+		int chunks = Math.min(getNumThreads(), size);
+		Workspace ws;
+		double loss = 0;
 		
-		for(Matrix[] datum : dataset)
+		if (chunks <= 1)
+		{
+			ws = workspace(size);
+			gradients.compute(0, size, ws);
+			loss = telemetry.collect(ws);
+		}
+		else
 		{
-			if(MatrixUtil.maxElement(datum[1]) == MatrixUtil.maxElement(getPrediction(datum[0])))
+			ws = computeGradientsParallel(size, chunks, gradients);
+			for(int w = 0; w < chunks; w++)
 			{
-				correct.put(MatrixUtil.maxElement(datum[1]), correct.get(MatrixUtil.maxElement(datum[1])) + 1);
+				loss += telemetry.collect(workerSpaces[w]);
 			}
-			total.put(MatrixUtil.maxElement(datum[1]), total.get(MatrixUtil.maxElement(datum[1])) + 1);
 		}
 		
-		int totalCorrect = 0;
-		for(int i = 0; i < numClasses; i++)
+		// Modify the weights and biases in place, for SGD with matrix formulas where i represents the iteration:
+		// w_i = w_(i-1) + (-learningRate / batchSize) * weightGradient
+		// b_i = b_(i-1) + (-learningRate / batchSize) * biasGradient
+		long start = System.nanoTime();
+		getOptimizer().update(weights, biases, ws.weightGradients, ws.biasGradients, learningRate, size);
+		telemetry.addUpdate(System.nanoTime() - start);
+		
+		telemetry.batchEnded(size, loss);
+		if (event != null)
+		{
+			event.end();
+			if (event.shouldCommit())
+			{
+				event.samples = size;
+				event.loss = loss / size;
+				event.commit();
+			}
+		}
+	}
+	
+	/**
+	 * Computes the summed gradients of a range of samples into the workspace's weightGradients and biasGradients.
+	 * @param data
+	 * @param order Sample indices, or null for the samples themselves
+	 * @param from First position in order
+	 * @param to One past the last position in order
+	 * @param ws Workspace to use, set up for to - from columns
+	 */
+	private void computeGradients(Dataset data, int[] order, int from, int to, Workspace ws)
+	{
+		// Stack the batch into matrices with one sample per column, so each layer is a single matrix-matrix product.
+		long start = System.nanoTime();
+		for(int x = from; x < to; x++)
 		{
-			totalCorrect += correct.get(i);
-			System.out.println(i + ": " + correct.get(i) + " / " + total.get(i) + " = " + (double)correct.get(i) / (double)total.get(i));
+			data.copyTo(order == null ? x : order[x], ws.inputs, ws.targets, x - from);
 		}
+		ws.loadNanos += System.nanoTime() - start;
 		
-		System.out.println(title + " Accuracy: " + totalCorrect + " / " + dataset.size() + " = " + (double)totalCorrect / (double)dataset.size());
+		computeGradients(ws.inputs, ws.targets, ws);
 	}
 	
 	/**
-	 * Construct neural network based upon current specs.
-	 * Set all weights and biases to random values.
+	 * Computes the summed gradients of a batch into the workspace's weightGradients and biasGradients,
+	 * timing the forward pass in the workspace.
+	 * @param x The input vectors, one per column
+	 * @param y The one-hot encoded correct classifications, one per column
+	 * @param ws Workspace to use, set up for x.getWidth() columns
 	 */
-	private void constructRandomNet()
+	private void computeGradients(Matrix x, Matrix y, Workspace ws)
 	{
-		weights = new Matrix[numLayers];
-		biases = new Matrix[numLayers];
+		long start = System.nanoTime();
+		Matrix[] a = feedForward(x, ws);
+		ws.forwardNanos += System.nanoTime() - start;
 		
-		// Add weights and biases to first layer from input layer
-		Matrix w_ph = new Matrix(nodesInHL, numInputs);
-		w_ph.populateRandom(random);
+		backpropegate(a, y, ws);
+	}
+	
+	/**
+	 * Splits a batch into chunks, computes the gradients of each on the worker pool, then sums them
+	 * with a pairwise tree reduction in a fixed order.
+	 * @param size Number of samples in the batch
+	 * @param chunks Number of chunks to split into
+	 * @param gradients Computes the gradients of a chunk
+	 * @return The workspace holding the summed gradients
+	 */
+	private Workspace computeGradientsParallel(int size, int chunks, BatchGradients gradients)
+	{
+		Workspace[] spaces = workerSpaces(chunks);
+		ArrayList<Callable<Void>> tasks = new ArrayList<>(chunks);
 		
-		weights[0] = w_ph;
+		for(int w = 0; w < chunks; w++)
+		{
+			final int chunkFrom = size * w / chunks;
+			final int chunkTo = size * (w + 1) / chunks;
+			final Workspace ws = spaces[w];
+			
+			tasks.add(() -> {
+				ws.setWidth(chunkTo - chunkFrom);
+				gradients.compute(chunkFrom, chunkTo, ws);
+				return null;
+			});
+		}
+		invokeAll(tasks);
 		
-		Matrix b_ph = new Matrix(nodesInHL, 1);
-		b_ph.populateRandom(random);
+		// Tree reduction: at each level, chunk w absorbs chunk w + stride.
+		long start = System.nanoTime();
+		for(int stride = 1; stride < chunks; stride *= 2)
+		{
+			tasks.clear();
+			for(int w = 0; w + stride < chunks; w += 2 * stride)
+			{
+				final Workspace into = spaces[w];
+				final Workspace other = spaces[w + stride];
+				
+				tasks.add(() -> {
+					for(int i = 0; i < numLayers; i++)
+					{
+						MatrixUtil.addInPlace(into.weightGradients[i], other.weightGradients[i]);
+						MatrixUtil.addInPlace(into.biasGradients[i], other.biasGradients[i]);
+					}
+					return null;
+				});
+			}
+			invokeAll(tasks);
+		}
+		telemetry().addAccumulate(System.nanoTime() - start);
 		
-		biases[0] = b_ph;
+		return spaces[0];
+	}
+	
+	/**
+	 * Run tasks on the worker pool and wait for all of them, rethrowing the first failure.
+	 * @param tasks
+	 */
+	private void invokeAll(List<Callable<Void>> tasks)
+	{
+		try {
+			for(Future<Void> result : pool().invokeAll(tasks))
+			{
+				result.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while training", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+			{
+				throw (RuntimeException)e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+	}
+	
+	/**
+	 * Feeds a batch of inputs, one per column, through the network and obtains the activations of each neuron.
+	 * The activations are stored in the network's workspace and are overwritten by the next call.
+	 * Package-private for the benchmarks and tests.
+	 * @param x The input vectors, one per column
+	 * @return The activations of each layer of the network (including the input layer), one column per input
+	 */
+	Matrix[] feedForward(Matrix x)
+	{
+		return feedForward(x.toPrecision(getPrecision()), workspace(x.getWidth()));
+	}
 		
-		// Add weights and biases for any other hidden layers
-		for(int layer = 1; layer < numLayers - 1; layer++)
+	/**
+	 * Feeds a batch of inputs through the network using the buffers of a particular workspace.
+	 * @param x The input vectors, one per column
+	 * @param ws Workspace set up for x.getWidth() columns
+	 * @return The activations of each layer of the network (including the input layer), one column per input
+	 */
+	private Matrix[] feedForward(Matrix x, Workspace ws)
+	{
+		Matrix[] a = ws.activations;
+		
+		// The first activation is simply the input
+		a[0] = x;
+
+		// Between hidden layers and to output
+		for(int layer = 1; layer <= numLayers; layer++)
 		{
-			w_ph = new Matrix(nodesInHL, nodesInHL);
-			w_ph.populateRandom(random);
-			
-			weights[layer] = w_ph;
-			
-			b_ph = new Matrix(nodesInHL, 1);
-			b_ph.populateRandom(random);
-			
-			biases[layer] = b_ph;
+			// Uses matrix formula where i represents the layer, with b_i added to every column:
+			// a_(i+1) = activation_i(w_i * a_i + b_i)
+			MatrixUtil.affine(weights[layer - 1], a[layer - 1], biases[layer - 1], getActivation(layer - 1), a[layer]);
 		}
+
+		return a;
+	}
+	
+	/**
+	 * Obtains the summed weight and bias gradients of a batch into the network's workspace, given the activations
+	 * returned by feedForward(Matrix) for the same batch. The weights are not changed. Package-private for the benchmarks and tests.
+	 * @param a The activations of each neuron based upon a feedForward pass, one column per input
+	 * @param y The one-hot encoded correct classifications, one column per input.
+	 */
+	void backpropegate(Matrix[] a, Matrix y)
+	{
+		backpropegate(a, y.toPrecision(getPrecision()), workspace(y.getWidth()));
+	}
+	
+	/**
+	 * Obtains the weight and bias gradients, summed over a batch of inputs, based upon the activations from 
+	 * a feedForward pass and the intended outputs. They are stored in the workspace's weightGradients
+	 * and biasGradients. Also adds the batch's summed loss and the time taken to the workspace.
+	 * @param a The activations of each neuron based upon a feedForward pass, one column per input
+	 * @param y The one-hot encoded correct classifications, one column per input.
+	 * @param ws Workspace set up for y.getWidth() columns
+	 */
+	private void backpropegate(Matrix[] a, Matrix y, Workspace ws)
+	{
+		Matrix[] delta = ws.deltas;
+		long start = System.nanoTime(), accumulated = ws.accumulateNanos;
 		
-		// Add weights and biases for final layer
-		w_ph = new Matrix(numClasses, nodesInHL);
-		w_ph.populateRandom(random);
-		
-		weights[numLayers - 1] = w_ph;
+		// Final layer
+		// Uses equation for error in the output layer, (a - y) .* activation', where a - y also gives the quadratic cost 1/2 |a - y|^2.
+		// A softmax output is trained with the cross-entropy cost instead, whose error is a - y itself.
+		Activation output = getActivation(numLayers - 1);
+		MatrixUtil.matSub(a[numLayers], y, delta[numLayers - 1]);
+		if (output == Activation.SOFTMAX)
+		{
+			ws.loss += MatrixUtil.crossEntropy(a[numLayers], y);
+		}
+		else
+		{
+			ws.loss += 0.5 * MatrixUtil.sumOfSquares(delta[numLayers - 1]);
+			MatrixUtil.activationPrimeMul(output, a[numLayers], delta[numLayers - 1], delta[numLayers - 1]);
+		}
+		layerGradients(ws, numLayers - 1, a[numLayers - 1]);
 		
-		b_ph = new Matrix(numClasses, 1);
-		b_ph.populateRandom(random);
+		// Every other layer
+		for(int layer = numLayers - 2; layer >= 0; layer--)
+		{
+			// Uses equation for error in non-output layer, (w^T * delta) .* activation'
+			MatrixUtil.matMulTransA(weights[layer + 1], delta[layer + 1], delta[layer]);
+			MatrixUtil.activationPrimeMul(getActivation(layer), a[layer + 1], delta[layer], delta[layer]);
+			layerGradients(ws, layer, a[layer]);
+		}
 		
-		biases[numLayers - 1] = b_ph;
+		// Time in layerGradients counts as accumulation
+		ws.backwardNanos += System.nanoTime() - start - (ws.accumulateNanos - accumulated);
 	}
 
 	/**
-	 * Obtain facts about the network,
-	 * currently just the number of layers and the size of the hidden layers
-	 * @return A string (to be printed) with all the fun facts you want,
-	 * I guess.
+	 * Computes the batch gradients of one layer, given its error in the workspace.
+	 * @param ws
+	 * @param layer The layer (not including input layer) whose gradients to compute
+	 * @param aIn The activations feeding into that layer
 	 */
-	public String getStuff() {
-		return "Number of layers (including input layer): " + (numLayers + 1) + "\nSize of hidden layers: " + nodesInHL;
+	private void layerGradients(Workspace ws, int layer, Matrix aIn)
+	{
+		long start = System.nanoTime();
+		// Uses equation for rate of change of cost with respect to any bias, summed over the columns of the batch
+		MatrixUtil.rowSums(ws.deltas[layer], ws.biasGradients[layer]);
+		// Uses equation for rate of change of cost with respect to any weight, delta * a^T, which also sums over the batch
+		MatrixUtil.matMulTransB(ws.deltas[layer], aIn, ws.weightGradients[layer]);
+		ws.accumulateNanos += System.nanoTime() - start;
+	}
+	
+	/**
+	 * Return the activations of just the output layer from input x.
+	 * Uses the network's internal buffers, so must not be called from several threads at once.
+	 * @param x The input vector, or several input vectors as columns, of either precision
+	 * @return The activation vector (one column per input), a copy that the caller may keep.
+	 */
+	public Matrix getPrediction(Matrix x)
+	{
+		Matrix[] result = feedForward(x);
+		return result[result.length - 1].copy();
+	}
+	
+	/**
+	 * Apply the activation function of the first layer to every member of matrix x.
+	 * By default, the activation function is the sigmoid function.
+	 * @param x 
+	 * @return x with every element set to activation(x(element))
+	 */
+	public Matrix applyActivationFunction(Matrix x)
+	{
+		return MatrixUtil.applyActivation(getActivation(0), x);
+	}
+	
+	/**
+	 * Prints the accuracy of the classification from the neural network,
+	 * both in terms of each class index, and overall.
+	 * @param dataset The dataset you want to classify
+	 * @param title The name of the dataset
+	 */
+	public void printAccuracy(ArrayList<Matrix[]> dataset, String title)
+	{
+		printAccuracy(new ListDataset(dataset), title);
+	}
+	
+	/**
+	 * Prints the accuracy of the classification from the neural network,
+	 * both in terms of each class index, and overall. See evaluate.
+	 * @param dataset The dataset you want to classify
+	 * @param title The name of the dataset
+	 */
+	public void printAccuracy(Dataset dataset, String title)
+	{
+		System.out.print(evaluate(dataset).format(title));
+	}
+	
+	/**
+	 * Classifies every sample of a dataset, in batches and split across getNumThreads() threads.
+	 * @param dataset
+	 * @return The accuracy, per-class precision and recall, and confusion matrix.
+	 */
+	public EvaluationResult evaluate(Dataset dataset)
+	{
+		return evaluate(dataset, null);
+	}
+	
+	/**
+	 * Classifies some of the samples of a dataset, in batches and split across getNumThreads() threads.
+	 * Uses an InferenceEngine copy of the weights, so must not be called while the network is training.
+	 * @param dataset
+	 * @param indices The samples to classify, or null for all of them, see Evaluator.subsample.
+	 * @return The accuracy, per-class precision and recall, and confusion matrix.
+	 */
+	public EvaluationResult evaluate(Dataset dataset, int[] indices)
+	{
+		int threads = getNumThreads();
+		return new Evaluator(new InferenceEngine(this), threads > 1 ? pool() : null, threads).evaluate(dataset, indices);
+	}
+	
+	/**
+	 * Construct neural network based upon current specs.
+	 * Set all weights and biases to random values.
+	 */
+	private void constructRandomNet()
+	{
+		weights = new Matrix[numLayers];
+		biases = new Matrix[numLayers];
+		
+		// Add weights and biases to first layer from input layer
+		Matrix w_ph = new Matrix(nodesInHL, numInputs, getPrecision());
+		w_ph.populateRandom(random);
+		
+		weights[0] = w_ph;
+		
+		Matrix b_ph = new Matrix(nodesInHL, 1, getPrecision());
+		b_ph.populateRandom(random);
+		
+		biases[0] = b_ph;
+		
+		// Add weights and biases for any other hidden layers
+		for(int layer = 1; layer < numLayers - 1; layer++)
+		{
+			w_ph = new Matrix(nodesInHL, nodesInHL, getPrecision());
+			w_ph.populateRandom(random);
+			
+			weights[layer] = w_ph;
+			
+			b_ph = new Matrix(nodesInHL, 1, getPrecision());
+			b_ph.populateRandom(random);
+			
+			biases[layer] = b_ph;
+		}
+		
+		// Add weights and biases for final layer
+		w_ph = new Matrix(numClasses, nodesInHL, getPrecision());
+		w_ph.populateRandom(random);
+		
+		weights[numLayers - 1] = w_ph;
+		
+		b_ph = new Matrix(numClasses, 1, getPrecision());
+		b_ph.populateRandom(random);
+		
+		biases[numLayers - 1] = b_ph;
+	}
+	
+	/**
+	 * @param width Number of samples that will be processed together.
+	 * @return The workspace for this network set up for width samples, creating it if needed.
+	 */
+	private Workspace workspace(int width)
+	{
+		if (workspace == null)
+		{
+			workspace = new Workspace(getLayerSizes(), Math.max(width, batchSize), getPrecision());
+		}
+		workspace.setWidth(width);
+		
+		return workspace;
+	}
+	
+	/**
+	 * @param chunks
+	 * @return At least chunks workspaces for the worker threads, creating them if needed.
+	 */
+	private Workspace[] workerSpaces(int chunks)
+	{
+		if (workerSpaces == null || workerSpaces.length < chunks)
+		{
+			Workspace[] spaces = new Workspace[chunks];
+			for(int w = 0; w < chunks; w++)
+			{
+				spaces[w] = workerSpaces != null && w < workerSpaces.length ? workerSpaces[w] : new Workspace(getLayerSizes(), batchSize / chunks + 1, getPrecision());
+			}
+			workerSpaces = spaces;
+		}
+		
+		return workerSpaces;
+	}
+	
+	/**
+	 * @return The network's training telemetry, creating it if needed.
+	 */
+	private synchronized TrainingTelemetry telemetry()
+	{
+		if (telemetry == null)
+		{
+			telemetry = new TrainingTelemetry();
+		}
+		
+		return telemetry;
+	}
+	
+	/**
+	 * Register a listener for the timings, throughput, loss and memory use of every epoch and mini-batch.
+	 * The same figures are recorded as the flight recorder events nn.TrainingEpoch and nn.TrainingBatch.
+	 * @param listener
+	 */
+	public void addTrainingListener(TrainingListener listener)
+	{
+		telemetry().addListener(listener);
+	}
+	
+	public void removeTrainingListener(TrainingListener listener)
+	{
+		telemetry().removeListener(listener);
+	}
+	
+	/**
+	 * @return The pool of worker threads for multi-threaded training, creating it if needed.
+	 */
+	private synchronized ExecutorService pool()
+	{
+		if (pool == null)
+		{
+			// Daemon threads so an idle pool never keeps the program alive, whose allocation counts toward the telemetry
+			pool = Executors.newFixedThreadPool(getNumThreads(), telemetry().threadFactory("NeuralNet-worker"));
+		}
+		
+		return pool;
+	}
+	
+	/**
+	 * Set the number of threads each mini-batch is split across when training.
+	 * @param numThreads 1 trains on the calling thread only.
+	 */
+	public synchronized void setNumThreads(int numThreads)
+	{
+		if (numThreads < 1)
+		{
+			throw new IllegalArgumentException("Number of threads must be at least 1: " + numThreads);
+		}
+		
+		this.numThreads = numThreads;
+		if (pool != null)
+		{
+			pool.shutdown();
+			pool = null;
+		}
+	}
+	
+	public int getNumThreads()
+	{
+		return Math.max(1, numThreads);
+	}
+	
+	/**
+	 * In deterministic mode, the training data is shuffled with the network's Random seeded by RANDOM_SEED,
+	 * so two networks built and trained the same way, with the same number of threads, end up identical.
+	 * @param deterministic
+	 */
+	public void setDeterministic(boolean deterministic)
+	{
+		this.deterministic = deterministic;
+	}
+	
+	/**
+	 * Load training batches on background threads while the current batch trains, so decoding a dataset
+	 * overlaps with computing gradients. train prints the pipeline's stall time and queue depth after every epoch.
+	 * @param depth Number of batches that may be loaded ahead, 0 to load each batch on the training thread.
+	 * @param threads Number of loader threads.
+	 */
+	public void setPrefetch(int depth, int threads)
+	{
+		if (depth < 0 || threads < 1)
+		{
+			throw new IllegalArgumentException("Prefetch depth must be at least 0 and threads at least 1: " + depth + ", " + threads);
+		}
+		
+		this.prefetchDepth = depth;
+		this.prefetchThreads = threads;
+	}
+	
+	/**
+	 * Set how many randomly chosen training samples train evaluates after each epoch, when there is no validation split.
+	 * Evaluating the whole of a large training set every epoch can take as long as training on it.
+	 * @param samples Number of samples, Integer.MAX_VALUE for all of them.
+	 */
+	public void setEvaluationSamples(int samples)
+	{
+		if (samples < 1)
+		{
+			throw new IllegalArgumentException("Evaluation samples must be at least 1: " + samples);
+		}
+		
+		this.evaluationSamples = samples;
+	}
+	
+	public int getEvaluationSamples()
+	{
+		return evaluationSamples > 0 ? evaluationSamples : EVAL_SAMPLES;
+	}
+	
+	/**
+	 * Hold out part of the training data in train: those samples are never trained on, and are evaluated after each epoch.
+	 * @param fraction Fraction of the training data to hold out, 0 for none.
+	 */
+	public void setValidationSplit(double fraction)
+	{
+		if (!(fraction >= 0 && fraction < 1))
+		{
+			throw new IllegalArgumentException("Validation split must be at least 0 and less than 1: " + fraction);
+		}
+		
+		this.validationSplit = fraction;
+	}
+	
+	public double getValidationSplit()
+	{
+		return validationSplit;
+	}
+	
+	/**
+	 * Stop train early once the metric evaluated after each epoch has not improved for patience epochs in a row.
+	 * Use a validation split (see setValidationSplit), or the metric only follows the fit to the training data.
+	 * The same metric drives reduce-on-plateau schedules and setRestoreBestWeights.
+	 * @param metric The metric to monitor.
+	 * @param patience Number of epochs without improvement to allow, 0 never to stop early.
+	 * @param minDelta How much the metric must improve by to count.
+	 */
+	public void setEarlyStopping(EvaluationResult.Metric metric, int patience, double minDelta)
+	{
+		if (metric == null || patience < 0 || !(minDelta >= 0))
+		{
+			throw new IllegalArgumentException("Early stopping needs a metric, patience of at least 0 and minDelta of at least 0: "
+					+ metric + ", " + patience + ", " + minDelta);
+		}
+		
+		this.monitor = metric;
+		this.patience = patience;
+		this.minDelta = minDelta;
+	}
+	
+	/**
+	 * @return The metric train monitors, LOSS unless another was set.
+	 */
+	public EvaluationResult.Metric getMonitor()
+	{
+		return monitor == null ? EvaluationResult.Metric.LOSS : monitor;
+	}
+	
+	/**
+	 * Stop train before starting an epoch that, taking as long as the last one, would end after the budget.
+	 * @param millis Wall-clock budget of a run of train in milliseconds, 0 for none.
+	 */
+	public void setTimeBudget(long millis)
+	{
+		if (millis < 0)
+		{
+			throw new IllegalArgumentException("Time budget must be at least 0: " + millis);
+		}
+		
+		this.timeBudgetMillis = millis;
+	}
+	
+	/**
+	 * Stop train once the accuracy evaluated after an epoch reaches the target.
+	 * @param accuracy Target accuracy as a fraction, 0 for none.
+	 */
+	public void setTargetAccuracy(double accuracy)
+	{
+		if (!(accuracy >= 0 && accuracy <= 1))
+		{
+			throw new IllegalArgumentException("Target accuracy must be at least 0 and at most 1: " + accuracy);
+		}
+		
+		this.targetAccuracy = accuracy;
+	}
+	
+	/**
+	 * When train ends, go back to the weights of the epoch with the best monitored metric (see setEarlyStopping).
+	 * The weights are copied every time the metric improves.
+	 * @param restore
+	 */
+	public void setRestoreBestWeights(boolean restore)
+	{
+		this.restoreBestWeights = restore;
+	}
+	
+	/**
+	 * Save checkpoints while training, see Checkpointer. The checkpointer is not saved with the network.
+	 * @param checkpointer The checkpointer, or null to stop checkpointing.
+	 */
+	public void setCheckpointer(Checkpointer checkpointer)
+	{
+		this.checkpointer = checkpointer;
+	}
+	
+	public Checkpointer getCheckpointer()
+	{
+		return checkpointer;
+	}
+	
+	/**
+	 * @param learningRate The learning rate to give the copy, the base rate when a schedule is changing it.
+	 * @return A copy of the network's parameters, activations and optimizer state, with the same settings, for a checkpoint.
+	 */
+	NeuralNet snapshot(double learningRate)
+	{
+		NeuralNet copy = new NeuralNet(copyOf(weights), copyOf(biases), learningRate, batchSize, numEpochs);
+		copy.activations = activations == null ? null : activations.clone();
+		copy.optimizer = getOptimizer().copy();
+		return copy;
+	}
+	
+	/**
+	 * Set how train varies the learning rate from epoch to epoch. The learning rate set with setLearningRate is the base rate.
+	 * @param schedule
+	 */
+	public void setLearningRateSchedule(LearningRateSchedule schedule)
+	{
+		if (schedule == null)
+		{
+			throw new IllegalArgumentException("Learning rate schedule must not be null");
+		}
+		
+		this.schedule = schedule;
+	}
+	
+	/**
+	 * @return The learning rate schedule, constant unless another was set.
+	 */
+	public LearningRateSchedule getLearningRateSchedule()
+	{
+		if (schedule == null)
+		{
+			schedule = LearningRateSchedule.constant();
+		}
+		return schedule;
+	}
+	
+	/**
+	 * Set the activation function of one layer. The output layer's activation also chooses the cost it is trained on:
+	 * cross-entropy for SOFTMAX, otherwise the quadratic cost. ReLU and tanh layers usually need a smaller
+	 * learning rate than the sigmoid's default, see setLearningRate.
+	 * @param layer The layer (not including input layer), from 0 to getLayerSizes().length - 2
+	 * @param activation SOFTMAX is only allowed on the output layer.
+	 */
+	public void setActivation(int layer, Activation activation)
+	{
+		if (layer < 0 || layer >= numLayers)
+		{
+			throw new IndexOutOfBoundsException("Layer " + layer + " of " + numLayers);
+		}
+		if (activation == Activation.SOFTMAX && layer != numLayers - 1)
+		{
+			throw new IllegalArgumentException("Softmax is only supported on the output layer");
+		}
+		
+		if (activations == null)
+		{
+			activations = new Activation[numLayers];
+			Arrays.fill(activations, Activation.SIGMOID);
+		}
+		activations[layer] = activation;
+	}
+	
+	/**
+	 * Set the activation function of every hidden layer, and of the output layer.
+	 * @param hidden
+	 * @param output
+	 */
+	public void setActivations(Activation hidden, Activation output)
+	{
+		for(int layer = 0; layer < numLayers - 1; layer++)
+		{
+			setActivation(layer, hidden);
+		}
+		setActivation(numLayers - 1, output);
+	}
+	
+	/**
+	 * @param layer The layer (not including input layer)
+	 * @return The activation function of that layer.
+	 */
+	public Activation getActivation(int layer)
+	{
+		if (layer < 0 || layer >= numLayers)
+		{
+			throw new IndexOutOfBoundsException("Layer " + layer + " of " + numLayers);
+		}
+		return activations == null ? Activation.SIGMOID : activations[layer];
+	}
+	
+	/**
+	 * Set how gradients become weight updates. The optimizer's state is kept with the network and saved with it.
+	 * @param optimizer A new optimizer, or one from another network to carry its state over.
+	 */
+	public void setOptimizer(Optimizer optimizer)
+	{
+		if (optimizer == null)
+		{
+			throw new IllegalArgumentException("Optimizer must not be null");
+		}
+		
+		this.optimizer = optimizer;
+	}
+	
+	/**
+	 * @return The optimizer, plain SGD unless another was set.
+	 */
+	public Optimizer getOptimizer()
+	{
+		if (optimizer == null)
+		{
+			optimizer = Optimizer.sgd();
+		}
+		return optimizer;
+	}
+	
+	/**
+	 * Set the step size of gradient descent.
+	 * @param learningRate
+	 */
+	public void setLearningRate(double learningRate)
+	{
+		if (!(learningRate > 0))
+		{
+			throw new IllegalArgumentException("Learning rate must be positive: " + learningRate);
+		}
+		
+		this.learningRate = learningRate;
+	}
+	
+	/**
+	 * Set the number of samples in each mini-batch.
+	 * @param batchSize
+	 */
+	public void setBatchSize(int batchSize)
+	{
+		if (batchSize < 1)
+		{
+			throw new IllegalArgumentException("Batch size must be at least 1: " + batchSize);
+		}
+		
+		this.batchSize = batchSize;
+	}
+	
+	public int getBatchSize()
+	{
+		return batchSize;
+	}
+	
+	public double getLearningRate()
+	{
+		return learningRate;
+	}
+	
+	/**
+	 * Set the largest number of epochs train runs, which it may stop short of (see setEarlyStopping).
+	 * @param numEpochs
+	 */
+	public void setNumEpochs(int numEpochs)
+	{
+		if (numEpochs < 1)
+		{
+			throw new IllegalArgumentException("Number of epochs must be at least 1: " + numEpochs);
+		}
+		
+		this.numEpochs = numEpochs;
+	}
+	
+	public int getNumEpochs()
+	{
+		return numEpochs;
+	}
+	
+	/**
+	 * @param layer Layer, not including the input layer.
+	 * @return The layer's weights in form to, from. Not a copy.
+	 */
+	Matrix getWeights(int layer)
+	{
+		return weights[layer];
+	}
+	
+	/**
+	 * @param layer Layer, not including the input layer.
+	 * @return The layer's bias vector. Not a copy.
+	 */
+	Matrix getBiases(int layer)
+	{
+		return biases[layer];
+	}
+	
+	/**
+	 * Converts the weights and biases to the given precision, for example to run a saved double
+	 * precision network in single precision. Narrowing to FLOAT rounds every weight to the nearest float.
+	 * @param precision
+	 */
+	public synchronized void setPrecision(Precision precision)
+	{
+		for(int layer = 0; layer < numLayers; layer++)
+		{
+			weights[layer] = weights[layer].toPrecision(precision);
+			biases[layer] = biases[layer].toPrecision(precision);
+		}
+		
+		this.precision = precision;
+		getOptimizer().setPrecision(precision);
+		workspace = null;
+		workerSpaces = null;
+	}
+	
+	public Precision getPrecision()
+	{
+		return precision == null ? Precision.DOUBLE : precision;
+	}
+	
+	/**
+	 * @return The number of nodes in each layer, including the input layer.
+	 */
+	public int[] getLayerSizes()
+	{
+		int[] sizes = new int[numLayers + 1];
+		
+		sizes[0] = weights[0].getWidth();
+		for(int layer = 0; layer < numLayers; layer++)
+		{
+			sizes[layer + 1] = weights[layer].getHeight();
+		}
+		
+		return sizes;
+	}
+
+	/**
+	 * Obtain facts about the network,
+	 * currently just the number of layers and the size of the hidden layers
+	 * @return A string (to be printed) with all the fun facts you want,
+	 * I guess.
+	 */
+	public String getStuff() {
+		StringBuilder layers = new StringBuilder();
+		for(int layer = 0; layer < numLayers; layer++)
+		{
+			layers.append(layer == 0 ? "" : ", ").append(getActivation(layer));
+		}
+		return "Number of layers (including input layer): " + (numLayers + 1) + "\nSize of hidden layers: " + nodesInHL + "\nPrecision: " + getPrecision()
+				+ "\nActivations: " + layers + "\nOptimizer: " + getOptimizer();
 	}
 }
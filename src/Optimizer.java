@@ -0,0 +1,356 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: How a NeuralNet turns each mini-batch's gradients into a weight update, see NeuralNet.setOptimizer.
+ * Plain SGD keeps no state. The others keep one or two state matrices the shape of every weight and bias matrix,
+ * allocated on the first step and then updated in place, together with the parameters, in one fused pass per matrix
+ * (see MatrixUtil.momentumUpdate, rmspropUpdate and adamUpdate). The state is saved with the network, so training
+ * can be resumed exactly where it stopped.
+ *
+ * The learning rate stays a setting of the network. Adaptive methods want much smaller rates than the sigmoid
+ * network's default of 3: around 0.001 for Adam and RMSProp.
+**/
+
+import java.io.Serializable;
+
+public final class Optimizer implements Serializable {
+	private static final long serialVersionUID = 1L;
+	
+	public enum Method {
+		// w -= lr * g
+		SGD(0, 0),
+		// Heavy ball momentum, v = mu * v + g, w -= lr * v
+		MOMENTUM(1, 1),
+		// Nesterov momentum, v = mu * v + g, w -= lr * (g + mu * v)
+		NESTEROV(2, 1),
+		// Scales each parameter's step by a running root mean square of its gradient
+		RMSPROP(3, 1),
+		// Running first and second moments of the gradient with bias correction
+		ADAM(4, 2);
+		
+		private final int code;
+		private final int slots;
+		
+		Method(int code, int slots)
+		{
+			this.code = code;
+			this.slots = slots;
+		}
+		
+		/**
+		 * @return The number that stands for this method in saved models. Never changes.
+		 */
+		public int getCode()
+		{
+			return code;
+		}
+		
+		/**
+		 * @return Number of state matrices kept per parameter matrix.
+		 */
+		public int getSlots()
+		{
+			return slots;
+		}
+		
+		public static Method fromCode(int code)
+		{
+			for(Method method : values())
+			{
+				if (method.code == code)
+				{
+					return method;
+				}
+			}
+			throw new IllegalArgumentException("Unknown optimizer code " + code);
+		}
+	}
+	
+	private static final double DEFAULT_EPSILON = 1e-8;
+	
+	private final Method method;
+	// Momentum coefficient, RMSProp decay, or Adam's first moment decay
+	private final double beta1;
+	// Adam's second moment decay
+	private final double beta2;
+	private final double epsilon;
+	
+	// Number of updates made, for Adam's bias correction
+	private long steps;
+	// In form slot, parameter matrix, where parameter matrix 2 * layer is a layer's weights and 2 * layer + 1 its biases. Null until the first step.
+	private Matrix[][] state;
+	
+	Optimizer(Method method, double beta1, double beta2, double epsilon)
+	{
+		this.method = method;
+		this.beta1 = beta1;
+		this.beta2 = beta2;
+		this.epsilon = epsilon;
+	}
+	
+	/**
+	 * @return Plain stochastic gradient descent, the original update.
+	 */
+	public static Optimizer sgd()
+	{
+		return new Optimizer(Method.SGD, 0, 0, 0);
+	}
+	
+	/**
+	 * @param mu Momentum coefficient, typically 0.9.
+	 */
+	public static Optimizer momentum(double mu)
+	{
+		return new Optimizer(Method.MOMENTUM, checkDecay(mu), 0, 0);
+	}
+	
+	/**
+	 * @param mu Momentum coefficient, typically 0.9.
+	 */
+	public static Optimizer nesterov(double mu)
+	{
+		return new Optimizer(Method.NESTEROV, checkDecay(mu), 0, 0);
+	}
+	
+	/**
+	 * @param rho Decay of the running mean square, typically 0.9.
+	 */
+	public static Optimizer rmsprop(double rho)
+	{
+		return new Optimizer(Method.RMSPROP, checkDecay(rho), 0, DEFAULT_EPSILON);
+	}
+	
+	/**
+	 * @return Adam with the usual decays of 0.9 and 0.999.
+	 */
+	public static Optimizer adam()
+	{
+		return adam(0.9, 0.999);
+	}
+	
+	/**
+	 * @param beta1 Decay of the first moment
+	 * @param beta2 Decay of the second moment
+	 */
+	public static Optimizer adam(double beta1, double beta2)
+	{
+		return new Optimizer(Method.ADAM, checkDecay(beta1), checkDecay(beta2), DEFAULT_EPSILON);
+	}
+	
+	private static double checkDecay(double decay)
+	{
+		if (!(decay >= 0 && decay < 1))
+		{
+			throw new IllegalArgumentException("Decay must be at least 0 and less than 1: " + decay);
+		}
+		return decay;
+	}
+	
+	public Method getMethod()
+	{
+		return method;
+	}
+	
+	double getBeta1()
+	{
+		return beta1;
+	}
+	
+	double getBeta2()
+	{
+		return beta2;
+	}
+	
+	double getEpsilon()
+	{
+		return epsilon;
+	}
+	
+	/**
+	 * @return Number of updates made since the optimizer was created or reset.
+	 */
+	public long getSteps()
+	{
+		return steps;
+	}
+	
+	/**
+	 * Forget the state, so the next update starts from zero moments, as for a new network.
+	 */
+	public void reset()
+	{
+		steps = 0;
+		state = null;
+	}
+	
+	/**
+	 * Updates every weight and bias matrix from its summed gradient.
+	 * @param weights
+	 * @param biases
+	 * @param weightGradients Gradients summed over the batch, in the same form as weights
+	 * @param biasGradients Gradients summed over the batch, in the same form as biases
+	 * @param learningRate
+	 * @param size Number of samples in the batch, which the gradients are divided by
+	 */
+	void update(Matrix[] weights, Matrix[] biases, Matrix[] weightGradients, Matrix[] biasGradients, double learningRate, int size)
+	{
+		steps++;
+		if (method == Method.SGD)
+		{
+			// w_i = w_(i-1) + (-learningRate / batchSize) * gradient
+			double step = -learningRate / size;
+			for(int i = 0; i < weights.length; i++)
+			{
+				MatrixUtil.axpy(step, weightGradients[i], weights[i]);
+				MatrixUtil.axpy(step, biasGradients[i], biases[i]);
+			}
+			return;
+		}
+		
+		allocate(weights, biases);
+		for(int i = 0; i < weights.length; i++)
+		{
+			update(weightGradients[i], 2 * i, weights[i], learningRate, size);
+			update(biasGradients[i], 2 * i + 1, biases[i], learningRate, size);
+		}
+	}
+	
+	private void update(Matrix g, int index, Matrix w, double learningRate, int size)
+	{
+		double scale = 1.0 / size;
+		switch (method)
+		{
+			case MOMENTUM:
+			case NESTEROV:
+				MatrixUtil.momentumUpdate(scale, beta1, learningRate, method == Method.NESTEROV, g, state[0][index], w);
+				break;
+			case RMSPROP:
+				MatrixUtil.rmspropUpdate(scale, beta1, learningRate, epsilon, g, state[0][index], w);
+				break;
+			default:
+				MatrixUtil.adamUpdate(scale, beta1, beta2, learningRate, epsilon, steps, g, state[0][index], state[1][index], w);
+		}
+	}
+	
+	/**
+	 * Creates zeroed state matrices on the first step, or again if the network's shape or precision has changed.
+	 */
+	private void allocate(Matrix[] weights, Matrix[] biases)
+	{
+		if (state != null && fits(weights, biases))
+		{
+			return;
+		}
+		
+		state = new Matrix[method.getSlots()][2 * weights.length];
+		for(int slot = 0; slot < state.length; slot++)
+		{
+			for(int i = 0; i < weights.length; i++)
+			{
+				state[slot][2 * i] = new Matrix(weights[i].getHeight(), weights[i].getWidth(), weights[i].getPrecision());
+				state[slot][2 * i + 1] = new Matrix(biases[i].getHeight(), biases[i].getWidth(), biases[i].getPrecision());
+			}
+		}
+	}
+	
+	private boolean fits(Matrix[] weights, Matrix[] biases)
+	{
+		if (state.length != method.getSlots() || (state.length > 0 && state[0].length != 2 * weights.length))
+		{
+			return false;
+		}
+		for(Matrix[] slot : state)
+		{
+			for(int i = 0; i < weights.length; i++)
+			{
+				if (!sameShape(slot[2 * i], weights[i]) || !sameShape(slot[2 * i + 1], biases[i]))
+				{
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+	
+	private static boolean sameShape(Matrix a, Matrix b)
+	{
+		return a.getHeight() == b.getHeight() && a.getWidth() == b.getWidth() && a.getPrecision() == b.getPrecision();
+	}
+	
+	/**
+	 * Converts the state to another precision, along with the network's parameters.
+	 * @param precision
+	 */
+	void setPrecision(Precision precision)
+	{
+		if (state == null)
+		{
+			return;
+		}
+		for(Matrix[] slot : state)
+		{
+			for(int i = 0; i < slot.length; i++)
+			{
+				slot[i] = slot[i].toPrecision(precision);
+			}
+		}
+	}
+	
+	/**
+	 * @return The state matrices, in form slot, parameter matrix, or null if no step has been taken.
+	 */
+	Matrix[][] getState()
+	{
+		return state;
+	}
+	
+	/**
+	 * Restores state read from a saved model.
+	 * @param steps
+	 * @param state In form slot, parameter matrix, or null for none.
+	 */
+	void setState(long steps, Matrix[][] state)
+	{
+		this.steps = steps;
+		this.state = state;
+	}
+	
+	/**
+	 * @return An optimizer with the same settings and a copy of this one's state, for a checkpoint.
+	 */
+	Optimizer copy()
+	{
+		Optimizer copy = new Optimizer(method, beta1, beta2, epsilon);
+		copy.steps = steps;
+		if (state != null)
+		{
+			copy.state = new Matrix[state.length][];
+			for(int slot = 0; slot < state.length; slot++)
+			{
+				copy.state[slot] = new Matrix[state[slot].length];
+				for(int i = 0; i < state[slot].length; i++)
+				{
+					copy.state[slot][i] = state[slot][i].copy();
+				}
+			}
+		}
+		return copy;
+	}
+	
+	@Override
+	public String toString()
+	{
+		switch (method)
+		{
+			case SGD:
+				return "SGD";
+			case MOMENTUM:
+				return "Momentum(" + beta1 + ")";
+			case NESTEROV:
+				return "Nesterov(" + beta1 + ")";
+			case RMSPROP:
+				return "RMSProp(" + beta1 + ")";
+			default:
+				return "Adam(" + beta1 + ", " + beta2 + ")";
+		}
+	}
+}
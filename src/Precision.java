@@ -0,0 +1,11 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: The element type a Matrix stores, and that a NeuralNet trains and predicts in.
+**/
+
+public enum Precision {
+	// 64-bit double elements, the original storage
+	DOUBLE,
+	// 32-bit float elements, half the memory traffic and twice the SIMD lanes
+	FLOAT
+}
@@ -0,0 +1,135 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Checks that a single precision network classifies MNIST as well as its double precision original.
+ * Given a saved network, converts a copy to single precision; given a training CSV instead, trains a double and
+ * a single precision network from the same initial weights. Either way both are scored on the test set, and the
+ * check fails (exit status 1) if their accuracies differ by more than TOLERANCE.
+ * Usage: java PrecisionCheck <test.csv> <network.nnm | network.ser | train.csv> [converted.nnm]
+ * Datasets may also be in the binary format written by ConvertDataset.
+ * The single precision network is saved to converted.nnm when given, which is how saved double networks are converted.
+**/
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PrecisionCheck {
+	// Largest accepted difference in test accuracy, as a fraction
+	static final double TOLERANCE = 0.005;
+	private static final int BATCH_SIZE = 10;
+	
+	public static void main(String[] args) throws IOException, ClassNotFoundException
+	{
+		if (args.length < 2)
+		{
+			System.out.println("Usage: java PrecisionCheck <test.csv> <network.nnm | network.ser | train.csv> [converted.nnm]");
+			System.exit(2);
+		}
+		
+		IOManager io = new IOManager();
+		ArrayList<Matrix[]> test = new ArrayList<>();
+		io.loadDataset(args[0], test);
+		
+		NeuralNet doubleNet;
+		NeuralNet floatNet;
+		if (!args[1].endsWith(".ser") && !io.isModel(args[1]))
+		{
+			ArrayList<Matrix[]> train = new ArrayList<>();
+			io.loadDataset(args[1], train);
+			
+			doubleNet = new NeuralNet(28 * 28, 10, 2, 30, Precision.DOUBLE);
+			floatNet = new NeuralNet(28 * 28, 10, 2, 30, Precision.FLOAT);
+			trainOneEpoch(doubleNet, train);
+			trainOneEpoch(floatNet, train);
+		}
+		else
+		{
+			doubleNet = io.load(args[1]);
+			floatNet = io.load(args[1]);
+			doubleNet.setPrecision(Precision.DOUBLE);
+			floatNet.setPrecision(Precision.FLOAT);
+		}
+		
+		Comparison result = compare(doubleNet, floatNet, test);
+		System.out.println("Kernels: " + MatrixUtil.getKernelName());
+		System.out.println("DOUBLE accuracy: " + result.doubleCorrect + " / " + result.total + " = " + result.getDoubleAccuracy());
+		System.out.println("FLOAT accuracy: " + result.floatCorrect + " / " + result.total + " = " + result.getFloatAccuracy());
+		System.out.println("Same prediction: " + result.agree + " / " + result.total);
+		System.out.println("Largest output difference: " + result.maxDiff);
+		
+		if (args.length > 2)
+		{
+			io.save(args[2], floatNet);
+			System.out.println("Saved single precision network to " + args[2]);
+		}
+		
+		boolean pass = result.passes();
+		System.out.println(pass ? "PASS" : "FAIL: accuracy differs by more than " + TOLERANCE);
+		System.exit(pass ? 0 : 1);
+	}
+	
+	/**
+	 * How a double and a single precision network compare on a test set.
+	 */
+	static final class Comparison {
+		int total;
+		int doubleCorrect;
+		int floatCorrect;
+		int agree;
+		double maxDiff;
+		
+		double getDoubleAccuracy()
+		{
+			return (double)doubleCorrect / total;
+		}
+		
+		double getFloatAccuracy()
+		{
+			return (double)floatCorrect / total;
+		}
+		
+		/**
+		 * @return Whether the accuracies differ by at most TOLERANCE.
+		 */
+		boolean passes()
+		{
+			return Math.abs(getDoubleAccuracy() - getFloatAccuracy()) <= TOLERANCE;
+		}
+	}
+	
+	/**
+	 * Scores both networks on every sample of test.
+	 */
+	static Comparison compare(NeuralNet doubleNet, NeuralNet floatNet, List<Matrix[]> test)
+	{
+		Comparison result = new Comparison();
+		result.total = test.size();
+		for(Matrix[] datum : test)
+		{
+			Matrix p = doubleNet.getPrediction(datum[0]);
+			Matrix q = floatNet.getPrediction(datum[0]);
+			int label = MatrixUtil.maxElement(datum[1]);
+			
+			result.doubleCorrect += MatrixUtil.maxElement(p) == label ? 1 : 0;
+			result.floatCorrect += MatrixUtil.maxElement(q) == label ? 1 : 0;
+			result.agree += MatrixUtil.maxElement(p) == MatrixUtil.maxElement(q) ? 1 : 0;
+			for(int i = 0; i < p.getHeight(); i++)
+			{
+				result.maxDiff = Math.max(result.maxDiff, Math.abs(p.getElement(i, 0) - q.getElement(i, 0)));
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Train for one epoch over the data in its file order, so both networks see the same batches.
+	 */
+	static void trainOneEpoch(NeuralNet net, List<Matrix[]> train)
+	{
+		net.setBatchSize(BATCH_SIZE);
+		for(int from = 0; from < train.size(); from += BATCH_SIZE)
+		{
+			net.trainBatch(train.subList(from, Math.min(from + BATCH_SIZE, train.size())));
+		}
+	}
+}
@@ -0,0 +1,168 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Quantizes a saved network to int8 (see QuantizedEngine), calibrating on a random sample of the training data,
+ * and reports how it compares with the original double precision network on the test set: the accuracy of each, how
+ * often they agree, the memory the weights take, and the time per prediction of QuantizedEngine.classify against
+ * NeuralNet.getPrediction. The check fails (exit status 1) if the accuracy drops by more than TOLERANCE.
+ * Usage: java QuantizeModel <network.nnm | network.ser> <train.csv> <test.csv> [calibration samples]
+ * Datasets may also be in the binary format written by ConvertDataset.
+**/
+
+import java.io.IOException;
+import java.util.Random;
+
+public class QuantizeModel {
+	// Largest accepted drop in test accuracy, as a fraction
+	static final double TOLERANCE = 0.01;
+	private static final int CALIBRATION_SAMPLES = 1000;
+	// Passes over the test set timed for each path, after one untimed pass to warm up
+	private static final int TIMED_PASSES = 3;
+	
+	public static void main(String[] args) throws IOException, ClassNotFoundException
+	{
+		if (args.length < 3)
+		{
+			System.out.println("Usage: java QuantizeModel <network.nnm | network.ser> <train.csv> <test.csv> [calibration samples]");
+			System.exit(2);
+		}
+		
+		IOManager io = new IOManager();
+		NeuralNet net = io.load(args[0]);
+		Dataset train = io.openDataset(args[1]);
+		Dataset test = io.openDataset(args[2]);
+		int samples = args.length > 3 ? Integer.parseInt(args[3]) : CALIBRATION_SAMPLES;
+		
+		long start = System.nanoTime();
+		QuantizedEngine engine = QuantizedEngine.quantize(net, train, samples, new Random(1));
+		double quantizeMillis = (System.nanoTime() - start) / 1e6;
+		
+		// Every test sample, both as the column the network takes and as the array the engine takes
+		Matrix[] columns = new Matrix[test.size()];
+		float[][] arrays = new float[test.size()][];
+		int[] labels = new int[test.size()];
+		Matrix targets = new Matrix(test.getNumClasses(), 1, net.getPrecision());
+		for(int i = 0; i < test.size(); i++)
+		{
+			columns[i] = new Matrix(test.getNumFeatures(), 1, net.getPrecision());
+			test.copyTo(i, columns[i], targets, 0);
+			arrays[i] = new float[test.getNumFeatures()];
+			for(int j = 0; j < arrays[i].length; j++)
+			{
+				arrays[i][j] = (float)columns[i].getElement(j, 0);
+			}
+			labels[i] = test.getLabel(i);
+		}
+		
+		Comparison result = compare(net, engine, columns, arrays, labels);
+		
+		double netNanos = 0, quantNanos = 0;
+		for(int pass = 0; pass <= TIMED_PASSES; pass++)
+		{
+			start = System.nanoTime();
+			for(Matrix column : columns)
+			{
+				net.getPrediction(column);
+			}
+			double netPass = System.nanoTime() - start;
+			
+			start = System.nanoTime();
+			for(float[] array : arrays)
+			{
+				engine.classify(array);
+			}
+			double quantPass = System.nanoTime() - start;
+			
+			if (pass > 0)
+			{
+				netNanos += netPass / TIMED_PASSES / columns.length;
+				quantNanos += quantPass / TIMED_PASSES / columns.length;
+			}
+		}
+		
+		long netBytes = parameterBytes(net);
+		
+		System.out.println("Kernels: " + MatrixUtil.getKernelName());
+		System.out.printf("Quantized in %.1f ms, calibrated on %d samples%n", quantizeMillis, Math.min(samples, train.size()));
+		System.out.println(net.getPrecision() + " accuracy: " + result.netCorrect + " / " + result.total + " = " + result.getNetAccuracy());
+		System.out.println("INT8 accuracy: " + result.quantizedCorrect + " / " + result.total + " = " + result.getQuantizedAccuracy());
+		System.out.println("Same prediction: " + result.agree + " / " + result.total);
+		System.out.printf("Parameters: %d bytes %s, %d bytes int8 (%.1fx smaller)%n", netBytes, net.getPrecision(),
+				engine.getParameterBytes(), (double)netBytes / engine.getParameterBytes());
+		System.out.printf("Time per prediction: %.0f ns getPrediction, %.0f ns int8 classify (%.1fx faster)%n",
+				netNanos, quantNanos, netNanos / quantNanos);
+		
+		boolean pass = result.passes();
+		System.out.println(pass ? "PASS" : "FAIL: accuracy dropped by more than " + TOLERANCE);
+		System.exit(pass ? 0 : 1);
+	}
+	
+	/**
+	 * How a quantized engine compares with the network it was built from on a test set.
+	 */
+	static final class Comparison {
+		int total;
+		int netCorrect;
+		int quantizedCorrect;
+		int agree;
+		
+		double getNetAccuracy()
+		{
+			return (double)netCorrect / total;
+		}
+		
+		double getQuantizedAccuracy()
+		{
+			return (double)quantizedCorrect / total;
+		}
+		
+		double getAgreement()
+		{
+			return (double)agree / total;
+		}
+		
+		/**
+		 * @return Whether the accuracy dropped by at most TOLERANCE.
+		 */
+		boolean passes()
+		{
+			return getNetAccuracy() - getQuantizedAccuracy() <= TOLERANCE;
+		}
+	}
+	
+	/**
+	 * Classifies every test sample with both the network and the engine.
+	 * @param net
+	 * @param engine
+	 * @param columns The samples as the columns the network takes
+	 * @param arrays The same samples as the arrays the engine takes
+	 * @param labels Their classes
+	 */
+	static Comparison compare(NeuralNet net, QuantizedEngine engine, Matrix[] columns, float[][] arrays, int[] labels)
+	{
+		Comparison result = new Comparison();
+		result.total = columns.length;
+		for(int i = 0; i < columns.length; i++)
+		{
+			int p = MatrixUtil.maxElement(net.getPrediction(columns[i]));
+			int q = engine.classify(arrays[i]);
+			result.netCorrect += p == labels[i] ? 1 : 0;
+			result.quantizedCorrect += q == labels[i] ? 1 : 0;
+			result.agree += p == q ? 1 : 0;
+		}
+		return result;
+	}
+	
+	/**
+	 * @return The memory the network's weights and biases take, for comparison with QuantizedEngine.getParameterBytes.
+	 */
+	static long parameterBytes(NeuralNet net)
+	{
+		long bytes = 0;
+		for(int layer = 0; layer < net.getLayerSizes().length - 1; layer++)
+		{
+			int elementBytes = net.getPrecision() == Precision.FLOAT ? 4 : 8;
+			bytes += (long)elementBytes * (net.getWeights(layer).getHeight() * net.getWeights(layer).getWidth() + net.getBiases(layer).getHeight());
+		}
+		return bytes;
+	}
+}
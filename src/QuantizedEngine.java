@@ -0,0 +1,287 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Serves predictions from a trained network whose weights are quantized to int8 after training,
+ * an eighth of the memory of double weights. Each row of a weight matrix (one node's incoming weights) has its own
+ * scale, its largest magnitude over 127, so a row of small weights keeps its precision. Each layer's input is
+ * quantized with a scale calibrated on a sample of the training data: the largest magnitude the double precision
+ * network produced there. A layer is then an int8 matrix-vector product accumulated exactly in int32, scaled back to
+ * float by the row scale times the input scale, plus a float bias, followed by the layer's activation in float.
+ *
+ * Like InferenceEngine it is immutable, and each thread reuses its own buffers, so classify and predict allocate
+ * nothing per call. Inputs beyond the calibrated range are clamped.
+**/
+
+import java.util.Random;
+
+public class QuantizedEngine {
+	private static final Kernels KERNELS = Kernels.get();
+	// Largest magnitude of an int8 value; -128 is left unused so that the range is symmetric
+	private static final int QMAX = 127;
+	// Longest row Kernels.dot(byte[]...) accumulates without overflow
+	private static final int MAX_ROW = 1 << 17;
+	// Samples fed forward at once during calibration
+	private static final int CALIBRATION_BATCH = 256;
+	
+	private final int[] layerSizes;
+	private final int maxLayerSize;
+	// In form Layer, to * from, row-major like NeuralNet's weights
+	private final byte[][] weights;
+	// In form Layer, to: the row's weight scale times the layer's input scale, which turns an int32 sum back into a float
+	private final float[][] outputScales;
+	// In form Layer, to
+	private final float[][] biases;
+	// What each layer's input is divided by to quantize it
+	private final float[] inputScales;
+	private final Activation[] activations;
+	
+	private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+	
+	/**
+	 * Quantizes a network, calibrating on a random sample of a dataset.
+	 * @param net A trained network. It must not be training while it is quantized.
+	 * @param calibration Data like that the network will see, normally the training data.
+	 * @param samples Number of samples to calibrate on.
+	 * @param random Chooses the samples.
+	 * @return The quantized engine.
+	 */
+	public static QuantizedEngine quantize(NeuralNet net, Dataset calibration, int samples, Random random)
+	{
+		if (samples < 1)
+		{
+			throw new IllegalArgumentException("Calibration samples must be at least 1: " + samples);
+		}
+		return new QuantizedEngine(net, calibrate(net, calibration, Evaluator.subsample(calibration.size(), samples, random)));
+	}
+	
+	/**
+	 * @param net A trained network.
+	 * @param inputRanges Largest magnitude of each layer's input, see calibrate.
+	 */
+	QuantizedEngine(NeuralNet net, double[] inputRanges)
+	{
+		this.layerSizes = net.getLayerSizes();
+		int numLayers = layerSizes.length - 1;
+		if (inputRanges.length != numLayers)
+		{
+			throw new IllegalArgumentException("Expected " + numLayers + " input ranges, got " + inputRanges.length);
+		}
+		
+		weights = new byte[numLayers][];
+		outputScales = new float[numLayers][];
+		biases = new float[numLayers][];
+		inputScales = new float[numLayers];
+		activations = new Activation[numLayers];
+		int max = 0;
+		for(int layer = 0; layer < numLayers; layer++)
+		{
+			Matrix w = net.getWeights(layer);
+			int rows = w.getHeight(), cols = w.getWidth();
+			if (cols >= MAX_ROW)
+			{
+				throw new IllegalArgumentException("Layer " + layer + " has " + cols + " inputs, more than int32 accumulation allows");
+			}
+			
+			inputScales[layer] = inputRanges[layer] > 0 ? (float)(inputRanges[layer] / QMAX) : 1;
+			weights[layer] = new byte[rows * cols];
+			outputScales[layer] = new float[rows];
+			biases[layer] = new float[rows];
+			for(int i = 0; i < rows; i++)
+			{
+				double largest = 0;
+				for(int j = 0; j < cols; j++)
+				{
+					largest = Math.max(largest, Math.abs(w.getElement(i, j)));
+				}
+				double scale = largest > 0 ? largest / QMAX : 1;
+				for(int j = 0; j < cols; j++)
+				{
+					weights[layer][i * cols + j] = (byte)Math.round(w.getElement(i, j) / scale);
+				}
+				outputScales[layer][i] = (float)(scale * inputScales[layer]);
+				biases[layer][i] = (float)net.getBiases(layer).getElement(i, 0);
+			}
+			activations[layer] = net.getActivation(layer);
+		}
+		for(int size : layerSizes)
+		{
+			max = Math.max(max, size);
+		}
+		maxLayerSize = max;
+	}
+	
+	/**
+	 * Feeds samples of the dataset forward through the network, in its own precision, and records the
+	 * largest magnitude of every layer's input.
+	 * @param net
+	 * @param data
+	 * @param indices The samples, or null for all of them.
+	 * @return The largest magnitude of the input of each layer, not including the output of the last.
+	 */
+	static double[] calibrate(NeuralNet net, Dataset data, int[] indices)
+	{
+		int numLayers = net.getLayerSizes().length - 1;
+		int size = indices == null ? data.size() : indices.length;
+		int width = Math.max(1, Math.min(CALIBRATION_BATCH, size));
+		Matrix inputs = new Matrix(data.getNumFeatures(), width, net.getPrecision());
+		Matrix targets = new Matrix(data.getNumClasses(), width, net.getPrecision());
+		Matrix[] outputs = new Matrix[numLayers];
+		for(int layer = 0; layer < numLayers; layer++)
+		{
+			outputs[layer] = new Matrix(net.getLayerSizes()[layer + 1], width, net.getPrecision());
+		}
+		
+		double[] ranges = new double[numLayers];
+		for(int start = 0; start < size; start += width)
+		{
+			int n = Math.min(width, size - start);
+			Matrix a = n == width ? inputs : inputs.columns(0, n);
+			Matrix y = n == width ? targets : targets.columns(0, n);
+			for(int j = 0; j < n; j++)
+			{
+				data.copyTo(indices == null ? start + j : indices[start + j], a, y, j);
+			}
+			
+			for(int layer = 0; layer < numLayers; layer++)
+			{
+				ranges[layer] = Math.max(ranges[layer], largestMagnitude(a));
+				Matrix out = n == width ? outputs[layer] : outputs[layer].columns(0, n);
+				a = MatrixUtil.affine(net.getWeights(layer), a, net.getBiases(layer), net.getActivation(layer), out);
+			}
+		}
+		return ranges;
+	}
+	
+	private static double largestMagnitude(Matrix a)
+	{
+		double largest = 0;
+		for(int i = 0; i < a.getHeight(); i++)
+		{
+			for(int j = 0; j < a.getWidth(); j++)
+			{
+				largest = Math.max(largest, Math.abs(a.getElement(i, j)));
+			}
+		}
+		return largest;
+	}
+	
+	/**
+	 * @return Length of every input vector.
+	 */
+	public int getNumInputs()
+	{
+		return layerSizes[0];
+	}
+	
+	/**
+	 * @return Length of every output vector, the number of classes.
+	 */
+	public int getNumClasses()
+	{
+		return layerSizes[layerSizes.length - 1];
+	}
+	
+	/**
+	 * @return Bytes taken by the weights and their scales, and the biases.
+	 */
+	public long getParameterBytes()
+	{
+		long bytes = 0;
+		for(int layer = 0; layer < weights.length; layer++)
+		{
+			bytes += weights[layer].length + 4L * outputScales[layer].length + 4L * biases[layer].length;
+		}
+		return bytes;
+	}
+	
+	/**
+	 * @param input One input vector.
+	 * @return The predicted class, the index of the largest output.
+	 */
+	public int classify(float[] input)
+	{
+		float[] output = forward(buffers.get(), input);
+		int best = 0;
+		for(int i = 1; i < output.length; i++)
+		{
+			if (output[i] > output[best])
+			{
+				best = i;
+			}
+		}
+		return best;
+	}
+	
+	/**
+	 * @param input One input vector.
+	 * @param output Receives the network's output, getNumClasses() long.
+	 */
+	public void predict(float[] input, float[] output)
+	{
+		if (output.length != getNumClasses())
+		{
+			throw new ArithmeticException("Output has " + output.length + " elements, expected " + getNumClasses());
+		}
+		System.arraycopy(forward(buffers.get(), input), 0, output, 0, output.length);
+	}
+	
+	/**
+	 * Feeds one input vector forward through every layer.
+	 * @return The output layer's activations, in the thread's buffer.
+	 */
+	private float[] forward(Buffers b, float[] input)
+	{
+		if (input.length != getNumInputs())
+		{
+			throw new ArithmeticException("Input has " + input.length + " elements, expected " + getNumInputs());
+		}
+		
+		float[] x = input;
+		for(int layer = 0; layer < weights.length; layer++)
+		{
+			int rows = layerSizes[layer + 1], cols = layerSizes[layer];
+			
+			// q = round(x / s), clamped to the int8 range
+			float inverse = 1 / inputScales[layer];
+			for(int j = 0; j < cols; j++)
+			{
+				b.quantized[j] = (byte)Math.max(-QMAX, Math.min(QMAX, Math.round(x[j] * inverse)));
+			}
+			
+			// z = (w_q . q) * s_w * s + bias, with the dot product in int32
+			float[] z = b.outputs[layer];
+			byte[] w = weights[layer];
+			float[] scales = outputScales[layer];
+			float[] bias = biases[layer];
+			for(int i = 0; i < rows; i++)
+			{
+				z[i] = KERNELS.dot(w, i * cols, b.quantized, 0, cols) * scales[i] + bias[i];
+			}
+			
+			MatrixUtil.applyActivation(activations[layer], b.views[layer]);
+			x = z;
+		}
+		return x;
+	}
+	
+	/**
+	 * One thread's buffers: the quantized input of the current layer, and the float output of every layer.
+	 */
+	private final class Buffers {
+		final byte[] quantized = new byte[maxLayerSize];
+		final float[][] outputs = new float[weights.length][];
+		// Each layer's output as a matrix for MatrixUtil.applyActivation: a column for SOFTMAX, which works on
+		// columns, otherwise a row, which the element-wise activations treat as one contiguous run
+		final Matrix[] views = new Matrix[weights.length];
+		
+		Buffers()
+		{
+			for(int layer = 0; layer < weights.length; layer++)
+			{
+				int size = layerSizes[layer + 1];
+				outputs[layer] = new float[size];
+				views[layer] = activations[layer] == Activation.SOFTMAX ? new Matrix(outputs[layer], size, 1)
+						: new Matrix(outputs[layer], 1, size);
+			}
+		}
+	}
+}
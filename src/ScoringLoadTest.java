@@ -0,0 +1,137 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Exercises a ScoringServer entirely on localhost: starts one in this process on a free port, then has a
+ * number of client threads post samples from a dataset one request at a time and checks the predicted classes
+ * against a direct InferenceEngine. Prints client-side latency percentiles and the server's own statistics.
+ * Usage: java ScoringLoadTest <network> <dataset> [clients] [requestsPerClient] [maxBatch] [budgetMicros]
+**/
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ScoringLoadTest {
+	public static void main(String[] args) throws IOException, ClassNotFoundException, InterruptedException
+	{
+		if (args.length < 2)
+		{
+			System.out.println("Usage: java ScoringLoadTest <network> <dataset> [clients] [requestsPerClient] [maxBatch] [budgetMicros]");
+			System.exit(2);
+		}
+		
+		IOManager io = new IOManager();
+		InferenceEngine engine = new InferenceEngine(io.load(args[0]));
+		Dataset data = io.openDataset(args[1]);
+		int clients = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+		int requests = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+		int maxBatch = args.length > 4 ? Integer.parseInt(args[4]) : 64;
+		long budget = args.length > 5 ? Long.parseLong(args[5]) : 500;
+		
+		try (ScoringServer server = new ScoringServer(engine, 0, maxBatch, budget)) {
+			Result result = run(server, engine, data, clients, requests);
+			System.out.printf("%d clients x %d requests: %.0f requests/s, client p50 %.1fus, p99 %.1fus, %d mismatches, %d failures%n",
+					clients, requests, result.requestsPerSecond, result.p50Nanos / 1e3, result.p99Nanos / 1e3, result.mismatches, result.failures);
+			System.out.println("Server: " + server.getStats());
+		}
+	}
+	
+	/**
+	 * Outcome of a run.
+	 */
+	static final class Result {
+		int mismatches;
+		int failures;
+		double requestsPerSecond;
+		long p50Nanos;
+		long p99Nanos;
+	}
+	
+	/**
+	 * Has clients threads each post requests samples of data to the server's default model, one request at a time,
+	 * and checks every predicted class against engine.
+	 * @param server Server whose default model computes the same function as engine.
+	 * @param engine
+	 * @param data
+	 * @param clients
+	 * @param requests Requests per client.
+	 * @return Mismatched and failed requests, throughput and client-side latency.
+	 */
+	static Result run(ScoringServer server, InferenceEngine engine, Dataset data, int clients, int requests) throws InterruptedException
+	{
+		// Request bodies, and the classes a direct engine gives them
+		int samples = Math.min(data.size(), clients * requests);
+		String[] bodies = new String[samples];
+		int[] expected = new int[samples];
+		for(int s = 0; s < samples; s++)
+		{
+			Matrix x = data.get(s)[0];
+			StringBuilder body = new StringBuilder();
+			// The same float input the server will parse from the body
+			float[] input = new float[x.getHeight()];
+			for(int i = 0; i < x.getHeight(); i++)
+			{
+				long pixel = Math.round(x.getElement(i, 0) * 255);
+				body.append(i == 0 ? "" : ",").append(pixel);
+				input[i] = (float)(pixel / 255.0);
+			}
+			bodies[s] = body.toString();
+			expected[s] = engine.classify(input);
+		}
+		
+		long[] latencies = new long[clients * requests];
+		AtomicInteger mismatches = new AtomicInteger();
+		AtomicInteger failures = new AtomicInteger();
+		
+		HttpClient http = HttpClient.newHttpClient();
+		URI uri = URI.create("http://localhost:" + server.getPort() + "/predict");
+		
+		Thread[] threads = new Thread[clients];
+		long start = System.nanoTime();
+		for(int c = 0; c < clients; c++)
+		{
+			final int client = c;
+			threads[c] = new Thread(() -> {
+				for(int r = 0; r < requests; r++)
+				{
+					int n = client * requests + r;
+					int s = n % samples;
+					HttpRequest request = HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.ofString(bodies[s])).build();
+					long sent = System.nanoTime();
+					try {
+						HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+						latencies[n] = System.nanoTime() - sent;
+						if (response.statusCode() != 200)
+						{
+							failures.incrementAndGet();
+						}
+						else if (Integer.parseInt(response.body().trim()) != expected[s])
+						{
+							mismatches.incrementAndGet();
+						}
+					} catch (IOException | InterruptedException e) {
+						failures.incrementAndGet();
+					}
+				}
+			});
+			threads[c].start();
+		}
+		for(Thread thread : threads)
+		{
+			thread.join();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		
+		Arrays.sort(latencies);
+		Result result = new Result();
+		result.mismatches = mismatches.get();
+		result.failures = failures.get();
+		result.requestsPerSecond = latencies.length / seconds;
+		result.p50Nanos = latencies[latencies.length / 2];
+		result.p99Nanos = latencies[(int)(latencies.length * 0.99)];
+		return result;
+	}
+}
@@ -0,0 +1,473 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Headless serving mode: loads a saved network and serves predictions over HTTP on localhost,
+ * using the JDK's built-in com.sun.net.httpserver. Models are served from a ModelRegistry, so they can be replaced
+ * while the server runs, and concurrent requests to each model are coalesced into batches by a MicroBatcher.
+ *
+ *   POST /predict          One sample per line, as comma-separated pixel intensities from 0 to 255 like the MNIST CSVs
+ *                          without the label. Responds with one predicted class per line, or with "?scores" the class
+ *                          followed by every output. "?model=name" picks a model other than "default"; a model
+ *                          that is not in the registry, or is removed while the request waits, answers 404.
+ *   GET /stats             Throughput, batch size, queue time and latency percentiles of each model.
+ *   GET /health            "ok".
+ *   GET /models            The current and previous versions of every model.
+ *   POST /models/load      "?file=network.nnm[&name=name]": loads, warms up and publishes a new version.
+ *   POST /models/rollback  "?name=name": goes back to the previous version.
+ *
+ * The two POST /models endpoints are off unless the server is given a model directory and an admin token. Every
+ * call to them must then carry the token in an X-Admin-Token header, which a browser cannot add to a cross-site
+ * request without a preflight this server never answers. The file to load is resolved inside the model directory,
+ * paths that lead out of it are refused, and only the binary model format is read, never Java serialization.
+ *
+ * Requests are handled on virtual threads on JDKs that have them, and on a fixed pool of HANDLER_THREADS otherwise.
+ * Usage: java ScoringServer <network> [port] [maxBatch] [budgetMicros] [modelDirectory]
+ * With a model directory, the admin token is read from the NN_ADMIN_TOKEN environment variable, or generated and printed.
+**/
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ScoringServer implements Closeable {
+	private static final int DEFAULT_PORT = 8080;
+	private static final int DEFAULT_MAX_BATCH = 64;
+	private static final long DEFAULT_BUDGET_MICROS = 500;
+	// Handler threads when virtual threads are not available
+	private static final int HANDLER_THREADS = 64;
+	// Model used when a request does not name one
+	public static final String DEFAULT_MODEL = "default";
+	// Request header carrying the admin token
+	public static final String ADMIN_TOKEN_HEADER = "X-Admin-Token";
+	
+	static {
+		// Small responses otherwise sit in Nagle's algorithm until the client's delayed ACK, about 40ms.
+		// Read once when the HTTP server is first used, so it has to be set before then.
+		if (System.getProperty("sun.net.httpserver.nodelay") == null)
+		{
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+	}
+	
+	private final HttpServer server;
+	private final ExecutorService handlers;
+	private final ModelRegistry registry;
+	private final ConcurrentHashMap<String, MicroBatcher> batchers = new ConcurrentHashMap<>();
+	private final int maxBatch;
+	private final long budgetMicros;
+	// Directory models may be loaded from, as a real path, and the token the admin endpoints require; both null when they are off
+	private final Path modelDirectory;
+	private final byte[] adminToken;
+	
+	public static void main(String[] args) throws IOException, ClassNotFoundException
+	{
+		if (args.length < 1)
+		{
+			System.out.println("Usage: java ScoringServer <network> [port] [maxBatch] [budgetMicros] [modelDirectory]");
+			System.exit(2);
+		}
+		
+		int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+		int maxBatch = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_BATCH;
+		long budget = args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_BUDGET_MICROS;
+		Path modelDirectory = args.length > 4 ? Paths.get(args[4]) : null;
+		String token = null;
+		if (modelDirectory != null)
+		{
+			token = System.getenv("NN_ADMIN_TOKEN");
+			if (token == null || token.isEmpty())
+			{
+				token = newToken();
+				System.out.println("Admin token: " + token);
+			}
+		}
+		
+		ModelRegistry registry = new ModelRegistry();
+		ModelVersion version = registry.publish(DEFAULT_MODEL, new IOManager().load(args[0]), args[0]);
+		ScoringServer server = new ScoringServer(registry, port, maxBatch, budget, modelDirectory, token);
+		System.out.println("Serving " + version + " on http://localhost:" + server.getPort() + "/predict");
+		if (modelDirectory != null)
+		{
+			System.out.println("Models can be loaded from " + server.modelDirectory);
+		}
+	}
+	
+	/**
+	 * Starts serving a single engine, as the default model, on the loopback interface.
+	 * @param engine Engine to predict with.
+	 * @param port Port to listen on, 0 for any free port.
+	 * @param maxBatch Largest number of requests run together.
+	 * @param budgetMicros Longest a request waits for others to join its batch, in microseconds.
+	 * @throws IOException If the port cannot be bound.
+	 */
+	public ScoringServer(InferenceEngine engine, int port, int maxBatch, long budgetMicros) throws IOException
+	{
+		this(new ModelRegistry(), port, maxBatch, budgetMicros);
+		registry.publish(DEFAULT_MODEL, engine, "engine");
+	}
+	
+	/**
+	 * Starts serving the models of a registry on the loopback interface, with the admin endpoints off.
+	 * @param registry Models to serve, which may be replaced through the registry while the server runs.
+	 * @param port Port to listen on, 0 for any free port.
+	 * @param maxBatch Largest number of requests run together.
+	 * @param budgetMicros Longest a request waits for others to join its batch, in microseconds.
+	 * @throws IOException If the port cannot be bound.
+	 */
+	public ScoringServer(ModelRegistry registry, int port, int maxBatch, long budgetMicros) throws IOException
+	{
+		this(registry, port, maxBatch, budgetMicros, null, null);
+	}
+	
+	/**
+	 * Starts serving the models of a registry on the loopback interface.
+	 * @param registry Models to serve, which may be replaced while the server runs.
+	 * @param port Port to listen on, 0 for any free port.
+	 * @param maxBatch Largest number of requests run together.
+	 * @param budgetMicros Longest a request waits for others to join its batch, in microseconds.
+	 * @param modelDirectory Directory that POST /models/load may read from, or null to turn the admin endpoints off.
+	 * @param adminToken Token the admin endpoints require in the X-Admin-Token header. Must be given with a model directory.
+	 * @throws IOException If the port cannot be bound, or the model directory does not exist.
+	 */
+	public ScoringServer(ModelRegistry registry, int port, int maxBatch, long budgetMicros, Path modelDirectory, String adminToken) throws IOException
+	{
+		if (modelDirectory != null && (adminToken == null || adminToken.isEmpty()))
+		{
+			throw new IllegalArgumentException("The admin endpoints need a token");
+		}
+		
+		this.registry = registry;
+		this.maxBatch = maxBatch;
+		this.budgetMicros = budgetMicros;
+		this.modelDirectory = modelDirectory == null ? null : modelDirectory.toRealPath();
+		this.adminToken = modelDirectory == null ? null : adminToken.getBytes(StandardCharsets.UTF_8);
+		handlers = newHandlerExecutor();
+		
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.setExecutor(handlers);
+		server.createContext("/predict", this::predict);
+		server.createContext("/stats", exchange -> respond(exchange, 200, getStats()));
+		server.createContext("/health", exchange -> respond(exchange, 200, "ok\n"));
+		server.createContext("/models", this::models);
+		server.start();
+	}
+	
+	/**
+	 * @return The registry being served.
+	 */
+	public ModelRegistry getRegistry()
+	{
+		return registry;
+	}
+	
+	/**
+	 * @return The port being listened on.
+	 */
+	public int getPort()
+	{
+		return server.getAddress().getPort();
+	}
+	
+	/**
+	 * @return Each model's batcher statistics, one line per model that has had requests.
+	 */
+	public String getStats()
+	{
+		StringBuilder stats = new StringBuilder();
+		batchers.forEach((name, batcher) -> stats.append(name).append(": ").append(batcher.getStats()).append('\n'));
+		return stats.toString();
+	}
+	
+	@Override
+	public void close()
+	{
+		server.stop(0);
+		batchers.values().forEach(MicroBatcher::close);
+		handlers.shutdown();
+		registry.close();
+	}
+	
+	private void predict(HttpExchange exchange) throws IOException
+	{
+		if (!exchange.getRequestMethod().equals("POST"))
+		{
+			respond(exchange, 405, "POST one sample per line\n");
+			return;
+		}
+		
+		Map<String, String> query = parseQuery(exchange);
+		String model = query.getOrDefault("model", DEFAULT_MODEL);
+		MicroBatcher batcher = batcher(model);
+		if (batcher == null)
+		{
+			respond(exchange, 404, "No model named " + model + "\n");
+			return;
+		}
+		
+		List<CompletableFuture<MicroBatcher.Prediction>> results = new ArrayList<>();
+		try {
+			for(String line : readBody(exchange.getRequestBody()).split("\n"))
+			{
+				if (!line.isBlank())
+				{
+					results.add(batcher.submit(parseSample(line)));
+				}
+			}
+		} catch (NumberFormatException e) {
+			respond(exchange, 400, "Invalid sample: " + e.getMessage() + "\n");
+			return;
+		}
+		
+		boolean scores = query.containsKey("scores");
+		StringBuilder response = new StringBuilder();
+		try {
+			for(CompletableFuture<MicroBatcher.Prediction> result : results)
+			{
+				MicroBatcher.Prediction prediction = result.get();
+				response.append(prediction.getLabel());
+				if (scores)
+				{
+					for(float o : prediction.getScores())
+					{
+						response.append(',').append(o);
+					}
+				}
+				response.append('\n');
+			}
+		} catch (ExecutionException e) {
+			if (registry.get(model) == null)
+			{
+				// Removed while the request was queued
+				respond(exchange, 404, "No model named " + model + "\n");
+			}
+			else
+			{
+				respond(exchange, e.getCause() instanceof IllegalArgumentException ? 400 : 503, e.getCause().getMessage() + "\n");
+			}
+			return;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			respond(exchange, 503, "Interrupted\n");
+			return;
+		}
+		
+		respond(exchange, 200, response.toString());
+	}
+	
+	/**
+	 * Closes and drops the batchers of models that have been removed from the registry, then gets the model's batcher,
+	 * creating it on the model's first request.
+	 * @param model
+	 * @return The batcher, or null if there is no such model.
+	 */
+	private MicroBatcher batcher(String model)
+	{
+		for(String name : batchers.keySet())
+		{
+			if (registry.get(name) == null)
+			{
+				MicroBatcher removed = batchers.remove(name);
+				if (removed != null)
+				{
+					removed.close();
+				}
+			}
+		}
+		
+		if (registry.get(model) == null)
+		{
+			return null;
+		}
+		try {
+			return batchers.computeIfAbsent(model, name -> new MicroBatcher(() -> registry.getEngine(name), maxBatch, budgetMicros));
+		} catch (IllegalArgumentException e) {
+			// Removed since the check, the batcher's first engine is gone
+			return null;
+		}
+	}
+	
+	/**
+	 * GET lists the models; POST /models/load and /models/rollback change them, when the admin endpoints are on
+	 * and the request carries the token. A load runs on the registry's loader thread, and requests keep being
+	 * served by the current version until it is done.
+	 */
+	private void models(HttpExchange exchange) throws IOException
+	{
+		String path = exchange.getRequestURI().getPath();
+		Map<String, String> query = parseQuery(exchange);
+		String name = query.getOrDefault("name", DEFAULT_MODEL);
+		
+		if (exchange.getRequestMethod().equals("POST") && !isAdmin(exchange))
+		{
+			respond(exchange, 403, modelDirectory == null ? "Model administration is off\n" : "Missing or wrong " + ADMIN_TOKEN_HEADER + "\n");
+			return;
+		}
+		
+		if (exchange.getRequestMethod().equals("GET") && path.equals("/models"))
+		{
+			StringBuilder list = new StringBuilder();
+			for(String model : registry.getNames())
+			{
+				list.append(registry.get(model)).append('\n');
+				for(ModelVersion previous : registry.getHistory(model))
+				{
+					list.append("  previous: ").append(previous).append('\n');
+				}
+			}
+			respond(exchange, 200, list.toString());
+		}
+		else if (exchange.getRequestMethod().equals("POST") && path.equals("/models/load") && query.containsKey("file"))
+		{
+			Path file = resolveModel(query.get("file"));
+			if (file == null)
+			{
+				respond(exchange, 403, "Models can only be loaded from inside the model directory\n");
+				return;
+			}
+			try {
+				respond(exchange, 200, "Published " + registry.loadAsync(name, file.toString()).get() + "\n");
+			} catch (ExecutionException e) {
+				respond(exchange, 500, e.getCause().getMessage() + "\n");
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				respond(exchange, 503, "Interrupted\n");
+			}
+		}
+		else if (exchange.getRequestMethod().equals("POST") && path.equals("/models/rollback"))
+		{
+			try {
+				respond(exchange, 200, "Rolled back to " + registry.rollback(name) + "\n");
+			} catch (IllegalArgumentException | IllegalStateException e) {
+				respond(exchange, 409, e.getMessage() + "\n");
+			}
+		}
+		else
+		{
+			respond(exchange, 404, "GET /models, POST /models/load?file=..., or POST /models/rollback\n");
+		}
+	}
+	
+	/**
+	 * @return Whether the admin endpoints are on and the request carries their token, compared in constant time.
+	 */
+	private boolean isAdmin(HttpExchange exchange)
+	{
+		String token = exchange.getRequestHeaders().getFirst(ADMIN_TOKEN_HEADER);
+		return adminToken != null && token != null && MessageDigest.isEqual(adminToken, token.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * Resolves a requested model file against the model directory. Symbolic links are followed before checking,
+	 * so neither "..", an absolute path nor a link can lead outside the directory.
+	 * @param file Path relative to the model directory.
+	 * @return The file's real path, or null if it does not exist or is not inside the model directory.
+	 */
+	private Path resolveModel(String file)
+	{
+		try {
+			Path resolved = modelDirectory.resolve(file).toRealPath();
+			return resolved.startsWith(modelDirectory) && !resolved.equals(modelDirectory) ? resolved : null;
+		} catch (IOException | RuntimeException e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * @return A random admin token, 128 bits as hex.
+	 */
+	private static String newToken()
+	{
+		byte[] bytes = new byte[16];
+		new SecureRandom().nextBytes(bytes);
+		StringBuilder token = new StringBuilder();
+		for(byte b : bytes)
+		{
+			token.append(String.format("%02x", b));
+		}
+		return token.toString();
+	}
+	
+	/**
+	 * @return The parameters of the request's query string; a parameter with no value maps to "".
+	 */
+	private static Map<String, String> parseQuery(HttpExchange exchange)
+	{
+		Map<String, String> parameters = new HashMap<>();
+		String query = exchange.getRequestURI().getRawQuery();
+		if (query != null)
+		{
+			for(String parameter : query.split("&"))
+			{
+				int equals = parameter.indexOf('=');
+				String key = equals < 0 ? parameter : parameter.substring(0, equals);
+				String value = equals < 0 ? "" : parameter.substring(equals + 1);
+				parameters.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+			}
+		}
+		return parameters;
+	}
+	
+	/**
+	 * Parses comma-separated pixel intensities, scaled to [0, 1] the way IOManager.parseCSV does.
+	 */
+	private static float[] parseSample(String line)
+	{
+		String[] values = line.trim().split(",");
+		float[] sample = new float[values.length];
+		for(int i = 0; i < values.length; i++)
+		{
+			sample[i] = (float)(Double.parseDouble(values[i].trim()) / 255);
+		}
+		return sample;
+	}
+	
+	private static String readBody(InputStream in) throws IOException
+	{
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		in.transferTo(body);
+		return body.toString(StandardCharsets.US_ASCII);
+	}
+	
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException
+	{
+		byte[] bytes = body.getBytes(StandardCharsets.US_ASCII);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+	
+	/**
+	 * A virtual thread per request where the JDK has them (21 and later), found reflectively so that the
+	 * server still builds and runs on older JDKs, which get a fixed pool instead.
+	 */
+	private static ExecutorService newHandlerExecutor()
+	{
+		try {
+			return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newFixedThreadPool(HANDLER_THREADS);
+		}
+	}
+}
@@ -0,0 +1,72 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Shuffles a stream of samples using a fixed amount of memory. The buffer is filled with the first
+ * capacity samples; after that each call to next() returns a random sample from the buffer and replaces it with
+ * the next one from the source. Once the source runs out, the rest of the buffer is returned in random order.
+ *
+ * The result is only approximately shuffled: a sample can come out at most capacity positions before it went in.
+ * A capacity of a few times the batch size is usually enough to break up runs of one class in the source.
+**/
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+public class ShuffleBuffer<T> implements Iterator<T> {
+	private final Iterator<? extends T> source;
+	private final Object[] buffer;
+	private final Random random;
+	// Number of buffered samples, kept in buffer[0, count)
+	private int count;
+	
+	/**
+	 * @param source Stream to shuffle.
+	 * @param capacity Number of samples held at once.
+	 * @param random Source of randomness, seeded for a reproducible order.
+	 */
+	public ShuffleBuffer(Iterator<? extends T> source, int capacity, Random random)
+	{
+		if (capacity < 1)
+		{
+			throw new IllegalArgumentException("Shuffle buffer capacity must be positive, got " + capacity);
+		}
+		
+		this.source = source;
+		this.buffer = new Object[capacity];
+		this.random = random;
+		while(count < capacity && source.hasNext())
+		{
+			buffer[count++] = source.next();
+		}
+	}
+	
+	@Override
+	public boolean hasNext()
+	{
+		return count > 0;
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public T next()
+	{
+		if (count == 0)
+		{
+			throw new NoSuchElementException();
+		}
+		
+		int i = random.nextInt(count);
+		T sample = (T)buffer[i];
+		if (source.hasNext())
+		{
+			buffer[i] = source.next();
+		}
+		else
+		{
+			// Drain: move the last buffered sample into the hole
+			buffer[i] = buffer[--count];
+			buffer[count] = null;
+		}
+		return sample;
+	}
+}
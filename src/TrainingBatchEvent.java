@@ -0,0 +1,25 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Java Flight Recorder event for one training step. There are thousands per epoch, so it is off by default;
+ * turn it on in a recording's settings, for example with jfr configure +nn.TrainingBatch#enabled=true.
+**/
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("nn.TrainingBatch")
+@Label("Training Batch")
+@Category("Neural Network")
+@Description("One mini-batch step of NeuralNet training")
+@Enabled(false)
+class TrainingBatchEvent extends Event {
+	@Label("Samples")
+	int samples;
+	
+	@Label("Loss")
+	double loss;
+}
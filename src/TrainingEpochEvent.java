@@ -0,0 +1,63 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Java Flight Recorder event for one training epoch, with the same figures as EpochStats. It is recorded
+ * whenever a flight recording is running, for example with java -XX:StartFlightRecording:filename=training.jfr MNISTnn,
+ * and can be read with jfr print --events nn.TrainingEpoch training.jfr.
+**/
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("nn.TrainingEpoch")
+@Label("Training Epoch")
+@Category("Neural Network")
+@Description("One epoch of NeuralNet training")
+class TrainingEpochEvent extends Event {
+	@Label("Epoch")
+	int epoch;
+	
+	@Label("Samples")
+	long samples;
+	
+	@Label("Samples per Second")
+	double samplesPerSecond;
+	
+	@Label("Loss")
+	double loss;
+	
+	@Label("Data Loading")
+	@Timespan
+	long loadNanos;
+	
+	@Label("Forward")
+	@Timespan
+	long forwardNanos;
+	
+	@Label("Backward")
+	@Timespan
+	long backwardNanos;
+	
+	@Label("Gradient Accumulation")
+	@Timespan
+	long accumulateNanos;
+	
+	@Label("Weight Update")
+	@Timespan
+	long updateNanos;
+	
+	@Label("Allocated")
+	@DataAmount
+	long allocatedBytes;
+	
+	@Label("GC Count")
+	long gcCount;
+	
+	@Label("GC Time")
+	@Timespan(Timespan.MILLISECONDS)
+	long gcMillis;
+}
@@ -0,0 +1,32 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Receives a NeuralNet's training telemetry, see NeuralNet.addTrainingListener. Its methods are called
+ * on the thread that is training, so they should return quickly.
+**/
+
+public interface TrainingListener {
+	/**
+	 * Called after every epoch of train, and after every partialFit call.
+	 * @param stats Timings, throughput, loss and memory use of the epoch.
+	 */
+	void epochEnded(EpochStats stats);
+	
+	/**
+	 * Called after every mini-batch. Does nothing unless overridden.
+	 * @param samples Number of samples in the batch.
+	 * @param loss Mean loss of the batch's samples, measured before the step.
+	 */
+	default void batchEnded(int samples, double loss)
+	{
+	}
+	
+	/**
+	 * Called by train after every epoch's evaluation, on the validation split or a subsample of the training data.
+	 * Does nothing unless overridden.
+	 * @param epoch The epoch, as in EpochStats.getEpoch.
+	 * @param result
+	 */
+	default void evaluated(int epoch, EvaluationResult result)
+	{
+	}
+}
@@ -0,0 +1,303 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Collects a NeuralNet's training telemetry over an epoch. The phase times and loss are accumulated in each
+ * Workspace by the thread using it and gathered here after every step, so the workers never share a counter.
+ * Allocation is measured with ThreadMXBean for the threads that train: the thread running the epoch, and the worker pool
+ * and batch loader threads created by threadFactory. Each of those reports its own count as it exits, so a thread that
+ * ends during an epoch is still counted. Garbage collection is measured with the GarbageCollectorMXBeans.
+**/
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class TrainingTelemetry {
+	private final List<TrainingListener> listeners = new CopyOnWriteArrayList<>();
+	private int epochs;
+	
+	private long samples;
+	private long batches;
+	private long loadNanos;
+	private long forwardNanos;
+	private long backwardNanos;
+	private long accumulateNanos;
+	private long updateNanos;
+	private double loss;
+	
+	private long startNanos;
+	// Ids of the live threads from threadFactory. Guarded by this, as are the allocation counts below
+	private final Set<Long> trainingThreads = new HashSet<>();
+	// Bytes each counted thread had allocated when the epoch began or the thread started, by thread id
+	private final Map<Long, Long> startAllocated = new HashMap<>();
+	// Bytes allocated this epoch by counted threads that have since exited
+	private long exitedAllocated;
+	private boolean counting;
+	private long startGcCount;
+	private long startGcMillis;
+	private TrainingEpochEvent event;
+	
+	void addListener(TrainingListener listener)
+	{
+		listeners.add(listener);
+	}
+	
+	void removeListener(TrainingListener listener)
+	{
+		listeners.remove(listener);
+	}
+	
+	/**
+	 * Starts an epoch, clearing the counters.
+	 */
+	void begin()
+	{
+		samples = batches = 0;
+		loadNanos = forwardNanos = backwardNanos = accumulateNanos = updateNanos = 0;
+		loss = 0;
+		
+		beginAllocation();
+		startGcCount = gcCount();
+		startGcMillis = gcMillis();
+		event = new TrainingEpochEvent();
+		event.begin();
+		startNanos = System.nanoTime();
+	}
+	
+	/**
+	 * Moves a workspace's phase times and loss into the epoch's totals, and clears them.
+	 * @param ws
+	 * @return The summed loss the workspace held.
+	 */
+	double collect(Workspace ws)
+	{
+		double wsLoss = ws.loss;
+		loadNanos += ws.loadNanos;
+		forwardNanos += ws.forwardNanos;
+		backwardNanos += ws.backwardNanos;
+		accumulateNanos += ws.accumulateNanos;
+		loss += ws.loss;
+		ws.loadNanos = ws.forwardNanos = ws.backwardNanos = ws.accumulateNanos = 0;
+		ws.loss = 0;
+		return wsLoss;
+	}
+	
+	void addLoad(long nanos)
+	{
+		loadNanos += nanos;
+	}
+	
+	void addAccumulate(long nanos)
+	{
+		accumulateNanos += nanos;
+	}
+	
+	void addUpdate(long nanos)
+	{
+		updateNanos += nanos;
+	}
+	
+	/**
+	 * Counts a finished step and tells the listeners about it.
+	 * @param size Number of samples in the batch
+	 * @param batchLoss Summed loss of the batch
+	 */
+	void batchEnded(int size, double batchLoss)
+	{
+		samples += size;
+		batches++;
+		for(TrainingListener listener : listeners)
+		{
+			listener.batchEnded(size, batchLoss / size);
+		}
+	}
+	
+	/**
+	 * Ends an epoch started by begin, commits its flight recorder event, and tells the listeners about it.
+	 * @return The epoch's telemetry.
+	 */
+	EpochStats end()
+	{
+		long elapsed = System.nanoTime() - startNanos;
+		long allocated = endAllocation();
+		
+		EpochStats stats = new EpochStats(++epochs, samples, batches, elapsed, loadNanos, forwardNanos, backwardNanos, accumulateNanos,
+				updateNanos, samples == 0 ? 0 : loss / samples, allocated, gcCount() - startGcCount, gcMillis() - startGcMillis);
+		
+		event.end();
+		if (event.shouldCommit())
+		{
+			event.epoch = stats.getEpoch();
+			event.samples = stats.getSamples();
+			event.samplesPerSecond = stats.getSamplesPerSecond();
+			event.loss = stats.getLoss();
+			event.loadNanos = loadNanos;
+			event.forwardNanos = forwardNanos;
+			event.backwardNanos = backwardNanos;
+			event.accumulateNanos = accumulateNanos;
+			event.updateNanos = updateNanos;
+			event.allocatedBytes = allocated;
+			event.gcCount = stats.getGcCount();
+			event.gcMillis = stats.getGcMillis();
+			event.commit();
+		}
+		event = null;
+		
+		for(TrainingListener listener : listeners)
+		{
+			listener.epochEnded(stats);
+		}
+		return stats;
+	}
+	
+	/**
+	 * Tells the listeners how the network scored after an epoch.
+	 * @param epoch
+	 * @param result
+	 */
+	void evaluated(int epoch, EvaluationResult result)
+	{
+		for(TrainingListener listener : listeners)
+		{
+			listener.evaluated(epoch, result);
+		}
+	}
+	
+	/**
+	 * Creates daemon threads whose allocation counts toward every epoch they run in.
+	 * @param name Prefix of the thread names, which are numbered from 0.
+	 * @return The factory.
+	 */
+	ThreadFactory threadFactory(String name)
+	{
+		AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(() -> {
+				try {
+					runnable.run();
+				} finally {
+					threadExiting();
+				}
+			}, name + "-" + count.getAndIncrement());
+			thread.setDaemon(true);
+			synchronized(this) {
+				trainingThreads.add(thread.getId());
+				if (counting)
+				{
+					// Not started yet, so it has allocated nothing
+					startAllocated.put(thread.getId(), 0L);
+				}
+			}
+			return thread;
+		};
+	}
+	
+	/**
+	 * Records the calling thread's allocation since the epoch began, while the thread can still be measured.
+	 */
+	private synchronized void threadExiting()
+	{
+		long id = Thread.currentThread().getId();
+		trainingThreads.remove(id);
+		Long start = startAllocated.remove(id);
+		com.sun.management.ThreadMXBean threads = allocationBean();
+		if (start != null && threads != null)
+		{
+			exitedAllocated += threads.getCurrentThreadAllocatedBytes() - start;
+		}
+	}
+	
+	/**
+	 * Takes the allocation counts of the calling thread and every live thread from threadFactory.
+	 */
+	private synchronized void beginAllocation()
+	{
+		startAllocated.clear();
+		exitedAllocated = 0;
+		counting = true;
+		
+		long[] ids = new long[trainingThreads.size() + 1];
+		int n = 0;
+		for(long id : trainingThreads)
+		{
+			ids[n++] = id;
+		}
+		ids[n] = Thread.currentThread().getId();
+		
+		long[] bytes = allocatedBytes(ids);
+		for(int i = 0; i < ids.length; i++)
+		{
+			startAllocated.put(ids[i], Math.max(0, bytes[i]));
+		}
+	}
+	
+	/**
+	 * @return Bytes allocated since beginAllocation by the threads it counted and the threads started since,
+	 * or 0 if the JVM cannot measure it.
+	 */
+	private synchronized long endAllocation()
+	{
+		long[] ids = startAllocated.keySet().stream().mapToLong(Long::longValue).toArray();
+		long[] bytes = allocatedBytes(ids);
+		long allocated = exitedAllocated;
+		for(int i = 0; i < ids.length; i++)
+		{
+			// -1 for a thread that ended without reporting, which only a thread outside threadFactory can do
+			if (bytes[i] >= 0)
+			{
+				allocated += bytes[i] - startAllocated.get(ids[i]);
+			}
+		}
+		startAllocated.clear();
+		counting = false;
+		return allocated;
+	}
+	
+	/**
+	 * @return Bytes allocated so far by each of the threads, -1 for one that has ended, or all 0 if the JVM cannot measure it.
+	 */
+	private static long[] allocatedBytes(long[] ids)
+	{
+		com.sun.management.ThreadMXBean threads = allocationBean();
+		return threads == null ? new long[ids.length] : threads.getThreadAllocatedBytes(ids);
+	}
+	
+	/**
+	 * @return The ThreadMXBean, or null if it cannot measure per thread allocation.
+	 */
+	private static com.sun.management.ThreadMXBean allocationBean()
+	{
+		if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean))
+		{
+			return null;
+		}
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+		return threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled() ? threads : null;
+	}
+	
+	private static long gcCount()
+	{
+		long count = 0;
+		for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+		{
+			count += Math.max(0, gc.getCollectionCount());
+		}
+		return count;
+	}
+	
+	private static long gcMillis()
+	{
+		long millis = 0;
+		for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+		{
+			millis += Math.max(0, gc.getCollectionTime());
+		}
+		return millis;
+	}
+}
@@ -0,0 +1,115 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Preallocated per-layer buffers used by NeuralNet for feedForward and backpropegate,
+ * so that a steady-state training step does not allocate any matrices.
+ * Every sample in a mini-batch is one column, so the buffers are sized for a maximum batch width and
+ * smaller batches use views over their first columns. Every buffer has the network's precision.
+**/
+
+class Workspace {
+	private final int[] layerSizes;
+	private final Precision precision;
+	private int capacity;
+	private int width = -1;
+	
+	// Full-width backing buffers
+	private Matrix inputBuffer;
+	private Matrix targetBuffer;
+	private Matrix[] activationBuffers;
+	private Matrix[] deltaBuffers;
+	
+	// Views of the first width columns of the buffers above
+	Matrix inputs;
+	Matrix targets;
+	// Activations of every layer including the input layer. Index 0 refers to the current input.
+	final Matrix[] activations;
+	// Error of every non-input layer, in form Layer, node
+	final Matrix[] deltas;
+	
+	// Gradients of the current mini-batch, in the same form as NeuralNet's weights and biases
+	final Matrix[] weightGradients;
+	final Matrix[] biasGradients;
+	
+	// Time this workspace's thread has spent in each training phase, and the summed loss, since TrainingTelemetry last collected them
+	long loadNanos;
+	long forwardNanos;
+	long backwardNanos;
+	long accumulateNanos;
+	double loss;
+	
+	/**
+	 * Allocate buffers for a network with the given layer sizes.
+	 * @param layerSizes Number of nodes in each layer, including the input layer.
+	 * @param capacity Largest batch width to allocate for.
+	 * @param precision Precision of the network's weights.
+	 */
+	Workspace(int[] layerSizes, int capacity, Precision precision)
+	{
+		int numLayers = layerSizes.length - 1;
+		
+		this.layerSizes = layerSizes.clone();
+		this.precision = precision;
+		activations = new Matrix[numLayers + 1];
+		deltas = new Matrix[numLayers];
+		weightGradients = new Matrix[numLayers];
+		biasGradients = new Matrix[numLayers];
+		
+		for(int layer = 0; layer < numLayers; layer++)
+		{
+			weightGradients[layer] = new Matrix(layerSizes[layer + 1], layerSizes[layer], precision);
+			biasGradients[layer] = new Matrix(layerSizes[layer + 1], 1, precision);
+		}
+		
+		allocate(capacity);
+	}
+	
+	/**
+	 * Point the input, target, activation and delta views at the first width columns of the buffers,
+	 * growing the buffers if they are too narrow. Does nothing if the width has not changed.
+	 * @param width Number of samples in the next batch.
+	 */
+	void setWidth(int width)
+	{
+		if (width == this.width)
+		{
+			return;
+		}
+		if (width > capacity)
+		{
+			allocate(width);
+		}
+		
+		this.width = width;
+		inputs = inputBuffer.columns(0, width);
+		targets = targetBuffer.columns(0, width);
+		activations[0] = inputs;
+		for(int layer = 0; layer < deltas.length; layer++)
+		{
+			activations[layer + 1] = activationBuffers[layer].columns(0, width);
+			deltas[layer] = deltaBuffers[layer].columns(0, width);
+		}
+	}
+	
+	int getWidth()
+	{
+		return width;
+	}
+	
+	private void allocate(int capacity)
+	{
+		int numLayers = deltas.length;
+		
+		this.capacity = capacity;
+		this.width = -1;
+		inputBuffer = new Matrix(layerSizes[0], capacity, precision);
+		targetBuffer = new Matrix(layerSizes[numLayers], capacity, precision);
+		activationBuffers = new Matrix[numLayers];
+		deltaBuffers = new Matrix[numLayers];
+		
+		for(int layer = 0; layer < numLayers; layer++)
+		{
+			activationBuffers[layer] = new Matrix(layerSizes[layer + 1], capacity, precision);
+			deltaBuffers[layer] = new Matrix(layerSizes[layer + 1], capacity, precision);
+		}
+	}
+}
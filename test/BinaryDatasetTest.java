@@ -0,0 +1,110 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Checks that a dataset saved in the binary format loads back bit for bit as parsing its CSV gives it, in
+ * either precision, that the MNIST IDX files of the same digits parse to the same samples, and that files of the wrong
+ * kind or cut short are refused.
+**/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BinaryDatasetTest {
+	@TempDir
+	Path dir;
+	
+	private final IOManager io = new IOManager();
+	
+	@Test
+	void binaryRoundTripMatchesCSV() throws IOException
+	{
+		Path csv = TestData.mnistCSV(dir, 50, 1);
+		Path binary = dir.resolve("digits.bin");
+		ArrayList<Matrix[]> parsed = new ArrayList<>();
+		io.parseCSV(csv.toString(), parsed);
+		io.saveBinary(binary.toString(), parsed);
+		
+		for(Precision precision : Precision.values())
+		{
+			ArrayList<Matrix[]> expected = new ArrayList<>();
+			io.parseCSV(csv.toString(), expected, precision);
+			ArrayList<Matrix[]> loaded = new ArrayList<>();
+			io.loadBinary(binary.toString(), loaded, precision);
+			assertSameSamples(expected, loaded);
+		}
+		
+		// A byte a pixel, under half the size of even this mostly blank CSV
+		assertTrue(Files.size(binary) < Files.size(csv) / 2, Files.size(binary) + " bytes against " + Files.size(csv));
+	}
+	
+	@Test
+	void idxMatchesCSV() throws IOException
+	{
+		Path csv = TestData.mnistCSV(dir, 50, 2);
+		ArrayList<Matrix[]> expected = new ArrayList<>();
+		io.parseCSV(csv.toString(), expected);
+		
+		// The same digits as IDX files, whose headers are big-endian
+		List<String> lines = Files.readAllLines(csv);
+		ByteBuffer images = ByteBuffer.allocate(16 + lines.size() * TestData.MNIST_PIXELS);
+		images.putInt(0x00000803).putInt(lines.size()).putInt(28).putInt(28);
+		ByteBuffer labels = ByteBuffer.allocate(8 + lines.size());
+		labels.putInt(0x00000801).putInt(lines.size());
+		for(String line : lines)
+		{
+			String[] fields = line.split(",");
+			labels.put((byte)Integer.parseInt(fields[0]));
+			for(int i = 1; i < fields.length; i++)
+			{
+				images.put((byte)Integer.parseInt(fields[i]));
+			}
+		}
+		Path imagesFile = Files.write(dir.resolve("images-idx3-ubyte"), images.array());
+		Path labelsFile = Files.write(dir.resolve("labels-idx1-ubyte"), labels.array());
+		
+		ArrayList<Matrix[]> parsed = new ArrayList<>();
+		io.parseIDX(imagesFile.toString(), labelsFile.toString(), parsed, Precision.DOUBLE);
+		assertSameSamples(expected, parsed);
+		
+		// Swapped, neither file is what it should be
+		assertThrows(IOException.class, () -> io.parseIDX(labelsFile.toString(), imagesFile.toString(), new ArrayList<>(), Precision.DOUBLE));
+	}
+	
+	@Test
+	void wrongOrTruncatedFilesAreRefused() throws IOException
+	{
+		Path csv = TestData.mnistCSV(dir, 10, 3);
+		assertThrows(IOException.class, () -> io.loadBinary(csv.toString(), new ArrayList<>()));
+		
+		ArrayList<Matrix[]> parsed = new ArrayList<>();
+		io.parseCSV(csv.toString(), parsed);
+		Path binary = dir.resolve("digits.bin");
+		io.saveBinary(binary.toString(), parsed);
+		byte[] bytes = Files.readAllBytes(binary);
+		Path truncated = Files.write(dir.resolve("truncated.bin"), Arrays.copyOf(bytes, bytes.length - 1));
+		assertThrows(IOException.class, () -> io.loadBinary(truncated.toString(), new ArrayList<>()));
+	}
+	
+	/**
+	 * Asserts that both lists hold bit for bit the same samples in the same order.
+	 */
+	private static void assertSameSamples(List<Matrix[]> expected, List<Matrix[]> actual)
+	{
+		assertEquals(expected.size(), actual.size());
+		for(int s = 0; s < expected.size(); s++)
+		{
+			assertTrue(TestData.sameElements(expected.get(s)[0], actual.get(s)[0]), "inputs of sample " + s);
+			assertTrue(TestData.sameElements(expected.get(s)[1], actual.get(s)[1]), "targets of sample " + s);
+		}
+	}
+}
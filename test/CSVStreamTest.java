@@ -0,0 +1,72 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Checks that CSVStream reads a CSV as the same samples as parseCSV, in either precision, and that
+ * partialFit over the stream trains a network exactly as partialFit over the parsed samples in the same order.
+**/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CSVStreamTest {
+	private static final int SIZE = 50;
+	
+	@TempDir
+	Path dir;
+	
+	private final IOManager io = new IOManager();
+	
+	@Test
+	void readsTheSamplesParseCSVDoes() throws IOException
+	{
+		Path csv = TestData.mnistCSV(dir, SIZE, 6);
+		for(Precision precision : Precision.values())
+		{
+			ArrayList<Matrix[]> expected = new ArrayList<>();
+			io.parseCSV(csv.toString(), expected, precision);
+			try (CSVStream stream = new CSVStream(csv.toString(), precision)) {
+				for(int s = 0; s < SIZE; s++)
+				{
+					assertTrue(stream.hasNext());
+					Matrix[] sample = stream.next();
+					assertTrue(TestData.sameElements(expected.get(s)[0], sample[0]), "inputs of sample " + s);
+					assertTrue(TestData.sameElements(expected.get(s)[1], sample[1]), "targets of sample " + s);
+				}
+				assertFalse(stream.hasNext());
+				assertThrows(NoSuchElementException.class, stream::next);
+			}
+		}
+	}
+	
+	@Test
+	void streamTrainsLikeTheParsedSamples() throws IOException
+	{
+		Path csv = TestData.mnistCSV(dir, SIZE, 7);
+		ArrayList<Matrix[]> parsed = new ArrayList<>();
+		io.parseCSV(csv.toString(), parsed);
+		
+		NeuralNet streamed = newNet();
+		NeuralNet loaded = newNet();
+		try (CSVStream stream = new CSVStream(csv.toString(), Precision.DOUBLE)) {
+			assertEquals(SIZE, streamed.partialFit(stream));
+		}
+		assertEquals(SIZE, loaded.partialFit(parsed.iterator()));
+		assertTrue(TestData.sameWeights(streamed, loaded));
+	}
+	
+	private static NeuralNet newNet()
+	{
+		NeuralNet net = new NeuralNet(TestData.MNIST_PIXELS, 10, 2, 16);
+		net.setDeterministic(true);
+		net.setBatchSize(8);
+		return net;
+	}
+}
@@ -0,0 +1,133 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Checks that Checkpointer keeps the last checkpoints of a run, that Checkpointer.resume carries on an
+ * interrupted run with the epochs it had left, but not a run that finished or stopped early or a partialFit pass, and
+ * that a resumed run keeps the best checkpoint of the runs before it.
+**/
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CheckpointerTest {
+	@TempDir
+	Path dir;
+	
+	private final ArrayList<Matrix[]> train = TestData.clusters(90, 11);
+	private final ArrayList<Matrix[]> test = TestData.clusters(30, 12);
+	
+	@Test
+	void interruptedRunResumesWithEpochsLeft() throws IOException
+	{
+		NeuralNet net = newNet(5);
+		net.addTrainingListener(stats -> {
+			if (stats.getEpoch() == 3)
+			{
+				throw new IllegalStateException("crash");
+			}
+		});
+		try (Checkpointer checkpoints = new Checkpointer(dir.toString(), 1, 3, true)) {
+			net.setCheckpointer(checkpoints);
+			assertThrows(IllegalStateException.class, () -> net.train(train, test));
+		}
+		
+		NeuralNet resumed = Checkpointer.resume(dir.toString());
+		assertNotNull(resumed);
+		assertEquals(3, resumed.getNumEpochs());
+	}
+	
+	@Test
+	void finishedRunIsNotResumed() throws IOException
+	{
+		// The last epoch is checkpointed even though it is not due
+		train(newNet(2), 3);
+		assertTrue(Checkpointer.latest(dir.toString()).endsWith("checkpoint-000002.nnm"));
+		assertNull(Checkpointer.resume(dir.toString()));
+	}
+	
+	@Test
+	void keepsTheLastCheckpoints() throws IOException
+	{
+		NeuralNet net = newNet(5);
+		try (Checkpointer checkpoints = new Checkpointer(dir.toString(), 1, 2, true)) {
+			net.setCheckpointer(checkpoints);
+			net.train(train, test);
+		}
+		
+		assertTrue(Checkpointer.latest(dir.toString()).endsWith("checkpoint-000005.nnm"));
+		assertTrue(Files.exists(dir.resolve("checkpoint-000004.nnm")));
+		assertTrue(Files.notExists(dir.resolve("checkpoint-000003.nnm")));
+		assertTrue(Files.exists(dir.resolve(Checkpointer.BEST_NAME)));
+		
+		// The last checkpoint holds the trained weights
+		assertTrue(TestData.sameWeights(net, new IOManager().loadModel(Checkpointer.latest(dir.toString()))));
+	}
+	
+	@Test
+	void earlyStoppedRunIsNotResumed() throws IOException
+	{
+		NeuralNet net = newNet(10);
+		net.setTargetAccuracy(0.01);
+		train(net, 5);
+		
+		assertTrue(Checkpointer.latest(dir.toString()).endsWith("checkpoint-000001.nnm"));
+		assertNull(Checkpointer.resume(dir.toString()));
+	}
+	
+	@Test
+	void partialFitIsNotResumed() throws IOException
+	{
+		NeuralNet net = newNet(5);
+		try (Checkpointer checkpoints = new Checkpointer(dir.toString(), 3, 3, true)) {
+			net.setCheckpointer(checkpoints);
+			net.partialFit(new ListDataset(train));
+			net.partialFit(train.iterator());
+		}
+		
+		// Each pass is checkpointed though not due, and has no epochs left
+		assertTrue(Checkpointer.latest(dir.toString()).endsWith("checkpoint-000002.nnm"));
+		assertTrue(Files.exists(dir.resolve("checkpoint-000001.nnm")));
+		assertNull(Checkpointer.resume(dir.toString()));
+	}
+	
+	@Test
+	void resumedRunKeepsEarlierBest() throws IOException
+	{
+		train(newNet(2), 1);
+		Path best = dir.resolve(Checkpointer.BEST_NAME);
+		Path metric = dir.resolve(Checkpointer.BEST_METRIC_NAME);
+		assertTrue(Files.readString(metric).startsWith("LOSS "));
+		
+		// A loss no epoch can beat
+		Files.writeString(metric, "LOSS 0\n");
+		byte[] before = Files.readAllBytes(best);
+		train(newNet(2), 1);
+		assertArrayEquals(before, Files.readAllBytes(best));
+	}
+	
+	private NeuralNet newNet(int epochs)
+	{
+		NeuralNet net = TestData.newNet(Precision.DOUBLE);
+		net.setNumEpochs(epochs);
+		net.setEvaluationSamples(50);
+		return net;
+	}
+	
+	private void train(NeuralNet net, int every) throws IOException
+	{
+		try (Checkpointer checkpoints = new Checkpointer(dir.toString(), every, 3, true)) {
+			net.setCheckpointer(checkpoints);
+			net.train(train, test);
+		}
+	}
+}
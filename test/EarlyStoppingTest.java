@@ -0,0 +1,128 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Checks that train stops once the monitored metric has not improved for the patience, or once it reaches
+ * the target accuracy, and that it then goes back to the weights of the best epoch.
+**/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class EarlyStoppingTest {
+	private static final int EPOCHS = 30;
+	private static final int PATIENCE = 3;
+	
+	private final ListDataset train = new ListDataset(TestData.clusters(300, 21));
+	private final ListDataset test = new ListDataset(TestData.clusters(90, 22));
+	
+	@Test
+	void stopsAfterPatienceAndRestoresTheBestEpoch()
+	{
+		NeuralNet net = newNet();
+		// Accuracy cannot improve once it is 1, so the run must stop PATIENCE epochs after it first gets there
+		net.setEarlyStopping(EvaluationResult.Metric.ACCURACY, PATIENCE, 0);
+		net.setRestoreBestWeights(true);
+		Epochs epochs = new Epochs(net);
+		net.addTrainingListener(epochs);
+		net.train(train, test);
+		
+		int best = epochs.best();
+		assertEquals(1, epochs.accuracy.get(best));
+		assertEquals(best + 1 + PATIENCE, epochs.accuracy.size());
+		assertTrue(epochs.accuracy.size() < EPOCHS, "trained " + epochs.accuracy.size() + " epochs");
+		
+		assertTrue(sameWeights(net, epochs.weights.get(best)), "weights of epoch " + (best + 1) + " restored");
+		assertFalse(sameWeights(net, epochs.weights.get(epochs.weights.size() - 1)), "weights of the last epoch kept");
+	}
+	
+	@Test
+	void stopsAtTheTargetAccuracy()
+	{
+		NeuralNet net = newNet();
+		net.setTargetAccuracy(0.9);
+		Epochs epochs = new Epochs(net);
+		net.addTrainingListener(epochs);
+		net.train(train, test);
+		
+		int last = epochs.accuracy.size() - 1;
+		assertTrue(last + 1 < EPOCHS, "trained " + (last + 1) + " epochs");
+		assertTrue(epochs.accuracy.get(last) >= 0.9);
+		for(int e = 0; e < last; e++)
+		{
+			assertTrue(epochs.accuracy.get(e) < 0.9, "epoch " + (e + 1) + " reached the target already");
+		}
+		assertTrue(sameWeights(net, epochs.weights.get(last)));
+	}
+	
+	private static NeuralNet newNet()
+	{
+		NeuralNet net = TestData.newNet(Precision.DOUBLE);
+		net.setLearningRate(0.5);
+		net.setNumEpochs(EPOCHS);
+		net.setValidationSplit(0.2);
+		return net;
+	}
+	
+	private static boolean sameWeights(NeuralNet net, Matrix[] weights)
+	{
+		for(int layer = 0; layer < weights.length; layer++)
+		{
+			if (!TestData.sameElements(net.getWeights(layer), weights[layer]))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Records each epoch's evaluated accuracy and a copy of the weights it was evaluated with.
+	 */
+	private static class Epochs implements TrainingListener {
+		private final NeuralNet net;
+		private final List<Double> accuracy = new ArrayList<>();
+		private final List<Matrix[]> weights = new ArrayList<>();
+		
+		Epochs(NeuralNet net)
+		{
+			this.net = net;
+		}
+		
+		@Override
+		public void epochEnded(EpochStats stats)
+		{
+		}
+		
+		@Override
+		public void evaluated(int epoch, EvaluationResult result)
+		{
+			accuracy.add(result.getAccuracy());
+			Matrix[] copy = new Matrix[net.getLayerSizes().length - 1];
+			for(int layer = 0; layer < copy.length; layer++)
+			{
+				copy[layer] = net.getWeights(layer).copy();
+			}
+			weights.add(copy);
+		}
+		
+		/**
+		 * @return The first epoch with the highest accuracy.
+		 */
+		int best()
+		{
+			int best = 0;
+			for(int e = 1; e < accuracy.size(); e++)
+			{
+				if (accuracy.get(e) > accuracy.get(best))
+				{
+					best = e;
+				}
+			}
+			return best;
+		}
+	}
+}
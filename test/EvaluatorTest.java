@@ -0,0 +1,79 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Checks that an Evaluator counts the same confusion matrix as classifying each sample on its own,
+ * with any number of threads and on any subset of the samples.
+**/
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Test;
+
+class EvaluatorTest {
+	// More than one batch of 256, so that the ranges split across threads
+	private final ArrayList<Matrix[]> samples = TestData.clusters(700, 10);
+	private final ListDataset data = new ListDataset(samples);
+	
+	@Test
+	void matchesClassifyingEachSample()
+	{
+		NeuralNet net = TestData.newNet(Precision.DOUBLE);
+		TestData.trainInOrder(net, TestData.clusters(60, 11), 10);
+		InferenceEngine engine = new InferenceEngine(net);
+		
+		int[][] expected = new int[TestData.NUM_CLASSES][TestData.NUM_CLASSES];
+		for(int s = 0; s < data.size(); s++)
+		{
+			expected[data.getLabel(s)][engine.classify(samples.get(s)[0])]++;
+		}
+		
+		EvaluationResult serial = new Evaluator(engine).evaluate(data);
+		assertEquals(data.size(), serial.getTotal());
+		for(int c = 0; c < expected.length; c++)
+		{
+			assertArrayEquals(expected[c], serial.getConfusionMatrix()[c], "actual class " + c);
+		}
+		
+		ExecutorService pool = Executors.newFixedThreadPool(3);
+		try {
+			EvaluationResult parallel = new Evaluator(engine, pool, 3).evaluate(data);
+			for(int c = 0; c < expected.length; c++)
+			{
+				assertArrayEquals(expected[c], parallel.getConfusionMatrix()[c], "actual class " + c);
+			}
+		} finally {
+			pool.shutdown();
+		}
+		
+		// The result NeuralNet reports is the same
+		assertEquals(serial.getCorrect(), net.evaluate(data).getCorrect());
+	}
+	
+	@Test
+	void evaluatesSubsets()
+	{
+		InferenceEngine engine = new InferenceEngine(TestData.newNet(Precision.DOUBLE));
+		int[] indices = Evaluator.subsample(data.size(), 100, new Random(1));
+		assertEquals(100, indices.length);
+		for(int i = 1; i < indices.length; i++)
+		{
+			assertTrue(indices[i - 1] < indices[i], "indices must be distinct and in order");
+		}
+		assertNull(Evaluator.subsample(data.size(), data.size(), new Random(1)));
+		
+		int correct = 0;
+		for(int index : indices)
+		{
+			correct += engine.classify(samples.get(index)[0]) == data.getLabel(index) ? 1 : 0;
+		}
+		EvaluationResult result = new Evaluator(engine).evaluate(data, indices);
+		assertEquals(100, result.getTotal());
+		assertEquals(correct, result.getCorrect());
+	}
+}
@@ -0,0 +1,184 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Checks the cache-blocked products behind MatrixUtil.matMul and gemm against the textbook matMulNaive,
+ * over shapes that are not multiples of the micro-kernel tile or that cross the cache blocks, transposed operands,
+ * views with offsets and strides, the fused affine and rank-1 kernels, both precisions, and serial against parallel
+ * execution.
+**/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class GemmTest {
+	// m, k, n
+	private static final int[][] SHAPES = {
+		{1, 1, 1}, {3, 5, 7}, {4, 4, 4}, {17, 33, 9}, {100, 784, 1}, {10, 100, 256}, {65, 600, 130}, {5, 3000, 6}
+	};
+	
+	@AfterEach
+	void resetPolicy()
+	{
+		MatrixUtil.setExecutionPolicy(ExecutionPolicy.AUTO);
+	}
+	
+	@Test
+	void matMulMatchesNaive()
+	{
+		Random random = new Random(1);
+		for(Precision precision : Precision.values())
+		{
+			for(int[] shape : SHAPES)
+			{
+				Matrix a = TestData.randomMatrix(shape[0], shape[1], precision, random);
+				Matrix b = TestData.randomMatrix(shape[1], shape[2], precision, random);
+				assertClose(MatrixUtil.matMulNaive(a, b), MatrixUtil.matMul(a, b), shape[1], precision);
+			}
+		}
+	}
+	
+	@Test
+	void gemmMatchesNaive()
+	{
+		Random random = new Random(2);
+		for(Precision precision : Precision.values())
+		{
+			for(int[] shape : SHAPES)
+			{
+				for(int t = 0; t < 4; t++)
+				{
+					boolean transA = (t & 1) != 0, transB = (t & 2) != 0;
+					Matrix a = TestData.randomMatrix(shape[0], shape[1], precision, random);
+					Matrix b = TestData.randomMatrix(shape[1], shape[2], precision, random);
+					Matrix c = TestData.randomMatrix(shape[0], shape[2], precision, random);
+					
+					Matrix expected = MatrixUtil.matMulNaive(a, b);
+					for(int i = 0; i < c.getHeight(); i++)
+					{
+						for(int j = 0; j < c.getWidth(); j++)
+						{
+							expected.setElement(i, j, 0.5 * expected.getElement(i, j) - 2 * c.getElement(i, j));
+						}
+					}
+					
+					Matrix opA = transA ? MatrixUtil.transpose(a) : a;
+					Matrix opB = transB ? MatrixUtil.transpose(b) : b;
+					assertClose(expected, MatrixUtil.gemm(0.5, opA, transA, opB, transB, -2, c), shape[1], precision);
+				}
+			}
+		}
+	}
+	
+	@Test
+	void transposedProductsMatchNaive()
+	{
+		Random random = new Random(5);
+		for(Precision precision : Precision.values())
+		{
+			for(int[] shape : SHAPES)
+			{
+				Matrix a = TestData.randomMatrix(shape[0], shape[1], precision, random);
+				Matrix b = TestData.randomMatrix(shape[1], shape[2], precision, random);
+				Matrix expected = MatrixUtil.matMulNaive(a, b);
+				
+				Matrix out = new Matrix(shape[0], shape[2], precision);
+				assertClose(expected, MatrixUtil.matMulTransA(MatrixUtil.transpose(a), b, out), shape[1], precision);
+				assertClose(expected, MatrixUtil.matMulTransB(a, MatrixUtil.transpose(b), out), shape[1], precision);
+			}
+		}
+	}
+	
+	@Test
+	void affineAndOuterProductMatchNaive()
+	{
+		Random random = new Random(6);
+		for(Precision precision : Precision.values())
+		{
+			Matrix w = TestData.randomMatrix(30, 50, precision, random);
+			Matrix x = TestData.randomMatrix(50, 7, precision, random);
+			Matrix bias = TestData.randomMatrix(30, 1, precision, random);
+			
+			Matrix expected = MatrixUtil.matMulNaive(w, x);
+			for(int i = 0; i < expected.getHeight(); i++)
+			{
+				for(int j = 0; j < expected.getWidth(); j++)
+				{
+					expected.setElement(i, j, 1 / (1 + Math.exp(-(expected.getElement(i, j) + bias.getElement(i, 0)))));
+				}
+			}
+			assertClose(expected, MatrixUtil.affine(w, x, bias, z -> 1 / (1 + Math.exp(-z)), new Matrix(30, 7, precision)), 50, precision);
+			
+			Matrix u = TestData.randomMatrix(30, 1, precision, random);
+			Matrix v = TestData.randomMatrix(50, 1, precision, random);
+			Matrix expectedSum = MatrixUtil.matMulNaive(u, MatrixUtil.transpose(v));
+			for(int i = 0; i < w.getHeight(); i++)
+			{
+				for(int j = 0; j < w.getWidth(); j++)
+				{
+					expectedSum.setElement(i, j, w.getElement(i, j) - 2 * expectedSum.getElement(i, j));
+				}
+			}
+			assertClose(expectedSum, MatrixUtil.outerProductAdd(-2, u, v, w.copy()), 1, precision);
+		}
+	}
+	
+	@Test
+	void viewsMatchCopies()
+	{
+		Random random = new Random(3);
+		for(Precision precision : Precision.values())
+		{
+			Matrix big = TestData.randomMatrix(350, 700, precision, random);
+			Matrix a = big.view(3, 5, 40, 300);
+			Matrix b = big.view(41, 301, 300, 17);
+			Matrix out = new Matrix(60, 40, precision).view(7, 11, 40, 17);
+			
+			MatrixUtil.matMul(a, b, out);
+			assertClose(MatrixUtil.matMulNaive(a.copy(), b.copy()), out, 300, precision);
+		}
+	}
+	
+	@Test
+	void parallelMatchesSerialExactly()
+	{
+		Random random = new Random(4);
+		for(Precision precision : Precision.values())
+		{
+			Matrix a = TestData.randomMatrix(130, 300, precision, random);
+			Matrix b = TestData.randomMatrix(300, 70, precision, random);
+			Matrix c = TestData.randomMatrix(130, 70, precision, random);
+			
+			MatrixUtil.setExecutionPolicy(ExecutionPolicy.SERIAL);
+			Matrix serial = MatrixUtil.matMul(a, b);
+			Matrix serialGemm = MatrixUtil.gemm(0.5, MatrixUtil.transpose(a), true, b, false, 2, c.copy());
+			MatrixUtil.setExecutionPolicy(ExecutionPolicy.PARALLEL);
+			Matrix parallel = MatrixUtil.matMul(a, b);
+			Matrix parallelGemm = MatrixUtil.gemm(0.5, MatrixUtil.transpose(a), true, b, false, 2, c.copy());
+			
+			assertTrue(TestData.sameElements(serial, parallel), precision.toString());
+			assertTrue(TestData.sameElements(serialGemm, parallelGemm), precision.toString());
+		}
+	}
+	
+	/**
+	 * Asserts every element is within rounding error of a sum of k products of numbers below 1.
+	 */
+	private static void assertClose(Matrix expected, Matrix actual, int k, Precision precision)
+	{
+		double tolerance = (k + 1) * (precision == Precision.FLOAT ? 1e-6 : 1e-14);
+		assertEquals(expected.getHeight(), actual.getHeight());
+		assertEquals(expected.getWidth(), actual.getWidth());
+		for(int i = 0; i < expected.getHeight(); i++)
+		{
+			for(int j = 0; j < expected.getWidth(); j++)
+			{
+				double e = expected.getElement(i, j);
+				assertEquals(e, actual.getElement(i, j), tolerance * Math.max(1, Math.abs(e)),
+						expected.getHeight() + "x" + k + "x" + expected.getWidth() + " " + precision + " at " + i + ", " + j);
+			}
+		}
+	}
+}
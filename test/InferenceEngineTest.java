@@ -0,0 +1,82 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Checks that an InferenceEngine answers like the network it was built from, one sample at a time and
+ * in batches wider than the engine runs at once.
+**/
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import org.junit.jupiter.api.Test;
+
+class InferenceEngineTest {
+	private final ArrayList<Matrix[]> data = TestData.clusters(600, 7);
+	
+	@Test
+	void predictionsMatchNetwork()
+	{
+		for(Precision precision : Precision.values())
+		{
+			NeuralNet net = TestData.newNet(precision);
+			TestData.trainInOrder(net, data, 10);
+			InferenceEngine engine = new InferenceEngine(net);
+			
+			float[] output = new float[TestData.NUM_CLASSES];
+			for(Matrix[] datum : data)
+			{
+				Matrix expected = net.getPrediction(datum[0]);
+				// The float[] interface rounds the inputs and outputs to single precision
+				engine.predict(toArray(datum[0]), output);
+				for(int i = 0; i < output.length; i++)
+				{
+					assertEquals(expected.getElement(i, 0), output[i], 1e-5, precision + " output " + i);
+				}
+				assertEquals(MatrixUtil.maxRow(expected, 0), engine.classify(datum[0]));
+			}
+		}
+	}
+	
+	@Test
+	void batchesMatchSingleSamples()
+	{
+		NeuralNet net = TestData.newNet(Precision.DOUBLE);
+		TestData.trainInOrder(net, data, 10);
+		InferenceEngine engine = new InferenceEngine(net, Precision.FLOAT);
+		
+		// Wider than the 256 samples the engine feeds forward at once
+		Matrix x = new Matrix(TestData.NUM_INPUTS, data.size(), Precision.FLOAT);
+		float[][] inputs = new float[data.size()][];
+		for(int j = 0; j < data.size(); j++)
+		{
+			MatrixUtil.copyColumn(data.get(j)[0], 0, x, j);
+			inputs[j] = toArray(data.get(j)[0]);
+		}
+		
+		int[] classes = engine.classifyBatch(x);
+		Matrix outputs = engine.predictBatch(x);
+		float[][] rows = engine.predictBatch(inputs);
+		float[] output = new float[TestData.NUM_CLASSES];
+		for(int j = 0; j < data.size(); j++)
+		{
+			// A wider product may sum in a different order, so only the last bit or so can differ
+			assertEquals(engine.classify(inputs[j]), classes[j], "sample " + j);
+			engine.predict(inputs[j], output);
+			assertArrayEquals(output, rows[j], 1e-6f, "sample " + j);
+			for(int i = 0; i < output.length; i++)
+			{
+				assertEquals(rows[j][i], outputs.getElement(i, j), "sample " + j);
+			}
+		}
+	}
+	
+	private static float[] toArray(Matrix column)
+	{
+		float[] values = new float[column.getHeight()];
+		for(int i = 0; i < values.length; i++)
+		{
+			values[i] = (float)column.getElement(i, 0);
+		}
+		return values;
+	}
+}
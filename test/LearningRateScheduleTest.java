@@ -0,0 +1,103 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Checks the rates LearningRateSchedule gives each epoch: step drops, the end point of cosine annealing,
+ * drops after a plateau down to the floor, and a warm-up that delays the schedule by its length.
+**/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class LearningRateScheduleTest {
+	private static final double EPSILON = 1e-12;
+	
+	@Test
+	void constantKeepsTheBaseRate()
+	{
+		LearningRateSchedule schedule = LearningRateSchedule.constant();
+		assertTrue(schedule.isConstant());
+		for(int epoch = 0; epoch < 10; epoch++)
+		{
+			assertEquals(0.3, schedule.getRate(epoch, 10, 0.3));
+		}
+	}
+	
+	@Test
+	void stepDropsEveryPeriod()
+	{
+		LearningRateSchedule schedule = LearningRateSchedule.step(3, 0.5);
+		assertFalse(schedule.isConstant());
+		double[] expected = {1, 1, 1, 0.5, 0.5, 0.5, 0.25, 0.25, 0.25, 0.125};
+		for(int epoch = 0; epoch < expected.length; epoch++)
+		{
+			assertEquals(2 * expected[epoch], schedule.getRate(epoch, expected.length, 2), EPSILON, "epoch " + epoch);
+		}
+	}
+	
+	@Test
+	void cosineFallsFromTheBaseRateToTheMinimum()
+	{
+		LearningRateSchedule schedule = LearningRateSchedule.cosine(0.1);
+		assertEquals(1, schedule.getRate(0, 10, 1), EPSILON);
+		assertEquals(0.55, schedule.getRate(5, 10, 1), EPSILON);
+		// The minimum is reached at the end of the last epoch, so the last epoch itself trains just above it
+		double last = schedule.getRate(9, 10, 1);
+		assertTrue(last > 0.1 && last < 0.15, "last epoch rate " + last);
+		assertEquals(0.1, schedule.getRate(10, 10, 1), EPSILON);
+		for(int epoch = 1; epoch <= 10; epoch++)
+		{
+			assertTrue(schedule.getRate(epoch, 10, 1) < schedule.getRate(epoch - 1, 10, 1), "epoch " + epoch);
+		}
+	}
+	
+	@Test
+	void plateauDropsAfterPatienceEpochsWithoutImprovement()
+	{
+		LearningRateSchedule schedule = LearningRateSchedule.reduceOnPlateau(2, 0.5, 0.2);
+		assertEquals(1, schedule.getRate(0, 10, 1), EPSILON);
+		
+		schedule.evaluated(false);
+		assertEquals(1, schedule.getRate(1, 10, 1), EPSILON);
+		// An improvement starts the wait again
+		schedule.evaluated(true);
+		schedule.evaluated(false);
+		assertEquals(1, schedule.getRate(3, 10, 1), EPSILON);
+		schedule.evaluated(false);
+		assertEquals(0.5, schedule.getRate(4, 10, 1), EPSILON);
+		
+		schedule.evaluated(false);
+		schedule.evaluated(false);
+		assertEquals(0.25, schedule.getRate(6, 10, 1), EPSILON);
+		// Never below the floor
+		schedule.evaluated(false);
+		schedule.evaluated(false);
+		assertEquals(0.2, schedule.getRate(8, 10, 1), EPSILON);
+		
+		schedule.reset();
+		assertEquals(1, schedule.getRate(0, 10, 1), EPSILON);
+	}
+	
+	@Test
+	void warmupRampsUpThenDelaysTheSchedule()
+	{
+		LearningRateSchedule plain = LearningRateSchedule.step(2, 0.5);
+		LearningRateSchedule warm = plain.withWarmup(3);
+		assertEquals(0.25, warm.getRate(0, 13, 1), EPSILON);
+		assertEquals(0.5, warm.getRate(1, 13, 1), EPSILON);
+		assertEquals(0.75, warm.getRate(2, 13, 1), EPSILON);
+		for(int epoch = 0; epoch < 10; epoch++)
+		{
+			assertEquals(plain.getRate(epoch, 10, 1), warm.getRate(epoch + 3, 13, 1), EPSILON, "epoch " + epoch);
+		}
+		
+		// Cosine anneals over the epochs left after the warm-up
+		LearningRateSchedule cosine = LearningRateSchedule.cosine(0).withWarmup(2);
+		assertEquals(1, cosine.getRate(2, 12, 1), EPSILON);
+		assertEquals(0.5, cosine.getRate(7, 12, 1), EPSILON);
+		
+		assertTrue(LearningRateSchedule.constant().withWarmup(0).isConstant());
+		assertFalse(LearningRateSchedule.constant().withWarmup(1).isConstant());
+	}
+}
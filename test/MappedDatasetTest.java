@@ -0,0 +1,87 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Checks that a memory-mapped binary dataset copies every sample into a batch column bit for bit as
+ * parsing its CSV gives it, in either precision and into a view, and that a network trains on it exactly as it does on
+ * the parsed samples.
+**/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedDatasetTest {
+	private static final int SIZE = 60;
+	private static final int BATCH = 8;
+	
+	@TempDir
+	Path dir;
+	
+	private final IOManager io = new IOManager();
+	
+	@Test
+	void copiesMatchCSV() throws IOException
+	{
+		Path csv = TestData.mnistCSV(dir, SIZE, 4);
+		MappedDataset mapped = new MappedDataset(binaryOf(csv).toString());
+		assertEquals(SIZE, mapped.size());
+		assertEquals(TestData.MNIST_PIXELS, mapped.getNumFeatures());
+		assertEquals(10, mapped.getNumClasses());
+		
+		for(Precision precision : Precision.values())
+		{
+			ArrayList<Matrix[]> expected = new ArrayList<>();
+			io.parseCSV(csv.toString(), expected, precision);
+			ListDataset list = new ListDataset(expected);
+			
+			// Write into the middle columns of larger matrices, so the view's offset and stride are used
+			Matrix inputs = new Matrix(TestData.MNIST_PIXELS + 2, BATCH + 2, precision).view(1, 1, TestData.MNIST_PIXELS, BATCH);
+			Matrix targets = new Matrix(12, BATCH + 2, precision).view(1, 1, 10, BATCH);
+			for(int s = 0; s < SIZE; s++)
+			{
+				int column = s % BATCH;
+				mapped.copyTo(s, inputs, targets, column);
+				assertEquals(list.getLabel(s), mapped.getLabel(s), "label of sample " + s);
+				assertTrue(TestData.sameElements(expected.get(s)[0], inputs.columns(column, 1).copy()), "inputs of sample " + s);
+				assertTrue(TestData.sameElements(expected.get(s)[1], targets.columns(column, 1).copy()), "targets of sample " + s);
+			}
+		}
+	}
+	
+	@Test
+	void trainsLikeTheParsedSamples() throws IOException
+	{
+		Path csv = TestData.mnistCSV(dir, SIZE, 5);
+		Dataset mapped = io.openDataset(binaryOf(csv).toString());
+		Dataset parsed = io.openDataset(csv.toString());
+		assertTrue(mapped instanceof MappedDataset);
+		assertTrue(parsed instanceof ListDataset);
+		
+		NeuralNet a = newNet();
+		NeuralNet b = newNet();
+		a.partialFit(mapped);
+		b.partialFit(parsed);
+		assertTrue(TestData.sameWeights(a, b));
+	}
+	
+	private Path binaryOf(Path csv) throws IOException
+	{
+		ArrayList<Matrix[]> samples = new ArrayList<>();
+		io.parseCSV(csv.toString(), samples);
+		Path binary = dir.resolve(csv.getFileName() + ".bin");
+		io.saveBinary(binary.toString(), samples);
+		return binary;
+	}
+	
+	private static NeuralNet newNet()
+	{
+		NeuralNet net = new NeuralNet(TestData.MNIST_PIXELS, 10, 2, 16);
+		net.setDeterministic(true);
+		net.setBatchSize(BATCH);
+		return net;
+	}
+}
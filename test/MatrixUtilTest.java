@@ -0,0 +1,207 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Checks the element-wise MatrixUtil operations on strided views against the same operations on contiguous
+ * copies, the forms that write into a given matrix against the allocating ones, and parallel against serial execution,
+ * in both precisions.
+**/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.function.BiFunction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class MatrixUtilTest {
+	@AfterEach
+	void resetPolicy()
+	{
+		MatrixUtil.setExecutionPolicy(ExecutionPolicy.AUTO);
+	}
+	
+	@Test
+	void stridedViewsMatchContiguousCopies()
+	{
+		for(Precision precision : Precision.values())
+		{
+			check(precision, "matAdd", (a, b) -> MatrixUtil.matAdd(a, b, new Matrix(a.getHeight(), a.getWidth(), precision)));
+			check(precision, "matSub", (a, b) -> MatrixUtil.matSub(a, b, new Matrix(a.getHeight(), a.getWidth(), precision)));
+			check(precision, "pairwiseMul", (a, b) -> MatrixUtil.pairwiseMul(a, b, new Matrix(a.getHeight(), a.getWidth(), precision)));
+			check(precision, "scale", (a, b) -> MatrixUtil.matMul(0.25, a, new Matrix(a.getHeight(), a.getWidth(), precision)));
+			check(precision, "addInPlace", (a, b) -> MatrixUtil.addInPlace(b.copy(), a));
+			check(precision, "scaleInPlace", (a, b) -> MatrixUtil.scaleInPlace(a.copy(), -3));
+			check(precision, "transpose", (a, b) -> MatrixUtil.transpose(a, new Matrix(a.getWidth(), a.getHeight(), precision)));
+			check(precision, "axpy", (a, b) -> MatrixUtil.axpy(-0.5, a, b.copy()));
+			check(precision, "sigmoidPrimeMul", (a, b) -> MatrixUtil.sigmoidPrimeMul(a, b, new Matrix(a.getHeight(), a.getWidth(), precision)));
+			check(precision, "momentumUpdate", (a, b) -> MatrixUtil.momentumUpdate(0.1, 0.9, 0.01, true, a, b.copy(), a.copy()));
+			check(precision, "rmspropUpdate", (a, b) -> MatrixUtil.rmspropUpdate(0.1, 0.9, 0.01, 1e-8, a, MatrixUtil.pairwiseMul(b, b), a.copy()));
+			check(precision, "adamUpdate", (a, b) -> MatrixUtil.adamUpdate(0.1, 0.9, 0.999, 0.01, 1e-8, 3, a, b.copy(), MatrixUtil.pairwiseMul(b, b), a.copy()));
+			for(Activation activation : Activation.values())
+			{
+				check(precision, activation.toString(), (a, b) -> MatrixUtil.applyActivation(activation, a.copy()));
+				if (activation != Activation.SOFTMAX)
+				{
+					check(precision, activation + " prime", (a, b) -> MatrixUtil.activationPrimeMul(activation, a, b, new Matrix(a.getHeight(), a.getWidth(), precision)));
+				}
+			}
+		}
+	}
+	
+	@Test
+	void outputFormsMatchAllocatingForms()
+	{
+		Random random = new Random(4);
+		for(Precision precision : Precision.values())
+		{
+			Matrix a = TestData.randomMatrix(45, 70, precision, random);
+			Matrix b = TestData.randomMatrix(45, 70, precision, random);
+			Matrix out = new Matrix(45, 70, precision);
+			
+			assertSame(out, MatrixUtil.matAdd(a, b, out));
+			assertTrue(TestData.sameElements(MatrixUtil.matAdd(a, b), out));
+			assertTrue(TestData.sameElements(MatrixUtil.matSub(a, b), MatrixUtil.matSub(a, b, out)));
+			assertTrue(TestData.sameElements(MatrixUtil.pairwiseMul(a, b), MatrixUtil.pairwiseMul(a, b, out)));
+			assertTrue(TestData.sameElements(MatrixUtil.matMul(0.5, a), MatrixUtil.matMul(0.5, a, out)));
+			assertTrue(TestData.sameElements(MatrixUtil.transpose(a), MatrixUtil.transpose(a, new Matrix(70, 45, precision))));
+			
+			// Writing into one of the inputs
+			Matrix sum = MatrixUtil.matAdd(a, b);
+			assertTrue(TestData.sameElements(sum, MatrixUtil.matAdd(a, b, a.copy())));
+			assertTrue(TestData.sameElements(sum, MatrixUtil.addInPlace(a.copy(), b)));
+			assertTrue(TestData.sameElements(sum, MatrixUtil.axpy(1, b, a.copy())));
+		}
+	}
+	
+	@Test
+	void activationsMatchTheirDefinitions()
+	{
+		Random random = new Random(7);
+		for(Precision precision : Precision.values())
+		{
+			// Inputs in [-4, 4], past where the sigmoid and tanh flatten out
+			Matrix z = MatrixUtil.scaleInPlace(TestData.randomMatrix(31, 17, precision, random), 4);
+			double tolerance = precision == Precision.FLOAT ? 1e-6 : 1e-14;
+			for(Activation activation : Activation.values())
+			{
+				Matrix a = MatrixUtil.applyActivation(activation, z.copy());
+				for(int j = 0; j < z.getWidth(); j++)
+				{
+					double sum = 0;
+					for(int i = 0; i < z.getHeight(); i++)
+					{
+						sum += Math.exp(z.getElement(i, j));
+					}
+					for(int i = 0; i < z.getHeight(); i++)
+					{
+						double x = z.getElement(i, j);
+						double expected;
+						switch(activation)
+						{
+							case SIGMOID: case FAST_SIGMOID: expected = 1 / (1 + Math.exp(-x)); break;
+							case TANH: expected = Math.tanh(x); break;
+							case RELU: expected = Math.max(0, x); break;
+							case LEAKY_RELU: expected = x > 0 ? x : Activation.LEAKY_SLOPE * x; break;
+							default: expected = Math.exp(x) / sum; break;
+						}
+						double allowed = activation == Activation.FAST_SIGMOID ? Activation.FAST_SIGMOID_ERROR : tolerance;
+						assertEquals(expected, a.getElement(i, j), allowed, activation + " " + precision + " of " + x);
+					}
+				}
+			}
+		}
+	}
+	
+	@Test
+	void optimizerUpdatesMatchTheirDefinitions()
+	{
+		Random random = new Random(8);
+		for(Precision precision : Precision.values())
+		{
+			Matrix g = TestData.randomMatrix(13, 9, precision, random);
+			Matrix m = TestData.randomMatrix(13, 9, precision, random);
+			Matrix r = MatrixUtil.pairwiseMul(m, m);
+			Matrix w = TestData.randomMatrix(13, 9, precision, random);
+			double tolerance = precision == Precision.FLOAT ? 1e-5 : 1e-13;
+			
+			Matrix v = m.copy(), nv = m.copy(), ms = r.copy(), m1 = m.copy(), m2 = r.copy();
+			Matrix momentum = MatrixUtil.momentumUpdate(0.5, 0.9, 0.1, false, g, v, w.copy());
+			Matrix nesterov = MatrixUtil.momentumUpdate(0.5, 0.9, 0.1, true, g, nv, w.copy());
+			Matrix rmsprop = MatrixUtil.rmspropUpdate(0.5, 0.9, 0.1, 1e-8, g, ms, w.copy());
+			Matrix adam = MatrixUtil.adamUpdate(0.5, 0.9, 0.999, 0.1, 1e-8, 3, g, m1, m2, w.copy());
+			for(int i = 0; i < g.getHeight(); i++)
+			{
+				for(int j = 0; j < g.getWidth(); j++)
+				{
+					double sg = 0.5 * g.getElement(i, j), w0 = w.getElement(i, j);
+					double velocity = 0.9 * m.getElement(i, j) + sg;
+					assertEquals(velocity, v.getElement(i, j), tolerance);
+					assertEquals(w0 - 0.1 * velocity, momentum.getElement(i, j), tolerance);
+					assertEquals(w0 - 0.1 * (sg + 0.9 * velocity), nesterov.getElement(i, j), tolerance);
+					
+					double square = 0.9 * r.getElement(i, j) + 0.1 * sg * sg;
+					assertEquals(square, ms.getElement(i, j), tolerance);
+					assertEquals(w0 - 0.1 * sg / (Math.sqrt(square) + 1e-8), rmsprop.getElement(i, j), tolerance);
+					
+					double first = 0.9 * m.getElement(i, j) + 0.1 * sg;
+					double second = 0.999 * r.getElement(i, j) + 0.001 * sg * sg;
+					assertEquals(first, m1.getElement(i, j), tolerance);
+					assertEquals(second, m2.getElement(i, j), tolerance);
+					double step = 0.1 * first / (1 - Math.pow(0.9, 3)) / (Math.sqrt(second / (1 - Math.pow(0.999, 3))) + 1e-8);
+					assertEquals(w0 - step, adam.getElement(i, j), tolerance);
+				}
+			}
+		}
+	}
+	
+	@Test
+	void parallelMatchesSerialExactly()
+	{
+		Random random = new Random(6);
+		for(Precision precision : Precision.values())
+		{
+			Matrix a = TestData.randomMatrix(97, 61, precision, random);
+			Matrix b = TestData.randomMatrix(97, 61, precision, random);
+			Matrix[] serial = allOps(a, b, ExecutionPolicy.SERIAL);
+			Matrix[] parallel = allOps(a, b, ExecutionPolicy.PARALLEL);
+			for(int i = 0; i < serial.length; i++)
+			{
+				assertTrue(TestData.sameElements(serial[i], parallel[i]), precision + " operation " + i);
+			}
+		}
+	}
+	
+	private static Matrix[] allOps(Matrix a, Matrix b, ExecutionPolicy policy)
+	{
+		MatrixUtil.setExecutionPolicy(policy);
+		Precision precision = a.getPrecision();
+		Matrix bias = b.view(0, 0, b.getHeight(), 1);
+		return new Matrix[] {
+			MatrixUtil.matAdd(a, b), MatrixUtil.matSub(a, b), MatrixUtil.pairwiseMul(a, b), MatrixUtil.matMul(0.3, a),
+			MatrixUtil.axpy(-0.5, a, b.copy()), MatrixUtil.sigmoidPrimeMul(a, b, new Matrix(97, 61, precision)), MatrixUtil.transpose(a),
+			MatrixUtil.rowSums(a, new Matrix(97, 1, precision)), MatrixUtil.outerProductAdd(2, bias, b.view(0, 0, 61, 1), a.copy()),
+			MatrixUtil.affine(MatrixUtil.transpose(a), b, a.view(0, 0, 61, 1), z -> Math.tanh(z), new Matrix(61, 61, precision)),
+			MatrixUtil.applyActivation(Activation.FAST_SIGMOID, a.copy()), MatrixUtil.applyActivation(Activation.SOFTMAX, a.copy()),
+			MatrixUtil.activationPrimeMul(Activation.TANH, a, b, new Matrix(97, 61, precision)),
+			MatrixUtil.activationPrimeMul(Activation.LEAKY_RELU, a, b, new Matrix(97, 61, precision)),
+			MatrixUtil.momentumUpdate(0.1, 0.9, 0.01, true, a, b.copy(), a.copy()),
+			MatrixUtil.adamUpdate(0.1, 0.9, 0.999, 0.01, 1e-8, 3, a, b.copy(), MatrixUtil.pairwiseMul(b, b), a.copy())
+		};
+	}
+	
+	/**
+	 * Runs op on strided views of a larger matrix and on contiguous copies of them, and expects the same bits.
+	 */
+	private static void check(Precision precision, String name, BiFunction<Matrix, Matrix, Matrix> op)
+	{
+		Random random = new Random(name.hashCode());
+		Matrix big = TestData.randomMatrix(40, 50, precision, random);
+		Matrix a = big.view(2, 3, 23, 19);
+		Matrix b = big.view(15, 29, 23, 19);
+		
+		Matrix strided = op.apply(a, b);
+		Matrix contiguous = op.apply(a.copy(), b.copy());
+		assertTrue(TestData.sameElements(strided, contiguous), name + " " + precision);
+	}
+}
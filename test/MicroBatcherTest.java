@@ -0,0 +1,69 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Checks that MicroBatcher completes every request it is given, with the engine's answer while it is open
+ * and exceptionally once it is closed, including requests submitted while close runs.
+**/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class MicroBatcherTest {
+	private static final int ROUNDS = 200;
+	
+	private final InferenceEngine engine = new InferenceEngine(TestData.newNet(Precision.DOUBLE));
+	private final float[] input = new float[TestData.NUM_INPUTS];
+	
+	@Test
+	void answersLikeTheEngine() throws Exception
+	{
+		try (MicroBatcher batcher = new MicroBatcher(engine, 8, 1000)) {
+			assertEquals(engine.classify(input), batcher.submit(input).get(10, TimeUnit.SECONDS).getLabel());
+		}
+	}
+	
+	@Test
+	void requestsAfterCloseFail()
+	{
+		MicroBatcher batcher = new MicroBatcher(engine, 8, 1000);
+		batcher.close();
+		ExecutionException e = assertThrows(ExecutionException.class, () -> batcher.submit(input).get(10, TimeUnit.SECONDS));
+		assertTrue(e.getCause() instanceof IllegalStateException, e.getCause().toString());
+	}
+	
+	@Test
+	void requestsRacingCloseComplete() throws Exception
+	{
+		for(int round = 0; round < ROUNDS; round++)
+		{
+			MicroBatcher batcher = new MicroBatcher(engine, 8, 100);
+			List<CompletableFuture<MicroBatcher.Prediction>> results = new ArrayList<>();
+			Thread submitter = new Thread(() -> {
+				for(int i = 0; i < 1000; i++)
+				{
+					results.add(batcher.submit(input));
+				}
+			});
+			submitter.start();
+			batcher.close();
+			submitter.join();
+			
+			for(CompletableFuture<MicroBatcher.Prediction> result : results)
+			{
+				// Either answered or failed, never left waiting
+				try {
+					result.get(10, TimeUnit.SECONDS);
+				} catch (ExecutionException e) {
+					assertTrue(e.getCause() instanceof IllegalStateException, e.getCause().toString());
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,72 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Checks that networks survive the binary model format bit for bit, whether saved directly or imported
+ * from the old object serialization the way ConvertModel does, and that saved optimizer state resumes training exactly.
+**/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ModelFormatTest {
+	@TempDir
+	Path dir;
+	
+	@Test
+	void serializedNetworksImportLosslessly() throws IOException, ClassNotFoundException
+	{
+		ArrayList<Matrix[]> data = TestData.clusters(90, 1);
+		for(Precision precision : Precision.values())
+		{
+			NeuralNet net = TestData.newNet(precision);
+			net.setActivations(Activation.TANH, Activation.SOFTMAX);
+			PrecisionCheck.trainOneEpoch(net, data);
+			
+			IOManager io = new IOManager();
+			String ser = dir.resolve("network-" + precision + ".ser").toString();
+			String nnm = dir.resolve("network-" + precision + ".nnm").toString();
+			io.save(ser, net);
+			NeuralNet imported = io.load(ser);
+			io.saveModel(nnm, imported);
+			NeuralNet loaded = io.loadModel(nnm);
+			
+			// Throws if any weight or bias differs
+			ConvertModel.verify(imported, loaded);
+			assertTrue(TestData.sameWeights(net, loaded));
+			assertEquals(precision, loaded.getPrecision());
+			assertTrue(TestData.samePredictions(net, loaded, data));
+		}
+	}
+	
+	@Test
+	void loadModelRejectsSerializedNetworks() throws IOException
+	{
+		String ser = dir.resolve("network.ser").toString();
+		new IOManager().save(ser, TestData.newNet(Precision.DOUBLE));
+		assertThrows(IOException.class, () -> new IOManager().loadModel(ser));
+	}
+	
+	@Test
+	void optimizerStateResumesExactly() throws IOException
+	{
+		ArrayList<Matrix[]> data = TestData.clusters(60, 2);
+		NeuralNet net = TestData.newNet(Precision.DOUBLE);
+		net.setOptimizer(Optimizer.adam());
+		net.setLearningRate(0.01);
+		PrecisionCheck.trainOneEpoch(net, data);
+		
+		String nnm = dir.resolve("adam.nnm").toString();
+		new IOManager().saveModel(nnm, net);
+		NeuralNet loaded = new IOManager().loadModel(nnm);
+		
+		PrecisionCheck.trainOneEpoch(net, data);
+		PrecisionCheck.trainOneEpoch(loaded, data);
+		assertTrue(TestData.sameWeights(net, loaded));
+	}
+}
@@ -0,0 +1,85 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Checks that a ModelRegistry publishes, loads and rolls back versions of a model, and that a failed
+ * load, a serialized network or a network of the wrong shape leaves the current version alone.
+**/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ModelRegistryTest {
+	@TempDir
+	Path dir;
+	
+	@Test
+	void publishAndRollBack()
+	{
+		try (ModelRegistry registry = new ModelRegistry()) {
+			assertNull(registry.get("a"));
+			ModelVersion first = registry.publish("a", TestData.newNet(Precision.DOUBLE), "first");
+			ModelVersion second = registry.publish("a", TestData.newNet(Precision.FLOAT), "second");
+			registry.publish("b", TestData.newNet(Precision.DOUBLE), "other");
+			
+			assertEquals(1, first.getVersion());
+			assertEquals(2, second.getVersion());
+			assertSame(second, registry.get("a"));
+			assertEquals(List.of("a", "b"), registry.getNames());
+			assertEquals(List.of(first), registry.getHistory("a"));
+			
+			assertSame(first, registry.rollback("a"));
+			assertSame(first, registry.get("a"));
+			assertThrows(IllegalStateException.class, () -> registry.rollback("a"));
+			
+			registry.remove("b");
+			assertNull(registry.get("b"));
+			assertThrows(IllegalArgumentException.class, () -> registry.getEngine("b"));
+		}
+	}
+	
+	@Test
+	void rejectsNetworksOfAnotherShape()
+	{
+		try (ModelRegistry registry = new ModelRegistry()) {
+			ModelVersion current = registry.publish("a", TestData.newNet(Precision.DOUBLE), "first");
+			NeuralNet wider = new NeuralNet(TestData.NUM_INPUTS + 1, TestData.NUM_CLASSES, 2, 16, Precision.DOUBLE);
+			assertThrows(IllegalArgumentException.class, () -> registry.publish("a", wider, "wider"));
+			assertSame(current, registry.get("a"));
+		}
+	}
+	
+	@Test
+	void loadsInTheBackground() throws IOException, InterruptedException, ExecutionException
+	{
+		String file = dir.resolve("network.nnm").toString();
+		new IOManager().saveModel(file, TestData.newNet(Precision.FLOAT));
+		
+		try (ModelRegistry registry = new ModelRegistry()) {
+			ModelVersion current = registry.publish("a", TestData.newNet(Precision.DOUBLE), "first");
+			ExecutionException e = assertThrows(ExecutionException.class,
+					() -> registry.loadAsync("a", dir.resolve("missing.nnm").toString()).get());
+			assertTrue(e.getCause() instanceof IllegalStateException);
+			assertSame(current, registry.get("a"));
+			
+			// Never deserialized
+			String ser = dir.resolve("network.ser").toString();
+			new IOManager().save(ser, TestData.newNet(Precision.FLOAT));
+			assertThrows(ExecutionException.class, () -> registry.loadAsync("a", ser).get());
+			assertSame(current, registry.get("a"));
+			
+			ModelVersion loaded = registry.loadAsync("a", file).get();
+			assertSame(loaded, registry.get("a"));
+			assertEquals(file, loaded.getSource());
+			assertEquals(Precision.FLOAT, loaded.getEngine().getPrecision());
+		}
+	}
+}
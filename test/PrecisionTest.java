@@ -0,0 +1,62 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: The check of PrecisionCheck on a small fixed dataset: single precision networks, trained from the
+ * same initial weights or converted from a trained double network, classify as well as double precision ones.
+**/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PrecisionTest {
+	private final List<Matrix[]> train = TestData.clusters(600, 1);
+	private final List<Matrix[]> test = TestData.clusters(300, 2);
+	
+	@Test
+	void trainedInFloatMatchesDouble()
+	{
+		NeuralNet doubleNet = TestData.newNet(Precision.DOUBLE);
+		NeuralNet floatNet = TestData.newNet(Precision.FLOAT);
+		PrecisionCheck.trainOneEpoch(doubleNet, train);
+		PrecisionCheck.trainOneEpoch(floatNet, train);
+		
+		PrecisionCheck.Comparison result = PrecisionCheck.compare(doubleNet, floatNet, test);
+		assertTrue(result.getDoubleAccuracy() > 0.9, "double accuracy " + result.getDoubleAccuracy());
+		assertTrue(result.passes(), "double " + result.getDoubleAccuracy() + ", float " + result.getFloatAccuracy());
+	}
+	
+	@Test
+	void convertedToFloatMatchesDouble()
+	{
+		NeuralNet doubleNet = TestData.newNet(Precision.DOUBLE);
+		PrecisionCheck.trainOneEpoch(doubleNet, train);
+		NeuralNet floatNet = TestData.newNet(Precision.DOUBLE);
+		PrecisionCheck.trainOneEpoch(floatNet, train);
+		floatNet.setPrecision(Precision.FLOAT);
+		
+		PrecisionCheck.Comparison result = PrecisionCheck.compare(doubleNet, floatNet, test);
+		assertTrue(result.passes(), "double " + result.getDoubleAccuracy() + ", float " + result.getFloatAccuracy());
+		assertEquals(result.total, result.agree);
+		assertTrue(result.maxDiff < 1e-5, "largest output difference " + result.maxDiff);
+	}
+	
+	@Test
+	void floatInitialWeightsAreRoundedDoubles()
+	{
+		NeuralNet doubleNet = TestData.newNet(Precision.DOUBLE);
+		NeuralNet floatNet = TestData.newNet(Precision.FLOAT);
+		for(int layer = 0; layer < doubleNet.getLayerSizes().length - 1; layer++)
+		{
+			Matrix w = doubleNet.getWeights(layer), f = floatNet.getWeights(layer);
+			for(int i = 0; i < w.getHeight(); i++)
+			{
+				for(int j = 0; j < w.getWidth(); j++)
+				{
+					assertEquals((float)w.getElement(i, j), f.getElement(i, j));
+				}
+			}
+		}
+	}
+}
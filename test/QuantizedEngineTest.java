@@ -0,0 +1,123 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: The check of QuantizeModel on a small fixed dataset: an int8 engine quantized from a trained network
+ * agrees with the float engine and loses at most TOLERANCE of the accuracy, with sigmoid, softmax and ReLU output
+ * layers, in a fraction of the memory.
+**/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class QuantizedEngineTest {
+	// Fraction of test samples on which the int8 and float engines must give the same class
+	private static final double MIN_AGREEMENT = 0.98;
+	
+	private final ArrayList<Matrix[]> train = TestData.clusters(600, 13);
+	private final ArrayList<Matrix[]> test = TestData.clusters(300, 14);
+	
+	@Test
+	void sigmoidNetworkKeepsItsAccuracy()
+	{
+		check(trained(Activation.SIGMOID, Activation.SIGMOID, 3));
+	}
+	
+	@Test
+	void softmaxOutputKeepsItsAccuracy()
+	{
+		NeuralNet net = trained(Activation.RELU, Activation.SOFTMAX, 0.1);
+		QuantizedEngine engine = check(net);
+		
+		// The outputs are still a distribution over the classes
+		float[] output = new float[TestData.NUM_CLASSES];
+		engine.predict(toArray(test.get(0)[0]), output);
+		double sum = 0;
+		for(float p : output)
+		{
+			assertTrue(p >= 0, "negative probability " + p);
+			sum += p;
+		}
+		assertEquals(1, sum, 1e-5);
+	}
+	
+	@Test
+	void reluOutputKeepsItsAccuracy()
+	{
+		// A ReLU output unit that starts out negative on every sample never learns, so this uses a shape
+		// whose three output units all start out alive
+		NeuralNet net = new NeuralNet(TestData.NUM_INPUTS, TestData.NUM_CLASSES, 3, 24, Precision.DOUBLE);
+		net.setDeterministic(true);
+		check(trained(net, Activation.SIGMOID, Activation.RELU, 0.05));
+	}
+	
+	@Test
+	void parametersTakeLessMemory()
+	{
+		for(Precision precision : Precision.values())
+		{
+			NeuralNet net = TestData.newNet(precision);
+			QuantizedEngine engine = QuantizedEngine.quantize(net, new ListDataset(train), 100, new Random(1));
+			long bytes = QuantizeModel.parameterBytes(net);
+			assertTrue(engine.getParameterBytes() < bytes, precision + ": " + engine.getParameterBytes() + " int8 bytes, " + bytes + " before");
+		}
+	}
+	
+	/**
+	 * Quantizes net on 200 training samples and compares it with net, and with a float engine, on the test set.
+	 * @return The quantized engine.
+	 */
+	private QuantizedEngine check(NeuralNet net)
+	{
+		QuantizedEngine engine = QuantizedEngine.quantize(net, new ListDataset(train), 200, new Random(1));
+		InferenceEngine reference = new InferenceEngine(net, Precision.FLOAT);
+		
+		Matrix[] columns = new Matrix[test.size()];
+		float[][] arrays = new float[test.size()][];
+		int[] labels = new int[test.size()];
+		int agree = 0;
+		for(int i = 0; i < test.size(); i++)
+		{
+			columns[i] = test.get(i)[0];
+			arrays[i] = toArray(columns[i]);
+			labels[i] = MatrixUtil.maxElement(test.get(i)[1]);
+			agree += engine.classify(arrays[i]) == reference.classify(arrays[i]) ? 1 : 0;
+		}
+		
+		QuantizeModel.Comparison result = QuantizeModel.compare(net, engine, columns, arrays, labels);
+		assertTrue(result.getNetAccuracy() > 0.9, "network accuracy " + result.getNetAccuracy());
+		assertTrue(result.passes(), "network " + result.getNetAccuracy() + ", int8 " + result.getQuantizedAccuracy());
+		assertTrue(result.getAgreement() >= MIN_AGREEMENT, "agreement with the network " + result.getAgreement());
+		assertTrue((double)agree / test.size() >= MIN_AGREEMENT, "agreement with InferenceEngine " + (double)agree / test.size());
+		return engine;
+	}
+	
+	private NeuralNet trained(Activation hidden, Activation output, double learningRate)
+	{
+		return trained(TestData.newNet(Precision.DOUBLE), hidden, output, learningRate);
+	}
+	
+	private NeuralNet trained(NeuralNet net, Activation hidden, Activation output, double learningRate)
+	{
+		net.setActivations(hidden, output);
+		net.setLearningRate(learningRate);
+		for(int epoch = 0; epoch < 3; epoch++)
+		{
+			TestData.trainInOrder(net, train, 10);
+		}
+		return net;
+	}
+	
+	private static float[] toArray(Matrix column)
+	{
+		float[] values = new float[column.getHeight()];
+		for(int i = 0; i < values.length; i++)
+		{
+			values[i] = (float)column.getElement(i, 0);
+		}
+		return values;
+	}
+}
@@ -0,0 +1,126 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Runs a ScoringServer on localhost and checks that concurrent requests, batched together, are answered
+ * exactly as a direct InferenceEngine answers them, that a model removed from the registry answers 404 and loses its
+ * batcher, and that the admin endpoints only load models they should.
+**/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ScoringServerTest {
+	private static final String TOKEN = "secret";
+	
+	@TempDir
+	Path dir;
+	
+	@Test
+	void batchedAnswersMatchEngine() throws IOException, InterruptedException
+	{
+		for(Precision precision : Precision.values())
+		{
+			NeuralNet net = TestData.newNet(precision);
+			PrecisionCheck.trainOneEpoch(net, TestData.clusters(90, 7));
+			InferenceEngine engine = new InferenceEngine(net);
+			
+			try (ScoringServer server = new ScoringServer(engine, 0, 16, 2000)) {
+				ScoringLoadTest.Result result = ScoringLoadTest.run(server, engine, new ListDataset(TestData.clusters(120, 8)), 6, 40);
+				assertEquals(0, result.failures, precision.toString());
+				assertEquals(0, result.mismatches, precision.toString());
+			}
+		}
+	}
+	
+	@Test
+	void adminEndpointsAreOffByDefault() throws IOException, InterruptedException
+	{
+		try (ScoringServer server = new ScoringServer(new InferenceEngine(TestData.newNet(Precision.DOUBLE)), 0, 16, 500)) {
+			assertEquals(403, post(server, "/models/rollback", TOKEN));
+		}
+	}
+	
+	@Test
+	void adminEndpointsLoadOnlyBinaryModelsInsideTheDirectory() throws IOException, InterruptedException
+	{
+		Path models = Files.createDirectory(dir.resolve("models"));
+		IOManager io = new IOManager();
+		io.saveModel(models.resolve("next.nnm").toString(), TestData.newNet(Precision.DOUBLE));
+		io.save(models.resolve("old.ser").toString(), TestData.newNet(Precision.DOUBLE));
+		io.saveModel(dir.resolve("outside.nnm").toString(), TestData.newNet(Precision.DOUBLE));
+		
+		ModelRegistry registry = new ModelRegistry();
+		registry.publish(ScoringServer.DEFAULT_MODEL, TestData.newNet(Precision.DOUBLE), "test");
+		try (ScoringServer server = new ScoringServer(registry, 0, 16, 500, models, TOKEN)) {
+			assertEquals(403, post(server, "/models/load?file=next.nnm", null));
+			assertEquals(403, post(server, "/models/load?file=next.nnm", "wrong"));
+			assertEquals(403, post(server, "/models/load?file=" + encode("../outside.nnm"), TOKEN));
+			assertEquals(403, post(server, "/models/load?file=" + encode(dir.resolve("outside.nnm").toString()), TOKEN));
+			assertEquals(500, post(server, "/models/load?file=old.ser", TOKEN));
+			
+			assertEquals(200, post(server, "/models/load?file=next.nnm", TOKEN));
+			assertEquals(2, registry.get(ScoringServer.DEFAULT_MODEL).getVersion());
+			assertEquals(200, post(server, "/models/rollback", TOKEN));
+			assertEquals(1, registry.get(ScoringServer.DEFAULT_MODEL).getVersion());
+		}
+	}
+	
+	@Test
+	void removedModelAnswersNotFound() throws IOException, InterruptedException
+	{
+		ModelRegistry registry = new ModelRegistry();
+		registry.publish(ScoringServer.DEFAULT_MODEL, TestData.newNet(Precision.DOUBLE), "test");
+		registry.publish("other", TestData.newNet(Precision.DOUBLE), "test");
+		try (ScoringServer server = new ScoringServer(registry, 0, 16, 500)) {
+			assertEquals(200, predict(server, "other"));
+			assertTrue(server.getStats().contains("other: "));
+			
+			registry.remove("other");
+			assertEquals(404, predict(server, "other"));
+			// Its batcher is closed and dropped, and the other model is still served
+			assertFalse(server.getStats().contains("other: "));
+			assertEquals(200, predict(server, ScoringServer.DEFAULT_MODEL));
+		}
+	}
+	
+	/**
+	 * Sends the model one sample of zeros.
+	 * @return The response's status code.
+	 */
+	private static int predict(ScoringServer server, String model) throws IOException, InterruptedException
+	{
+		String sample = String.join(",", Collections.nCopies(TestData.NUM_INPUTS, "0"));
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + "/predict?model=" + encode(model)))
+				.POST(HttpRequest.BodyPublishers.ofString(sample + "\n")).build();
+		return HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString()).statusCode();
+	}
+	
+	private static int post(ScoringServer server, String path, String token) throws IOException, InterruptedException
+	{
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+				.POST(HttpRequest.BodyPublishers.noBody());
+		if (token != null)
+		{
+			request.header(ScoringServer.ADMIN_TOKEN_HEADER, token);
+		}
+		return HttpClient.newHttpClient().send(request.build(), HttpResponse.BodyHandlers.ofString()).statusCode();
+	}
+	
+	private static String encode(String s)
+	{
+		return URLEncoder.encode(s, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,95 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Checks that ShuffleBuffer returns a permutation of its source, every sample exactly once, whatever its
+ * capacity, that it moves a sample at most capacity - 1 places earlier, and that a seed fixes the order.
+**/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ShuffleBufferTest {
+	private static final int SIZE = 1000;
+	
+	@Test
+	void yieldsEverySampleOnce()
+	{
+		for(int capacity : new int[] {1, 2, 10, 64, SIZE - 1, SIZE, 5 * SIZE})
+		{
+			List<Integer> order = shuffle(capacity, new Random(capacity));
+			assertEquals(SIZE, order.size(), "capacity " + capacity);
+			boolean[] seen = new boolean[SIZE];
+			for(int sample : order)
+			{
+				assertFalse(seen[sample], "sample " + sample + " returned twice with capacity " + capacity);
+				seen[sample] = true;
+			}
+			
+			if (capacity == 1)
+			{
+				assertEquals(range(), order);
+			}
+			else
+			{
+				assertNotEquals(range(), order, "capacity " + capacity);
+			}
+		}
+	}
+	
+	@Test
+	void movesSamplesAtMostCapacityEarlier()
+	{
+		int capacity = 16;
+		List<Integer> order = shuffle(capacity, new Random(1));
+		for(int position = 0; position < order.size(); position++)
+		{
+			// Only the next capacity samples of the source have been read when this one is returned
+			assertTrue(order.get(position) < position + capacity, "sample " + order.get(position) + " at " + position);
+		}
+	}
+	
+	@Test
+	void seedFixesTheOrder()
+	{
+		assertEquals(shuffle(32, new Random(7)), shuffle(32, new Random(7)));
+		assertNotEquals(shuffle(32, new Random(7)), shuffle(32, new Random(8)));
+	}
+	
+	@Test
+	void emptyAndExhaustedBuffersHaveNoNext()
+	{
+		ShuffleBuffer<Integer> empty = new ShuffleBuffer<>(new ArrayList<Integer>().iterator(), 4, new Random(1));
+		assertFalse(empty.hasNext());
+		assertThrows(NoSuchElementException.class, empty::next);
+		assertThrows(IllegalArgumentException.class, () -> new ShuffleBuffer<>(range().iterator(), 0, new Random(1)));
+	}
+	
+	private static List<Integer> shuffle(int capacity, Random random)
+	{
+		ShuffleBuffer<Integer> buffer = new ShuffleBuffer<>(range().iterator(), capacity, random);
+		List<Integer> order = new ArrayList<>();
+		while(buffer.hasNext())
+		{
+			order.add(buffer.next());
+		}
+		return order;
+	}
+	
+	private static List<Integer> range()
+	{
+		List<Integer> samples = new ArrayList<>();
+		for(int i = 0; i < SIZE; i++)
+		{
+			samples.add(i);
+		}
+		return samples;
+	}
+}
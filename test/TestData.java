@@ -0,0 +1,151 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Helpers shared by the tests: small fixed datasets of NUM_CLASSES well separated clusters of NUM_INPUTS
+ * features in [0, 1], generated from a seed so that every run sees the same samples, random MNIST style CSVs, random
+ * matrices, small networks, and bit for bit comparison of matrices and networks.
+**/
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class TestData {
+	static final int NUM_INPUTS = 20;
+	static final int NUM_CLASSES = 3;
+	static final int MNIST_PIXELS = 28 * 28;
+	
+	/**
+	 * @return size samples {x, one-hot y}, their classes in turn, each the class's centre plus a little noise.
+	 */
+	static ArrayList<Matrix[]> clusters(int size, long seed)
+	{
+		Random centres = new Random(42);
+		double[][] centre = new double[NUM_CLASSES][NUM_INPUTS];
+		for(double[] c : centre)
+		{
+			for(int i = 0; i < NUM_INPUTS; i++)
+			{
+				c[i] = centres.nextDouble();
+			}
+		}
+		
+		Random random = new Random(seed);
+		ArrayList<Matrix[]> samples = new ArrayList<>();
+		for(int s = 0; s < size; s++)
+		{
+			int label = s % NUM_CLASSES;
+			Matrix x = new Matrix(NUM_INPUTS, 1);
+			for(int i = 0; i < NUM_INPUTS; i++)
+			{
+				x.setElement(i, 0, Math.min(1, Math.max(0, centre[label][i] + 0.1 * random.nextGaussian())));
+			}
+			Matrix y = new Matrix(NUM_CLASSES, 1);
+			y.setElement(label, 0, 1);
+			samples.add(new Matrix[] {x, y});
+		}
+		return samples;
+	}
+	
+	/**
+	 * Writes an MNIST style CSV of size random digits, each its class followed by MNIST_PIXELS intensities from 0 to 255.
+	 * @return The file.
+	 */
+	static Path mnistCSV(Path directory, int size, long seed) throws IOException
+	{
+		Random random = new Random(seed);
+		StringBuilder csv = new StringBuilder();
+		for(int s = 0; s < size; s++)
+		{
+			csv.append(random.nextInt(10));
+			for(int i = 0; i < MNIST_PIXELS; i++)
+			{
+				// Mostly blank like real digits, with every intensity possible
+				csv.append(',').append(random.nextInt(4) == 0 ? random.nextInt(256) : 0);
+			}
+			csv.append('\n');
+		}
+		return Files.writeString(directory.resolve("digits-" + seed + ".csv"), csv);
+	}
+	
+	static NeuralNet newNet(Precision precision)
+	{
+		NeuralNet net = new NeuralNet(NUM_INPUTS, NUM_CLASSES, 2, 16, precision);
+		net.setDeterministic(true);
+		net.setBatchSize(10);
+		return net;
+	}
+	
+	/**
+	 * Train for one epoch over the data in its list order, batchSize samples at a time.
+	 */
+	static void trainInOrder(NeuralNet net, List<Matrix[]> data, int batchSize)
+	{
+		for(int from = 0; from < data.size(); from += batchSize)
+		{
+			net.trainBatch(data.subList(from, Math.min(from + batchSize, data.size())));
+		}
+	}
+	
+	/**
+	 * @return Whether a and b give bit for bit the same outputs for every sample of data, which they only do
+	 * if their weights are the same.
+	 */
+	static boolean samePredictions(NeuralNet a, NeuralNet b, List<Matrix[]> data)
+	{
+		for(Matrix[] datum : data)
+		{
+			if (!sameElements(a.getPrediction(datum[0]), b.getPrediction(datum[0])))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	static Matrix randomMatrix(int height, int width, Precision precision, Random random)
+	{
+		Matrix m = new Matrix(height, width);
+		m.populateRandom(random);
+		return m.toPrecision(precision);
+	}
+	
+	/**
+	 * @return Whether a and b have the same size and precision and bit for bit the same elements.
+	 */
+	static boolean sameElements(Matrix a, Matrix b)
+	{
+		if (a.getHeight() != b.getHeight() || a.getWidth() != b.getWidth() || a.getPrecision() != b.getPrecision())
+		{
+			return false;
+		}
+		for(int i = 0; i < a.getHeight(); i++)
+		{
+			for(int j = 0; j < a.getWidth(); j++)
+			{
+				if (Double.doubleToLongBits(a.getElement(i, j)) != Double.doubleToLongBits(b.getElement(i, j)))
+				{
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * @return Whether every layer of a and b has bit for bit the same weights and biases.
+	 */
+	static boolean sameWeights(NeuralNet a, NeuralNet b)
+	{
+		for(int layer = 0; layer < a.getLayerSizes().length - 1; layer++)
+		{
+			if (!sameElements(a.getWeights(layer), b.getWeights(layer)) || !sameElements(a.getBiases(layer), b.getBiases(layer)))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,87 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Checks that once its workspace is set up, a single threaded training step on a packed batch allocates
+ * nothing on the heap. The step runs in a JVM of its own: the other tests train with other precisions, activations and
+ * optimizers, after which the JIT no longer removes every short-lived kernel lambda, while a training process only
+ * ever runs the one network.
+**/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.management.ThreadMXBean;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class TrainingAllocationTest {
+	private static final int BATCH_SIZE = 32;
+	private static final int WARMUP_STEPS = 20000;
+	private static final int STEPS = 10000;
+	
+	@Test
+	void steadyStateStepDoesNotAllocate() throws IOException, InterruptedException
+	{
+		List<String> command = new ArrayList<>();
+		command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+		// The same modules as this JVM, for the Vector API kernels
+		List<String> jvmArgs = ManagementFactory.getRuntimeMXBean().getInputArguments();
+		for(int i = 0; i < jvmArgs.size(); i++)
+		{
+			if (jvmArgs.get(i).startsWith("--add-modules"))
+			{
+				command.add(jvmArgs.get(i));
+				if (jvmArgs.get(i).equals("--add-modules") && i + 1 < jvmArgs.size())
+				{
+					command.add(jvmArgs.get(++i));
+				}
+			}
+		}
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(TrainingAllocationTest.class.getName());
+		
+		Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+		String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+		assertEquals(0, process.waitFor(), output);
+		String[] lines = output.split("\\R");
+		double perStep = Double.parseDouble(lines[lines.length - 1]);
+		assertTrue(perStep < 1, perStep + " bytes allocated per step");
+	}
+	
+	/**
+	 * Trains a small network on one batch until the JIT has compiled the step, then prints the bytes
+	 * allocated per step.
+	 */
+	public static void main(String[] args)
+	{
+		NeuralNet net = TestData.newNet(Precision.DOUBLE);
+		net.setNumThreads(1);
+		Random random = new Random(5);
+		Matrix x = TestData.randomMatrix(TestData.NUM_INPUTS, BATCH_SIZE, Precision.DOUBLE, random);
+		Matrix y = new Matrix(TestData.NUM_CLASSES, BATCH_SIZE);
+		for(int j = 0; j < BATCH_SIZE; j++)
+		{
+			y.setElement(j % TestData.NUM_CLASSES, j, 1);
+		}
+		
+		for(int i = 0; i < WARMUP_STEPS; i++)
+		{
+			net.trainBatch(x, y);
+		}
+		
+		ThreadMXBean threads = (ThreadMXBean)ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		long start = threads.getThreadAllocatedBytes(thread);
+		for(int i = 0; i < STEPS; i++)
+		{
+			net.trainBatch(x, y);
+		}
+		System.out.println((double)(threads.getThreadAllocatedBytes(thread) - start) / STEPS);
+	}
+}
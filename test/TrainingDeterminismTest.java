@@ -0,0 +1,92 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Checks that multi-threaded training gives bit for bit the same network when it is repeated with the
+ * same number of threads, and whether or not batches are prefetched on background threads.
+**/
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class TrainingDeterminismTest {
+	private final ArrayList<Matrix[]> data = TestData.clusters(300, 6);
+	
+	@Test
+	void sameThreadCountGivesSameNetwork()
+	{
+		for(Precision precision : Precision.values())
+		{
+			for(int threads : new int[] {1, 2, 3})
+			{
+				NeuralNet[] nets = new NeuralNet[2];
+				for(int run = 0; run < nets.length; run++)
+				{
+					nets[run] = TestData.newNet(precision);
+					nets[run].setBatchSize(30);
+					nets[run].setNumThreads(threads);
+					TestData.trainInOrder(nets[run], data, 30);
+					TestData.trainInOrder(nets[run], data, 30);
+				}
+				assertTrue(TestData.samePredictions(nets[0], nets[1], data), precision + ", " + threads + " threads");
+			}
+		}
+	}
+	
+	@Test
+	void prefetchingDoesNotChangePartialFit()
+	{
+		ArrayList<Matrix[]> samples = TestData.clusters(253, 3);
+		ListDataset dataset = new ListDataset(samples);
+		for(Precision precision : Precision.values())
+		{
+			NeuralNet direct = TestData.newNet(precision);
+			direct.partialFit(dataset);
+			direct.partialFit(dataset);
+			
+			for(int depth : new int[] {1, 2, 5})
+			{
+				NeuralNet prefetched = TestData.newNet(precision);
+				prefetched.setPrefetch(depth, 2);
+				prefetched.partialFit(dataset);
+				prefetched.partialFit(dataset);
+				assertTrue(TestData.samePredictions(direct, prefetched, samples), precision + " depth " + depth);
+			}
+		}
+	}
+	
+	@Test
+	void prefetchingDoesNotChangeTrain()
+	{
+		ArrayList<Matrix[]> train = TestData.clusters(157, 4);
+		ArrayList<Matrix[]> test = TestData.clusters(30, 5);
+		
+		NeuralNet direct = TestData.newNet(Precision.DOUBLE);
+		direct.train(train, test);
+		NeuralNet prefetched = TestData.newNet(Precision.DOUBLE);
+		prefetched.setPrefetch(3, 2);
+		prefetched.train(train, test);
+		
+		assertTrue(TestData.samePredictions(direct, prefetched, train));
+	}
+	
+	@Test
+	void differentOrderGivesDifferentNetwork()
+	{
+		// So the check above can fail
+		NeuralNet net = TestData.newNet(Precision.DOUBLE);
+		net.setNumThreads(3);
+		TestData.trainInOrder(net, data, 30);
+		
+		ArrayList<Matrix[]> shuffled = new ArrayList<>(data);
+		Collections.shuffle(shuffled, new Random(1));
+		NeuralNet other = TestData.newNet(Precision.DOUBLE);
+		other.setNumThreads(3);
+		TestData.trainInOrder(other, shuffled, 30);
+		
+		assertFalse(TestData.samePredictions(net, other, data));
+	}
+}
@@ -0,0 +1,103 @@
+/**
+ * Date Written: 10/16/2026
+ * Description: Checks that training reports every epoch to its listeners, with the samples, batches, phase times and
+ * loss of that epoch, and that an epoch's allocation includes the batch loader threads, even when they have exited by
+ * the time the epoch ends.
+**/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class TrainingTelemetryTest {
+	private static final int GARBAGE_BYTES = 1 << 20;
+	
+	@Test
+	void reportsEveryEpoch()
+	{
+		ListDataset data = new ListDataset(TestData.clusters(100, 9));
+		NeuralNet net = TestData.newNet(Precision.DOUBLE);
+		List<EpochStats> epochs = new ArrayList<>();
+		TrainingListener listener = epochs::add;
+		net.addTrainingListener(listener);
+		
+		net.partialFit(data);
+		net.partialFit(data);
+		assertEquals(2, epochs.size());
+		for(int e = 0; e < epochs.size(); e++)
+		{
+			EpochStats stats = epochs.get(e);
+			assertEquals(e + 1, stats.getEpoch());
+			assertEquals(100, stats.getSamples());
+			assertEquals(10, stats.getBatches());
+			assertTrue(stats.getForwardNanos() > 0 && stats.getBackwardNanos() > 0 && stats.getUpdateNanos() > 0, stats.toString());
+			assertTrue(stats.getLoss() > 0 && Double.isFinite(stats.getLoss()), stats.toString());
+		}
+		assertTrue(epochs.get(1).getLoss() < epochs.get(0).getLoss(), "loss went from " + epochs.get(0).getLoss() + " to " + epochs.get(1).getLoss());
+		
+		net.removeTrainingListener(listener);
+		net.partialFit(data);
+		assertEquals(2, epochs.size());
+	}
+	
+	@Test
+	void countsThreadsThatExitDuringTheEpoch()
+	{
+		ListDataset data = new ListDataset(TestData.clusters(100, 9));
+		NeuralNet net = TestData.newNet(Precision.DOUBLE);
+		net.setPrefetch(2, 2);
+		List<EpochStats> epochs = new ArrayList<>();
+		net.addTrainingListener(epochs::add);
+		
+		// partialFit closes its prefetcher, and so ends the loader threads, before it ends the epoch
+		net.partialFit(new GarbageDataset(data));
+		assertTrue(epochs.get(0).getAllocatedBytes() >= (long)data.size() * GARBAGE_BYTES, epochs.get(0).toString());
+	}
+	
+	/**
+	 * A dataset that allocates GARBAGE_BYTES every time a sample is loaded.
+	 */
+	private static final class GarbageDataset implements Dataset {
+		private final Dataset data;
+		volatile byte[] sink;
+		
+		GarbageDataset(Dataset data)
+		{
+			this.data = data;
+		}
+		
+		@Override
+		public int size()
+		{
+			return data.size();
+		}
+		
+		@Override
+		public int getNumFeatures()
+		{
+			return data.getNumFeatures();
+		}
+		
+		@Override
+		public int getNumClasses()
+		{
+			return data.getNumClasses();
+		}
+		
+		@Override
+		public int getLabel(int index)
+		{
+			return data.getLabel(index);
+		}
+		
+		@Override
+		public void copyTo(int index, Matrix inputs, Matrix targets, int column)
+		{
+			sink = new byte[GARBAGE_BYTES];
+			data.copyTo(index, inputs, targets, column);
+		}
+	}
+}